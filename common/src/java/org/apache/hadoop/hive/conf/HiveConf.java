@@ -199,6 +199,9 @@ public static enum ConfVars {
     CLIENTSTATSPUBLISHERS("hive.client.stats.publishers", ""),
     EXECPARALLEL("hive.exec.parallel", false), // parallel query launching
     EXECPARALLETHREADNUMBER("hive.exec.parallel.thread.number", 8),
+    // compile queries of different sessions concurrently, at most the given number at once
+    HIVE_DRIVER_PARALLEL_COMPILATION("hive.driver.parallel.compilation", false),
+    HIVE_DRIVER_PARALLEL_COMPILATION_LIMIT("hive.driver.parallel.compilation.limit", 0),
     HIVESPECULATIVEEXECREDUCERS("hive.mapred.reduce.tasks.speculative.execution", true),
     HIVECOUNTERSPULLINTERVAL("hive.exec.counters.pull.interval", 1000L),
     DYNAMICPARTITIONING("hive.exec.dynamic.partition", true),
@@ -342,6 +345,8 @@ public static enum ConfVars {
     METASTORE_BATCH_RETRIEVE_MAX("hive.metastore.batch.retrieve.max", 300),
     METASTORE_BATCH_RETRIEVE_TABLE_PARTITION_MAX(
       "hive.metastore.batch.retrieve.table.partition.max", 1000),
+    METASTORE_BATCH_RETRIEVE_EXPR_PARTITION_MAX(
+      "hive.metastore.batch.retrieve.expr.partition.max", 1000),
     // A comma separated list of hooks which implement MetaStoreInitListener and will be run at
     // the beginning of HMSHandler initialization
     METASTORE_INIT_HOOKS("hive.metastore.init.hooks", ""),
@@ -359,6 +364,11 @@ public static enum ConfVars {
     METASTORE_INTEGER_JDO_PUSHDOWN("hive.metastore.integral.jdo.pushdown", false),
     METASTORE_TRY_DIRECT_SQL("hive.metastore.try.direct.sql", true),
     METASTORE_TRY_DIRECT_SQL_DDL("hive.metastore.try.direct.sql.ddl", true),
+    METASTORE_TRY_DIRECT_SQL_WRITE("hive.metastore.try.direct.sql.write", false),
+    // Number of entries and time to live in seconds of the cache of column statistics
+    // aggregated over partitions; a size of 0 disables the cache.
+    METASTORE_AGGREGATE_STATS_CACHE_SIZE("hive.metastore.aggregate.stats.cache.size", 10000L),
+    METASTORE_AGGREGATE_STATS_CACHE_TTL("hive.metastore.aggregate.stats.cache.ttl", 600L),
     METASTORE_DISALLOW_INCOMPATIBLE_COL_TYPE_CHANGES(
         "hive.metastore.disallow.incompatible.col.type.changes", false),
 
@@ -368,6 +378,11 @@ public static enum ConfVars {
     DDL_CTL_PARAMETERS_WHITELIST("hive.ddl.createtablelike.properties.whitelist", ""),
     METASTORE_RAW_STORE_IMPL("hive.metastore.rawstore.impl",
         "org.apache.hadoop.hive.metastore.ObjectStore"),
+    // The store CachedStore reads through, and the bounds of its cache
+    METASTORE_CACHED_RAW_STORE_IMPL("hive.metastore.cached.rawstore.impl",
+        "org.apache.hadoop.hive.metastore.ObjectStore"),
+    METASTORE_CACHED_RAW_STORE_MAX_OBJECTS("hive.metastore.cached.rawstore.max.objects", 100000L),
+    METASTORE_CACHED_RAW_STORE_TTL("hive.metastore.cached.rawstore.ttl", 60L),
     METASTORE_CONNECTION_DRIVER("javax.jdo.option.ConnectionDriverName",
         "org.apache.derby.jdbc.EmbeddedDriver"),
     METASTORE_MANAGER_FACTORY_CLASS("javax.jdo.PersistenceManagerFactoryClass",
@@ -446,6 +461,7 @@ public static enum ConfVars {
     HIVEMAPJOINBUCKETCACHESIZE("hive.mapjoin.bucket.cache.size", 100),
     HIVEMAPJOINUSEOPTIMIZEDKEYS("hive.mapjoin.optimized.keys", true),
     HIVEMAPJOINLAZYHASHTABLE("hive.mapjoin.lazy.hashtable", true),
+    HIVEMAPJOINUSEOPTIMIZEDTABLE("hive.mapjoin.optimized.hashtable", false),
 
     HIVESMBJOINCACHEROWS("hive.smbjoin.cache.rows", 10000),
     HIVEGROUPBYMAPINTERVAL("hive.groupby.mapaggr.checkinterval", 100000),
@@ -453,6 +469,8 @@ public static enum ConfVars {
     HIVEMAPJOINFOLLOWEDBYMAPAGGRHASHMEMORY("hive.mapjoin.followby.map.aggr.hash.percentmemory", (float) 0.3),
     HIVEMAPAGGRMEMORYTHRESHOLD("hive.map.aggr.hash.force.flush.memory.threshold", (float) 0.9),
     HIVEMAPAGGRHASHMINREDUCTION("hive.map.aggr.hash.min.reduction", (float) 0.5),
+    HIVEMAPAGGRHASHSPILL("hive.map.aggr.hash.spill", false),
+    HIVEMAPAGGRHASHSPILLPARTITIONS("hive.map.aggr.hash.spill.partitions", 16),
     HIVEMULTIGROUPBYSINGLEREDUCER("hive.multigroupby.singlereducer", true),
     HIVE_MAP_GROUPBY_SORT("hive.map.groupby.sorted", false),
     HIVE_MAP_GROUPBY_SORT_TESTMODE("hive.map.groupby.sorted.testmode", false),
@@ -524,6 +542,7 @@ public static enum ConfVars {
     HIVEMERGEMAPFILESSIZE("hive.merge.size.per.task", (long) (256 * 1000 * 1000)),
     HIVEMERGEMAPFILESAVGSIZE("hive.merge.smallfiles.avgsize", (long) (16 * 1000 * 1000)),
     HIVEMERGERCFILEBLOCKLEVEL("hive.merge.rcfile.block.level", true),
+    HIVEMERGEORCFILESTRIPELEVEL("hive.merge.orcfile.stripe.level", true),
     HIVEMERGEINPUTFORMATBLOCKLEVEL("hive.merge.input.format.block.level",
         "org.apache.hadoop.hive.ql.io.rcfile.merge.RCFileBlockMergeInputFormat"),
     HIVEMERGECURRENTJOBHASDYNAMICPARTITIONS(
@@ -551,12 +570,18 @@ public static enum ConfVars {
         true),
     // Define the default compression codec for ORC file
     HIVE_ORC_DEFAULT_COMPRESS("hive.exec.orc.default.compress", "ZLIB"),
+    // Define the default false positive probability of the ORC bloom filters
+    HIVE_ORC_DEFAULT_BLOOM_FILTER_FPP("hive.exec.orc.default.bloom.filter.fpp", 0.05f),
     HIVE_ORC_INCLUDE_FILE_FOOTER_IN_SPLITS("hive.orc.splits.include.file.footer", false),
     HIVE_ORC_CACHE_STRIPE_DETAILS_SIZE("hive.orc.cache.stripe.details.size", 10000),
     HIVE_ORC_COMPUTE_SPLITS_NUM_THREADS("hive.orc.compute.splits.num.threads", 10),
+    HIVE_ORC_SPLITS_SKIP_FOOTERS("hive.orc.splits.skip.footers", false),
     HIVE_ORC_SKIP_CORRUPT_DATA("hive.exec.orc.skip.corrupt.data", false),
 
     HIVE_ORC_ZEROCOPY("hive.exec.orc.zerocopy", false),
+    HIVE_ORC_PREFETCH_STRIPES("hive.exec.orc.prefetch.stripes", false),
+    HIVE_ORC_PREFETCH_MAX_BYTES("hive.exec.orc.prefetch.max.bytes", 256L * 1024 * 1024),
+    HIVE_ORC_METADATA_CACHE_MAX_BYTES("hive.exec.orc.metadata.cache.max.bytes", 0L),
 
     HIVESKEWJOIN("hive.optimize.skewjoin", false),
     HIVECONVERTJOIN("hive.auto.convert.join", true),
@@ -578,6 +603,7 @@ public static enum ConfVars {
 
     HIVEHASHTABLETHRESHOLD("hive.hashtable.initialCapacity", 100000),
     HIVEHASHTABLELOADFACTOR("hive.hashtable.loadfactor", (float) 0.75),
+    HIVEHASHTABLEWBSIZE("hive.mapjoin.optimized.hashtable.wbsize", 10 * 1024 * 1024),
     HIVEHASHTABLEFOLLOWBYGBYMAXMEMORYUSAGE("hive.mapjoin.followby.gby.localtask.max.memory.usage", (float) 0.55),
     HIVEHASHTABLEMAXMEMORYUSAGE("hive.mapjoin.localtask.max.memory.usage", (float) 0.90),
     HIVEHASHTABLESCALE("hive.mapjoin.check.memory.rows", (long)100000),
@@ -990,6 +1016,10 @@ public static enum ConfVars {
     HIVE_VECTORIZATION_GROUPBY_CHECKINTERVAL("hive.vectorized.groupby.checkinterval", 100000),
     HIVE_VECTORIZATION_GROUPBY_MAXENTRIES("hive.vectorized.groupby.maxentries", 1000000),
     HIVE_VECTORIZATION_GROUPBY_FLUSH_PERCENT("hive.vectorized.groupby.flush.percent", (float) 0.1),
+    HIVE_VECTORIZATION_MAPJOIN_NATIVE_ENABLED(
+        "hive.vectorized.execution.mapjoin.native.enabled", false),
+    HIVE_VECTORIZATION_REDUCE_ENABLED("hive.vectorized.execution.reduce.enabled", false),
+    HIVE_VECTORIZATION_TEXT_ENABLED("hive.vectorized.execution.text.enabled", false),
 
 
     HIVE_TYPE_CHECK_ON_INSERT("hive.typecheck.on.insert", true),
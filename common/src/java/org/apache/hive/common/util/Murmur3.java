@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hive.common.util;
+
+/**
+ * Murmur3 is a non-cryptographic hash function, see
+ * https://code.google.com/p/smhasher/wiki/MurmurHash3
+ *
+ * The 64 bit hash is the first half of the 128 bit x64 variant of the
+ * reference implementation.
+ */
+public final class Murmur3 {
+  public static final int DEFAULT_SEED = 104729;
+
+  private static final long C1 = 0x87c37b91114253d5L;
+  private static final long C2 = 0x4cf5ad432745937fL;
+  private static final int R1 = 31;
+  private static final int R2 = 27;
+  private static final int R3 = 33;
+  private static final int M = 5;
+  private static final int N1 = 0x52dce729;
+  private static final int N2 = 0x38495ab5;
+
+  private Murmur3() {
+  }
+
+  /**
+   * Murmur3 64-bit hash of a byte array.
+   */
+  public static long hash64(byte[] data) {
+    return hash64(data, 0, data.length, DEFAULT_SEED);
+  }
+
+  /**
+   * Murmur3 64-bit hash of a range of a byte array.
+   *
+   * @param data the input bytes
+   * @param offset the offset of the first byte to hash
+   * @param length the number of bytes to hash
+   * @param seed the seed of the hash
+   * @return the 64 bit hash
+   */
+  public static long hash64(byte[] data, int offset, int length, int seed) {
+    long h1 = seed;
+    long h2 = seed;
+    int nblocks = length >> 4;
+
+    // body
+    for (int i = 0; i < nblocks; i++) {
+      int i16 = offset + (i << 4);
+      long k1 = getLong(data, i16);
+      long k2 = getLong(data, i16 + 8);
+
+      k1 *= C1;
+      k1 = Long.rotateLeft(k1, R1);
+      k1 *= C2;
+      h1 ^= k1;
+      h1 = Long.rotateLeft(h1, R2);
+      h1 += h2;
+      h1 = h1 * M + N1;
+
+      k2 *= C2;
+      k2 = Long.rotateLeft(k2, R3);
+      k2 *= C1;
+      h2 ^= k2;
+      h2 = Long.rotateLeft(h2, R1);
+      h2 += h1;
+      h2 = h2 * M + N2;
+    }
+
+    // tail
+    long k1 = 0;
+    long k2 = 0;
+    int tail = offset + (nblocks << 4);
+    switch (length - (nblocks << 4)) {
+      case 15:
+        k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+      case 14:
+        k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+      case 13:
+        k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+      case 12:
+        k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+      case 11:
+        k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+      case 10:
+        k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+      case 9:
+        k2 ^= (long) (data[tail + 8] & 0xff);
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, R3);
+        k2 *= C1;
+        h2 ^= k2;
+      case 8:
+        k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+      case 7:
+        k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+      case 6:
+        k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+      case 5:
+        k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+      case 4:
+        k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+      case 3:
+        k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+      case 2:
+        k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+      case 1:
+        k1 ^= (long) (data[tail] & 0xff);
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, R1);
+        k1 *= C2;
+        h1 ^= k1;
+      default:
+        break;
+    }
+
+    // finalization
+    h1 ^= length;
+    h2 ^= length;
+
+    h1 += h2;
+    h2 += h1;
+
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+
+    return h1 + h2;
+  }
+
+  /**
+   * Murmur3 64-bit hash of a long, equivalent to hashing its 8 little
+   * endian bytes without the byte array.
+   */
+  public static long hash64(long data) {
+    long h1 = DEFAULT_SEED;
+    long h2 = DEFAULT_SEED;
+    long k1 = data;
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, R1);
+    k1 *= C2;
+    h1 ^= k1;
+
+    h1 ^= 8;
+    h2 ^= 8;
+
+    h1 += h2;
+    h2 += h1;
+
+    h1 = fmix64(h1);
+    h2 = fmix64(h2);
+
+    return h1 + h2;
+  }
+
+  private static long getLong(byte[] data, int offset) {
+    return ((long) data[offset] & 0xff)
+        | (((long) data[offset + 1] & 0xff) << 8)
+        | (((long) data[offset + 2] & 0xff) << 16)
+        | (((long) data[offset + 3] & 0xff) << 24)
+        | (((long) data[offset + 4] & 0xff) << 32)
+        | (((long) data[offset + 5] & 0xff) << 40)
+        | (((long) data[offset + 6] & 0xff) << 48)
+        | (((long) data[offset + 7] & 0xff) << 56);
+  }
+
+  private static long fmix64(long h) {
+    h ^= (h >>> 33);
+    h *= 0xff51afd7ed558ccdL;
+    h ^= (h >>> 33);
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= (h >>> 33);
+    return h;
+  }
+}
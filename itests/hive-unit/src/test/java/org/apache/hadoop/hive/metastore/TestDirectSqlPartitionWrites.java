@@ -0,0 +1,384 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.metastore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.DropPartitionsRequest;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Order;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.RequestPartsSpec;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.model.MPartition;
+import org.apache.hadoop.hive.metastore.model.MSerDeInfo;
+import org.apache.hadoop.hive.metastore.model.MStorageDescriptor;
+import org.apache.hadoop.hive.metastore.model.MTable;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests adding, altering and dropping partitions with batched direct SQL writes, in an
+ * embedded metastore.
+ */
+public class TestDirectSqlPartitionWrites {
+  private static final String DB_NAME = "direct_sql_writes";
+  private static final String TBL_NAME = "parts";
+  // More than fit in one JDBC batch or one IN list.
+  private static final int NUM_PARTS = 1200;
+
+  /** How the partition writes went, e.g. "add:sql" or "drop:orm". */
+  private static final List<String> writes = Collections.synchronizedList(
+      new ArrayList<String>());
+
+  /**
+   * Records whether each partition write was done via direct SQL or fell back to DataNucleus.
+   */
+  public static class RecordingObjectStore extends ObjectStore {
+    @Override
+    boolean addPartitionsViaSql(String dbName, String tblName, MTable table,
+        List<Partition> parts) throws MetaException {
+      return record("add", super.addPartitionsViaSql(dbName, tblName, table, parts));
+    }
+
+    @Override
+    boolean alterPartitionsViaSql(String dbName, String tblName, List<List<String>> partVals,
+        List<Partition> newParts) throws MetaException {
+      return record("alter", super.alterPartitionsViaSql(dbName, tblName, partVals, newParts));
+    }
+
+    @Override
+    boolean dropPartitionsViaSql(String dbName, String tblName, List<String> partNames)
+        throws MetaException {
+      return record("drop", super.dropPartitionsViaSql(dbName, tblName, partNames));
+    }
+
+    private static boolean record(String write, boolean viaSql) {
+      writes.add(write + (viaSql ? ":sql" : ":orm"));
+      return viaSql;
+    }
+  }
+
+  private HiveConf hiveConf;
+  private HiveMetaStore.HMSHandler handler;
+  private Table table;
+  private Connection conn;
+
+  @Before
+  public void setUp() throws Exception {
+    hiveConf = new HiveConf(this.getClass());
+    hiveConf.setVar(HiveConf.ConfVars.METASTORE_RAW_STORE_IMPL,
+        RecordingObjectStore.class.getName());
+    hiveConf.setBoolVar(HiveConf.ConfVars.METASTORE_TRY_DIRECT_SQL, true);
+    hiveConf.setBoolVar(HiveConf.ConfVars.METASTORE_TRY_DIRECT_SQL_DDL, true);
+    hiveConf.setBoolVar(HiveConf.ConfVars.METASTORE_TRY_DIRECT_SQL_WRITE, true);
+    handler = new HiveMetaStore.HMSHandler("TestDirectSqlPartitionWrites", hiveConf);
+    try {
+      handler.drop_database(DB_NAME, true, true);
+    } catch (NoSuchObjectException e) {
+      // ignore
+    }
+    handler.create_database(new Database(DB_NAME, "", null, null));
+
+    StorageDescriptor sd = new StorageDescriptor();
+    sd.setCols(Arrays.asList(new FieldSchema("key", serdeConstants.STRING_TYPE_NAME, ""),
+        new FieldSchema("value", serdeConstants.INT_TYPE_NAME, "")));
+    sd.setInputFormat("org.apache.hadoop.mapred.TextInputFormat");
+    sd.setOutputFormat("org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat");
+    sd.setSerdeInfo(new SerDeInfo(TBL_NAME, "org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe",
+        new HashMap<String, String>()));
+    sd.getSerdeInfo().getParameters().put(serdeConstants.SERIALIZATION_FORMAT, "1");
+    sd.setNumBuckets(-1);
+    sd.setBucketCols(new ArrayList<String>());
+    sd.setSortCols(new ArrayList<Order>());
+    sd.setParameters(new HashMap<String, String>());
+    Table tbl = new Table();
+    tbl.setDbName(DB_NAME);
+    tbl.setTableName(TBL_NAME);
+    tbl.setSd(sd);
+    tbl.setPartitionKeys(Arrays.asList(
+        new FieldSchema("ds", serdeConstants.STRING_TYPE_NAME, "")));
+    tbl.setParameters(new HashMap<String, String>());
+    handler.create_table(tbl);
+    table = handler.get_table(DB_NAME, TBL_NAME);
+
+    conn = DriverManager.getConnection(
+        hiveConf.getVar(HiveConf.ConfVars.METASTORECONNECTURLKEY),
+        hiveConf.getVar(HiveConf.ConfVars.METASTORE_CONNECTION_USER_NAME),
+        hiveConf.getVar(HiveConf.ConfVars.METASTOREPWD));
+    writes.clear();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    conn.close();
+    handler.drop_database(DB_NAME, true, true);
+    handler.shutdown();
+  }
+
+  private Partition makePartition(String value) {
+    Partition part = new Partition();
+    part.setDbName(DB_NAME);
+    part.setTableName(TBL_NAME);
+    part.setValues(Arrays.asList(value));
+    part.setSd(table.getSd().deepCopy());
+    part.getSd().setLocation(null);
+    part.getSd().getParameters().put("sd_param", value);
+    part.setParameters(new HashMap<String, String>());
+    part.getParameters().put("part_param", value);
+    return part;
+  }
+
+  private List<Partition> makePartitions(String prefix, int count) {
+    List<Partition> parts = new ArrayList<Partition>(count);
+    for (int i = 0; i < count; ++i) {
+      parts.add(makePartition(prefix + i));
+    }
+    return parts;
+  }
+
+  private long getLong(String queryText, Object... params) throws Exception {
+    List<Long> result = getLongs(queryText, params);
+    assertEquals(queryText, 1, result.size());
+    return result.get(0);
+  }
+
+  private List<Long> getLongs(String queryText, Object... params) throws Exception {
+    PreparedStatement stmt = conn.prepareStatement(queryText);
+    try {
+      for (int i = 0; i < params.length; ++i) {
+        stmt.setObject(i + 1, params[i]);
+      }
+      ResultSet rs = stmt.executeQuery();
+      List<Long> result = new ArrayList<Long>();
+      while (rs.next()) {
+        result.add(rs.getLong(1));
+      }
+      return result;
+    } finally {
+      stmt.close();
+    }
+  }
+
+  private long getNextId(Class<?> modelClass) throws Exception {
+    return getLong("select \"NEXT_VAL\" from \"SEQUENCE_TABLE\" where \"SEQUENCE_NAME\" = ?",
+        modelClass.getName());
+  }
+
+  private List<Long> getPartitionColumnIds(String column, String partName) throws Exception {
+    return getLongs("select \"SDS\".\"" + column + "\" from \"PARTITIONS\""
+        + " inner join \"SDS\" on \"PARTITIONS\".\"SD_ID\" = \"SDS\".\"SD_ID\""
+        + " inner join \"TBLS\" on \"PARTITIONS\".\"TBL_ID\" = \"TBLS\".\"TBL_ID\""
+        + " inner join \"DBS\" on \"TBLS\".\"DB_ID\" = \"DBS\".\"DB_ID\""
+        + " where \"DBS\".\"NAME\" = ? and \"TBLS\".\"TBL_NAME\" = ?"
+        + (partName == null ? "" : " and \"PARTITIONS\".\"PART_NAME\" = ?"),
+        partName == null ? new Object[] { DB_NAME, TBL_NAME }
+            : new Object[] { DB_NAME, TBL_NAME, partName });
+  }
+
+  private long countInRange(String table, String idColumn, long first, int count)
+      throws Exception {
+    return getLong("select count(*) from \"" + table + "\" where \"" + idColumn + "\" >= ?"
+        + " and \"" + idColumn + "\" < ?", first, first + count);
+  }
+
+  private void checkPartition(Partition part, String value) {
+    assertEquals(Arrays.asList(value), part.getValues());
+    assertEquals(value, part.getParameters().get("part_param"));
+    assertEquals(value, part.getSd().getParameters().get("sd_param"));
+    assertTrue(part.getSd().getLocation(), part.getSd().getLocation().endsWith("/ds=" + value));
+    assertEquals(2, part.getSd().getColsSize());
+    assertEquals("org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe",
+        part.getSd().getSerdeInfo().getSerializationLib());
+    assertEquals("1",
+        part.getSd().getSerdeInfo().getParameters().get(serdeConstants.SERIALIZATION_FORMAT));
+  }
+
+  @Test
+  public void testAddPartitions() throws Exception {
+    // The first partition makes DataNucleus create the sequences that direct SQL reserves from.
+    handler.add_partition(makePartition("first"));
+    long firstPartId = getNextId(MPartition.class);
+    long firstSdId = getNextId(MStorageDescriptor.class);
+    long firstSerdeId = getNextId(MSerDeInfo.class);
+
+    assertEquals(NUM_PARTS, handler.add_partitions(makePartitions("a", NUM_PARTS)));
+    assertEquals(Arrays.asList("add:sql"), writes);
+    // Exactly the IDs of the new rows were reserved, and they were all used.
+    assertEquals(firstPartId + NUM_PARTS, getNextId(MPartition.class));
+    assertEquals(firstSdId + NUM_PARTS, getNextId(MStorageDescriptor.class));
+    assertEquals(firstSerdeId + NUM_PARTS, getNextId(MSerDeInfo.class));
+    assertEquals(NUM_PARTS, countInRange("PARTITIONS", "PART_ID", firstPartId, NUM_PARTS));
+    assertEquals(NUM_PARTS, countInRange("SDS", "SD_ID", firstSdId, NUM_PARTS));
+    assertEquals(NUM_PARTS, countInRange("SERDES", "SERDE_ID", firstSerdeId, NUM_PARTS));
+    // The new SDs reuse the column descriptor of the table.
+    assertEquals(1, new HashSet<Long>(getPartitionColumnIds("CD_ID", null)).size());
+
+    // DataNucleus doesn't hand out the reserved IDs again.
+    handler.add_partition(makePartition("last"));
+    assertEquals(NUM_PARTS + 2, handler.get_partition_names(DB_NAME, TBL_NAME, (short)-1).size());
+    for (int i = 0; i < NUM_PARTS; i += 99) {
+      checkPartition(handler.get_partition(DB_NAME, TBL_NAME, Arrays.asList("a" + i)), "a" + i);
+    }
+    checkPartition(handler.get_partition(DB_NAME, TBL_NAME, Arrays.asList("last")), "last");
+  }
+
+  @Test
+  public void testAddPartitionsRollback() throws Exception {
+    handler.add_partition(makePartition("first"));
+    long firstPartId = getNextId(MPartition.class);
+    long firstSdId = getNextId(MStorageDescriptor.class);
+    long firstSerdeId = getNextId(MSerDeInfo.class);
+    // Take the ID of the last partition, so that inserting the partitions fails in the last
+    // batch, after the SDs, serdes and the first batch of partitions have been written.
+    long plantedId = firstPartId + NUM_PARTS - 1;
+    PreparedStatement stmt = conn.prepareStatement("insert into \"PARTITIONS\" (\"PART_ID\","
+        + " \"CREATE_TIME\", \"LAST_ACCESS_TIME\", \"PART_NAME\") values (?, 0, 0, 'planted')");
+    stmt.setLong(1, plantedId);
+    stmt.executeUpdate();
+    stmt.close();
+    try {
+      assertEquals(NUM_PARTS, handler.add_partitions(makePartitions("a", NUM_PARTS)));
+      assertEquals(Arrays.asList("add:orm"), writes);
+      // Nothing that direct SQL wrote is left.
+      assertEquals(1, countInRange("PARTITIONS", "PART_ID", firstPartId, NUM_PARTS));
+      assertEquals(0, countInRange("SDS", "SD_ID", firstSdId, NUM_PARTS));
+      assertEquals(0, countInRange("SERDES", "SERDE_ID", firstSerdeId, NUM_PARTS));
+      // DataNucleus added all of the partitions instead.
+      assertEquals(NUM_PARTS + 1,
+          handler.get_partition_names(DB_NAME, TBL_NAME, (short)-1).size());
+      for (int i = 0; i < NUM_PARTS; i += 99) {
+        checkPartition(handler.get_partition(DB_NAME, TBL_NAME, Arrays.asList("a" + i)),
+            "a" + i);
+      }
+    } finally {
+      stmt = conn.prepareStatement("delete from \"PARTITIONS\" where \"PART_ID\" = ?");
+      stmt.setLong(1, plantedId);
+      stmt.executeUpdate();
+      stmt.close();
+    }
+  }
+
+  @Test
+  public void testAlterPartitions() throws Exception {
+    handler.add_partition(makePartition("first"));
+    handler.add_partitions(makePartitions("a", NUM_PARTS));
+    List<String> names = handler.get_partition_names(DB_NAME, TBL_NAME, (short)-1);
+    List<Partition> parts = handler.get_partitions_by_names(DB_NAME, TBL_NAME, names);
+    for (Partition part : parts) {
+      String value = part.getValues().get(0) + "_altered";
+      part.getParameters().put("part_param", value);
+      part.getSd().getParameters().put("sd_param", value);
+      part.getSd().setLocation(part.getSd().getLocation() + "_altered");
+    }
+    writes.clear();
+    handler.alter_partitions(DB_NAME, TBL_NAME, parts);
+    assertEquals(Arrays.asList("alter:sql"), writes);
+    for (Partition part : handler.get_partitions_by_names(DB_NAME, TBL_NAME, names)) {
+      String value = part.getValues().get(0) + "_altered";
+      assertEquals(value, part.getParameters().get("part_param"));
+      assertEquals(value, part.getSd().getParameters().get("sd_param"));
+      assertTrue(part.getSd().getLocation().endsWith("_altered"));
+      assertEquals(2, part.getSd().getColsSize());
+    }
+
+    // Anything else changing goes through DataNucleus.
+    Partition part = handler.get_partition(DB_NAME, TBL_NAME, Arrays.asList("a0"));
+    part.getSd().setNumBuckets(4);
+    part.getParameters().put("part_param", "a0_bucketed");
+    writes.clear();
+    handler.alter_partitions(DB_NAME, TBL_NAME, Arrays.asList(part));
+    assertEquals(Arrays.asList("alter:orm"), writes);
+    part = handler.get_partition(DB_NAME, TBL_NAME, Arrays.asList("a0"));
+    assertEquals(4, part.getSd().getNumBuckets());
+    assertEquals("a0_bucketed", part.getParameters().get("part_param"));
+  }
+
+  @Test
+  public void testDropPartitions() throws Exception {
+    handler.add_partition(makePartition("first"));
+    handler.add_partitions(makePartitions("a", NUM_PARTS));
+    // A partition with its own columns gets its own column descriptor, via DataNucleus.
+    Partition ownCols = makePartition("own_cols");
+    ownCols.getSd().setCols(new ArrayList<FieldSchema>(ownCols.getSd().getCols()));
+    ownCols.getSd().getCols().add(new FieldSchema("extra", serdeConstants.INT_TYPE_NAME, ""));
+    handler.add_partitions(Arrays.asList(ownCols));
+    assertEquals(Arrays.asList("add:sql", "add:orm"), writes);
+    long ownCdId = getPartitionColumnIds("CD_ID", "ds=own_cols").get(0);
+    long tableCdId = getLong("select \"SDS\".\"CD_ID\" from \"TBLS\""
+        + " inner join \"SDS\" on \"TBLS\".\"SD_ID\" = \"SDS\".\"SD_ID\""
+        + " inner join \"DBS\" on \"TBLS\".\"DB_ID\" = \"DBS\".\"DB_ID\""
+        + " where \"DBS\".\"NAME\" = ? and \"TBLS\".\"TBL_NAME\" = ?", DB_NAME, TBL_NAME);
+    assertFalse(ownCdId == tableCdId);
+    List<Long> sdIds = getPartitionColumnIds("SD_ID", null);
+    List<Long> serdeIds = getPartitionColumnIds("SERDE_ID", null);
+
+    List<String> names = handler.get_partition_names(DB_NAME, TBL_NAME, (short)-1);
+    List<String> toDrop = new ArrayList<String>(names);
+    toDrop.remove("ds=first");
+    writes.clear();
+    handler.drop_partitions_req(new DropPartitionsRequest(DB_NAME, TBL_NAME,
+        RequestPartsSpec.names(toDrop)));
+    assertEquals(Arrays.asList("drop:sql"), writes);
+    assertEquals(Arrays.asList("ds=first"),
+        handler.get_partition_names(DB_NAME, TBL_NAME, (short)-1));
+    List<Long> remainingSdIds = getPartitionColumnIds("SD_ID", null);
+    assertEquals(1, remainingSdIds.size());
+    for (Long sdId : sdIds) {
+      if (!sdId.equals(remainingSdIds.get(0))) {
+        assertEquals(0, getLong("select count(*) from \"SDS\" where \"SD_ID\" = ?", sdId));
+        assertEquals(0, getLong("select count(*) from \"SD_PARAMS\" where \"SD_ID\" = ?", sdId));
+      }
+    }
+    long remainingSerdes = 0;
+    for (Long serdeId : serdeIds) {
+      remainingSerdes += getLong("select count(*) from \"SERDES\" where \"SERDE_ID\" = ?",
+          serdeId);
+    }
+    assertEquals(1, remainingSerdes);
+    // The unused column descriptor is gone, the one of the table is still there.
+    assertEquals(0, getLong("select count(*) from \"CDS\" where \"CD_ID\" = ?", ownCdId));
+    assertEquals(0, getLong("select count(*) from \"COLUMNS_V2\" where \"CD_ID\" = ?", ownCdId));
+    assertEquals(1, getLong("select count(*) from \"CDS\" where \"CD_ID\" = ?", tableCdId));
+    assertEquals(2, getLong("select count(*) from \"COLUMNS_V2\" where \"CD_ID\" = ?",
+        tableCdId));
+    checkPartition(handler.get_partition(DB_NAME, TBL_NAME, Arrays.asList("first")), "first");
+  }
+}
@@ -39,6 +39,7 @@
 import org.apache.hadoop.fs.permission.FsPermission;
 import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.AlreadyExistsException;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsData;
@@ -522,6 +523,15 @@ public void testListPartitions() throws Throwable {
     assertEquals(" should have returned " + values.size() +
       " partitions",values.size(), partitions.size());
 
+    // the compact form should produce the same partitions
+    partitions = client.listPartitions(dbName, tblName, (short)-1);
+    assertEquals(partitions, client.listPartitionsCompact(dbName, tblName, null, (short)-1));
+    List<String> partNames = client.listPartitionNames(dbName, tblName, (short)-1);
+    assertEquals(client.getPartitionsByNames(dbName, tblName, partNames.subList(0, 2)),
+        client.listPartitionsCompact(dbName, tblName, partNames.subList(0, 2), (short)-1));
+    assertEquals(values.size() / 2, client.listPartitionsCompact(
+        dbName, tblName, null, (short)(values.size() / 2)).size());
+
     cleanUp(dbName, tblName, typeName);
 
   }
@@ -782,6 +792,21 @@ public void testAlterPartition() throws Throwable {
       assertEquals("couldn't alter partition", part3.getSd().getNumBuckets(),
           12);
 
+      // bulk alter of parameters and location only
+      part3.getParameters().put("retention", "20");
+      part3.getSd().setLocation(tbl.getSd().getLocation() + "/part1_moved");
+      part3.getSd().getParameters().put("test_param_2", "bulk");
+      client.alter_partitions(dbName, tblName, Arrays.asList(part3));
+
+      Partition part4 = client.getPartition(dbName, tblName, part.getValues());
+      assertEquals("couldn't alter partitions", "20",
+          part4.getParameters().get("retention"));
+      assertEquals("couldn't alter partitions", part3.getSd().getLocation(),
+          part4.getSd().getLocation());
+      assertEquals("couldn't alter partitions", "bulk",
+          part4.getSd().getParameters().get("test_param_2"));
+      assertEquals("couldn't alter partitions", 12, part4.getSd().getNumBuckets());
+
       client.dropTable(dbName, tblName);
 
       client.dropDatabase(dbName);
@@ -1518,9 +1543,39 @@ public void testColumnStatistics() throws Throwable {
      assertEquals(colStats2.getStatsData().getStringStats().getNumNulls(), numNulls);
      assertEquals(colStats2.getStatsData().getStringStats().getNumDVs(), numDVs);
 
+     // aggregate the stats of two partitions; the third one has none
+     ColumnStatisticsDesc statsDesc2 = new ColumnStatisticsDesc(false, dbName, tblName);
+     statsDesc2.setPartName(partitions.get(1));
+     client.updatePartitionColumnStatistics(new ColumnStatistics(statsDesc2, statsObjs));
+     List<String> aggrPartNames = partitions.subList(0, 3);
+     AggrStats aggrStats = client.getAggrColStatsFor(dbName, tblName,
+         Lists.newArrayList(colName), aggrPartNames);
+     assertEquals(2, aggrStats.getPartsFound());
+     assertEquals(2, aggrStats.getColStatsSize());
+     assertEquals(colName[0], aggrStats.getColStats().get(0).getColName());
+     assertEquals(lowValue,
+         aggrStats.getColStats().get(0).getStatsData().getDoubleStats().getLowValue());
+     assertEquals(highValue,
+         aggrStats.getColStats().get(0).getStatsData().getDoubleStats().getHighValue());
+     assertEquals(2 * numNulls,
+         aggrStats.getColStats().get(0).getStatsData().getDoubleStats().getNumNulls());
+     assertEquals(numDVs,
+         aggrStats.getColStats().get(0).getStatsData().getDoubleStats().getNumDVs());
+     assertEquals(maxColLen,
+         aggrStats.getColStats().get(1).getStatsData().getStringStats().getMaxColLen());
+     assertEquals(2 * numNulls,
+         aggrStats.getColStats().get(1).getStatsData().getStringStats().getNumNulls());
+
      // test stats deletion at partition level
      client.deletePartitionColumnStatistics(dbName, tblName, partName, colName[1]);
 
+     // the aggregates must not come from the cache after the deletion
+     aggrStats = client.getAggrColStatsFor(dbName, tblName,
+         Lists.newArrayList(colName), aggrPartNames);
+     assertEquals(1, aggrStats.getPartsFound());
+     assertEquals(numNulls,
+         aggrStats.getColStats().get(1).getStatsData().getStringStats().getNumNulls());
+
      colStats2 = client.getPartitionColumnStatistics(dbName, tblName,
          Lists.newArrayList(partName), Lists.newArrayList(colName[0])).get(partName).get(0);
 
@@ -44,6 +44,7 @@
 import java.util.List;
 import java.util.Map;
 
+import org.apache.hive.service.cli.Column;
 import org.apache.hive.service.cli.TableSchema;
 import org.apache.hive.service.cli.Type;
 
@@ -57,6 +58,10 @@ public abstract class HiveBaseResultSet implements ResultSet {
   protected SQLWarning warningChain = null;
   protected boolean wasNull = false;
   protected Object[] row;
+  // columns of the current row when it is read from a columnar row set, the
+  // values are read at rowIndex without materializing the row
+  protected List<Column> rowColumns;
+  protected int rowIndex;
   protected List<String> columnNames;
   protected List<String> columnTypes;
   protected List<JdbcColumnAttributes> columnAttributes;
@@ -172,6 +177,10 @@ public Blob getBlob(String colName) throws SQLException {
   }
 
   public boolean getBoolean(int columnIndex) throws SQLException {
+    Column column = getColumn(columnIndex, Type.BOOLEAN_TYPE, Type.BOOLEAN_TYPE);
+    if (column != null) {
+      return !wasNull && column.getBoolean(rowIndex);
+    }
     Object obj = getObject(columnIndex);
     if (Boolean.class.isInstance(obj)) {
       return (Boolean) obj;
@@ -190,6 +199,10 @@ public boolean getBoolean(String columnName) throws SQLException {
   }
 
   public byte getByte(int columnIndex) throws SQLException {
+    Column column = getColumn(columnIndex, Type.TINYINT_TYPE, Type.TINYINT_TYPE);
+    if (column != null) {
+      return wasNull ? 0 : (byte) column.getLong(rowIndex);
+    }
     Object obj = getObject(columnIndex);
     if (Number.class.isInstance(obj)) {
       return ((Number) obj).byteValue();
@@ -269,6 +282,10 @@ public Date getDate(String columnName, Calendar cal) throws SQLException {
   }
 
   public double getDouble(int columnIndex) throws SQLException {
+    Column column = getColumn(columnIndex, Type.TINYINT_TYPE, Type.DOUBLE_TYPE);
+    if (column != null) {
+      return wasNull ? 0 : column.getDouble(rowIndex);
+    }
     try {
       Object obj = getObject(columnIndex);
       if (Number.class.isInstance(obj)) {
@@ -298,6 +315,10 @@ public int getFetchSize() throws SQLException {
   }
 
   public float getFloat(int columnIndex) throws SQLException {
+    Column column = getColumn(columnIndex, Type.TINYINT_TYPE, Type.DOUBLE_TYPE);
+    if (column != null) {
+      return wasNull ? 0 : (float) column.getDouble(rowIndex);
+    }
     try {
       Object obj = getObject(columnIndex);
       if (Number.class.isInstance(obj)) {
@@ -323,6 +344,10 @@ public int getHoldability() throws SQLException {
   }
 
   public int getInt(int columnIndex) throws SQLException {
+    Column column = getColumn(columnIndex, Type.TINYINT_TYPE, Type.INT_TYPE);
+    if (column != null) {
+      return wasNull ? 0 : (int) column.getLong(rowIndex);
+    }
     try {
       Object obj = getObject(columnIndex);
       if (Number.class.isInstance(obj)) {
@@ -345,6 +370,10 @@ public int getInt(String columnName) throws SQLException {
   }
 
   public long getLong(int columnIndex) throws SQLException {
+    Column column = getColumn(columnIndex, Type.TINYINT_TYPE, Type.BIGINT_TYPE);
+    if (column != null) {
+      return wasNull ? 0 : column.getLong(rowIndex);
+    }
     try {
       Object obj = getObject(columnIndex);
       if (Number.class.isInstance(obj)) {
@@ -394,20 +423,42 @@ public String getNString(String columnLabel) throws SQLException {
     throw new SQLException("Method not supported");
   }
 
+  /**
+   * Get the column of the current row, when the row is read from a columnar row
+   * set and the column type is between the given types in the order of
+   * {@link Type}, so that the value can be read without boxing it. Sets wasNull.
+   *
+   * @return the column, null if the value has to be read as an object
+   */
+  private Column getColumn(int columnIndex, Type fromType, Type toType) {
+    if (rowColumns == null || columnIndex < 1 || columnIndex > rowColumns.size()) {
+      return null;
+    }
+    Column column = rowColumns.get(columnIndex - 1);
+    if (column.getType().compareTo(fromType) < 0 || column.getType().compareTo(toType) > 0) {
+      return null;
+    }
+    wasNull = column.isNull(rowIndex);
+    return column;
+  }
+
   private Object getColumnValue(int columnIndex) throws SQLException {
-    if (row == null) {
+    if (row == null && rowColumns == null) {
       throw new SQLException("No row found.");
     }
-    if (row.length == 0) {
+    int numColumns = rowColumns != null ? rowColumns.size() : row.length;
+    if (numColumns == 0) {
       throw new SQLException("RowSet does not contain any columns!");
     }
-    if (columnIndex > row.length) {
+    if (columnIndex > numColumns) {
       throw new SQLException("Invalid columnIndex: " + columnIndex);
     }
     Type columnType = getSchema().getColumnDescriptorAt(columnIndex - 1).getType();
 
     try {
-      Object evaluated = evaluate(columnType, row[columnIndex - 1]);
+      Object value = rowColumns != null ?
+          rowColumns.get(columnIndex - 1).get(rowIndex) : row[columnIndex - 1];
+      Object evaluated = evaluate(columnType, value);
       wasNull = evaluated == null;
       return evaluated;
     } catch (Exception e) {
@@ -487,6 +538,10 @@ public SQLXML getSQLXML(String columnLabel) throws SQLException {
   }
 
   public short getShort(int columnIndex) throws SQLException {
+    Column column = getColumn(columnIndex, Type.TINYINT_TYPE, Type.SMALLINT_TYPE);
+    if (column != null) {
+      return wasNull ? 0 : (short) column.getLong(rowIndex);
+    }
     try {
       Object obj = getObject(columnIndex);
       if (Number.class.isInstance(obj)) {
@@ -32,6 +32,7 @@
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hive.service.cli.ColumnBasedSet;
 import org.apache.hive.service.cli.RowSet;
 import org.apache.hive.service.cli.RowSetFactory;
 import org.apache.hive.service.cli.TableSchema;
@@ -69,6 +70,8 @@ public class HiveQueryResultSet extends HiveBaseResultSet {
 
   private RowSet fetchedRows;
   private Iterator<Object[]> fetchedRowsItr;
+  // index of the next row, when the fetched rows are columnar
+  private int fetchedRowsIndex;
   private boolean isClosed = false;
   private boolean emptyResultSet = false;
   private boolean isScrollable = false;
@@ -323,7 +326,7 @@ public boolean next() throws SQLException {
         fetchedRowsItr = null;
         fetchFirst = false;
       }
-      if (fetchedRows == null || !fetchedRowsItr.hasNext()) {
+      if (fetchedRows == null || !hasNextFetchedRow()) {
         TFetchResultsReq fetchReq = new TFetchResultsReq(stmtHandle,
             orientation, fetchSize);
         TFetchResultsResp fetchResp = client.FetchResults(fetchReq);
@@ -332,14 +335,20 @@ public boolean next() throws SQLException {
         TRowSet results = fetchResp.getResults();
         fetchedRows = RowSetFactory.create(results, protocol);
         fetchedRowsItr = fetchedRows.iterator();
+        fetchedRowsIndex = 0;
       }
 
       String rowStr = "";
-      if (fetchedRowsItr.hasNext()) {
-        row = fetchedRowsItr.next();
-      } else {
+      if (!hasNextFetchedRow()) {
         return false;
       }
+      if (fetchedRows instanceof ColumnBasedSet) {
+        // values are read from the columns when they are asked for
+        rowColumns = ((ColumnBasedSet) fetchedRows).getColumns();
+        rowIndex = fetchedRowsIndex++;
+      } else {
+        row = fetchedRowsItr.next();
+      }
 
       rowsFetched++;
       if (LOG.isDebugEnabled()) {
@@ -356,6 +365,13 @@ public boolean next() throws SQLException {
     return true;
   }
 
+  private boolean hasNextFetchedRow() {
+    if (fetchedRows instanceof ColumnBasedSet) {
+      return fetchedRowsIndex < fetchedRows.numRows();
+    }
+    return fetchedRowsItr.hasNext();
+  }
+
   @Override
   public ResultSetMetaData getMetaData() throws SQLException {
     if (isClosed) {
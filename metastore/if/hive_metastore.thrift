@@ -346,11 +346,43 @@ struct EnvironmentContext {
   1: map<string, string> properties
 }
 
+// A partition in a compact partition list. The storage descriptor, which partitions of a table
+// mostly have in common, is not sent with each partition; only the location is.
+struct PartitionWithoutSD {
+  1: list<string> values,
+  2: i32          createTime,
+  3: i32          lastAccessTime,
+  4: string       location,
+  5: i32          sdIndex,  // index of the storage descriptor in sharedSds, -1 if there is none
+  6: map<string, string> parameters,
+  7: optional PrincipalPrivilegeSet privileges
+}
+
+// Return type for get_partitions_compact
+struct CompactPartitionsResult {
+  1: required string dbName,
+  2: required string tblName,
+  3: required list<StorageDescriptor> sharedSds, // without the location
+  4: required list<PartitionWithoutSD> partitions
+}
+
+// Request type for get_partitions_compact
+struct CompactPartitionsRequest {
+  1: required string dbName,
+  2: required string tblName,
+  3: optional list<string> partNames, // all partitions if not set
+  4: optional i16 maxParts=-1
+}
+
 // Return type for get_partitions_by_expr
 struct PartitionsByExprResult {
   1: required list<Partition> partitions,
   // Whether the results has any (currently, all) partitions which may or may not match
-  2: required bool hasUnknownPartitions
+  2: required bool hasUnknownPartitions,
+  // Set when the request had a cursor: where the next batch starts, or empty if there is none
+  3: optional string nextCursor,
+  // Set instead of partitions when the request asked for the compact form
+  4: optional CompactPartitionsResult compactPartitions
 }
 
 struct PartitionsByExprRequest {
@@ -358,7 +390,12 @@ struct PartitionsByExprRequest {
   2: required string tblName,
   3: required binary expr,
   4: optional string defaultPartitionName,
-  5: optional i16 maxParts=-1
+  5: optional i16 maxParts=-1,
+  // If set, the partitions are returned in batches of maxParts; empty for the first batch,
+  // and the nextCursor of the previous result after that
+  6: optional string cursor,
+  // If set, the partitions are returned in compactPartitions rather than partitions
+  7: optional bool compact=false
 }
 
 struct TableStatsResult {
@@ -369,6 +406,13 @@ struct PartitionsStatsResult {
   1: required map<string, list<ColumnStatisticsObj>> partStats
 }
 
+// Column statistics aggregated over a set of partitions. partsFound is the
+// number of the requested partitions that had statistics for every column.
+struct AggrStats {
+  1: required list<ColumnStatisticsObj> colStats,
+  2: required i64 partsFound
+}
+
 struct TableStatsRequest {
  1: required string dbName,
  2: required string tblName,
@@ -833,6 +877,10 @@ service ThriftHiveMetastore extends fb303.FacebookService
   list<Partition> get_partitions_by_names(1:string db_name 2:string tbl_name 3:list<string> names)
                        throws(1:MetaException o1, 2:NoSuchObjectException o2)
 
+  // get partitions in the compact form, where the shared storage descriptors are sent once
+  CompactPartitionsResult get_partitions_compact(1:CompactPartitionsRequest request)
+                       throws(1:MetaException o1, 2:NoSuchObjectException o2)
+
   // changes the partition to the new partition object. partition is identified from the part values
   // in the new_part
   // * See notes on DDL_TIME
@@ -923,6 +971,8 @@ service ThriftHiveMetastore extends fb303.FacebookService
               (1:NoSuchObjectException o1, 2:MetaException o2)
   PartitionsStatsResult get_partitions_statistics_req(1:PartitionsStatsRequest request) throws
               (1:NoSuchObjectException o1, 2:MetaException o2)
+  AggrStats get_aggr_stats_for(1:PartitionsStatsRequest request) throws
+              (1:NoSuchObjectException o1, 2:MetaException o2)
 
   // delete APIs attempt to delete column statistics, if found, associated with a given db_name, tbl_name, [part_name]
   // and col_name. If the delete API doesn't find the statistics record in the metastore, throws NoSuchObjectException
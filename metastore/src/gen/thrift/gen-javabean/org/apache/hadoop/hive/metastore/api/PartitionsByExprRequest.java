@@ -39,6 +39,8 @@ public class PartitionsByExprRequest implements org.apache.thrift.TBase<Partitio
   private static final org.apache.thrift.protocol.TField EXPR_FIELD_DESC = new org.apache.thrift.protocol.TField("expr", org.apache.thrift.protocol.TType.STRING, (short)3);
   private static final org.apache.thrift.protocol.TField DEFAULT_PARTITION_NAME_FIELD_DESC = new org.apache.thrift.protocol.TField("defaultPartitionName", org.apache.thrift.protocol.TType.STRING, (short)4);
   private static final org.apache.thrift.protocol.TField MAX_PARTS_FIELD_DESC = new org.apache.thrift.protocol.TField("maxParts", org.apache.thrift.protocol.TType.I16, (short)5);
+  private static final org.apache.thrift.protocol.TField CURSOR_FIELD_DESC = new org.apache.thrift.protocol.TField("cursor", org.apache.thrift.protocol.TType.STRING, (short)6);
+  private static final org.apache.thrift.protocol.TField COMPACT_FIELD_DESC = new org.apache.thrift.protocol.TField("compact", org.apache.thrift.protocol.TType.BOOL, (short)7);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -51,6 +53,8 @@ public class PartitionsByExprRequest implements org.apache.thrift.TBase<Partitio
   private ByteBuffer expr; // required
   private String defaultPartitionName; // optional
   private short maxParts; // optional
+  private String cursor; // optional
+  private boolean compact; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -58,7 +62,9 @@ public class PartitionsByExprRequest implements org.apache.thrift.TBase<Partitio
     TBL_NAME((short)2, "tblName"),
     EXPR((short)3, "expr"),
     DEFAULT_PARTITION_NAME((short)4, "defaultPartitionName"),
-    MAX_PARTS((short)5, "maxParts");
+    MAX_PARTS((short)5, "maxParts"),
+    CURSOR((short)6, "cursor"),
+    COMPACT((short)7, "compact");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -83,6 +89,10 @@ public static _Fields findByThriftId(int fieldId) {
           return DEFAULT_PARTITION_NAME;
         case 5: // MAX_PARTS
           return MAX_PARTS;
+        case 6: // CURSOR
+          return CURSOR;
+        case 7: // COMPACT
+          return COMPACT;
         default:
           return null;
       }
@@ -124,8 +134,9 @@ public String getFieldName() {
 
   // isset id assignments
   private static final int __MAXPARTS_ISSET_ID = 0;
+  private static final int __COMPACT_ISSET_ID = 1;
   private byte __isset_bitfield = 0;
-  private _Fields optionals[] = {_Fields.DEFAULT_PARTITION_NAME,_Fields.MAX_PARTS};
+  private _Fields optionals[] = {_Fields.DEFAULT_PARTITION_NAME,_Fields.MAX_PARTS,_Fields.CURSOR,_Fields.COMPACT};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -139,6 +150,10 @@ public String getFieldName() {
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
     tmpMap.put(_Fields.MAX_PARTS, new org.apache.thrift.meta_data.FieldMetaData("maxParts", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I16)));
+    tmpMap.put(_Fields.CURSOR, new org.apache.thrift.meta_data.FieldMetaData("cursor", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+    tmpMap.put(_Fields.COMPACT, new org.apache.thrift.meta_data.FieldMetaData("compact", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(PartitionsByExprRequest.class, metaDataMap);
   }
@@ -146,6 +161,8 @@ public String getFieldName() {
   public PartitionsByExprRequest() {
     this.maxParts = (short)-1;
 
+    this.compact = false;
+
   }
 
   public PartitionsByExprRequest(
@@ -178,6 +195,10 @@ public PartitionsByExprRequest(PartitionsByExprRequest other) {
       this.defaultPartitionName = other.defaultPartitionName;
     }
     this.maxParts = other.maxParts;
+    if (other.isSetCursor()) {
+      this.cursor = other.cursor;
+    }
+    this.compact = other.compact;
   }
 
   public PartitionsByExprRequest deepCopy() {
@@ -192,6 +213,9 @@ public void clear() {
     this.defaultPartitionName = null;
     this.maxParts = (short)-1;
 
+    this.cursor = null;
+    this.compact = false;
+
   }
 
   public String getDbName() {
@@ -317,6 +341,51 @@ public void setMaxPartsIsSet(boolean value) {
     __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __MAXPARTS_ISSET_ID, value);
   }
 
+  public String getCursor() {
+    return this.cursor;
+  }
+
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
+  public void unsetCursor() {
+    this.cursor = null;
+  }
+
+  /** Returns true if field cursor is set (has been assigned a value) and false otherwise */
+  public boolean isSetCursor() {
+    return this.cursor != null;
+  }
+
+  public void setCursorIsSet(boolean value) {
+    if (!value) {
+      this.cursor = null;
+    }
+  }
+
+  public boolean isCompact() {
+    return this.compact;
+  }
+
+  public void setCompact(boolean compact) {
+    this.compact = compact;
+    setCompactIsSet(true);
+  }
+
+  public void unsetCompact() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __COMPACT_ISSET_ID);
+  }
+
+  /** Returns true if field compact is set (has been assigned a value) and false otherwise */
+  public boolean isSetCompact() {
+    return EncodingUtils.testBit(__isset_bitfield, __COMPACT_ISSET_ID);
+  }
+
+  public void setCompactIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __COMPACT_ISSET_ID, value);
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case DB_NAME:
@@ -359,6 +428,22 @@ public void setFieldValue(_Fields field, Object value) {
       }
       break;
 
+    case CURSOR:
+      if (value == null) {
+        unsetCursor();
+      } else {
+        setCursor((String)value);
+      }
+      break;
+
+    case COMPACT:
+      if (value == null) {
+        unsetCompact();
+      } else {
+        setCompact((Boolean)value);
+      }
+      break;
+
     }
   }
 
@@ -379,6 +464,12 @@ public Object getFieldValue(_Fields field) {
     case MAX_PARTS:
       return Short.valueOf(getMaxParts());
 
+    case CURSOR:
+      return getCursor();
+
+    case COMPACT:
+      return Boolean.valueOf(isCompact());
+
     }
     throw new IllegalStateException();
   }
@@ -400,6 +491,10 @@ public boolean isSet(_Fields field) {
       return isSetDefaultPartitionName();
     case MAX_PARTS:
       return isSetMaxParts();
+    case CURSOR:
+      return isSetCursor();
+    case COMPACT:
+      return isSetCompact();
     }
     throw new IllegalStateException();
   }
@@ -462,6 +557,24 @@ public boolean equals(PartitionsByExprRequest that) {
         return false;
     }
 
+    boolean this_present_cursor = true && this.isSetCursor();
+    boolean that_present_cursor = true && that.isSetCursor();
+    if (this_present_cursor || that_present_cursor) {
+      if (!(this_present_cursor && that_present_cursor))
+        return false;
+      if (!this.cursor.equals(that.cursor))
+        return false;
+    }
+
+    boolean this_present_compact = true && this.isSetCompact();
+    boolean that_present_compact = true && that.isSetCompact();
+    if (this_present_compact || that_present_compact) {
+      if (!(this_present_compact && that_present_compact))
+        return false;
+      if (this.compact != that.compact)
+        return false;
+    }
+
     return true;
   }
 
@@ -494,6 +607,16 @@ public int hashCode() {
     if (present_maxParts)
       builder.append(maxParts);
 
+    boolean present_cursor = true && (isSetCursor());
+    builder.append(present_cursor);
+    if (present_cursor)
+      builder.append(cursor);
+
+    boolean present_compact = true && (isSetCompact());
+    builder.append(present_compact);
+    if (present_compact)
+      builder.append(compact);
+
     return builder.toHashCode();
   }
 
@@ -555,6 +678,26 @@ public int compareTo(PartitionsByExprRequest other) {
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetCursor()).compareTo(typedOther.isSetCursor());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetCursor()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.cursor, typedOther.cursor);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
+    lastComparison = Boolean.valueOf(isSetCompact()).compareTo(typedOther.isSetCompact());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetCompact()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.compact, typedOther.compact);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -614,6 +757,22 @@ public String toString() {
       sb.append(this.maxParts);
       first = false;
     }
+    if (isSetCursor()) {
+      if (!first) sb.append(", ");
+      sb.append("cursor:");
+      if (this.cursor == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.cursor);
+      }
+      first = false;
+    }
+    if (isSetCompact()) {
+      if (!first) sb.append(", ");
+      sb.append("compact:");
+      sb.append(this.compact);
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -711,6 +870,22 @@ public void read(org.apache.thrift.protocol.TProtocol iprot, PartitionsByExprReq
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 6: // CURSOR
+            if (schemeField.type == org.apache.thrift.protocol.TType.STRING) {
+              struct.cursor = iprot.readString();
+              struct.setCursorIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
+          case 7: // COMPACT
+            if (schemeField.type == org.apache.thrift.protocol.TType.BOOL) {
+              struct.compact = iprot.readBool();
+              struct.setCompactIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -751,6 +926,18 @@ public void write(org.apache.thrift.protocol.TProtocol oprot, PartitionsByExprRe
         oprot.writeI16(struct.maxParts);
         oprot.writeFieldEnd();
       }
+      if (struct.cursor != null) {
+        if (struct.isSetCursor()) {
+          oprot.writeFieldBegin(CURSOR_FIELD_DESC);
+          oprot.writeString(struct.cursor);
+          oprot.writeFieldEnd();
+        }
+      }
+      if (struct.isSetCompact()) {
+        oprot.writeFieldBegin(COMPACT_FIELD_DESC);
+        oprot.writeBool(struct.compact);
+        oprot.writeFieldEnd();
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -778,13 +965,25 @@ public void write(org.apache.thrift.protocol.TProtocol prot, PartitionsByExprReq
       if (struct.isSetMaxParts()) {
         optionals.set(1);
       }
-      oprot.writeBitSet(optionals, 2);
+      if (struct.isSetCursor()) {
+        optionals.set(2);
+      }
+      if (struct.isSetCompact()) {
+        optionals.set(3);
+      }
+      oprot.writeBitSet(optionals, 4);
       if (struct.isSetDefaultPartitionName()) {
         oprot.writeString(struct.defaultPartitionName);
       }
       if (struct.isSetMaxParts()) {
         oprot.writeI16(struct.maxParts);
       }
+      if (struct.isSetCursor()) {
+        oprot.writeString(struct.cursor);
+      }
+      if (struct.isSetCompact()) {
+        oprot.writeBool(struct.compact);
+      }
     }
 
     @Override
@@ -796,7 +995,7 @@ public void read(org.apache.thrift.protocol.TProtocol prot, PartitionsByExprRequ
       struct.setTblNameIsSet(true);
       struct.expr = iprot.readBinary();
       struct.setExprIsSet(true);
-      BitSet incoming = iprot.readBitSet(2);
+      BitSet incoming = iprot.readBitSet(4);
       if (incoming.get(0)) {
         struct.defaultPartitionName = iprot.readString();
         struct.setDefaultPartitionNameIsSet(true);
@@ -805,6 +1004,14 @@ public void read(org.apache.thrift.protocol.TProtocol prot, PartitionsByExprRequ
         struct.maxParts = iprot.readI16();
         struct.setMaxPartsIsSet(true);
       }
+      if (incoming.get(2)) {
+        struct.cursor = iprot.readString();
+        struct.setCursorIsSet(true);
+      }
+      if (incoming.get(3)) {
+        struct.compact = iprot.readBool();
+        struct.setCompactIsSet(true);
+      }
     }
   }
 
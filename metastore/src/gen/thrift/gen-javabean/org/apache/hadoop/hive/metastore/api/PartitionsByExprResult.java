@@ -36,6 +36,8 @@ public class PartitionsByExprResult implements org.apache.thrift.TBase<Partition
 
   private static final org.apache.thrift.protocol.TField PARTITIONS_FIELD_DESC = new org.apache.thrift.protocol.TField("partitions", org.apache.thrift.protocol.TType.LIST, (short)1);
   private static final org.apache.thrift.protocol.TField HAS_UNKNOWN_PARTITIONS_FIELD_DESC = new org.apache.thrift.protocol.TField("hasUnknownPartitions", org.apache.thrift.protocol.TType.BOOL, (short)2);
+  private static final org.apache.thrift.protocol.TField NEXT_CURSOR_FIELD_DESC = new org.apache.thrift.protocol.TField("nextCursor", org.apache.thrift.protocol.TType.STRING, (short)3);
+  private static final org.apache.thrift.protocol.TField COMPACT_PARTITIONS_FIELD_DESC = new org.apache.thrift.protocol.TField("compactPartitions", org.apache.thrift.protocol.TType.STRUCT, (short)4);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -45,11 +47,15 @@ public class PartitionsByExprResult implements org.apache.thrift.TBase<Partition
 
   private List<Partition> partitions; // required
   private boolean hasUnknownPartitions; // required
+  private String nextCursor; // optional
+  private CompactPartitionsResult compactPartitions; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   public enum _Fields implements org.apache.thrift.TFieldIdEnum {
     PARTITIONS((short)1, "partitions"),
-    HAS_UNKNOWN_PARTITIONS((short)2, "hasUnknownPartitions");
+    HAS_UNKNOWN_PARTITIONS((short)2, "hasUnknownPartitions"),
+    NEXT_CURSOR((short)3, "nextCursor"),
+    COMPACT_PARTITIONS((short)4, "compactPartitions");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -68,6 +74,10 @@ public static _Fields findByThriftId(int fieldId) {
           return PARTITIONS;
         case 2: // HAS_UNKNOWN_PARTITIONS
           return HAS_UNKNOWN_PARTITIONS;
+        case 3: // NEXT_CURSOR
+          return NEXT_CURSOR;
+        case 4: // COMPACT_PARTITIONS
+          return COMPACT_PARTITIONS;
         default:
           return null;
       }
@@ -110,6 +120,7 @@ public String getFieldName() {
   // isset id assignments
   private static final int __HASUNKNOWNPARTITIONS_ISSET_ID = 0;
   private byte __isset_bitfield = 0;
+  private _Fields optionals[] = {_Fields.NEXT_CURSOR,_Fields.COMPACT_PARTITIONS};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -118,6 +129,10 @@ public String getFieldName() {
             new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, Partition.class))));
     tmpMap.put(_Fields.HAS_UNKNOWN_PARTITIONS, new org.apache.thrift.meta_data.FieldMetaData("hasUnknownPartitions", org.apache.thrift.TFieldRequirementType.REQUIRED, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
+    tmpMap.put(_Fields.NEXT_CURSOR, new org.apache.thrift.meta_data.FieldMetaData("nextCursor", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)));
+    tmpMap.put(_Fields.COMPACT_PARTITIONS, new org.apache.thrift.meta_data.FieldMetaData("compactPartitions", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, CompactPartitionsResult.class)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(PartitionsByExprResult.class, metaDataMap);
   }
@@ -148,6 +163,12 @@ public PartitionsByExprResult(PartitionsByExprResult other) {
       this.partitions = __this__partitions;
     }
     this.hasUnknownPartitions = other.hasUnknownPartitions;
+    if (other.isSetNextCursor()) {
+      this.nextCursor = other.nextCursor;
+    }
+    if (other.isSetCompactPartitions()) {
+      this.compactPartitions = new CompactPartitionsResult(other.compactPartitions);
+    }
   }
 
   public PartitionsByExprResult deepCopy() {
@@ -159,6 +180,8 @@ public void clear() {
     this.partitions = null;
     setHasUnknownPartitionsIsSet(false);
     this.hasUnknownPartitions = false;
+    this.nextCursor = null;
+    this.compactPartitions = null;
   }
 
   public int getPartitionsSize() {
@@ -221,6 +244,52 @@ public void setHasUnknownPartitionsIsSet(boolean value) {
     __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __HASUNKNOWNPARTITIONS_ISSET_ID, value);
   }
 
+  public String getNextCursor() {
+    return this.nextCursor;
+  }
+
+  public void setNextCursor(String nextCursor) {
+    this.nextCursor = nextCursor;
+  }
+
+  public void unsetNextCursor() {
+    this.nextCursor = null;
+  }
+
+  /** Returns true if field nextCursor is set (has been assigned a value) and false otherwise */
+  public boolean isSetNextCursor() {
+    return this.nextCursor != null;
+  }
+
+  public void setNextCursorIsSet(boolean value) {
+    if (!value) {
+      this.nextCursor = null;
+    }
+  }
+
+  public CompactPartitionsResult getCompactPartitions() {
+    return this.compactPartitions;
+  }
+
+  public void setCompactPartitions(CompactPartitionsResult compactPartitions) {
+    this.compactPartitions = compactPartitions;
+  }
+
+  public void unsetCompactPartitions() {
+    this.compactPartitions = null;
+  }
+
+  /** Returns true if field compactPartitions is set (has been assigned a value) and false otherwise */
+  public boolean isSetCompactPartitions() {
+    return this.compactPartitions != null;
+  }
+
+  public void setCompactPartitionsIsSet(boolean value) {
+    if (!value) {
+      this.compactPartitions = null;
+    }
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case PARTITIONS:
@@ -239,6 +308,22 @@ public void setFieldValue(_Fields field, Object value) {
       }
       break;
 
+    case NEXT_CURSOR:
+      if (value == null) {
+        unsetNextCursor();
+      } else {
+        setNextCursor((String)value);
+      }
+      break;
+
+    case COMPACT_PARTITIONS:
+      if (value == null) {
+        unsetCompactPartitions();
+      } else {
+        setCompactPartitions((CompactPartitionsResult)value);
+      }
+      break;
+
     }
   }
 
@@ -250,6 +335,12 @@ public Object getFieldValue(_Fields field) {
     case HAS_UNKNOWN_PARTITIONS:
       return Boolean.valueOf(isHasUnknownPartitions());
 
+    case NEXT_CURSOR:
+      return getNextCursor();
+
+    case COMPACT_PARTITIONS:
+      return getCompactPartitions();
+
     }
     throw new IllegalStateException();
   }
@@ -265,6 +356,10 @@ public boolean isSet(_Fields field) {
       return isSetPartitions();
     case HAS_UNKNOWN_PARTITIONS:
       return isSetHasUnknownPartitions();
+    case NEXT_CURSOR:
+      return isSetNextCursor();
+    case COMPACT_PARTITIONS:
+      return isSetCompactPartitions();
     }
     throw new IllegalStateException();
   }
@@ -300,6 +395,24 @@ public boolean equals(PartitionsByExprResult that) {
         return false;
     }
 
+    boolean this_present_nextCursor = true && this.isSetNextCursor();
+    boolean that_present_nextCursor = true && that.isSetNextCursor();
+    if (this_present_nextCursor || that_present_nextCursor) {
+      if (!(this_present_nextCursor && that_present_nextCursor))
+        return false;
+      if (!this.nextCursor.equals(that.nextCursor))
+        return false;
+    }
+
+    boolean this_present_compactPartitions = true && this.isSetCompactPartitions();
+    boolean that_present_compactPartitions = true && that.isSetCompactPartitions();
+    if (this_present_compactPartitions || that_present_compactPartitions) {
+      if (!(this_present_compactPartitions && that_present_compactPartitions))
+        return false;
+      if (!this.compactPartitions.equals(that.compactPartitions))
+        return false;
+    }
+
     return true;
   }
 
@@ -317,6 +430,16 @@ public int hashCode() {
     if (present_hasUnknownPartitions)
       builder.append(hasUnknownPartitions);
 
+    boolean present_nextCursor = true && (isSetNextCursor());
+    builder.append(present_nextCursor);
+    if (present_nextCursor)
+      builder.append(nextCursor);
+
+    boolean present_compactPartitions = true && (isSetCompactPartitions());
+    builder.append(present_compactPartitions);
+    if (present_compactPartitions)
+      builder.append(compactPartitions);
+
     return builder.toHashCode();
   }
 
@@ -348,6 +471,26 @@ public int compareTo(PartitionsByExprResult other) {
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetNextCursor()).compareTo(typedOther.isSetNextCursor());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetNextCursor()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.nextCursor, typedOther.nextCursor);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
+    lastComparison = Boolean.valueOf(isSetCompactPartitions()).compareTo(typedOther.isSetCompactPartitions());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetCompactPartitions()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.compactPartitions, typedOther.compactPartitions);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -379,6 +522,26 @@ public String toString() {
     sb.append("hasUnknownPartitions:");
     sb.append(this.hasUnknownPartitions);
     first = false;
+    if (isSetNextCursor()) {
+      if (!first) sb.append(", ");
+      sb.append("nextCursor:");
+      if (this.nextCursor == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.nextCursor);
+      }
+      first = false;
+    }
+    if (isSetCompactPartitions()) {
+      if (!first) sb.append(", ");
+      sb.append("compactPartitions:");
+      if (this.compactPartitions == null) {
+        sb.append("null");
+      } else {
+        sb.append(this.compactPartitions);
+      }
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -394,6 +557,9 @@ public void validate() throws org.apache.thrift.TException {
     }
 
     // check for sub-struct validity
+    if (compactPartitions != null) {
+      compactPartitions.validate();
+    }
   }
 
   private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
@@ -459,6 +625,23 @@ public void read(org.apache.thrift.protocol.TProtocol iprot, PartitionsByExprRes
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 3: // NEXT_CURSOR
+            if (schemeField.type == org.apache.thrift.protocol.TType.STRING) {
+              struct.nextCursor = iprot.readString();
+              struct.setNextCursorIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
+          case 4: // COMPACT_PARTITIONS
+            if (schemeField.type == org.apache.thrift.protocol.TType.STRUCT) {
+              struct.compactPartitions = new CompactPartitionsResult();
+              struct.compactPartitions.read(iprot);
+              struct.setCompactPartitionsIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -487,6 +670,20 @@ public void write(org.apache.thrift.protocol.TProtocol oprot, PartitionsByExprRe
       oprot.writeFieldBegin(HAS_UNKNOWN_PARTITIONS_FIELD_DESC);
       oprot.writeBool(struct.hasUnknownPartitions);
       oprot.writeFieldEnd();
+      if (struct.nextCursor != null) {
+        if (struct.isSetNextCursor()) {
+          oprot.writeFieldBegin(NEXT_CURSOR_FIELD_DESC);
+          oprot.writeString(struct.nextCursor);
+          oprot.writeFieldEnd();
+        }
+      }
+      if (struct.compactPartitions != null) {
+        if (struct.isSetCompactPartitions()) {
+          oprot.writeFieldBegin(COMPACT_PARTITIONS_FIELD_DESC);
+          struct.compactPartitions.write(oprot);
+          oprot.writeFieldEnd();
+        }
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -512,6 +709,20 @@ public void write(org.apache.thrift.protocol.TProtocol prot, PartitionsByExprRes
         }
       }
       oprot.writeBool(struct.hasUnknownPartitions);
+      BitSet optionals = new BitSet();
+      if (struct.isSetNextCursor()) {
+        optionals.set(0);
+      }
+      if (struct.isSetCompactPartitions()) {
+        optionals.set(1);
+      }
+      oprot.writeBitSet(optionals, 2);
+      if (struct.isSetNextCursor()) {
+        oprot.writeString(struct.nextCursor);
+      }
+      if (struct.isSetCompactPartitions()) {
+        struct.compactPartitions.write(oprot);
+      }
     }
 
     @Override
@@ -531,6 +742,16 @@ public void read(org.apache.thrift.protocol.TProtocol prot, PartitionsByExprResu
       struct.setPartitionsIsSet(true);
       struct.hasUnknownPartitions = iprot.readBool();
       struct.setHasUnknownPartitionsIsSet(true);
+      BitSet incoming = iprot.readBitSet(2);
+      if (incoming.get(0)) {
+        struct.nextCursor = iprot.readString();
+        struct.setNextCursorIsSet(true);
+      }
+      if (incoming.get(1)) {
+        struct.compactPartitions = new CompactPartitionsResult();
+        struct.compactPartitions.read(iprot);
+        struct.setCompactPartitionsIsSet(true);
+      }
     }
   }
 
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.metastore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A cache of column statistics aggregated over sets of partitions, shared by all of the
+ * ObjectStore instances of the metastore. The planner asks for the same aggregates (the same
+ * columns of the partitions that survive pruning) over and over, and each request otherwise
+ * scans PART_COL_STATS for every partition.
+ * <p>
+ * The entries of a table are dropped when the statistics or the partitions of the table change
+ * through this metastore; the time to live bounds how stale an entry can get when they are
+ * changed through another metastore sharing the same database. The cache is sized by
+ * hive.metastore.aggregate.stats.cache.size in the first configuration that enables it.
+ */
+final class AggregateStatsCache {
+
+  private static final Log LOG = LogFactory.getLog(AggregateStatsCache.class);
+
+  private static AggregateStatsCache instance = null;
+
+  private static final class Key {
+    private final String dbName;
+    private final String tblName;
+    private final List<String> partNames;
+    private final List<String> colNames;
+
+    Key(String dbName, String tblName, List<String> partNames, List<String> colNames) {
+      this.dbName = dbName.toLowerCase();
+      this.tblName = tblName.toLowerCase();
+      // The aggregates don't depend on the order of the partitions.
+      this.partNames = new ArrayList<String>(partNames);
+      Collections.sort(this.partNames);
+      this.colNames = new ArrayList<String>(colNames);
+    }
+
+    boolean isTable(String dbName, String tblName) {
+      return this.dbName.equalsIgnoreCase(dbName) && this.tblName.equalsIgnoreCase(tblName);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      return dbName.equals(that.dbName) && tblName.equals(that.tblName)
+          && colNames.equals(that.colNames) && partNames.equals(that.partNames);
+    }
+
+    @Override
+    public int hashCode() {
+      return ((dbName.hashCode() * 31 + tblName.hashCode()) * 31
+          + colNames.hashCode()) * 31 + partNames.hashCode();
+    }
+  }
+
+  private final Cache<Key, AggrStats> cache;
+
+  private AggregateStatsCache(long maxEntries, long ttlSecs) {
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxEntries);
+    if (ttlSecs > 0) {
+      builder.expireAfterWrite(ttlSecs, TimeUnit.SECONDS);
+    }
+    cache = builder.build();
+  }
+
+  /**
+   * Get the cache of the metastore.
+   * @param conf the configuration of the metastore
+   * @return the cache or null if it is disabled
+   */
+  static AggregateStatsCache get(Configuration conf) {
+    if (conf == null) {
+      return null;
+    }
+    long maxEntries = HiveConf.getLongVar(conf,
+        HiveConf.ConfVars.METASTORE_AGGREGATE_STATS_CACHE_SIZE);
+    if (maxEntries <= 0) {
+      return null;
+    }
+    synchronized (AggregateStatsCache.class) {
+      if (instance == null) {
+        long ttlSecs = HiveConf.getLongVar(conf,
+            HiveConf.ConfVars.METASTORE_AGGREGATE_STATS_CACHE_TTL);
+        LOG.info("Creating aggregate stats cache of " + maxEntries + " entries");
+        instance = new AggregateStatsCache(maxEntries, ttlSecs);
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * Drop the entries of a table from the cache of the metastore, if there is one.
+   */
+  static void invalidate(String dbName, String tblName) {
+    AggregateStatsCache cache;
+    synchronized (AggregateStatsCache.class) {
+      cache = instance;
+    }
+    if (cache == null) {
+      return;
+    }
+    Iterator<Key> keys = cache.cache.asMap().keySet().iterator();
+    while (keys.hasNext()) {
+      if (keys.next().isTable(dbName, tblName)) {
+        keys.remove();
+      }
+    }
+  }
+
+  /**
+   * @return a copy of the cached aggregates, or null if they aren't in the cache
+   */
+  AggrStats get(String dbName, String tblName, List<String> partNames, List<String> colNames) {
+    AggrStats result = cache.getIfPresent(new Key(dbName, tblName, partNames, colNames));
+    return (result == null) ? null : result.deepCopy();
+  }
+
+  void put(String dbName, String tblName, List<String> partNames, List<String> colNames,
+      AggrStats aggrStats) {
+    cache.put(new Key(dbName, tblName, partNames, colNames), aggrStats.deepCopy());
+  }
+}
@@ -0,0 +1,972 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.metastore;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
+import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
+import org.apache.hadoop.hive.metastore.api.Database;
+import org.apache.hadoop.hive.metastore.api.Function;
+import org.apache.hadoop.hive.metastore.api.HiveObjectPrivilege;
+import org.apache.hadoop.hive.metastore.api.Index;
+import org.apache.hadoop.hive.metastore.api.InvalidInputException;
+import org.apache.hadoop.hive.metastore.api.InvalidObjectException;
+import org.apache.hadoop.hive.metastore.api.InvalidPartitionException;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.PartitionEventType;
+import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
+import org.apache.hadoop.hive.metastore.api.PrincipalType;
+import org.apache.hadoop.hive.metastore.api.PrivilegeBag;
+import org.apache.hadoop.hive.metastore.api.Role;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.api.Type;
+import org.apache.hadoop.hive.metastore.api.UnknownDBException;
+import org.apache.hadoop.hive.metastore.api.UnknownPartitionException;
+import org.apache.hadoop.hive.metastore.api.UnknownTableException;
+import org.apache.hadoop.hive.metastore.model.MDBPrivilege;
+import org.apache.hadoop.hive.metastore.model.MGlobalPrivilege;
+import org.apache.hadoop.hive.metastore.model.MPartitionColumnPrivilege;
+import org.apache.hadoop.hive.metastore.model.MPartitionPrivilege;
+import org.apache.hadoop.hive.metastore.model.MRoleMap;
+import org.apache.hadoop.hive.metastore.model.MTableColumnPrivilege;
+import org.apache.hadoop.hive.metastore.model.MTablePrivilege;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.thrift.TException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+
+/**
+ * A RawStore that keeps databases, tables and the results of partition lookups in a cache
+ * shared by all of the handler threads of the metastore, and passes everything else to the
+ * RawStore named by hive.metastore.cached.rawstore.impl. It is used by setting
+ * hive.metastore.rawstore.impl to this class.
+ * <p>
+ * The cached objects of a database or a table are versioned. A write through this store bumps
+ * the version once it is committed, so the entries read before it can no longer be found and
+ * age out of the cache. Writes made through other metastore instances sharing the same database
+ * are only seen once the entries expire, after hive.metastore.cached.rawstore.ttl seconds.
+ * Reads inside a transaction always go to the underlying store.
+ * <p>
+ * Like the other RawStores, an instance is used by one thread at a time.
+ */
+public class CachedStore implements RawStore, Configurable {
+
+  private static final Log LOG = LogFactory.getLog(CachedStore.class);
+
+  private static SharedCache sharedCache = null;
+
+  /**
+   * The partitions returned by a getPartitionsByExpr call.
+   */
+  private static final class ExprResult {
+    private final List<Partition> partitions;
+    private final boolean hasUnknownPartitions;
+
+    ExprResult(List<Partition> partitions, boolean hasUnknownPartitions) {
+      this.partitions = partitions;
+      this.hasUnknownPartitions = hasUnknownPartitions;
+    }
+  }
+
+  /**
+   * The cache of the metastore, bounded by the number of databases, tables and partitions in it.
+   */
+  static final class SharedCache {
+    private final Cache<List<Object>, Object> cache;
+    private final ConcurrentHashMap<String, Long> versions =
+        new ConcurrentHashMap<String, Long>();
+    private final AtomicLong nextVersion = new AtomicLong(1);
+
+    SharedCache(long maxObjects, long ttlSecs) {
+      CacheBuilder<List<Object>, Object> builder = CacheBuilder.newBuilder()
+          .maximumWeight(maxObjects)
+          .weigher(new Weigher<List<Object>, Object>() {
+            @Override
+            public int weigh(List<Object> key, Object value) {
+              return (value instanceof ExprResult)
+                  ? ((ExprResult) value).partitions.size() + 1 : 1;
+            }
+          });
+      if (ttlSecs > 0) {
+        builder.expireAfterWrite(ttlSecs, TimeUnit.SECONDS);
+      }
+      cache = builder.build();
+    }
+
+    private long getVersion(String name) {
+      Long version = versions.get(name);
+      return (version == null) ? 0 : version;
+    }
+
+    void bumpVersion(String name) {
+      versions.put(name, nextVersion.getAndIncrement());
+    }
+
+    static String databaseName(String dbName) {
+      return "db:" + dbName.toLowerCase();
+    }
+
+    static String tableName(String dbName, String tblName) {
+      return "table:" + dbName.toLowerCase() + "." + tblName.toLowerCase();
+    }
+
+    static String partitionsName(String dbName, String tblName) {
+      return "partitions:" + dbName.toLowerCase() + "." + tblName.toLowerCase();
+    }
+
+    List<Object> databaseKey(String dbName) {
+      String name = databaseName(dbName);
+      return Arrays.<Object>asList(name, getVersion(name));
+    }
+
+    List<Object> tableKey(String dbName, String tblName) {
+      String name = tableName(dbName, tblName);
+      return Arrays.<Object>asList(name, getVersion(name));
+    }
+
+    List<Object> partitionKey(String dbName, String tblName, List<String> partVals) {
+      String name = partitionsName(dbName, tblName);
+      return Arrays.<Object>asList(name, getVersion(name), new ArrayList<String>(partVals));
+    }
+
+    List<Object> exprKey(String dbName, String tblName, byte[] expr,
+        String defaultPartitionName, String fromPartName, short maxParts) {
+      String name = partitionsName(dbName, tblName);
+      return Arrays.<Object>asList(name, getVersion(name), ByteBuffer.wrap(expr.clone()),
+          defaultPartitionName, fromPartName, maxParts);
+    }
+
+    Object get(List<Object> key) {
+      return cache.getIfPresent(key);
+    }
+
+    void put(List<Object> key, Object value) {
+      cache.put(key, value);
+    }
+  }
+
+  private RawStore rawStore = null;
+  private SharedCache cache = null;
+  private int openTransactionCalls = 0;
+  private final Set<String> pendingInvalidations = new HashSet<String>();
+
+  @Override
+  public Configuration getConf() {
+    return rawStore.getConf();
+  }
+
+  @Override
+  public void setConf(Configuration conf) {
+    if (rawStore != null) {
+      rawStore.setConf(conf);
+    } else {
+      String className = HiveConf.getVar(conf, HiveConf.ConfVars.METASTORE_CACHED_RAW_STORE_IMPL);
+      Class<? extends RawStore> clazz;
+      try {
+        clazz = MetaStoreUtils.getClass(className).asSubclass(RawStore.class);
+      } catch (MetaException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
+      if (CachedStore.class.isAssignableFrom(clazz)) {
+        throw new RuntimeException(className + " cannot be used as the store of "
+            + CachedStore.class.getName());
+      }
+      rawStore = ReflectionUtils.newInstance(clazz, conf);
+    }
+    openTransactionCalls = 0;
+    pendingInvalidations.clear();
+    synchronized (CachedStore.class) {
+      if (sharedCache == null) {
+        long maxObjects = HiveConf.getLongVar(conf,
+            HiveConf.ConfVars.METASTORE_CACHED_RAW_STORE_MAX_OBJECTS);
+        long ttlSecs = HiveConf.getLongVar(conf, HiveConf.ConfVars.METASTORE_CACHED_RAW_STORE_TTL);
+        LOG.info("Creating metastore object cache of " + maxObjects + " objects");
+        sharedCache = new SharedCache(maxObjects, ttlSecs);
+      }
+      cache = sharedCache;
+    }
+  }
+
+  private void invalidate(String name) {
+    if (openTransactionCalls > 0) {
+      // Readers could still cache the old objects until the transaction commits.
+      pendingInvalidations.add(name);
+    } else {
+      cache.bumpVersion(name);
+    }
+  }
+
+  private void invalidatePending() {
+    for (String name : pendingInvalidations) {
+      cache.bumpVersion(name);
+    }
+    pendingInvalidations.clear();
+  }
+
+  private void invalidateDatabase(String dbName) {
+    invalidate(SharedCache.databaseName(dbName));
+  }
+
+  private void invalidateTable(String dbName, String tblName) {
+    invalidate(SharedCache.tableName(dbName, tblName));
+    invalidate(SharedCache.partitionsName(dbName, tblName));
+  }
+
+  private void invalidatePartitions(String dbName, String tblName) {
+    invalidate(SharedCache.partitionsName(dbName, tblName));
+  }
+
+  private static List<Partition> copyPartitions(List<Partition> parts) {
+    List<Partition> result = new ArrayList<Partition>(parts.size());
+    for (Partition part : parts) {
+      result.add(part.deepCopy());
+    }
+    return result;
+  }
+
+  @Override
+  public void shutdown() {
+    rawStore.shutdown();
+  }
+
+  @Override
+  public boolean openTransaction() {
+    boolean result = rawStore.openTransaction();
+    ++openTransactionCalls;
+    return result;
+  }
+
+  @Override
+  public boolean commitTransaction() {
+    boolean result = rawStore.commitTransaction();
+    if (result && openTransactionCalls > 0 && --openTransactionCalls == 0) {
+      invalidatePending();
+    }
+    return result;
+  }
+
+  @Override
+  public void rollbackTransaction() {
+    rawStore.rollbackTransaction();
+    openTransactionCalls = 0;
+    invalidatePending();
+  }
+
+  @Override
+  public void createDatabase(Database db) throws InvalidObjectException, MetaException {
+    rawStore.createDatabase(db);
+    invalidateDatabase(db.getName());
+  }
+
+  @Override
+  public Database getDatabase(String dbName) throws NoSuchObjectException {
+    if (openTransactionCalls > 0) {
+      return rawStore.getDatabase(dbName);
+    }
+    List<Object> key = cache.databaseKey(dbName);
+    Database db = (Database) cache.get(key);
+    if (db == null) {
+      db = rawStore.getDatabase(dbName);
+      cache.put(key, db.deepCopy());
+    }
+    return db.deepCopy();
+  }
+
+  @Override
+  public boolean dropDatabase(String dbName)
+      throws NoSuchObjectException, MetaException {
+    boolean result = rawStore.dropDatabase(dbName);
+    invalidateDatabase(dbName);
+    return result;
+  }
+
+  @Override
+  public boolean alterDatabase(String dbName, Database db)
+      throws NoSuchObjectException, MetaException {
+    boolean result = rawStore.alterDatabase(dbName, db);
+    invalidateDatabase(dbName);
+    return result;
+  }
+
+  @Override
+  public List<String> getDatabases(String pattern) throws MetaException {
+    return rawStore.getDatabases(pattern);
+  }
+
+  @Override
+  public List<String> getAllDatabases() throws MetaException {
+    return rawStore.getAllDatabases();
+  }
+
+  @Override
+  public boolean createType(Type type) {
+    return rawStore.createType(type);
+  }
+
+  @Override
+  public Type getType(String typeName) {
+    return rawStore.getType(typeName);
+  }
+
+  @Override
+  public boolean dropType(String typeName) {
+    return rawStore.dropType(typeName);
+  }
+
+  @Override
+  public void createTable(Table tbl) throws InvalidObjectException, MetaException {
+    rawStore.createTable(tbl);
+    invalidateTable(tbl.getDbName(), tbl.getTableName());
+  }
+
+  @Override
+  public boolean dropTable(String dbName, String tableName)
+      throws MetaException, NoSuchObjectException,
+      InvalidObjectException, InvalidInputException {
+    boolean result = rawStore.dropTable(dbName, tableName);
+    invalidateTable(dbName, tableName);
+    return result;
+  }
+
+  @Override
+  public Table getTable(String dbName, String tableName) throws MetaException {
+    if (openTransactionCalls > 0) {
+      return rawStore.getTable(dbName, tableName);
+    }
+    List<Object> key = cache.tableKey(dbName, tableName);
+    Table tbl = (Table) cache.get(key);
+    if (tbl == null) {
+      tbl = rawStore.getTable(dbName, tableName);
+      if (tbl == null) {
+        return null;
+      }
+      cache.put(key, tbl.deepCopy());
+    }
+    return tbl.deepCopy();
+  }
+
+  @Override
+  public boolean addPartition(Partition part)
+      throws InvalidObjectException, MetaException {
+    boolean result = rawStore.addPartition(part);
+    invalidatePartitions(part.getDbName(), part.getTableName());
+    return result;
+  }
+
+  @Override
+  public Partition getPartition(String dbName, String tableName, List<String> partVals)
+      throws MetaException, NoSuchObjectException {
+    if (openTransactionCalls > 0) {
+      return rawStore.getPartition(dbName, tableName, partVals);
+    }
+    List<Object> key = cache.partitionKey(dbName, tableName, partVals);
+    Partition part = (Partition) cache.get(key);
+    if (part == null) {
+      part = rawStore.getPartition(dbName, tableName, partVals);
+      cache.put(key, part.deepCopy());
+    }
+    return part.deepCopy();
+  }
+
+  @Override
+  public boolean dropPartition(String dbName, String tableName, List<String> partVals)
+      throws MetaException, NoSuchObjectException,
+      InvalidObjectException, InvalidInputException {
+    boolean result = rawStore.dropPartition(dbName, tableName, partVals);
+    invalidatePartitions(dbName, tableName);
+    return result;
+  }
+
+  @Override
+  public List<Partition> getPartitions(String dbName, String tableName, int max)
+      throws MetaException, NoSuchObjectException {
+    return rawStore.getPartitions(dbName, tableName, max);
+  }
+
+  @Override
+  public void alterTable(String dbName, String name, Table newTable)
+      throws InvalidObjectException, MetaException {
+    rawStore.alterTable(dbName, name, newTable);
+    invalidateTable(dbName, name);
+    invalidateTable(newTable.getDbName(), newTable.getTableName());
+  }
+
+  @Override
+  public List<String> getTables(String dbName, String pattern) throws MetaException {
+    return rawStore.getTables(dbName, pattern);
+  }
+
+  @Override
+  public List<Table> getTableObjectsByName(String dbName, List<String> tableNames)
+      throws MetaException, UnknownDBException {
+    return rawStore.getTableObjectsByName(dbName, tableNames);
+  }
+
+  @Override
+  public List<String> getAllTables(String dbName) throws MetaException {
+    return rawStore.getAllTables(dbName);
+  }
+
+  @Override
+  public List<String> listTableNamesByFilter(String dbName, String filter,
+      short maxTables) throws MetaException, UnknownDBException {
+    return rawStore.listTableNamesByFilter(dbName, filter, maxTables);
+  }
+
+  @Override
+  public List<String> listPartitionNames(String dbName, String tblName, short maxParts)
+      throws MetaException {
+    return rawStore.listPartitionNames(dbName, tblName, maxParts);
+  }
+
+  @Override
+  public List<String> listPartitionNamesByFilter(String dbName, String tblName,
+      String filter, short maxParts) throws MetaException {
+    return rawStore.listPartitionNamesByFilter(dbName, tblName, filter, maxParts);
+  }
+
+  @Override
+  public void alterPartition(String dbName, String tblName, List<String> partVals,
+      Partition newPart) throws InvalidObjectException, MetaException {
+    rawStore.alterPartition(dbName, tblName, partVals, newPart);
+    invalidatePartitions(dbName, tblName);
+  }
+
+  @Override
+  public void alterPartitions(String dbName, String tblName,
+      List<List<String>> partValsList, List<Partition> newParts)
+      throws InvalidObjectException, MetaException {
+    rawStore.alterPartitions(dbName, tblName, partValsList, newParts);
+    invalidatePartitions(dbName, tblName);
+  }
+
+  @Override
+  public boolean addIndex(Index index) throws InvalidObjectException, MetaException {
+    return rawStore.addIndex(index);
+  }
+
+  @Override
+  public Index getIndex(String dbName, String origTableName, String indexName)
+      throws MetaException {
+    return rawStore.getIndex(dbName, origTableName, indexName);
+  }
+
+  @Override
+  public boolean dropIndex(String dbName, String origTableName, String indexName)
+      throws MetaException {
+    return rawStore.dropIndex(dbName, origTableName, indexName);
+  }
+
+  @Override
+  public List<Index> getIndexes(String dbName, String origTableName, int max)
+      throws MetaException {
+    return rawStore.getIndexes(dbName, origTableName, max);
+  }
+
+  @Override
+  public List<String> listIndexNames(String dbName, String origTableName, short max)
+      throws MetaException {
+    return rawStore.listIndexNames(dbName, origTableName, max);
+  }
+
+  @Override
+  public void alterIndex(String dbName, String baseTblName, String name, Index newIndex)
+      throws InvalidObjectException, MetaException {
+    rawStore.alterIndex(dbName, baseTblName, name, newIndex);
+  }
+
+  @Override
+  public List<Partition> getPartitionsByFilter(String dbName, String tblName,
+      String filter, short maxParts) throws MetaException, NoSuchObjectException {
+    return rawStore.getPartitionsByFilter(dbName, tblName, filter, maxParts);
+  }
+
+  @Override
+  public int getNumPartitionsByFilter(String dbName, String tblName,
+      String filter) throws MetaException, NoSuchObjectException {
+    return rawStore.getNumPartitionsByFilter(dbName, tblName, filter);
+  }
+
+  @Override
+  public List<Partition> getPartitionsByNames(String dbName, String tblName,
+      List<String> partNames) throws MetaException, NoSuchObjectException {
+    return rawStore.getPartitionsByNames(dbName, tblName, partNames);
+  }
+
+  @Override
+  public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
+      String defaultPartitionName, short maxParts, List<Partition> result) throws TException {
+    return getPartitionsByExpr(dbName, tblName, expr, defaultPartitionName, null, maxParts, result);
+  }
+
+  @Override
+  public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
+      String defaultPartitionName, String fromPartName, short maxParts, List<Partition> result)
+      throws TException {
+    if (openTransactionCalls > 0) {
+      return rawStore.getPartitionsByExpr(
+          dbName, tblName, expr, defaultPartitionName, fromPartName, maxParts, result);
+    }
+    List<Object> key = cache.exprKey(
+        dbName, tblName, expr, defaultPartitionName, fromPartName, maxParts);
+    ExprResult cached = (ExprResult) cache.get(key);
+    if (cached == null) {
+      List<Partition> parts = new ArrayList<Partition>();
+      boolean hasUnknownPartitions = rawStore.getPartitionsByExpr(
+          dbName, tblName, expr, defaultPartitionName, fromPartName, maxParts, parts);
+      cached = new ExprResult(copyPartitions(parts), hasUnknownPartitions);
+      cache.put(key, cached);
+      result.addAll(parts);
+    } else {
+      result.addAll(copyPartitions(cached.partitions));
+    }
+    return cached.hasUnknownPartitions;
+  }
+
+  @Override
+  public Table markPartitionForEvent(String dbName, String tblName,
+      Map<String, String> partVals, PartitionEventType evtType)
+      throws MetaException, UnknownTableException, InvalidPartitionException,
+      UnknownPartitionException {
+    return rawStore.markPartitionForEvent(dbName, tblName, partVals, evtType);
+  }
+
+  @Override
+  public boolean isPartitionMarkedForEvent(String dbName, String tblName,
+      Map<String, String> partName, PartitionEventType evtType)
+      throws MetaException, UnknownTableException, InvalidPartitionException,
+      UnknownPartitionException {
+    return rawStore.isPartitionMarkedForEvent(dbName, tblName, partName, evtType);
+  }
+
+  @Override
+  public boolean addRole(String rowName, String ownerName) throws InvalidObjectException,
+      MetaException, NoSuchObjectException {
+    return rawStore.addRole(rowName, ownerName);
+  }
+
+  @Override
+  public boolean removeRole(String roleName)
+      throws MetaException, NoSuchObjectException {
+    return rawStore.removeRole(roleName);
+  }
+
+  @Override
+  public boolean grantRole(Role role, String userName, PrincipalType principalType,
+      String grantor, PrincipalType grantorType, boolean grantOption)
+      throws MetaException, NoSuchObjectException, InvalidObjectException {
+    return rawStore.grantRole(role, userName,  principalType, grantor, grantorType,
+        grantOption);
+  }
+
+  @Override
+  public boolean revokeRole(Role role, String userName, PrincipalType principalType)
+      throws MetaException, NoSuchObjectException {
+    return rawStore.revokeRole(role, userName, principalType);
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getUserPrivilegeSet(String userName,
+      List<String> groupNames) throws InvalidObjectException, MetaException {
+    return rawStore.getUserPrivilegeSet(userName, groupNames);
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getDBPrivilegeSet(String dbName, String userName,
+      List<String> groupNames) throws InvalidObjectException, MetaException {
+    return rawStore.getDBPrivilegeSet(dbName, userName, groupNames);
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getTablePrivilegeSet(String dbName, String tableName,
+      String userName, List<String> groupNames)
+      throws InvalidObjectException, MetaException {
+    return rawStore.getTablePrivilegeSet(dbName, tableName, userName, groupNames);
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getPartitionPrivilegeSet(String dbName, String tableName,
+      String partition, String userName, List<String> groupNames)
+      throws InvalidObjectException, MetaException {
+    return rawStore.getPartitionPrivilegeSet(dbName, tableName, partition,
+        userName, groupNames);
+  }
+
+  @Override
+  public PrincipalPrivilegeSet getColumnPrivilegeSet(String dbName, String tableName,
+      String partitionName, String columnName, String userName, List<String> groupNames)
+      throws InvalidObjectException, MetaException {
+    return rawStore.getColumnPrivilegeSet(dbName, tableName, partitionName,
+        columnName, userName, groupNames);
+  }
+
+  @Override
+  public List<MGlobalPrivilege> listPrincipalGlobalGrants(String principalName,
+      PrincipalType principalType) {
+    return rawStore.listPrincipalGlobalGrants(principalName, principalType);
+  }
+
+  @Override
+  public List<MDBPrivilege> listPrincipalDBGrants(String principalName,
+      PrincipalType principalType, String dbName) {
+    return rawStore.listPrincipalDBGrants(principalName,  principalType, dbName);
+  }
+
+  @Override
+  public List<MTablePrivilege> listAllTableGrants(String principalName,
+      PrincipalType principalType, String dbName, String tableName) {
+    return rawStore.listAllTableGrants(principalName,  principalType,
+        dbName, tableName);
+  }
+
+  @Override
+  public List<MPartitionPrivilege> listPrincipalPartitionGrants(String principalName,
+      PrincipalType principalType, String dbName, String tableName, String partName) {
+    return rawStore.listPrincipalPartitionGrants(principalName, principalType,
+        dbName, tableName, partName);
+  }
+
+  @Override
+  public List<MTableColumnPrivilege> listPrincipalTableColumnGrants(String principalName,
+      PrincipalType principalType, String dbName, String tableName, String columnName) {
+    return rawStore.listPrincipalTableColumnGrants(principalName, principalType,
+        dbName, tableName, columnName);
+  }
+
+  @Override
+  public List<MPartitionColumnPrivilege> listPrincipalPartitionColumnGrants(
+      String principalName, PrincipalType principalType, String dbName, String tableName,
+      String partName, String columnName) {
+    return rawStore.listPrincipalPartitionColumnGrants(principalName, principalType,
+        dbName, tableName, partName, columnName);
+  }
+
+  @Override
+  public boolean grantPrivileges(PrivilegeBag privileges) throws InvalidObjectException,
+      MetaException, NoSuchObjectException {
+    return rawStore.grantPrivileges(privileges);
+  }
+
+  @Override
+  public boolean revokePrivileges(PrivilegeBag privileges) throws InvalidObjectException,
+      MetaException, NoSuchObjectException {
+    return rawStore.revokePrivileges(privileges);
+  }
+
+  @Override
+  public Role getRole(String roleName) throws NoSuchObjectException {
+    return rawStore.getRole(roleName);
+  }
+
+  @Override
+  public List<String> listRoleNames() {
+    return rawStore.listRoleNames();
+  }
+
+  @Override
+  public List<MRoleMap> listRoles(String principalName, PrincipalType principalType) {
+    return rawStore.listRoles(principalName, principalType);
+  }
+
+  @Override
+  public List<MRoleMap> listRoleMembers(String roleName) {
+    return rawStore.listRoleMembers(roleName);
+  }
+
+  @Override
+  public Partition getPartitionWithAuth(String dbName, String tblName,
+      List<String> partVals, String userName, List<String> groupNames)
+      throws MetaException, NoSuchObjectException, InvalidObjectException {
+    return rawStore.getPartitionWithAuth(dbName, tblName, partVals, userName,
+        groupNames);
+  }
+
+  @Override
+  public List<Partition> getPartitionsWithAuth(String dbName, String tblName,
+      short maxParts, String userName, List<String> groupNames)
+      throws MetaException, NoSuchObjectException, InvalidObjectException {
+    return rawStore.getPartitionsWithAuth(dbName, tblName, maxParts, userName,
+        groupNames);
+  }
+
+  @Override
+  public List<String> listPartitionNamesPs(String dbName, String tblName,
+      List<String> partVals, short maxParts)
+      throws MetaException, NoSuchObjectException {
+    return rawStore.listPartitionNamesPs(dbName, tblName, partVals, maxParts);
+  }
+
+  @Override
+  public List<Partition> listPartitionsPsWithAuth(String dbName, String tblName,
+      List<String> partVals, short maxParts, String userName, List<String> groupNames)
+      throws MetaException, InvalidObjectException, NoSuchObjectException {
+    return rawStore.listPartitionsPsWithAuth(dbName, tblName, partVals, maxParts,
+        userName, groupNames);
+  }
+
+  @Override
+  public long cleanupEvents() {
+    return rawStore.cleanupEvents();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalDBGrantsAll(
+      String principalName, PrincipalType principalType) {
+    return rawStore.listPrincipalDBGrantsAll(principalName, principalType);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalTableGrantsAll(
+      String principalName, PrincipalType principalType) {
+    return rawStore.listPrincipalTableGrantsAll(principalName, principalType);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalPartitionGrantsAll(
+      String principalName, PrincipalType principalType) {
+    return rawStore.listPrincipalPartitionGrantsAll(principalName, principalType);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalTableColumnGrantsAll(
+      String principalName, PrincipalType principalType) {
+    return rawStore.listPrincipalTableColumnGrantsAll(principalName, principalType);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPrincipalPartitionColumnGrantsAll(
+      String principalName, PrincipalType principalType) {
+    return rawStore.listPrincipalPartitionColumnGrantsAll(principalName, principalType);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listGlobalGrantsAll() {
+    return rawStore.listGlobalGrantsAll();
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listDBGrantsAll(String dbName) {
+    return rawStore.listDBGrantsAll(dbName);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPartitionColumnGrantsAll(String dbName, String tableName,
+      String partitionName, String columnName) {
+    return rawStore.listPartitionColumnGrantsAll(dbName, tableName, partitionName, columnName);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listTableGrantsAll(String dbName, String tableName) {
+    return rawStore.listTableGrantsAll(dbName, tableName);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listPartitionGrantsAll(String dbName, String tableName,
+      String partitionName) {
+    return rawStore.listPartitionGrantsAll(dbName, tableName, partitionName);
+  }
+
+  @Override
+  public List<HiveObjectPrivilege> listTableColumnGrantsAll(String dbName, String tableName,
+      String columnName) {
+    return rawStore.listTableColumnGrantsAll(dbName, tableName, columnName);
+  }
+
+  @Override
+  public ColumnStatistics getTableColumnStatistics(String dbName, String tableName,
+      List<String> colNames) throws MetaException, NoSuchObjectException {
+    return rawStore.getTableColumnStatistics(dbName, tableName, colNames);
+  }
+
+  @Override
+  public boolean deleteTableColumnStatistics(String dbName, String tableName,
+      String colName)
+      throws NoSuchObjectException, MetaException, InvalidObjectException,
+      InvalidInputException {
+    return rawStore.deleteTableColumnStatistics(dbName, tableName, colName);
+  }
+
+  @Override
+  public boolean deletePartitionColumnStatistics(String dbName, String tableName,
+      String partName, List<String> partVals, String colName)
+      throws NoSuchObjectException, MetaException, InvalidObjectException,
+      InvalidInputException {
+    return rawStore.deletePartitionColumnStatistics(dbName, tableName, partName,
+        partVals, colName);
+  }
+
+  @Override
+  public boolean updateTableColumnStatistics(ColumnStatistics statsObj)
+      throws NoSuchObjectException, MetaException, InvalidObjectException,
+      InvalidInputException {
+    return rawStore.updateTableColumnStatistics(statsObj);
+  }
+
+  @Override
+  public boolean updatePartitionColumnStatistics(ColumnStatistics statsObj,
+      List<String> partVals)
+      throws NoSuchObjectException, MetaException, InvalidObjectException,
+      InvalidInputException {
+    return rawStore.updatePartitionColumnStatistics(statsObj, partVals);
+  }
+
+  @Override
+  public boolean addToken(String tokenIdentifier, String delegationToken) {
+    return rawStore.addToken(tokenIdentifier, delegationToken);
+  }
+
+  @Override
+  public boolean removeToken(String tokenIdentifier) {
+    return rawStore.removeToken(tokenIdentifier);
+  }
+
+  @Override
+  public String getToken(String tokenIdentifier) {
+    return rawStore.getToken(tokenIdentifier);
+  }
+
+  @Override
+  public List<String> getAllTokenIdentifiers() {
+    return rawStore.getAllTokenIdentifiers();
+  }
+
+  @Override
+  public int addMasterKey(String key) throws MetaException {
+    return rawStore.addMasterKey(key);
+  }
+
+  @Override
+  public void updateMasterKey(Integer seqNo, String key)
+    throws NoSuchObjectException, MetaException {
+    rawStore.updateMasterKey(seqNo, key);
+  }
+
+  @Override
+  public boolean removeMasterKey(Integer keySeq) {
+    return rawStore.removeMasterKey(keySeq);
+  }
+
+  @Override
+  public String[] getMasterKeys() {
+    return rawStore.getMasterKeys();
+  }
+
+  @Override
+  public void verifySchema() throws MetaException {
+    rawStore.verifySchema();
+  }
+
+  @Override
+  public String getMetaStoreSchemaVersion() throws MetaException {
+    return rawStore.getMetaStoreSchemaVersion();
+  }
+
+  @Override
+  public void setMetaStoreSchemaVersion(String schemaVersion, String comment) throws MetaException {
+    rawStore.setMetaStoreSchemaVersion(schemaVersion, comment);
+
+  }
+
+  @Override
+  public List<ColumnStatistics> getPartitionColumnStatistics(String dbName,
+      String tblName, List<String> partNames, List<String> colNames)
+      throws MetaException, NoSuchObjectException {
+    return rawStore.getPartitionColumnStatistics(dbName, tblName, partNames, colNames);
+  }
+
+  @Override
+  public AggrStats get_aggr_stats_for(String dbName, String tblName,
+      List<String> partNames, List<String> colNames)
+      throws MetaException, NoSuchObjectException {
+    return rawStore.get_aggr_stats_for(dbName, tblName, partNames, colNames);
+  }
+
+  @Override
+  public boolean doesPartitionExist(String dbName, String tableName,
+      List<String> partVals) throws MetaException, NoSuchObjectException {
+    return rawStore.doesPartitionExist(dbName, tableName, partVals);
+  }
+
+  @Override
+  public boolean addPartitions(String dbName, String tblName, List<Partition> parts)
+      throws InvalidObjectException, MetaException {
+    boolean result = rawStore.addPartitions(dbName, tblName, parts);
+    invalidatePartitions(dbName, tblName);
+    return result;
+  }
+
+  @Override
+  public void dropPartitions(String dbName, String tblName, List<String> partNames)
+      throws MetaException, NoSuchObjectException {
+    rawStore.dropPartitions(dbName, tblName, partNames);
+    invalidatePartitions(dbName, tblName);
+  }
+
+  @Override
+  public void createFunction(Function func) throws InvalidObjectException,
+      MetaException {
+    rawStore.createFunction(func);
+  }
+
+  @Override
+  public void alterFunction(String dbName, String funcName, Function newFunction)
+      throws InvalidObjectException, MetaException {
+    rawStore.alterFunction(dbName, funcName, newFunction);
+  }
+
+  @Override
+  public void dropFunction(String dbName, String funcName)
+      throws MetaException, NoSuchObjectException, InvalidObjectException,
+      InvalidInputException {
+    rawStore.dropFunction(dbName, funcName);
+  }
+
+  @Override
+  public Function getFunction(String dbName, String funcName)
+      throws MetaException {
+    return rawStore.getFunction(dbName, funcName);
+  }
+
+  @Override
+  public List<String> getFunctions(String dbName, String pattern)
+      throws MetaException {
+    return rawStore.getFunctions(dbName, pattern);
+  }
+
+
+}
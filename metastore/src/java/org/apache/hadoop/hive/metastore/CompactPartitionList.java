@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.metastore;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hive.metastore.api.CompactPartitionsResult;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.PartitionWithoutSD;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+
+/**
+ * The list of partitions received in a {@link CompactPartitionsResult}, where the storage
+ * descriptors that partitions have in common are sent once, rather than with every partition.
+ * The partitions are created when they are first accessed. Partitions that share a storage
+ * descriptor get separate copies of it, so they can be modified independently, except for
+ * the column list: it is usually the largest part of the descriptor, so it is shared between
+ * the copies and cannot be modified. Callers that need to change the columns of a partition
+ * must set a new list instead.
+ */
+class CompactPartitionList extends AbstractList<Partition> {
+  private final CompactPartitionsResult result;
+  private final Partition[] partitions;
+  private final List<List<FieldSchema>> sharedCols;
+
+  CompactPartitionList(CompactPartitionsResult result) {
+    this.result = result;
+    this.partitions = new Partition[result.getPartitionsSize()];
+    this.sharedCols = new ArrayList<List<FieldSchema>>(result.getSharedSdsSize());
+    for (StorageDescriptor sd : result.getSharedSds()) {
+      sharedCols.add(sd.getCols() == null ? null : Collections.unmodifiableList(sd.getCols()));
+    }
+  }
+
+  /**
+   * Makes the compact form of a list of partitions of a table.
+   * @param dbName Database name.
+   * @param tblName Table name.
+   * @param parts Partitions of the table.
+   * @return The compact partition list.
+   */
+  static CompactPartitionsResult compact(String dbName, String tblName, List<Partition> parts) {
+    List<StorageDescriptor> sharedSds = new ArrayList<StorageDescriptor>();
+    Map<StorageDescriptor, Integer> sdIndexes = new HashMap<StorageDescriptor, Integer>();
+    List<PartitionWithoutSD> compactParts = new ArrayList<PartitionWithoutSD>(parts.size());
+    for (Partition part : parts) {
+      StorageDescriptor sd = part.getSd();
+      int sdIndex = -1;
+      if (sd != null) {
+        StorageDescriptor sharedSd = shallowCopySd(sd);
+        sharedSd.unsetLocation();
+        Integer index = sdIndexes.get(sharedSd);
+        if (index == null) {
+          index = sharedSds.size();
+          sharedSds.add(sharedSd);
+          sdIndexes.put(sharedSd, index);
+        }
+        sdIndex = index;
+      }
+      PartitionWithoutSD compactPart = new PartitionWithoutSD(part.getValues(),
+          part.getCreateTime(), part.getLastAccessTime(), (sd == null) ? null : sd.getLocation(),
+          sdIndex, part.getParameters());
+      if (part.isSetPrivileges()) {
+        compactPart.setPrivileges(part.getPrivileges());
+      }
+      compactParts.add(compactPart);
+    }
+    return new CompactPartitionsResult(dbName, tblName, sharedSds, compactParts);
+  }
+
+  @Override
+  public Partition get(int index) {
+    Partition part = partitions[index];
+    if (part == null) {
+      PartitionWithoutSD compactPart = result.getPartitions().get(index);
+      StorageDescriptor sd = null;
+      if (compactPart.getSdIndex() >= 0) {
+        StorageDescriptor sharedSd = shallowCopySd(
+            result.getSharedSds().get(compactPart.getSdIndex()));
+        sharedSd.unsetCols();
+        sd = sharedSd.deepCopy();
+        sd.setCols(sharedCols.get(compactPart.getSdIndex()));
+        sd.setLocation(compactPart.getLocation());
+      }
+      part = new Partition(compactPart.getValues(), result.getDbName(), result.getTblName(),
+          compactPart.getCreateTime(), compactPart.getLastAccessTime(), sd,
+          compactPart.getParameters());
+      if (compactPart.isSetPrivileges()) {
+        part.setPrivileges(compactPart.getPrivileges());
+      }
+      partitions[index] = part;
+    }
+    return part;
+  }
+
+  @Override
+  public int size() {
+    return partitions.length;
+  }
+
+  /**
+   * Makes a copy of the storage descriptor that refers to the same objects as the original.
+   */
+  private static StorageDescriptor shallowCopySd(StorageDescriptor sd) {
+    StorageDescriptor copy = new StorageDescriptor(sd.getCols(), sd.getLocation(),
+        sd.getInputFormat(), sd.getOutputFormat(), sd.isCompressed(), sd.getNumBuckets(),
+        sd.getSerdeInfo(), sd.getBucketCols(), sd.getSortCols(), sd.getParameters());
+    if (sd.isSetSkewedInfo()) {
+      copy.setSkewedInfo(sd.getSkewedInfo());
+    }
+    if (sd.isSetStoredAsSubDirectories()) {
+      copy.setStoredAsSubDirectories(sd.isStoredAsSubDirectories());
+    }
+    return copy;
+  }
+}
@@ -65,12 +65,15 @@
 import org.apache.hadoop.hive.metastore.api.AbortTxnRequest;
 import org.apache.hadoop.hive.metastore.api.AddPartitionsRequest;
 import org.apache.hadoop.hive.metastore.api.AddPartitionsResult;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.AlreadyExistsException;
 import org.apache.hadoop.hive.metastore.api.CheckLockRequest;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsDesc;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
 import org.apache.hadoop.hive.metastore.api.CommitTxnRequest;
+import org.apache.hadoop.hive.metastore.api.CompactPartitionsRequest;
+import org.apache.hadoop.hive.metastore.api.CompactPartitionsResult;
 import org.apache.hadoop.hive.metastore.api.CompactionRequest;
 import org.apache.hadoop.hive.metastore.api.ConfigValSecurityException;
 import org.apache.hadoop.hive.metastore.api.Database;
@@ -3615,6 +3618,22 @@ public PartitionsStatsResult get_partitions_statistics_req(PartitionsStatsReques
       return result;
     }
 
+    @Override
+    public AggrStats get_aggr_stats_for(PartitionsStatsRequest request)
+        throws MetaException, NoSuchObjectException, TException {
+      String dbName = request.getDbName(), tblName = request.getTblName();
+      startFunction("get_aggr_stats_for: db=" + dbName + " table=" + tblName);
+
+      AggrStats result = null;
+      try {
+        result = getMS().get_aggr_stats_for(
+            dbName, tblName, request.getPartNames(), request.getColNames());
+      } finally {
+        endFunction("get_aggr_stats_for: ", result == null, null, tblName);
+      }
+      return result;
+    }
+
     @Override
     public boolean update_table_column_statistics(ColumnStatistics colStats)
       throws NoSuchObjectException,InvalidObjectException,MetaException,TException,
@@ -3796,9 +3815,33 @@ public PartitionsByExprResult get_partitions_by_expr(
       Exception ex = null;
       try {
         List<Partition> partitions = new LinkedList<Partition>();
-        boolean hasUnknownPartitions = getMS().getPartitionsByExpr(dbName, tblName,
-            req.getExpr(), req.getDefaultPartitionName(), req.getMaxParts(), partitions);
-        ret = new PartitionsByExprResult(partitions, hasUnknownPartitions);
+        if (!req.isSetCursor()) {
+          boolean hasUnknownPartitions = getMS().getPartitionsByExpr(dbName, tblName,
+              req.getExpr(), req.getDefaultPartitionName(), req.getMaxParts(), partitions);
+          ret = new PartitionsByExprResult(partitions, hasUnknownPartitions);
+        } else {
+          // Return one batch; the cursor is the name of the last partition returned.
+          String fromPartName = req.getCursor().isEmpty() ? null : req.getCursor();
+          short maxParts = req.getMaxParts();
+          boolean hasUnknownPartitions = getMS().getPartitionsByExpr(dbName, tblName,
+              req.getExpr(), req.getDefaultPartitionName(), fromPartName, maxParts, partitions);
+          ret = new PartitionsByExprResult(partitions, hasUnknownPartitions);
+          String nextCursor = "";
+          if (maxParts > 0 && partitions.size() == maxParts) {
+            Table tbl = getMS().getTable(dbName, tblName);
+            if (tbl == null) {
+              throw new NoSuchObjectException(dbName + "." + tblName + " table not found");
+            }
+            nextCursor = Warehouse.makePartName(tbl.getPartitionKeys(),
+                partitions.get(partitions.size() - 1).getValues());
+          }
+          ret.setNextCursor(nextCursor);
+        }
+        if (req.isCompact()) {
+          // Send the storage descriptors the partitions have in common only once.
+          ret.setCompactPartitions(CompactPartitionList.compact(dbName, tblName, partitions));
+          ret.setPartitions(new ArrayList<Partition>());
+        }
       } catch (Exception e) {
         ex = e;
         rethrowException(e);
@@ -3842,6 +3885,27 @@ public List<Partition> get_partitions_by_names(final String dbName,
       return ret;
     }
 
+    @Override
+    public CompactPartitionsResult get_partitions_compact(CompactPartitionsRequest request)
+        throws MetaException, NoSuchObjectException, TException {
+      String dbName = request.getDbName(), tblName = request.getTblName();
+      startTableFunction("get_partitions_compact", dbName, tblName);
+      CompactPartitionsResult ret = null;
+      Exception ex = null;
+      try {
+        List<Partition> parts = request.isSetPartNames()
+            ? getMS().getPartitionsByNames(dbName, tblName, request.getPartNames())
+            : getMS().getPartitions(dbName, tblName, request.getMaxParts());
+        ret = CompactPartitionList.compact(dbName, tblName, parts);
+      } catch (Exception e) {
+        ex = e;
+        rethrowException(e);
+      } finally {
+        endFunction("get_partitions_compact", ret != null, ex, tblName);
+      }
+      return ret;
+    }
+
     @Override
     public PrincipalPrivilegeSet get_privilege_set(HiveObjectRef hiveObject,
         String userName, List<String> groupNames) throws MetaException,
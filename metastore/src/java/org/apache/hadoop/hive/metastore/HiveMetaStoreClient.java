@@ -53,11 +53,13 @@
 import org.apache.hadoop.hive.metastore.api.AbortTxnRequest;
 import org.apache.hadoop.hive.metastore.api.AddPartitionsRequest;
 import org.apache.hadoop.hive.metastore.api.AddPartitionsResult;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.AlreadyExistsException;
 import org.apache.hadoop.hive.metastore.api.CheckLockRequest;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
 import org.apache.hadoop.hive.metastore.api.CommitTxnRequest;
+import org.apache.hadoop.hive.metastore.api.CompactPartitionsRequest;
 import org.apache.hadoop.hive.metastore.api.CompactionRequest;
 import org.apache.hadoop.hive.metastore.api.CompactionType;
 import org.apache.hadoop.hive.metastore.api.ConfigValSecurityException;
@@ -917,6 +919,7 @@ public boolean listPartitionsByExpr(String db_name, String tbl_name, byte[] expr
     if (max_parts >= 0) {
       req.setMaxParts(max_parts);
     }
+    req.setCompact(true);
     PartitionsByExprResult r = null;
     try {
       r = client.get_partitions_by_expr(req);
@@ -929,11 +932,62 @@ public boolean listPartitionsByExpr(String db_name, String tbl_name, byte[] expr
       throw new IncompatibleMetastoreException(
           "Metastore doesn't support listPartitionsByExpr: " + te.getMessage());
     }
-    // TODO: in these methods, do we really need to deepcopy?
-    deepCopyPartitions(r.getPartitions(), result);
+    if (r.isSetCompactPartitions()) {
+      // The partitions are created from the result, so no need to deepcopy.
+      result.addAll(new CompactPartitionList(r.getCompactPartitions()));
+    } else {
+      // TODO: in these methods, do we really need to deepcopy?
+      deepCopyPartitions(r.getPartitions(), result);
+    }
     return !r.isSetHasUnknownPartitions() || r.isHasUnknownPartitions(); // Assume the worst.
   }
 
+  @Override
+  public PartitionsByExprResult listPartitionsByExpr(String db_name, String tbl_name,
+      byte[] expr, String default_partition_name, String cursor, short batch_size)
+          throws TException {
+    PartitionsByExprRequest req = new PartitionsByExprRequest(
+        db_name, tbl_name, ByteBuffer.wrap(expr));
+    if (default_partition_name != null) {
+      req.setDefaultPartitionName(default_partition_name);
+    }
+    req.setMaxParts(batch_size);
+    req.setCursor(cursor == null ? "" : cursor);
+    req.setCompact(true);
+    PartitionsByExprResult r = null;
+    try {
+      r = client.get_partitions_by_expr(req);
+    } catch (TApplicationException te) {
+      if (te.getType() != TApplicationException.UNKNOWN_METHOD
+          && te.getType() != TApplicationException.WRONG_METHOD_NAME) {
+        throw te;
+      }
+      throw new IncompatibleMetastoreException(
+          "Metastore doesn't support listPartitionsByExpr: " + te.getMessage());
+    }
+    if (!r.isSetNextCursor()) {
+      // The metastore ignored the cursor, so this is not a batch but the first partitions.
+      throw new IncompatibleMetastoreException(
+          "Metastore doesn't support listPartitionsByExpr in batches");
+    }
+    if (!r.isSetHasUnknownPartitions()) {
+      r.setHasUnknownPartitions(true); // Assume the worst.
+    }
+    if (r.isSetCompactPartitions()) {
+      r.setPartitions(new CompactPartitionList(r.getCompactPartitions()));
+      r.unsetCompactPartitions();
+    }
+    return r;
+  }
+
+  @Override
+  public PartitionsByExprIterator listPartitionsByExprInBatches(String db_name,
+      String tbl_name, byte[] expr, String default_partition_name, short batch_size)
+          throws TException {
+    return new PartitionsByExprIterator(
+        this, db_name, tbl_name, expr, default_partition_name, batch_size);
+  }
+
 
   /**
    * Get number of partitions matching specified filter
@@ -992,6 +1046,30 @@ public List<Partition> getPartitionsByNames(String db_name, String tbl_name,
     return deepCopyPartitions(client.get_partitions_by_names(db_name, tbl_name, part_names));
   }
 
+  @Override
+  public List<Partition> listPartitionsCompact(String db_name, String tbl_name,
+      List<String> part_names, short max_parts)
+          throws NoSuchObjectException, MetaException, TException {
+    CompactPartitionsRequest req = new CompactPartitionsRequest(db_name, tbl_name);
+    if (part_names != null) {
+      req.setPartNames(part_names);
+    }
+    if (max_parts >= 0) {
+      req.setMaxParts(max_parts);
+    }
+    try {
+      // The partitions are created from the result when accessed, so no need to deepcopy.
+      return new CompactPartitionList(client.get_partitions_compact(req));
+    } catch (TApplicationException te) {
+      if (te.getType() != TApplicationException.UNKNOWN_METHOD
+          && te.getType() != TApplicationException.WRONG_METHOD_NAME) {
+        throw te;
+      }
+      throw new IncompatibleMetastoreException(
+          "Metastore doesn't support listPartitionsCompact: " + te.getMessage());
+    }
+  }
+
   @Override
   public Partition getPartitionWithAuthInfo(String db_name, String tbl_name,
       List<String> part_vals, String user_name, List<String> group_names)
@@ -1255,6 +1333,15 @@ public Map<String, List<ColumnStatisticsObj>> getPartitionColumnStatistics(
         new PartitionsStatsRequest(dbName, tableName, colNames, partNames)).getPartStats();
   }
 
+  /** {@inheritDoc} */
+  @Override
+  public AggrStats getAggrColStatsFor(String dbName, String tblName,
+      List<String> colNames, List<String> partNames)
+          throws NoSuchObjectException, MetaException, TException {
+    return client.get_aggr_stats_for(
+        new PartitionsStatsRequest(dbName, tblName, colNames, partNames));
+  }
+
   /** {@inheritDoc} */
   @Override
   public boolean deletePartitionColumnStatistics(String dbName, String tableName, String partName,
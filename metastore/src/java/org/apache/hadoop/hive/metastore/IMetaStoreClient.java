@@ -38,6 +38,7 @@
 import java.util.Map;
 
 import org.apache.hadoop.hive.common.ObjectPair;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.AlreadyExistsException;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
@@ -68,6 +69,7 @@
 import org.apache.hadoop.hive.metastore.api.OpenTxnsResponse;
 import org.apache.hadoop.hive.metastore.api.Partition;
 import org.apache.hadoop.hive.metastore.api.PartitionEventType;
+import org.apache.hadoop.hive.metastore.api.PartitionsByExprResult;
 import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
 import org.apache.hadoop.hive.metastore.api.PrincipalType;
 import org.apache.hadoop.hive.metastore.api.PrivilegeBag;
@@ -476,7 +478,9 @@ public List<Partition> listPartitionsByFilter(String db_name, String tbl_name,
 
 
   /**
-   * Get list of partitions matching specified serialized expression
+   * Get list of partitions matching specified serialized expression. The partitions are
+   * received in the compact form if the metastore supports it, see
+   * {@link #listPartitionsCompact(String, String, List, short)}.
    * @param db_name the database name
    * @param tbl_name the table name
    * @param expr expression, serialized from ExprNodeDesc
@@ -491,6 +495,42 @@ public boolean listPartitionsByExpr(String db_name, String tbl_name,
       byte[] expr, String default_partition_name, short max_parts, List<Partition> result)
           throws TException;
 
+  /**
+   * Get one batch of the partitions matching specified serialized expression, in partition
+   * name order. Getting the partitions batch by batch bounds the memory used on both sides
+   * when the expression matches a large number of partitions.
+   * @param db_name the database name
+   * @param tbl_name the table name
+   * @param expr expression, serialized from ExprNodeDesc
+   * @param default_partition_name Default partition name from configuration. If blank, the
+   *    metastore server-side configuration is used.
+   * @param cursor empty for the first batch; the next cursor of the previous batch after that
+   * @param batch_size the maximum number of partitions to return
+   * @return the partitions of the batch, received in the compact form, see
+   *    {@link #listPartitionsCompact(String, String, List, short)}; the next cursor is empty if this is the last batch
+   * @throws IncompatibleMetastoreException if the metastore doesn't support batches
+   */
+  public PartitionsByExprResult listPartitionsByExpr(String db_name, String tbl_name,
+      byte[] expr, String default_partition_name, String cursor, short batch_size)
+          throws TException;
+
+  /**
+   * Iterate over the partitions matching specified serialized expression, getting them
+   * batch by batch with {@link #listPartitionsByExpr(String, String, byte[], String, String,
+   * short)}, so that only one batch is held at a time.
+   * @param db_name the database name
+   * @param tbl_name the table name
+   * @param expr expression, serialized from ExprNodeDesc
+   * @param default_partition_name Default partition name from configuration. If blank, the
+   *    metastore server-side configuration is used.
+   * @param batch_size the maximum number of partitions to get at a time
+   * @return the iterator, which has got the first batch
+   * @throws IncompatibleMetastoreException if the metastore doesn't support batches
+   */
+  public PartitionsByExprIterator listPartitionsByExprInBatches(String db_name,
+      String tbl_name, byte[] expr, String default_partition_name, short batch_size)
+          throws TException;
+
   /**
    * Get number of partitions matching specified filter
    * @param db_name the database name
@@ -532,6 +572,26 @@ public List<Partition> listPartitionsWithAuthInfo(String dbName,
   public List<Partition> getPartitionsByNames(String db_name, String tbl_name,
       List<String> part_names) throws NoSuchObjectException, MetaException, TException;
 
+  /**
+   * Get partitions in the compact form, in which the storage descriptors that partitions have
+   * in common are only sent once. The partitions are created when they are first accessed
+   * in the returned list, and share the column lists of their storage descriptors; the shared
+   * lists cannot be modified, so set a new list to change the columns of a partition.
+   * @param db_name database name
+   * @param tbl_name table name
+   * @param part_names list of partition names; all partitions are returned if null
+   * @param max_parts the maximum number of partitions to return when part_names is null,
+   *    all partitions are returned if -1 is passed
+   * @return list of Partition objects
+   * @throws IncompatibleMetastoreException if the metastore doesn't support compact lists
+   * @throws NoSuchObjectException
+   * @throws MetaException
+   * @throws TException
+   */
+  public List<Partition> listPartitionsCompact(String db_name, String tbl_name,
+      List<String> part_names, short max_parts)
+          throws NoSuchObjectException, MetaException, TException;
+
   /**
    * @param dbName
    * @param tableName
@@ -880,6 +940,15 @@ public Map<String, List<ColumnStatisticsObj>> getPartitionColumnStatistics(Strin
       String tableName,  List<String> partNames, List<String> colNames)
           throws NoSuchObjectException, MetaException, TException;
 
+  /**
+   * Get column statistics given dbName, tableName and colName-s, aggregated over the given
+   * partitions by the metastore
+   * @return AggrStats struct with the aggregates and the number of partitions that had stats
+   */
+  public AggrStats getAggrColStatsFor(String dbName, String tblName,
+      List<String> colNames, List<String> partNames)
+          throws NoSuchObjectException, MetaException, TException;
+
   /**
    * Delete partition level column statistics given dbName, tableName, partName and colName
    * @param dbName
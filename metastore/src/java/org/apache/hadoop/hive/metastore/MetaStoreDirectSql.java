@@ -21,17 +21,25 @@
 import static org.apache.commons.lang.StringUtils.join;
 import static org.apache.commons.lang.StringUtils.repeat;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Savepoint;
 import java.sql.Statement;
+import java.sql.Types;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -43,6 +51,7 @@
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsData;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsDesc;
@@ -56,7 +65,10 @@
 import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
 import org.apache.hadoop.hive.metastore.api.Table;
 import org.apache.hadoop.hive.metastore.model.MDatabase;
+import org.apache.hadoop.hive.metastore.model.MPartition;
 import org.apache.hadoop.hive.metastore.model.MPartitionColumnStatistics;
+import org.apache.hadoop.hive.metastore.model.MSerDeInfo;
+import org.apache.hadoop.hive.metastore.model.MStorageDescriptor;
 import org.apache.hadoop.hive.metastore.model.MTableColumnStatistics;
 import org.apache.hadoop.hive.metastore.parser.ExpressionTree;
 import org.apache.hadoop.hive.metastore.parser.ExpressionTree.FilterBuilder;
@@ -76,9 +88,10 @@
  * the underlying database. It should use ANSI SQL and be compatible with common databases
  * such as MySQL (note that MySQL doesn't use full ANSI mode by default), Postgres, etc.
  *
- * As of now, only the partition retrieval is done this way to improve job startup time;
- * JDOQL partition retrieval is still present so as not to limit the ORM solution we have
- * to SQL stores only. There's always a way to do without direct SQL.
+ * As of now, only the partition retrieval is done this way to improve job startup time,
+ * together with bulk partition writes; JDOQL partition retrieval and JDO writes are still
+ * present so as not to limit the ORM solution we have to SQL stores only. There's always a
+ * way to do without direct SQL.
  */
 class MetaStoreDirectSql {
   private static final Log LOG = LogFactory.getLog(MetaStoreDirectSql.class);
@@ -98,6 +111,17 @@ class MetaStoreDirectSql {
    */
   private final boolean isCompatibleDatastore;
 
+  /**
+   * Whether boolean columns are stored as 'Y'/'N' characters; determined on the first write.
+   */
+  private Boolean isCharBooleans = null;
+
+  /** The maximum number of rows to send to the database in one JDBC batch. */
+  private static final int WRITE_BATCH_SIZE = 1000;
+
+  /** The maximum number of values in an IN list; e.g. Oracle doesn't allow more than 1000. */
+  private static final int MAX_IN_LIST_SIZE = 1000;
+
   public MetaStoreDirectSql(PersistenceManager pm) {
     this.pm = pm;
     Transaction tx = pm.currentTransaction();
@@ -201,6 +225,21 @@ public List<Partition> getPartitionsViaSqlFilter(
    */
   public List<Partition> getPartitionsViaSqlFilter(
       Table table, ExpressionTree tree, Integer max) throws MetaException {
+    return getPartitionsViaSqlFilter(table, tree, null, max);
+  }
+
+  /**
+   * Gets partitions by using direct SQL queries, in partition name order, starting after
+   * a given partition name. Used to get the partitions of large tables in batches.
+   * @param table The table.
+   * @param tree The expression tree from which the SQL filter will be derived.
+   * @param fromPartName The partition name after which to start; null to start at the
+   *    first partition.
+   * @param max The maximum number of partitions to return.
+   * @return List of partitions. Null if SQL filter cannot be derived.
+   */
+  public List<Partition> getPartitionsViaSqlFilter(Table table, ExpressionTree tree,
+      String fromPartName, Integer max) throws MetaException {
     assert tree != null;
     List<Object> params = new ArrayList<Object>();
     List<String> joins = new ArrayList<String>();
@@ -208,6 +247,11 @@ public List<Partition> getPartitionsViaSqlFilter(
     if (sqlFilter == null) {
       return null; // Cannot make SQL filter to push down.
     }
+    if (fromPartName != null) {
+      sqlFilter = (StringUtils.isBlank(sqlFilter) ? "" : ("(" + sqlFilter + ") and "))
+          + "\"PARTITIONS\".\"PART_NAME\" > ?";
+      params.add(fromPartName);
+    }
     return getPartitionsViaSqlFilterInternal(table.getDbName(), table.getTableName(),
         isViewTable(table), sqlFilter, params, joins, max);
   }
@@ -642,6 +686,557 @@ private int getNumPartitionsViaSqlFilterInternal(String dbName, String tblName,
 
   }
 
+  /**
+   * Adds partitions of a single table using batched JDBC inserts, in the current transaction.
+   * The caller must make sure the partitions can be written this way, i.e. that they all have
+   * a storage descriptor with the same columns as the table (so that the table's column
+   * descriptor is reused), and no skewed info. If any of the queries fail, everything done
+   * here is rolled back to a savepoint and false is returned, so that the caller can fall
+   * back to DataNucleus.
+   * @param dbName Metastore db name.
+   * @param tblName Metastore table name.
+   * @param partNames Partition names, in the same order as parts.
+   * @param parts Partitions to add.
+   * @return Whether the partitions were added.
+   */
+  public boolean addPartitions(String dbName, String tblName, List<String> partNames,
+      List<Partition> parts) throws MetaException {
+    if (parts.isEmpty()) {
+      return true;
+    }
+    dbName = dbName.toLowerCase();
+    tblName = tblName.toLowerCase();
+    // Make sure what DataNucleus has in store gets to the database before we write around it.
+    pm.flush();
+    Savepoint savepoint = null;
+    try {
+      savepoint = setSavepoint();
+      if (isMySql) {
+        assert pm.currentTransaction().isActive();
+        setAnsiQuotesForMysql(); // must be inside tx together with queries
+      }
+      String queryText = "select \"TBLS\".\"TBL_ID\", \"SDS\".\"CD_ID\" from \"TBLS\""
+        + "  inner join \"DBS\" on \"TBLS\".\"DB_ID\" = \"DBS\".\"DB_ID\" "
+        + "  left outer join \"SDS\" on \"TBLS\".\"SD_ID\" = \"SDS\".\"SD_ID\" "
+        + "where \"TBLS\".\"TBL_NAME\" = ? and \"DBS\".\"NAME\" = ?";
+      Query query = pm.newQuery("javax.jdo.query.SQL", queryText);
+      List<Object[]> sqlResult = ensureList(query.executeWithArray(tblName, dbName));
+      Object[] tblRow = sqlResult.isEmpty() ? null : sqlResult.get(0);
+      query.closeAll();
+      if (tblRow == null || tblRow[1] == null) {
+        return false; // Let DataNucleus produce the appropriate error, or handle views.
+      }
+      Long tblId = extractSqlLong(tblRow[0]), cdId = extractSqlLong(tblRow[1]);
+
+      int count = parts.size();
+      long firstPartId = reserveIds(MPartition.class, count);
+      long firstSdId = reserveIds(MStorageDescriptor.class, count);
+      long firstSerdeId = reserveIds(MSerDeInfo.class, count);
+      if (firstPartId < 0 || firstSdId < 0 || firstSerdeId < 0) {
+        return false;
+      }
+
+      JDOConnection jdoConn = pm.getDataStoreConnection();
+      try {
+        Connection conn = (Connection)jdoConn.getNativeConnection();
+        boolean charBooleans = isCharBooleans(conn);
+        List<Object[]> serdes = new ArrayList<Object[]>(count),
+            serdeParams = new ArrayList<Object[]>(), sds = new ArrayList<Object[]>(count),
+            sdParams = new ArrayList<Object[]>(), bucketCols = new ArrayList<Object[]>(),
+            sortCols = new ArrayList<Object[]>(), partitions = new ArrayList<Object[]>(count),
+            partKeyVals = new ArrayList<Object[]>(), partParams = new ArrayList<Object[]>();
+        for (int i = 0; i < count; ++i) {
+          Partition part = parts.get(i);
+          StorageDescriptor sd = part.getSd();
+          SerDeInfo serde = sd.getSerdeInfo();
+          Long partId = firstPartId + i, sdId = firstSdId + i, serdeId = firstSerdeId + i;
+          serdes.add(new Object[] { serdeId, serde.getName(), serde.getSerializationLib() });
+          addParams(serdeParams, serdeId, serde.getParameters());
+          sds.add(new Object[] { sdId, cdId, sd.getInputFormat(),
+              makeSqlBoolean(sd.isCompressed(), charBooleans),
+              makeSqlBoolean(sd.isStoredAsSubDirectories(), charBooleans), sd.getLocation(),
+              sd.getNumBuckets(), sd.getOutputFormat(), serdeId });
+          addParams(sdParams, sdId, sd.getParameters());
+          addIndexed(bucketCols, sdId, sd.getBucketCols());
+          if (sd.getSortCols() != null) {
+            for (int j = 0; j < sd.getSortCols().size(); ++j) {
+              Order order = sd.getSortCols().get(j);
+              sortCols.add(new Object[] { sdId, order.getCol(), order.getOrder(), j });
+            }
+          }
+          partitions.add(new Object[] { partId, part.getCreateTime(), part.getLastAccessTime(),
+              partNames.get(i), sdId, tblId });
+          addIndexed(partKeyVals, partId, part.getValues());
+          addParams(partParams, partId, part.getParameters());
+        }
+
+        // The order of the inserts follows the foreign keys between the tables.
+        executeBatch(conn, "insert into \"SERDES\" (\"SERDE_ID\", \"NAME\", \"SLIB\")"
+            + " values (?,?,?)", serdes);
+        executeBatch(conn, "insert into \"SERDE_PARAMS\" (\"SERDE_ID\", \"PARAM_KEY\","
+            + " \"PARAM_VALUE\") values (?,?,?)", serdeParams);
+        executeBatch(conn, "insert into \"SDS\" (\"SD_ID\", \"CD_ID\", \"INPUT_FORMAT\","
+            + " \"IS_COMPRESSED\", \"IS_STOREDASSUBDIRECTORIES\", \"LOCATION\", \"NUM_BUCKETS\","
+            + " \"OUTPUT_FORMAT\", \"SERDE_ID\") values (?,?,?,?,?,?,?,?,?)", sds);
+        executeBatch(conn, "insert into \"SD_PARAMS\" (\"SD_ID\", \"PARAM_KEY\","
+            + " \"PARAM_VALUE\") values (?,?,?)", sdParams);
+        executeBatch(conn, "insert into \"BUCKETING_COLS\" (\"SD_ID\", \"BUCKET_COL_NAME\","
+            + " \"INTEGER_IDX\") values (?,?,?)", bucketCols);
+        executeBatch(conn, "insert into \"SORT_COLS\" (\"SD_ID\", \"COLUMN_NAME\", \"ORDER\","
+            + " \"INTEGER_IDX\") values (?,?,?,?)", sortCols);
+        executeBatch(conn, "insert into \"PARTITIONS\" (\"PART_ID\", \"CREATE_TIME\","
+            + " \"LAST_ACCESS_TIME\", \"PART_NAME\", \"SD_ID\", \"TBL_ID\") values (?,?,?,?,?,?)",
+            partitions);
+        executeBatch(conn, "insert into \"PARTITION_KEY_VALS\" (\"PART_ID\", \"PART_KEY_VAL\","
+            + " \"INTEGER_IDX\") values (?,?,?)", partKeyVals);
+        executeBatch(conn, "insert into \"PARTITION_PARAMS\" (\"PART_ID\", \"PARAM_KEY\","
+            + " \"PARAM_VALUE\") values (?,?,?)", partParams);
+      } finally {
+        jdoConn.close(); // We must release the connection before we call other pm methods.
+      }
+      return true;
+    } catch (Exception ex) {
+      rollbackToSavepoint(savepoint, ex);
+      return false;
+    }
+  }
+
+  /**
+   * Updates the fields of existing partitions that are commonly changed in bulk, e.g. after
+   * gathering statistics or moving data: the partition parameters, create and last access
+   * times, and the location and parameters of the storage descriptor. If anything else differs
+   * between the stored and the new partitions, nothing is written and false is returned. If
+   * any of the queries fail, everything done here is rolled back to a savepoint and false is
+   * returned as well, so that the caller can fall back to DataNucleus.
+   * @param dbName Metastore db name.
+   * @param tblName Metastore table name.
+   * @param partNames Partition names, in the same order as newParts.
+   * @param partVals Partition values, in the same order as newParts.
+   * @param newParts New partitions.
+   * @return Whether the partitions were updated.
+   */
+  public boolean alterPartitions(String dbName, String tblName, List<String> partNames,
+      List<List<String>> partVals, List<Partition> newParts) throws MetaException {
+    if (newParts.isEmpty()) {
+      return true;
+    }
+    pm.flush();
+    Savepoint savepoint = null;
+    try {
+      savepoint = setSavepoint();
+      if (!isBulkAlter(dbName, tblName, partNames, partVals, newParts)) {
+        return false;
+      }
+      Map<String, Long[]> ids = getPartitionIds(dbName, tblName, partNames);
+      if (ids.size() != new HashSet<String>(partNames).size()) {
+        return false; // Let DataNucleus produce the appropriate error.
+      }
+
+      List<Object[]> partitions = new ArrayList<Object[]>(newParts.size()),
+          partParams = new ArrayList<Object[]>(), sds = new ArrayList<Object[]>(newParts.size()),
+          sdParams = new ArrayList<Object[]>();
+      List<Long> partIds = new ArrayList<Long>(newParts.size()),
+          sdIds = new ArrayList<Long>(newParts.size());
+      for (int i = 0; i < newParts.size(); ++i) {
+        Partition part = newParts.get(i);
+        Long[] idRow = ids.get(partNames.get(i));
+        if (idRow[1] == null) {
+          return false;
+        }
+        partitions.add(new Object[] { part.getCreateTime(), part.getLastAccessTime(), idRow[0] });
+        addParams(partParams, idRow[0], part.getParameters());
+        sds.add(new Object[] { part.getSd().getLocation(), idRow[1] });
+        addParams(sdParams, idRow[1], part.getSd().getParameters());
+        partIds.add(idRow[0]);
+        sdIds.add(idRow[1]);
+      }
+
+      JDOConnection jdoConn = pm.getDataStoreConnection();
+      try {
+        Connection conn = (Connection)jdoConn.getNativeConnection();
+        executeBatch(conn, "update \"PARTITIONS\" set \"CREATE_TIME\" = ?,"
+            + " \"LAST_ACCESS_TIME\" = ? where \"PART_ID\" = ?", partitions);
+        executeDeletes(conn, "PARTITION_PARAMS", "PART_ID", makeIdLists(partIds));
+        executeBatch(conn, "insert into \"PARTITION_PARAMS\" (\"PART_ID\", \"PARAM_KEY\","
+            + " \"PARAM_VALUE\") values (?,?,?)", partParams);
+        executeBatch(conn, "update \"SDS\" set \"LOCATION\" = ? where \"SD_ID\" = ?", sds);
+        executeDeletes(conn, "SD_PARAMS", "SD_ID", makeIdLists(sdIds));
+        executeBatch(conn, "insert into \"SD_PARAMS\" (\"SD_ID\", \"PARAM_KEY\","
+            + " \"PARAM_VALUE\") values (?,?,?)", sdParams);
+      } finally {
+        jdoConn.close(); // We must release the connection before we call other pm methods.
+      }
+      pm.evictAll(); // DataNucleus may have the old versions of the partitions cached.
+      return true;
+    } catch (Exception ex) {
+      rollbackToSavepoint(savepoint, ex);
+      return false;
+    }
+  }
+
+  /**
+   * Whether the new partitions only differ from the stored ones in the fields that
+   * {@link #alterPartitions} updates.
+   */
+  private boolean isBulkAlter(String dbName, String tblName, List<String> partNames,
+      List<List<String>> partVals, List<Partition> newParts) throws MetaException {
+    Map<List<String>, Partition> oldParts = new HashMap<List<String>, Partition>();
+    for (List<String> names : Lists.partition(partNames, MAX_IN_LIST_SIZE)) {
+      for (Partition oldPart : getPartitionsViaSqlFilter(dbName, tblName, names, null)) {
+        oldParts.put(oldPart.getValues(), oldPart);
+      }
+    }
+    for (int i = 0; i < newParts.size(); ++i) {
+      Partition oldPart = oldParts.get(partVals.get(i)), newPart = newParts.get(i);
+      if (oldPart == null || oldPart.getSd() == null || newPart.getSd() == null) {
+        return false;
+      }
+      Partition expected = oldPart.deepCopy();
+      expected.setParameters(newPart.getParameters());
+      expected.setCreateTime(newPart.getCreateTime());
+      expected.setLastAccessTime(newPart.getLastAccessTime());
+      expected.getSd().setLocation(newPart.getSd().getLocation());
+      expected.getSd().setParameters(newPart.getSd().getParameters());
+      if (!expected.equals(newPart)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Drops partitions together with their storage descriptors, serdes and the column
+   * descriptors that are no longer used, with deletes of up to {@link #MAX_IN_LIST_SIZE}
+   * rows each. Privileges and column statistics of the partitions must have been dropped by
+   * the caller already. If any of the queries fail, everything done here is rolled back to a
+   * savepoint and false is returned, so that the caller can fall back to DataNucleus.
+   * @param dbName Metastore db name.
+   * @param tblName Metastore table name.
+   * @param partNames Partition names to drop.
+   * @return Whether the partitions were dropped.
+   */
+  public boolean dropPartitions(String dbName, String tblName, List<String> partNames)
+      throws MetaException {
+    if (partNames.isEmpty()) {
+      return true;
+    }
+    pm.flush();
+    Savepoint savepoint = null;
+    try {
+      savepoint = setSavepoint();
+      Map<String, Long[]> ids = getPartitionIds(dbName, tblName, partNames);
+      if (ids.isEmpty()) {
+        return true;
+      }
+      List<Long> partIds = new ArrayList<Long>(ids.size()), sdIds = new ArrayList<Long>(),
+          serdeIds = new ArrayList<Long>();
+      // CDs are shared between SDs (typically, with the table), so most of them are the same.
+      Set<Long> cdIds = new HashSet<Long>();
+      for (Long[] idRow : ids.values()) {
+        partIds.add(idRow[0]);
+        if (idRow[1] != null) {
+          sdIds.add(idRow[1]);
+        }
+        if (idRow[2] != null) {
+          serdeIds.add(idRow[2]);
+        }
+        if (idRow[3] != null) {
+          cdIds.add(idRow[3]);
+        }
+      }
+      List<String> partIdLists = makeIdLists(partIds), sdIdLists = makeIdLists(sdIds),
+          serdeIdLists = makeIdLists(serdeIds), cdIdLists = makeIdLists(cdIds);
+      List<String> stringListIdLists = makeIdLists(getSkewedStringListIds(sdIdLists));
+
+      JDOConnection jdoConn = pm.getDataStoreConnection();
+      try {
+        Connection conn = (Connection)jdoConn.getNativeConnection();
+        // The order of the deletes follows the foreign keys between the tables.
+        executeDeletes(conn, "PARTITION_PARAMS", "PART_ID", partIdLists);
+        executeDeletes(conn, "PARTITION_KEY_VALS", "PART_ID", partIdLists);
+        executeDeletes(conn, "PARTITIONS", "PART_ID", partIdLists);
+        for (String sdChild : new String[] { "SD_PARAMS", "BUCKETING_COLS", "SORT_COLS",
+            "SKEWED_COL_NAMES", "SKEWED_COL_VALUE_LOC_MAP" }) {
+          executeDeletes(conn, sdChild, "SD_ID", sdIdLists);
+        }
+        executeDeletes(conn, "SKEWED_VALUES", "SD_ID_OID", sdIdLists);
+        executeDeletes(conn, "SKEWED_STRING_LIST_VALUES", "STRING_LIST_ID", stringListIdLists);
+        executeDeletes(conn, "SKEWED_STRING_LIST", "STRING_LIST_ID", stringListIdLists);
+        executeDeletes(conn, "SDS", "SD_ID", sdIdLists);
+        executeDeletes(conn, "SERDE_PARAMS", "SERDE_ID", serdeIdLists);
+        executeDeletes(conn, "SERDES", "SERDE_ID", serdeIdLists);
+        for (String cdIdList : cdIdLists) {
+          // Only drop the CDs that no SD uses anymore.
+          String unusedCd = " where \"CD_ID\" in (" + cdIdList + ") and not exists (select 1"
+              + " from \"SDS\" where \"SDS\".\"CD_ID\" = ";
+          executeUpdate(conn,
+              "delete from \"COLUMNS_V2\"" + unusedCd + "\"COLUMNS_V2\".\"CD_ID\")");
+          executeUpdate(conn, "delete from \"CDS\"" + unusedCd + "\"CDS\".\"CD_ID\")");
+        }
+      } finally {
+        jdoConn.close(); // We must release the connection before we call other pm methods.
+      }
+      pm.evictAll(); // DataNucleus may have the dropped partitions cached.
+      return true;
+    } catch (Exception ex) {
+      rollbackToSavepoint(savepoint, ex);
+      return false;
+    }
+  }
+
+  /**
+   * Gets the IDs of partitions and their related objects, querying up to
+   * {@link #MAX_IN_LIST_SIZE} partitions at a time.
+   * @return Map of partition name to {PART_ID, SD_ID, SERDE_ID, CD_ID}; all but the first
+   *         can be null, e.g. for partitions of views.
+   */
+  private Map<String, Long[]> getPartitionIds(String dbName, String tblName,
+      List<String> partNames) throws MetaException {
+    boolean doTrace = LOG.isDebugEnabled();
+    if (isMySql) {
+      assert pm.currentTransaction().isActive();
+      setAnsiQuotesForMysql(); // must be inside tx together with queries
+    }
+    Map<String, Long[]> result = new HashMap<String, Long[]>();
+    for (List<String> names : Lists.partition(partNames, MAX_IN_LIST_SIZE)) {
+      String queryText = "select \"PARTITIONS\".\"PART_NAME\", \"PARTITIONS\".\"PART_ID\","
+        + " \"SDS\".\"SD_ID\", \"SDS\".\"SERDE_ID\", \"SDS\".\"CD_ID\" from \"PARTITIONS\""
+        + "  inner join \"TBLS\" on \"PARTITIONS\".\"TBL_ID\" = \"TBLS\".\"TBL_ID\" "
+        + "    and \"TBLS\".\"TBL_NAME\" = ? "
+        + "  inner join \"DBS\" on \"TBLS\".\"DB_ID\" = \"DBS\".\"DB_ID\" "
+        + "     and \"DBS\".\"NAME\" = ? "
+        + "  left outer join \"SDS\" on \"PARTITIONS\".\"SD_ID\" = \"SDS\".\"SD_ID\" "
+        + "where \"PARTITIONS\".\"PART_NAME\" in (" + makeParams(names.size()) + ")";
+      Object[] params = new Object[names.size() + 2];
+      params[0] = tblName.toLowerCase();
+      params[1] = dbName.toLowerCase();
+      for (int i = 0; i < names.size(); ++i) {
+        params[i + 2] = names.get(i);
+      }
+      long start = doTrace ? System.nanoTime() : 0;
+      Query query = pm.newQuery("javax.jdo.query.SQL", queryText);
+      List<Object[]> sqlResult = ensureList(query.executeWithArray(params));
+      long queryTime = doTrace ? System.nanoTime() : 0;
+      for (Object[] row : sqlResult) {
+        result.put((String)row[0], new Long[] { extractSqlLong(row[1]), extractSqlLong(row[2]),
+            extractSqlLong(row[3]), extractSqlLong(row[4]) });
+      }
+      timingTrace(doTrace, queryText, start, queryTime);
+      query.closeAll();
+    }
+    return result;
+  }
+
+  /** Gets the IDs of skewed value lists of the SDs. */
+  private List<Long> getSkewedStringListIds(List<String> sdIdLists) throws MetaException {
+    boolean doTrace = LOG.isDebugEnabled();
+    List<Long> result = new ArrayList<Long>();
+    for (String sdIdList : sdIdLists) {
+      String[] queryTexts = new String[] {
+          "select \"STRING_LIST_ID_EID\" from \"SKEWED_VALUES\""
+        + " where \"SD_ID_OID\" in (" + sdIdList + ") and \"STRING_LIST_ID_EID\" is not null",
+          "select \"STRING_LIST_ID_KID\" from \"SKEWED_COL_VALUE_LOC_MAP\""
+        + " where \"SD_ID\" in (" + sdIdList + ")" };
+      for (String queryText : queryTexts) {
+        long start = doTrace ? System.nanoTime() : 0;
+        Query query = pm.newQuery("javax.jdo.query.SQL", queryText);
+        @SuppressWarnings("unchecked")
+        List<Object> sqlResult = (List<Object>)query.execute();
+        long queryTime = doTrace ? System.nanoTime() : 0;
+        for (Object listId : sqlResult) {
+          result.add(extractSqlLong(listId));
+        }
+        timingTrace(doTrace, queryText, start, queryTime);
+        query.closeAll();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reserves a range of datastore identity values for a model class, the same way DataNucleus
+   * does when it allocates a block of them: by incrementing the value in SEQUENCE_TABLE in a
+   * separate transaction, so that the row is not locked until the end of our transaction.
+   * @return The first value of the reserved range; -1 if the sequence doesn't exist yet.
+   */
+  private long reserveIds(Class<?> modelClass, int count) throws MetaException {
+    PersistenceManager seqPm = pm.getPersistenceManagerFactory().getPersistenceManager();
+    Transaction tx = seqPm.currentTransaction();
+    boolean success = false;
+    tx.begin();
+    JDOConnection jdoConn = seqPm.getDataStoreConnection();
+    try {
+      Connection conn = (Connection)jdoConn.getNativeConnection();
+      if (isMySql) {
+        executeUpdate(conn, "SET @@session.sql_mode=ANSI_QUOTES");
+      }
+      PreparedStatement stmt = conn.prepareStatement("update \"SEQUENCE_TABLE\" set \"NEXT_VAL\""
+          + " = \"NEXT_VAL\" + ? where \"SEQUENCE_NAME\" = ?");
+      long result = -1;
+      try {
+        stmt.setLong(1, count);
+        stmt.setString(2, modelClass.getName());
+        if (stmt.executeUpdate() == 1) {
+          stmt.close();
+          stmt = conn.prepareStatement("select \"NEXT_VAL\" from \"SEQUENCE_TABLE\""
+              + " where \"SEQUENCE_NAME\" = ?");
+          stmt.setString(1, modelClass.getName());
+          ResultSet rs = stmt.executeQuery();
+          if (rs.next()) {
+            result = rs.getLong(1) - count;
+          }
+          rs.close();
+        }
+      } finally {
+        stmt.close();
+      }
+      success = true;
+      return result;
+    } catch (SQLException ex) {
+      throw new MetaException("Failed to reserve IDs for " + modelClass.getName()
+          + ": " + ex.getMessage());
+    } finally {
+      jdoConn.close();
+      if (success) {
+        tx.commit();
+      } else {
+        tx.rollback();
+      }
+      seqPm.close();
+    }
+  }
+
+  /**
+   * Whether boolean columns are stored as 'Y'/'N' characters (e.g. in Derby); see
+   * {@link #extractSqlBoolean(Object)}.
+   */
+  private boolean isCharBooleans(Connection conn) throws SQLException {
+    if (isCharBooleans == null) {
+      isCharBooleans = conn.getMetaData().getDatabaseProductName().contains("Derby");
+    }
+    return isCharBooleans;
+  }
+
+  private static Object makeSqlBoolean(boolean value, boolean isCharBooleans) {
+    return isCharBooleans ? (value ? "Y" : "N") : value;
+  }
+
+  private static void addParams(List<Object[]> rows, Long id, Map<String, String> params) {
+    if (params == null) return;
+    for (Map.Entry<String, String> param : params.entrySet()) {
+      rows.add(new Object[] { id, param.getKey(), param.getValue() });
+    }
+  }
+
+  private static void addIndexed(List<Object[]> rows, Long id, List<String> values) {
+    if (values == null) return;
+    for (int i = 0; i < values.size(); ++i) {
+      rows.add(new Object[] { id, values.get(i), i });
+    }
+  }
+
+  /**
+   * Makes comma-separated lists of IDs, each with at most {@link #MAX_IN_LIST_SIZE} of them,
+   * to be used in IN clauses.
+   */
+  private static List<String> makeIdLists(Collection<Long> ids) {
+    List<String> result = new ArrayList<String>();
+    StringBuilder sb = new StringBuilder();
+    int count = 0;
+    for (Long id : ids) {
+      sb.append(id).append(",");
+      if (++count == MAX_IN_LIST_SIZE) {
+        result.add(trimCommaList(sb));
+        sb.setLength(0);
+        count = 0;
+      }
+    }
+    if (count > 0) {
+      result.add(trimCommaList(sb));
+    }
+    return result;
+  }
+
+  private void executeBatch(Connection conn, String queryText, List<Object[]> rows)
+      throws SQLException {
+    if (rows.isEmpty()) return;
+    boolean doTrace = LOG.isDebugEnabled();
+    long start = doTrace ? System.nanoTime() : 0;
+    PreparedStatement stmt = conn.prepareStatement(queryText);
+    try {
+      int batched = 0;
+      for (Object[] row : rows) {
+        for (int i = 0; i < row.length; ++i) {
+          if (row[i] == null) {
+            stmt.setNull(i + 1, Types.VARCHAR); // Only string columns are nullable here.
+          } else {
+            stmt.setObject(i + 1, row[i]);
+          }
+        }
+        stmt.addBatch();
+        if (++batched == WRITE_BATCH_SIZE) {
+          stmt.executeBatch();
+          batched = 0;
+        }
+      }
+      if (batched > 0) {
+        stmt.executeBatch();
+      }
+    } finally {
+      stmt.close();
+    }
+    timingTrace(doTrace, queryText + " (" + rows.size() + " rows)", start, System.nanoTime());
+  }
+
+  /** Deletes the rows of a table with the given IDs, one statement per list of IDs. */
+  private void executeDeletes(Connection conn, String table, String idColumn,
+      List<String> idLists) throws SQLException {
+    for (String idList : idLists) {
+      executeUpdate(conn, "delete from \"" + table + "\" where \"" + idColumn + "\" in ("
+          + idList + ")");
+    }
+  }
+
+  private void executeUpdate(Connection conn, String queryText) throws SQLException {
+    boolean doTrace = LOG.isDebugEnabled();
+    long start = doTrace ? System.nanoTime() : 0;
+    Statement stmt = conn.createStatement();
+    try {
+      stmt.executeUpdate(queryText);
+    } finally {
+      stmt.close();
+    }
+    timingTrace(doTrace, queryText, start, System.nanoTime());
+  }
+
+  /**
+   * Sets a savepoint in the current transaction, before the first query of a write, so that
+   * all of the write can be undone if one of its queries fails.
+   */
+  private Savepoint setSavepoint() throws SQLException {
+    JDOConnection jdoConn = pm.getDataStoreConnection();
+    try {
+      return ((Connection)jdoConn.getNativeConnection()).setSavepoint();
+    } finally {
+      jdoConn.close(); // We must release the connection before we call other pm methods.
+    }
+  }
+
+  private void rollbackToSavepoint(Savepoint savepoint, Exception ex) throws MetaException {
+    LOG.warn("Direct SQL write failed, falling back to ORM", ex);
+    if (savepoint == null) return; // Nothing was written.
+    JDOConnection jdoConn = pm.getDataStoreConnection();
+    try {
+      ((Connection)jdoConn.getNativeConnection()).rollback(savepoint);
+    } catch (SQLException rollbackEx) {
+      LOG.error("Failed to roll back direct SQL write", rollbackEx);
+      throw new MetaException("Direct SQL write failed and could not be rolled back: "
+          + ex.getMessage());
+    } finally {
+      jdoConn.close(); // We must release the connection before we call other pm methods.
+    }
+  }
+
   private void timingTrace(boolean doTrace, String queryText, long start, long queryTime) {
     if (!doTrace) return;
     LOG.debug("Direct SQL query in " + (queryTime - start) / 1000000.0 + "ms + " +
@@ -666,6 +1261,15 @@ private int extractSqlInt(Object field) {
     return ((Number)field).intValue();
   }
 
+  private static Long extractSqlLong(Object field) {
+    // Aggregates come back as whatever numeric type the database picks, e.g. BigDecimal for sum.
+    return (field == null) ? null : ((Number)field).longValue();
+  }
+
+  private static Double extractSqlDouble(Object field) {
+    return (field == null) ? null : ((Number)field).doubleValue();
+  }
+
   private static String trimCommaList(StringBuilder sb) {
     if (sb.length() > 0) {
       sb.setLength(sb.length() - 1);
@@ -988,6 +1592,155 @@ public List<ColumnStatistics> getPartitionStats(String dbName, String tableName,
     return result;
   }
 
+  /**
+   * Aggregates the column statistics of the given partitions in the database; see
+   * {@link RawStore#get_aggr_stats_for(String, String, List, List)} for the semantics.
+   */
+  public AggrStats aggrColStatsForPartitions(String dbName, String tableName,
+      List<String> partNames, List<String> colNames) throws MetaException {
+    if (colNames.isEmpty() || partNames.isEmpty()) {
+      return new AggrStats(new ArrayList<ColumnStatisticsObj>(), 0);
+    }
+    boolean doTrace = LOG.isDebugEnabled();
+    long start = doTrace ? System.nanoTime() : 0;
+    String whereText = " from \"PART_COL_STATS\" where \"DB_NAME\" = ? and \"TABLE_NAME\" = ?"
+      + " and \"COLUMN_NAME\" in (" + makeParams(colNames.size()) + ")"
+      + " and \"PARTITION_NAME\" in (" + makeParams(partNames.size()) + ")";
+    Object[] params = new Object[colNames.size() + partNames.size() + 2];
+    int paramI = 0;
+    params[paramI++] = dbName;
+    params[paramI++] = tableName;
+    for (String colName : colNames) {
+      params[paramI++] = colName;
+    }
+    for (String partName : partNames) {
+      params[paramI++] = partName;
+    }
+
+    // Number of partitions that have stats for every requested column.
+    String queryText = "select count(\"COLUMN_NAME\")" + whereText
+      + " group by \"PARTITION_NAME\"";
+    Query query = pm.newQuery("javax.jdo.query.SQL", queryText);
+    Object qResult = query.executeWithArray(params);
+    long queryTime = doTrace ? System.nanoTime() : 0;
+    long partsFound = 0;
+    if (qResult != null) {
+      for (Object colCount : (List<?>)qResult) {
+        if (extractSqlLong(colCount) == colNames.size()) {
+          ++partsFound;
+        }
+      }
+    }
+    timingTrace(doTrace, queryText, start, queryTime);
+    query.closeAll();
+
+    // Decimal bounds are stored as strings, so they cannot be aggregated by the database; the
+    // placeholders are filled in below. See STATS_COLLIST for the column order.
+    start = doTrace ? System.nanoTime() : 0;
+    queryText = "select \"COLUMN_NAME\", \"COLUMN_TYPE\", "
+      + "min(\"LONG_LOW_VALUE\"), max(\"LONG_HIGH_VALUE\"), "
+      + "min(\"DOUBLE_LOW_VALUE\"), max(\"DOUBLE_HIGH_VALUE\"), "
+      + "sum(\"NUM_NULLS\"), max(\"NUM_DISTINCTS\"), max(\"AVG_COL_LEN\"), "
+      + "max(\"MAX_COL_LEN\"), sum(\"NUM_TRUES\"), sum(\"NUM_FALSES\")" + whereText
+      + " group by \"COLUMN_NAME\", \"COLUMN_TYPE\"";
+    query = pm.newQuery("javax.jdo.query.SQL", queryText);
+    qResult = query.executeWithArray(params);
+    queryTime = doTrace ? System.nanoTime() : 0;
+    if (qResult == null) {
+      query.closeAll();
+      return new AggrStats(new ArrayList<ColumnStatisticsObj>(), partsFound);
+    }
+    List<Object[]> list = ensureList(qResult);
+    Map<String, Object[]> rows = new HashMap<String, Object[]>();
+    List<String> decimalCols = new ArrayList<String>();
+    for (Object[] row : list) {
+      String colName = (String)row[0];
+      if (rows.containsKey(colName)) {
+        // The column type changed between partitions; don't mix the stats.
+        LOG.debug("Column " + colName + " has different types across partitions");
+        rows.put(colName, null);
+        continue;
+      }
+      rows.put(colName, row);
+      if ("decimal".equals(row[1])) {
+        decimalCols.add(colName);
+      }
+    }
+    timingTrace(doTrace, queryText, start, queryTime);
+    query.closeAll();
+
+    Map<String, BigDecimal[]> decimalBounds = decimalCols.isEmpty()
+        ? new HashMap<String, BigDecimal[]>()
+        : getDecimalBounds(dbName, tableName, partNames, decimalCols);
+
+    List<ColumnStatisticsObj> colStats = new ArrayList<ColumnStatisticsObj>(rows.size());
+    for (String colName : colNames) {
+      Object[] row = rows.get(colName);
+      if (row == null) {
+        continue;
+      }
+      String colType = (String)row[1];
+      Object declow = null, dechigh = null;
+      BigDecimal[] bounds = decimalBounds.get(colName);
+      if (bounds != null) {
+        declow = bounds[0].toString();
+        dechigh = bounds[1].toString();
+      } else if ("decimal".equals(colType)) {
+        continue;
+      }
+      ColumnStatisticsData data = new ColumnStatisticsData();
+      StatObjectConverter.fillColumnStatisticsData(colType, data,
+          extractSqlLong(row[2]), extractSqlLong(row[3]),
+          extractSqlDouble(row[4]), extractSqlDouble(row[5]), declow, dechigh,
+          extractSqlLong(row[6]), extractSqlLong(row[7]), extractSqlDouble(row[8]),
+          extractSqlLong(row[9]), extractSqlLong(row[10]), extractSqlLong(row[11]));
+      colStats.add(new ColumnStatisticsObj(colName, colType, data));
+    }
+    return new AggrStats(colStats, partsFound);
+  }
+
+  private Map<String, BigDecimal[]> getDecimalBounds(String dbName, String tableName,
+      List<String> partNames, List<String> colNames) throws MetaException {
+    boolean doTrace = LOG.isDebugEnabled();
+    long start = doTrace ? System.nanoTime() : 0;
+    String queryText = "select \"COLUMN_NAME\", \"BIG_DECIMAL_LOW_VALUE\", "
+      + "\"BIG_DECIMAL_HIGH_VALUE\" from \"PART_COL_STATS\""
+      + " where \"DB_NAME\" = ? and \"TABLE_NAME\" = ? and \"COLUMN_NAME\" in ("
+      + makeParams(colNames.size()) + ") and \"PARTITION_NAME\" in ("
+      + makeParams(partNames.size()) + ")";
+    Query query = pm.newQuery("javax.jdo.query.SQL", queryText);
+    Object[] params = new Object[colNames.size() + partNames.size() + 2];
+    int paramI = 0;
+    params[paramI++] = dbName;
+    params[paramI++] = tableName;
+    for (String colName : colNames) {
+      params[paramI++] = colName;
+    }
+    for (String partName : partNames) {
+      params[paramI++] = partName;
+    }
+    Object qResult = query.executeWithArray(params);
+    long queryTime = doTrace ? System.nanoTime() : 0;
+    Map<String, BigDecimal[]> result = new HashMap<String, BigDecimal[]>();
+    if (qResult == null) {
+      query.closeAll();
+      return result;
+    }
+    for (Object[] row : ensureList(qResult)) {
+      BigDecimal low = new BigDecimal((String)row[1]), high = new BigDecimal((String)row[2]);
+      BigDecimal[] bounds = result.get(row[0]);
+      if (bounds == null) {
+        result.put((String)row[0], new BigDecimal[] { low, high });
+      } else {
+        bounds[0] = bounds[0].min(low);
+        bounds[1] = bounds[1].max(high);
+      }
+    }
+    timingTrace(doTrace, queryText, start, queryTime);
+    query.closeAll();
+    return result;
+  }
+
   /** The common query part for table and partition stats */
   private static final String STATS_COLLIST =
       "\"COLUMN_NAME\", \"COLUMN_TYPE\", \"LONG_LOW_VALUE\", \"LONG_HIGH_VALUE\", "
@@ -60,6 +60,7 @@
 import org.apache.hadoop.hive.common.classification.InterfaceStability;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsDesc;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
@@ -815,6 +816,9 @@ public boolean dropTable(String dbName, String tableName) throws MetaException,
         pm.deletePersistentAll(tbl);
       }
       success = commitTransaction();
+      if (success) {
+        AggregateStatsCache.invalidate(dbName, tableName);
+      }
     } finally {
       if (!success) {
         rollbackTransaction();
@@ -1228,6 +1232,9 @@ public boolean addPartitions(String dbName, String tblName, List<Partition> part
       if ("TRUE".equalsIgnoreCase(table.getParameters().get("PARTITION_LEVEL_PRIVILEGE"))) {
         tabGrants = this.listAllTableGrants(dbName, tblName);
         tabColumnGrants = this.listTableAllColumnGrants(dbName, tblName);
+      } else if (addPartitionsViaSql(dbName, tblName, table, parts)) {
+        success = commitTransaction();
+        return success;
       }
       List<Object> toPersist = new ArrayList<Object>();
       for (Partition part : parts) {
@@ -1267,6 +1274,51 @@ public boolean addPartitions(String dbName, String tblName, List<Partition> part
     return success;
   }
 
+  /**
+   * Tries to add partitions via direct SQL. This is only possible for partitions that reuse
+   * the column descriptor of the table and have no skewed info; other partitions, as well as
+   * all partitions on datastores where direct SQL doesn't work, are added via DataNucleus.
+   */
+  boolean addPartitionsViaSql(String dbName, String tblName, MTable table,
+      List<Partition> parts) throws MetaException {
+    if (!isDirectSqlWriteEnabled() || table.getSd() == null || table.getSd().getCD() == null
+        || table.getSd().getCD().getCols() == null) {
+      return false;
+    }
+    List<FieldSchema> cols = convertToFieldSchemas(table.getSd().getCD().getCols());
+    List<FieldSchema> partKeys = convertToFieldSchemas(table.getPartitionKeys());
+    List<String> partNames = new ArrayList<String>(parts.size());
+    for (Partition part : parts) {
+      StorageDescriptor sd = part.getSd();
+      if (!part.getTableName().equals(tblName) || !part.getDbName().equals(dbName)
+          || sd == null || sd.getSerdeInfo() == null || !cols.equals(sd.getCols())
+          || !isEmptySkewedInfo(sd.getSkewedInfo())) {
+        return false;
+      }
+      partNames.add(Warehouse.makePartName(partKeys, part.getValues()));
+    }
+    return directSql.addPartitions(dbName, tblName, partNames, parts);
+  }
+
+  private static boolean isEmptySkewedInfo(SkewedInfo skewedInfo) {
+    return skewedInfo == null || ((skewedInfo.getSkewedColNames() == null
+        || skewedInfo.getSkewedColNames().isEmpty())
+        && (skewedInfo.getSkewedColValues() == null || skewedInfo.getSkewedColValues().isEmpty())
+        && (skewedInfo.getSkewedColValueLocationMaps() == null
+        || skewedInfo.getSkewedColValueLocationMaps().isEmpty()));
+  }
+
+  /**
+   * Whether partition writes should try direct SQL before DataNucleus. The writes are always
+   * done inside a transaction, so the reads of direct SQL inside transactions must be allowed.
+   */
+  private boolean isDirectSqlWriteEnabled() {
+    return HiveConf.getBoolVar(getConf(), ConfVars.METASTORE_TRY_DIRECT_SQL)
+        && HiveConf.getBoolVar(getConf(), ConfVars.METASTORE_TRY_DIRECT_SQL_DDL)
+        && HiveConf.getBoolVar(getConf(), ConfVars.METASTORE_TRY_DIRECT_SQL_WRITE)
+        && directSql.isCompatibleDatastore();
+  }
+
   @Override
   public boolean addPartition(Partition part) throws InvalidObjectException,
       MetaException {
@@ -1441,6 +1493,9 @@ public boolean dropPartition(String dbName, String tableName,
       MPartition part = getMPartition(dbName, tableName, part_vals);
       dropPartitionCommon(part);
       success = commitTransaction();
+      if (success) {
+        AggregateStatsCache.invalidate(dbName, tableName);
+      }
     } finally {
       if (!success) {
         rollbackTransaction();
@@ -1461,14 +1516,17 @@ public void dropPartitions(String dbName, String tblName, List<String> partNames
       dropPartitionAllColumnGrantsNoTxn(dbName, tblName, partNames);
       dropPartitionColumnStatisticsNoTxn(dbName, tblName, partNames);
 
-      // CDs are reused; go thry partition SDs, detach all CDs from SDs, then remove unused CDs.
-      for (MColumnDescriptor mcd : detachCdsFromSdsNoTxn(dbName, tblName, partNames)) {
-        removeUnusedColumnDescriptor(mcd);
+      if (!dropPartitionsViaSql(dbName, tblName, partNames)) {
+        // CDs are reused; go thry partition SDs, detach all CDs from SDs, then remove unused CDs.
+        for (MColumnDescriptor mcd : detachCdsFromSdsNoTxn(dbName, tblName, partNames)) {
+          removeUnusedColumnDescriptor(mcd);
+        }
+        dropPartitionsNoTxn(dbName, tblName, partNames);
       }
-      dropPartitionsNoTxn(dbName, tblName, partNames);
       if (!(success = commitTransaction())) {
         throw new MetaException("Failed to drop partitions"); // Should not happen?
       }
+      AggregateStatsCache.invalidate(dbName, tblName);
     } finally {
       if (!success) {
         rollbackTransaction();
@@ -1675,20 +1733,37 @@ public List<String> listPartitionNames(String dbName, String tableName,
   }
 
   private List<String> getPartitionNamesNoTxn(String dbName, String tableName, short max) {
+    return getPartitionNamesNoTxn(dbName, tableName, null, max);
+  }
+
+  /**
+   * Gets partition names of a table, in order, starting after a given name.
+   * @param fromPartName The partition name after which to start; null to start at the
+   *    first partition.
+   */
+  private List<String> getPartitionNamesNoTxn(
+      String dbName, String tableName, String fromPartName, short max) {
     List<String> pns = new ArrayList<String>();
     dbName = dbName.toLowerCase().trim();
     tableName = tableName.toLowerCase().trim();
     Query q = pm.newQuery(
         "select partitionName from org.apache.hadoop.hive.metastore.model.MPartition "
         + "where table.database.name == t1 && table.tableName == t2 "
+        + (fromPartName == null ? "" : "&& partitionName > t3 ")
         + "order by partitionName asc");
-    q.declareParameters("java.lang.String t1, java.lang.String t2");
     q.setResult("partitionName");
 
     if(max > 0) {
       q.setRange(0, max);
     }
-    Collection names = (Collection) q.execute(dbName, tableName);
+    Collection names;
+    if (fromPartName == null) {
+      q.declareParameters("java.lang.String t1, java.lang.String t2");
+      names = (Collection) q.execute(dbName, tableName);
+    } else {
+      q.declareParameters("java.lang.String t1, java.lang.String t2, java.lang.String t3");
+      names = (Collection) q.execute(dbName, tableName, fromPartName);
+    }
     for (Iterator i = names.iterator(); i.hasNext();) {
       pns.add((String) i.next());
     }
@@ -1870,13 +1945,20 @@ protected List<Partition> getJdoResult(
   @Override
   public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
       String defaultPartitionName, short maxParts, List<Partition> result) throws TException {
-    return getPartitionsByExprInternal(
-        dbName, tblName, expr, defaultPartitionName, maxParts, result, true, true);
+    return getPartitionsByExpr(dbName, tblName, expr, defaultPartitionName, null, maxParts, result);
+  }
+
+  @Override
+  public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
+      String defaultPartitionName, String fromPartName, short maxParts, List<Partition> result)
+      throws TException {
+    return getPartitionsByExprInternal(dbName, tblName, expr, defaultPartitionName,
+        fromPartName, maxParts, result, true, true);
   }
 
   protected boolean getPartitionsByExprInternal(String dbName, String tblName, final byte[] expr,
-      final String defaultPartitionName, final  short maxParts, List<Partition> result,
-      boolean allowSql, boolean allowJdo) throws TException {
+      final String defaultPartitionName, final String fromPartName, final  short maxParts,
+      List<Partition> result, boolean allowSql, boolean allowJdo) throws TException {
     assert result != null;
 
     // We will try pushdown first, so make the filter. This will also validate the expression,
@@ -1903,13 +1985,14 @@ protected List<Partition> getSqlResult(GetHelper<List<Partition>> ctx) throws Me
         // If we have some sort of expression tree, try SQL filter pushdown.
         List<Partition> result = null;
         if (exprTree != null) {
-          result = directSql.getPartitionsViaSqlFilter(ctx.getTable(), exprTree, null);
+          result = directSql.getPartitionsViaSqlFilter(ctx.getTable(), exprTree, fromPartName,
+              (maxParts < 0) ? null : Integer.valueOf(maxParts));
         }
         if (result == null) {
           // We couldn't do SQL filter pushdown. Get names via normal means.
           List<String> partNames = new LinkedList<String>();
-          hasUnknownPartitions.set(getPartitionNamesPrunedByExprNoTxn(
-              ctx.getTable(), expr, defaultPartitionName, maxParts, partNames));
+          hasUnknownPartitions.set(getPartitionNamesPrunedByExprNoTxn(ctx.getTable(), expr,
+              defaultPartitionName, fromPartName, maxParts, partNames));
           result = directSql.getPartitionsViaSqlFilter(dbName, tblName, partNames, null);
         }
         return result;
@@ -1920,13 +2003,14 @@ protected List<Partition> getJdoResult(
         // If we have some sort of expression tree, try JDOQL filter pushdown.
         List<Partition> result = null;
         if (exprTree != null) {
-          result = getPartitionsViaOrmFilter(ctx.getTable(), exprTree, maxParts, false);
+          result = getPartitionsViaOrmFilter(
+              ctx.getTable(), exprTree, fromPartName, maxParts, false);
         }
         if (result == null) {
           // We couldn't do JDOQL filter pushdown. Get names via normal means.
           List<String> partNames = new ArrayList<String>();
-          hasUnknownPartitions.set(getPartitionNamesPrunedByExprNoTxn(
-              ctx.getTable(), expr, defaultPartitionName, maxParts, partNames));
+          hasUnknownPartitions.set(getPartitionNamesPrunedByExprNoTxn(ctx.getTable(), expr,
+              defaultPartitionName, fromPartName, maxParts, partNames));
           result = getPartitionsViaOrmFilter(dbName, tblName, partNames);
         }
         return result;
@@ -1985,14 +2069,15 @@ private ExpressionTree makeExpressionTree(String filter) throws MetaException {
    * @param table Table.
    * @param expr Expression.
    * @param defaultPartName Default partition name from job config, if any.
+   * @param fromPartName The partition name after which to start; null to start at the
+   *    first partition.
    * @param maxParts Maximum number of partition names to return.
    * @param result The resulting names.
    * @return Whether the result contains any unknown partitions.
    */
   private boolean getPartitionNamesPrunedByExprNoTxn(Table table, byte[] expr,
-      String defaultPartName, short maxParts, List<String> result) throws MetaException {
-    result.addAll(getPartitionNamesNoTxn(
-        table.getDbName(), table.getTableName(), maxParts));
+      String defaultPartName, String fromPartName, short maxParts, List<String> result)
+      throws MetaException {
     List<String> columnNames = new ArrayList<String>();
     for (FieldSchema fs : table.getPartitionKeys()) {
       columnNames.add(fs.getName());
@@ -2000,14 +2085,40 @@ private boolean getPartitionNamesPrunedByExprNoTxn(Table table, byte[] expr,
     if (defaultPartName == null || defaultPartName.isEmpty()) {
       defaultPartName = HiveConf.getVar(getConf(), HiveConf.ConfVars.DEFAULTPARTITIONNAME);
     }
-    return expressionProxy.filterPartitionsByExpr(
-        columnNames, expr, defaultPartName, result);
+    if (maxParts <= 0) {
+      result.addAll(getPartitionNamesNoTxn(
+          table.getDbName(), table.getTableName(), fromPartName, maxParts));
+      return expressionProxy.filterPartitionsByExpr(
+          columnNames, expr, defaultPartName, result);
+    }
+    // Prune the names a window at a time, until we have maxParts of them or run out;
+    // so that we never hold more than maxParts names when there are many partitions.
+    boolean hasUnknownPartitions = false;
+    while (result.size() < maxParts) {
+      short windowSize = (short)(maxParts - result.size());
+      List<String> names = getPartitionNamesNoTxn(
+          table.getDbName(), table.getTableName(), fromPartName, windowSize);
+      if (names.isEmpty()) {
+        break;
+      }
+      fromPartName = names.get(names.size() - 1);
+      boolean isFullWindow = names.size() == windowSize;
+      hasUnknownPartitions |= expressionProxy.filterPartitionsByExpr(
+          columnNames, expr, defaultPartName, names);
+      result.addAll(names);
+      if (!isFullWindow) {
+        break;
+      }
+    }
+    return hasUnknownPartitions;
   }
 
   /**
    * Gets partition names from the table via ORM (JDOQL) filter pushdown.
    * @param table The table.
    * @param tree The expression tree from which JDOQL filter will be made.
+   * @param fromPartName The partition name after which to start; null to start at the
+   *    first partition.
    * @param maxParts Maximum number of partitions to return.
    * @param isValidatedFilter Whether the filter was pre-validated for JDOQL pushdown by a client
    *   (old hive client or non-hive one); if it was and we fail to create a filter, we will throw.
@@ -2015,7 +2126,7 @@ private boolean getPartitionNamesPrunedByExprNoTxn(Table table, byte[] expr,
    *         there was error deriving the JDO filter.
    */
   private List<Partition> getPartitionsViaOrmFilter(Table table, ExpressionTree tree,
-      short maxParts, boolean isValidatedFilter) throws MetaException {
+      String fromPartName, short maxParts, boolean isValidatedFilter) throws MetaException {
     Map<String, Object> params = new HashMap<String, Object>();
     String jdoFilter = makeQueryFilterString(
         table.getDbName(), table, tree, params, isValidatedFilter);
@@ -2023,6 +2134,10 @@ private List<Partition> getPartitionsViaOrmFilter(Table table, ExpressionTree tr
       assert !isValidatedFilter;
       return null;
     }
+    if (fromPartName != null) {
+      jdoFilter = "(" + jdoFilter + ") && partitionName > fromPartName";
+      params.put("fromPartName", fromPartName);
+    }
     Query query = pm.newQuery(MPartition.class, jdoFilter);
     if (maxParts >= 0) {
       // User specified a row limit, set it on the Query
@@ -2384,7 +2499,7 @@ protected List<Partition> getSqlResult(GetHelper<List<Partition>> ctx) throws Me
       @Override
       protected List<Partition> getJdoResult(
           GetHelper<List<Partition>> ctx) throws MetaException, NoSuchObjectException {
-        return getPartitionsViaOrmFilter(ctx.getTable(), tree, maxParts, true);
+        return getPartitionsViaOrmFilter(ctx.getTable(), tree, null, maxParts, true);
       }
     }.run(true);
   }
@@ -2706,6 +2821,7 @@ public void alterPartition(String dbname, String name, List<String> part_vals, P
       alterPartitionNoTxn(dbname, name, part_vals, newPart);
       // commit the changes
       success = commitTransaction();
+      AggregateStatsCache.invalidate(dbname, name);
     } catch (Exception exception) {
       e = exception;
     } finally {
@@ -2728,13 +2844,16 @@ public void alterPartitions(String dbname, String name, List<List<String>> part_
     Exception e = null;
     try {
       openTransaction();
-      Iterator<List<String>> part_val_itr = part_vals.iterator();
-      for (Partition tmpPart: newParts) {
-        List<String> tmpPartVals = part_val_itr.next();
-        alterPartitionNoTxn(dbname, name, tmpPartVals, tmpPart);
+      if (!alterPartitionsViaSql(dbname, name, part_vals, newParts)) {
+        Iterator<List<String>> part_val_itr = part_vals.iterator();
+        for (Partition tmpPart: newParts) {
+          List<String> tmpPartVals = part_val_itr.next();
+          alterPartitionNoTxn(dbname, name, tmpPartVals, tmpPart);
+        }
       }
       // commit the changes
       success = commitTransaction();
+      AggregateStatsCache.invalidate(dbname, name);
     } catch (Exception exception) {
       e = exception;
     } finally {
@@ -2750,6 +2869,36 @@ public void alterPartitions(String dbname, String name, List<List<String>> part_
     }
   }
 
+  /**
+   * Tries to alter partitions via direct SQL. This is only done when nothing but the fields
+   * that {@link MetaStoreDirectSql#alterPartitions} updates has changed, which is the common
+   * case of bulk alters, e.g. after gathering statistics; other alters go via DataNucleus.
+   */
+  boolean alterPartitionsViaSql(String dbName, String tblName,
+      List<List<String>> partVals, List<Partition> newParts) throws MetaException {
+    if (!isDirectSqlWriteEnabled() || partVals.size() != newParts.size()) {
+      return false;
+    }
+    MTable table = getMTable(dbName, tblName);
+    if (table == null || TableType.VIRTUAL_VIEW.name().equals(table.getTableType())) {
+      return false;
+    }
+    List<FieldSchema> partKeys = convertToFieldSchemas(table.getPartitionKeys());
+    List<String> partNames = new ArrayList<String>(partVals.size());
+    for (List<String> vals : partVals) {
+      partNames.add(Warehouse.makePartName(partKeys, vals));
+    }
+    return directSql.alterPartitions(dbName, tblName, partNames, partVals, newParts);
+  }
+
+  /**
+   * Tries to drop partitions via direct SQL; see {@link MetaStoreDirectSql#dropPartitions}.
+   */
+  boolean dropPartitionsViaSql(String dbName, String tblName, List<String> partNames)
+      throws MetaException {
+    return isDirectSqlWriteEnabled() && directSql.dropPartitions(dbName, tblName, partNames);
+  }
+
   private void copyMSD(MStorageDescriptor newSd, MStorageDescriptor oldSd) {
     oldSd.setLocation(newSd.getLocation());
     MColumnDescriptor oldCD = oldSd.getCD();
@@ -5708,6 +5857,9 @@ public boolean updatePartitionColumnStatistics(ColumnStatistics colStats, List<S
       writeMPartitionColumnStatistics(table, partition, mStatsObj);
     }
     committed = commitTransaction();
+    if (committed) {
+      AggregateStatsCache.invalidate(statsDesc.getDbName(), statsDesc.getTableName());
+    }
     return committed;
     } finally {
       if (!committed) {
@@ -5858,6 +6010,74 @@ protected List<ColumnStatistics> getJdoResult(
     }.run(true);
   }
 
+  @Override
+  public AggrStats get_aggr_stats_for(String dbName, String tblName,
+      List<String> partNames, List<String> colNames)
+      throws MetaException, NoSuchObjectException {
+    AggregateStatsCache cache = AggregateStatsCache.get(getConf());
+    if (cache != null) {
+      AggrStats cached = cache.get(dbName, tblName, partNames, colNames);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    AggrStats result = getAggrStatsInternal(dbName, tblName, partNames, colNames, true, true);
+    if (cache != null && result != null) {
+      cache.put(dbName, tblName, partNames, colNames, result);
+    }
+    return result;
+  }
+
+  protected AggrStats getAggrStatsInternal(String dbName, String tblName,
+      final List<String> partNames, final List<String> colNames, boolean allowSql,
+      boolean allowJdo) throws MetaException, NoSuchObjectException {
+    return new GetHelper<AggrStats>(dbName, tblName, allowSql, allowJdo) {
+      @Override
+      protected AggrStats getSqlResult(GetHelper<AggrStats> ctx) throws MetaException {
+        return directSql.aggrColStatsForPartitions(dbName, tblName, partNames, colNames);
+      }
+      @Override
+      protected AggrStats getJdoResult(
+          GetHelper<AggrStats> ctx) throws MetaException, NoSuchObjectException {
+        List<MPartitionColumnStatistics> mStats =
+            getMPartitionColumnStatistics(getTable(), partNames, colNames);
+        Map<String, ColumnStatisticsObj> aggrs = new HashMap<String, ColumnStatisticsObj>();
+        Set<String> mixedTypeCols = new HashSet<String>();
+        Map<String, Integer> partColCounts = new HashMap<String, Integer>();
+        for (MPartitionColumnStatistics mStatsObj : mStats) {
+          ColumnStatisticsObj cso = StatObjectConverter.getPartitionColumnStatisticsObj(mStatsObj);
+          ColumnStatisticsObj aggr = aggrs.get(cso.getColName());
+          if (aggr == null) {
+            aggrs.put(cso.getColName(), cso);
+          } else if (!StatObjectConverter.aggregateColumnStatisticsObj(aggr, cso)) {
+            mixedTypeCols.add(cso.getColName());
+          }
+          Integer count = partColCounts.get(mStatsObj.getPartitionName());
+          partColCounts.put(mStatsObj.getPartitionName(), (count == null) ? 1 : count + 1);
+        }
+        long partsFound = 0;
+        for (Integer count : partColCounts.values()) {
+          if (count == colNames.size()) {
+            ++partsFound;
+          }
+        }
+        List<ColumnStatisticsObj> colStats = new ArrayList<ColumnStatisticsObj>(aggrs.size());
+        for (String colName : colNames) {
+          ColumnStatisticsObj aggr = aggrs.get(colName);
+          if (aggr != null && !mixedTypeCols.contains(colName)) {
+            colStats.add(aggr);
+          }
+        }
+        return new AggrStats(colStats, partsFound);
+      }
+      @Override
+      protected String describeResult() {
+        return "aggregated statistics for " + (results == null ? 0 : results.getColStatsSize())
+            + " columns";
+      }
+    }.run(true);
+  }
+
   private List<MPartitionColumnStatistics> getMPartitionColumnStatistics(
       Table table, List<String> partNames, List<String> colNames)
           throws NoSuchObjectException, MetaException {
@@ -5998,6 +6218,9 @@ public boolean deletePartitionColumnStatistics(String dbName, String tableName,
         }
       }
       ret = commitTransaction();
+      if (ret) {
+        AggregateStatsCache.invalidate(dbName, tableName);
+      }
     } catch(NoSuchObjectException e) {
        rollbackTransaction();
        throw e;
@@ -0,0 +1,123 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.metastore;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.PartitionsByExprResult;
+import org.apache.thrift.TException;
+
+/**
+ * Iterates over the partitions matching a serialized expression, getting them from the
+ * metastore batch by batch, so that only the current batch is held. A failure to get a
+ * batch after the first one is thrown from {@link #hasNext()} as a RuntimeException
+ * wrapping the TException.
+ */
+public class PartitionsByExprIterator implements Iterator<Partition> {
+
+  private final IMetaStoreClient client;
+  private final String dbName;
+  private final String tblName;
+  private final byte[] expr;
+  private final String defaultPartitionName;
+  private final short batchSize;
+
+  private Iterator<Partition> batch;
+  private String nextCursor;
+  private boolean hasUnknownPartitions;
+
+  /**
+   * Gets the first batch.
+   * @throws IMetaStoreClient.IncompatibleMetastoreException if the metastore doesn't
+   *    support batches
+   */
+  public PartitionsByExprIterator(IMetaStoreClient client, String dbName, String tblName,
+      byte[] expr, String defaultPartitionName, short batchSize) throws TException {
+    this.client = client;
+    this.dbName = dbName;
+    this.tblName = tblName;
+    this.expr = expr;
+    this.defaultPartitionName = defaultPartitionName;
+    this.batchSize = batchSize;
+    nextCursor = "";
+    getNextBatch();
+  }
+
+  /**
+   * Iterates over partitions that were all got at once.
+   */
+  public PartitionsByExprIterator(List<Partition> partitions, boolean hasUnknownPartitions) {
+    this.client = null;
+    this.dbName = null;
+    this.tblName = null;
+    this.expr = null;
+    this.defaultPartitionName = null;
+    this.batchSize = 0;
+    batch = partitions.iterator();
+    nextCursor = "";
+    this.hasUnknownPartitions = hasUnknownPartitions;
+  }
+
+  private void getNextBatch() throws TException {
+    PartitionsByExprResult result = client.listPartitionsByExpr(
+        dbName, tblName, expr, defaultPartitionName, nextCursor, batchSize);
+    hasUnknownPartitions |= result.isHasUnknownPartitions();
+    List<Partition> partitions = result.getPartitions();
+    batch = partitions == null ? Collections.<Partition>emptyList().iterator()
+        : partitions.iterator();
+    nextCursor = result.getNextCursor();
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (!batch.hasNext() && !nextCursor.isEmpty()) {
+      try {
+        getNextBatch();
+      } catch (TException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    return batch.hasNext();
+  }
+
+  @Override
+  public Partition next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return batch.next();
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return whether the partitions iterated over so far contain partitions which may or
+   *    may not match the expr
+   */
+  public boolean hasUnknownPartitions() {
+    return hasUnknownPartitions;
+  }
+}
@@ -26,6 +26,7 @@
 import java.util.Map;
 
 import org.apache.hadoop.conf.Configurable;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.Function;
@@ -217,6 +218,19 @@ public abstract boolean getPartitionsByExpr(String dbName, String tblName,
       byte[] expr, String defaultPartitionName, short maxParts, List<Partition> result)
       throws TException;
 
+  /**
+   * Gets the partitions matching an expression, in partition name order, starting after
+   * a given partition name. This allows to retrieve the partitions in batches.
+   * @param fromPartName The partition name after which to start; null to start at the
+   *    first partition.
+   * @param maxParts The maximum number of partitions to return; the returned list only
+   *    has less if there are no more partitions matching the expression.
+   * @return Whether the result contains any partitions that may or may not match.
+   */
+  public abstract boolean getPartitionsByExpr(String dbName, String tblName,
+      byte[] expr, String defaultPartitionName, String fromPartName, short maxParts,
+      List<Partition> result) throws TException;
+
   public abstract List<Partition> getPartitionsByNames(
       String dbName, String tblName, List<String> partNames)
       throws MetaException, NoSuchObjectException;
@@ -402,6 +416,23 @@ public abstract List<ColumnStatistics> getPartitionColumnStatistics(
      String dbName, String tblName, List<String> partNames, List<String> colNames)
       throws MetaException, NoSuchObjectException;
 
+  /**
+   * Returns the column statistics for given columns aggregated over the given partitions of a
+   * table: min of the low values, max of the high values and distinct counts, and sums of the
+   * null, true and false counts. The partition count in the result is the number of requested
+   * partitions that have statistics for all the requested columns.
+   *
+   * @param dbName
+   * @param tblName
+   * @param partNames
+   * @param colNames
+   * @return Aggregated statistics; columns without any statistics are left out
+   * @throws MetaException
+   * @throws NoSuchObjectException
+   */
+  public abstract AggrStats get_aggr_stats_for(String dbName, String tblName,
+      List<String> partNames, List<String> colNames) throws MetaException, NoSuchObjectException;
+
   /**
    * Deletes column statistics if present associated with a given db, table, partition and col. If
    * null is passed instead of a colName, stats when present for all columns associated
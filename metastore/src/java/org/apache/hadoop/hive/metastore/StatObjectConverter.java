@@ -358,6 +358,66 @@ public static void fillColumnStatisticsData(String colType, ColumnStatisticsData
     }
   }
 
+  /**
+   * Merges the statistics of a column in another partition into an aggregate, the same way
+   * MetaStoreDirectSql aggregates them in the database.
+   * @return false if the column types don't match, in which case the aggregate is unchanged
+   */
+  public static boolean aggregateColumnStatisticsObj(
+      ColumnStatisticsObj aggr, ColumnStatisticsObj other) {
+    if (!aggr.getColType().equals(other.getColType())) {
+      return false;
+    }
+    ColumnStatisticsData data = aggr.getStatsData(), otherData = other.getStatsData();
+    if (data.getSetField() != otherData.getSetField()) {
+      return false;
+    }
+    if (data.isSetBooleanStats()) {
+      BooleanColumnStatsData stats = data.getBooleanStats(), o = otherData.getBooleanStats();
+      stats.setNumTrues(stats.getNumTrues() + o.getNumTrues());
+      stats.setNumFalses(stats.getNumFalses() + o.getNumFalses());
+      stats.setNumNulls(stats.getNumNulls() + o.getNumNulls());
+    } else if (data.isSetStringStats()) {
+      StringColumnStatsData stats = data.getStringStats(), o = otherData.getStringStats();
+      stats.setNumNulls(stats.getNumNulls() + o.getNumNulls());
+      stats.setAvgColLen(Math.max(stats.getAvgColLen(), o.getAvgColLen()));
+      stats.setMaxColLen(Math.max(stats.getMaxColLen(), o.getMaxColLen()));
+      stats.setNumDVs(Math.max(stats.getNumDVs(), o.getNumDVs()));
+    } else if (data.isSetBinaryStats()) {
+      BinaryColumnStatsData stats = data.getBinaryStats(), o = otherData.getBinaryStats();
+      stats.setNumNulls(stats.getNumNulls() + o.getNumNulls());
+      stats.setAvgColLen(Math.max(stats.getAvgColLen(), o.getAvgColLen()));
+      stats.setMaxColLen(Math.max(stats.getMaxColLen(), o.getMaxColLen()));
+    } else if (data.isSetLongStats()) {
+      LongColumnStatsData stats = data.getLongStats(), o = otherData.getLongStats();
+      stats.setNumNulls(stats.getNumNulls() + o.getNumNulls());
+      stats.setLowValue(Math.min(stats.getLowValue(), o.getLowValue()));
+      stats.setHighValue(Math.max(stats.getHighValue(), o.getHighValue()));
+      stats.setNumDVs(Math.max(stats.getNumDVs(), o.getNumDVs()));
+    } else if (data.isSetDoubleStats()) {
+      DoubleColumnStatsData stats = data.getDoubleStats(), o = otherData.getDoubleStats();
+      stats.setNumNulls(stats.getNumNulls() + o.getNumNulls());
+      stats.setLowValue(Math.min(stats.getLowValue(), o.getLowValue()));
+      stats.setHighValue(Math.max(stats.getHighValue(), o.getHighValue()));
+      stats.setNumDVs(Math.max(stats.getNumDVs(), o.getNumDVs()));
+    } else if (data.isSetDecimalStats()) {
+      DecimalColumnStatsData stats = data.getDecimalStats(), o = otherData.getDecimalStats();
+      stats.setNumNulls(stats.getNumNulls() + o.getNumNulls());
+      if (toBigDecimal(o.getLowValue()).compareTo(toBigDecimal(stats.getLowValue())) < 0) {
+        stats.setLowValue(o.getLowValue());
+      }
+      if (toBigDecimal(o.getHighValue()).compareTo(toBigDecimal(stats.getHighValue())) > 0) {
+        stats.setHighValue(o.getHighValue());
+      }
+      stats.setNumDVs(Math.max(stats.getNumDVs(), o.getNumDVs()));
+    }
+    return true;
+  }
+
+  private static BigDecimal toBigDecimal(Decimal d) {
+    return new BigDecimal(new BigInteger(d.getUnscaled()), d.getScale());
+  }
+
   private static Decimal createThriftDecimal(String s) {
     BigDecimal d = new BigDecimal(s);
     return new Decimal(ByteBuffer.wrap(d.unscaledValue().toByteArray()), (short)d.scale());
@@ -24,6 +24,7 @@
 
 import org.apache.hadoop.conf.Configurable;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.Function;
@@ -318,6 +319,14 @@ public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
         dbName, tblName, expr, defaultPartitionName, maxParts, result);
   }
 
+  @Override
+  public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
+      String defaultPartitionName, String fromPartName, short maxParts, List<Partition> result)
+      throws TException {
+    return objectStore.getPartitionsByExpr(
+        dbName, tblName, expr, defaultPartitionName, fromPartName, maxParts, result);
+  }
+
   @Override
   public Table markPartitionForEvent(String dbName, String tblName,
       Map<String, String> partVals, PartitionEventType evtType)
@@ -666,6 +675,13 @@ public List<ColumnStatistics> getPartitionColumnStatistics(String dbName,
     return objectStore.getPartitionColumnStatistics(dbName, tblName  , colNames, partNames);
   }
 
+  @Override
+  public AggrStats get_aggr_stats_for(String dbName, String tblName,
+      List<String> partNames, List<String> colNames)
+      throws MetaException, NoSuchObjectException {
+    return objectStore.get_aggr_stats_for(dbName, tblName, partNames, colNames);
+  }
+
   @Override
   public boolean doesPartitionExist(String dbName, String tableName,
       List<String> partVals) throws MetaException, NoSuchObjectException {
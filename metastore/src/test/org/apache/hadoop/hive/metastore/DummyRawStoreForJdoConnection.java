@@ -25,6 +25,7 @@
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.Database;
 import org.apache.hadoop.hive.metastore.api.Function;
@@ -336,6 +337,13 @@ public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
     return false;
   }
 
+  @Override
+  public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
+      String defaultPartitionName, String fromPartName, short maxParts, List<Partition> result)
+      throws TException {
+    return false;
+  }
+
   @Override
   public Table markPartitionForEvent(String dbName, String tblName, Map<String, String> partVals,
       PartitionEventType evtType) throws MetaException, UnknownTableException,
@@ -688,6 +696,13 @@ public List<ColumnStatistics> getPartitionColumnStatistics(String dbName,
     return null;
   }
 
+  @Override
+  public AggrStats get_aggr_stats_for(String dbName, String tblName,
+      List<String> partNames, List<String> colNames)
+      throws MetaException, NoSuchObjectException {
+    return null;
+  }
+
   @Override
   public boolean doesPartitionExist(String dbName, String tableName,
       List<String> partVals) throws MetaException, NoSuchObjectException {
@@ -35,6 +35,7 @@
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.MetaException;
 import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
@@ -73,12 +74,13 @@ public List<Partition> getPartitionsByNames(String dbName, String tblName,
 
   @Override
   public boolean getPartitionsByExpr(String dbName, String tblName, byte[] expr,
-      String defaultPartitionName, short maxParts, List<Partition> result) throws TException {
+      String defaultPartitionName, String fromPartName, short maxParts, List<Partition> result)
+      throws TException {
     List<Partition> ormParts = new LinkedList<Partition>();
-    boolean sqlResult = getPartitionsByExprInternal(
-        dbName, tblName, expr, defaultPartitionName, maxParts, result, true, false);
-    boolean ormResult = getPartitionsByExprInternal(
-        dbName, tblName, expr, defaultPartitionName, maxParts, ormParts, false, true);
+    boolean sqlResult = getPartitionsByExprInternal(dbName, tblName, expr,
+        defaultPartitionName, fromPartName, maxParts, result, true, false);
+    boolean ormResult = getPartitionsByExprInternal(dbName, tblName, expr,
+        defaultPartitionName, fromPartName, maxParts, ormParts, false, true);
     if (sqlResult != ormResult) {
       String msg = "The unknown flag is different - SQL " + sqlResult + ", ORM " + ormResult;
       LOG.error(msg);
@@ -120,6 +122,18 @@ public List<ColumnStatistics> getPartitionColumnStatistics(String dbName,
     return sqlResult;
   }
 
+  @Override
+  public AggrStats get_aggr_stats_for(String dbName, String tblName,
+      List<String> partNames, List<String> colNames)
+      throws MetaException, NoSuchObjectException {
+    AggrStats sqlResult = getAggrStatsInternal(
+        dbName, tblName, partNames, colNames, true, false);
+    AggrStats jdoResult = getAggrStatsInternal(
+        dbName, tblName, partNames, colNames, false, true);
+    verifyObjects(sqlResult, jdoResult, AggrStats.class);
+    return sqlResult;
+  }
+
   private void verifyObjects(
       Object sqlResult, Object jdoResult, Class<?> clazz) throws MetaException {
     if (EqualsBuilder.reflectionEquals(sqlResult, jdoResult)) return;
@@ -31,12 +31,14 @@
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.hive.common.ValidTxnList;
+import org.apache.hadoop.hive.common.metrics.Metrics;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.conf.HiveConf.ConfVars;
 import org.apache.hadoop.hive.metastore.IMetaStoreClient;
@@ -88,6 +90,13 @@ public class Driver implements CommandProcessor {
   private LogHelper console = new LogHelper(LOG);
 
   private static final Object compileMonitor = new Object();
+  // bounds the number of queries compiled at once with parallel compilation, null for no bound
+  private static Semaphore compileSemaphore;
+  private static boolean compileSemaphoreInitialized = false;
+
+  // metrics of the queries waiting for their turn to compile
+  private static final String COMPILE_WAITING_METRIC = "compile.waiting";
+  private static final String COMPILE_WAIT_TIME_METRIC = "compile.wait.time";
 
   private int maxRows = 100;
   ByteStream.Output bos = new ByteStream.Output();
@@ -945,8 +954,30 @@ public CommandProcessorResponse compileAndRespond(String command) {
 
   private int compileInternal(String command) {
     int ret;
-    synchronized (compileMonitor) {
-      ret = compile(command);
+    if (!HiveConf.getBoolVar(conf, ConfVars.HIVE_DRIVER_PARALLEL_COMPILATION)) {
+      synchronized (compileMonitor) {
+        ret = compile(command);
+      }
+    } else {
+      Semaphore semaphore = getCompileSemaphore(conf);
+      if (semaphore == null) {
+        ret = compile(command);
+      } else {
+        try {
+          acquireCompileSemaphore(semaphore);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          errorMessage = "FAILED: Interrupted while waiting to compile the query";
+          SQLState = ErrorMsg.findSQLState(errorMessage);
+          console.printError(errorMessage);
+          return 12;
+        }
+        try {
+          ret = compile(command);
+        } finally {
+          semaphore.release();
+        }
+      }
     }
     if (ret != 0) {
       try {
@@ -959,6 +990,45 @@ private int compileInternal(String command) {
     return ret;
   }
 
+  private static synchronized Semaphore getCompileSemaphore(HiveConf conf) {
+    if (!compileSemaphoreInitialized) {
+      int limit = HiveConf.getIntVar(conf, ConfVars.HIVE_DRIVER_PARALLEL_COMPILATION_LIMIT);
+      if (limit > 0) {
+        LOG.info("Compiling at most " + limit + " queries in parallel");
+        compileSemaphore = new Semaphore(limit, true);
+      }
+      compileSemaphoreInitialized = true;
+    }
+    return compileSemaphore;
+  }
+
+  private void acquireCompileSemaphore(Semaphore semaphore) throws InterruptedException {
+    if (semaphore.tryAcquire()) {
+      return;
+    }
+    PerfLogger perfLogger = PerfLogger.getPerfLogger();
+    perfLogger.PerfLogBegin(CLASS_NAME, PerfLogger.WAIT_COMPILE);
+    updateCompileMetric(COMPILE_WAITING_METRIC, 1);
+    long waitTime;
+    try {
+      semaphore.acquire();
+    } finally {
+      updateCompileMetric(COMPILE_WAITING_METRIC, -1);
+      waitTime = perfLogger.PerfLogEnd(CLASS_NAME, PerfLogger.WAIT_COMPILE);
+    }
+    updateCompileMetric(COMPILE_WAIT_TIME_METRIC, waitTime);
+    LOG.info("Waited " + waitTime + " ms to compile, "
+        + semaphore.getQueueLength() + " queries still waiting");
+  }
+
+  private static void updateCompileMetric(String name, long increment) {
+    try {
+      Metrics.incrementCounter(name, increment);
+    } catch (IOException e) {
+      LOG.warn("Could not update metric " + name, e);
+    }
+  }
+
   private CommandProcessorResponse runInternal(String command, boolean alreadyCompiled)
       throws CommandNeedRetryException {
     errorMessage = null;
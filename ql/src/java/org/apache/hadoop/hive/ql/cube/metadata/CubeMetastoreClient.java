@@ -33,6 +33,7 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.hive.conf.HiveConf;
@@ -63,18 +64,24 @@ private CubeMetastoreClient(HiveConf conf) {
     this.enableCaching = conf.getBoolean(MetastoreConstants.METASTORE_ENABLE_CACHING, true);
   }
 
+  // the caches are shared by the queries compiled concurrently in the server
   // map from table name to Table
-  private final Map<String, Table> allHiveTables = new HashMap<String, Table>();
+  private final Map<String, Table> allHiveTables = new ConcurrentHashMap<String, Table>();
   // map from dimension name to Dimension
-  private final Map<String, Dimension> allDims = new HashMap<String, Dimension>();
+  private final Map<String, Dimension> allDims = new ConcurrentHashMap<String, Dimension>();
   // map from cube name to Cube
-  private final Map<String, CubeInterface> allCubes = new HashMap<String, CubeInterface>();
+  private final Map<String, CubeInterface> allCubes = new ConcurrentHashMap<String, CubeInterface>();
   // map from dimtable name to CubeDimensionTable
-  private final Map<String, CubeDimensionTable> allDimTables = new HashMap<String, CubeDimensionTable>();
+  private final Map<String, CubeDimensionTable> allDimTables = new ConcurrentHashMap<String, CubeDimensionTable>();
   // map from fact name to fact table
-  private final Map<String, CubeFactTable> allFactTables = new HashMap<String, CubeFactTable>();
+  private final Map<String, CubeFactTable> allFactTables = new ConcurrentHashMap<String, CubeFactTable>();
   // map from storage name to storage
-  private final Map<String, Storage> allStorages = new HashMap<String, Storage>();
+  private final Map<String, Storage> allStorages = new ConcurrentHashMap<String, Storage>();
+  // map from storage table name to its partitions, for the current session
+  private final Map<String, StoragePartitionSet> allStoragePartitions =
+      new HashMap<String, StoragePartitionSet>();
+  // session for which the storage table partitions are cached
+  private String partitionCacheSessionId;
 
   private static CubeMetastoreClient instance;
 
@@ -87,7 +94,7 @@ private CubeMetastoreClient(HiveConf conf) {
    * @return CubeMetastoreClient
    * @throws HiveException
    */
-  public static CubeMetastoreClient getInstance(HiveConf conf)
+  public static synchronized CubeMetastoreClient getInstance(HiveConf conf)
       throws HiveException {
     if (instance == null) {
       instance = new CubeMetastoreClient(conf);
@@ -392,6 +399,9 @@ public void addPartition(StoragePartitionDesc partSpec, String storageName)
     getStorage(storageName).addPartition(getClient(), partSpec,
         getLatestInfo(storageTableName, partSpec.getTimePartSpec(),
             partSpec.getUpdatePeriod()));
+    invalidatePartitionCache(storageTableName);
+    updatePartitionTimelines(storageTableName, partSpec.getUpdatePeriod(),
+        partSpec.getTimePartSpec(), true);
   }
 
   private LatestInfo getLatestInfo(String storageTableName,
@@ -582,6 +592,80 @@ public void dropPartition(String cubeTableName, String storageName,
       }
     }
     getStorage(storageName).dropPartition(getClient(), storageTableName, partVals, latest);
+    invalidatePartitionCache(storageTableName);
+    updatePartitionTimelines(storageTableName, updatePeriod, timePartSpec, false);
+  }
+
+  /**
+   * Get the timeline of the partitions of the storage table for an update period
+   * and a time partition column.
+   *
+   * The timelines are stored in the storage table properties, and are updated
+   * when partitions are added or dropped through this client, or through any
+   * other client of a metastore running the {@link PartitionTimelineListener}.
+   *
+   * @param storageTableName The storage table name
+   * @param updatePeriod The update period
+   * @param partCol The time partition column
+   *
+   * @return the {@link PartitionTimeline}, null if the table does not maintain
+   * a timeline for the update period and the column
+   * @throws HiveException
+   */
+  public PartitionTimeline getPartitionTimeline(String storageTableName,
+      UpdatePeriod updatePeriod, String partCol) throws HiveException {
+    return PartitionTimelineUpdater.getPartitionTimeline(
+        getTable(storageTableName).getTTable(), updatePeriod, partCol);
+  }
+
+  /**
+   * Update the partition timelines of the storage table after a partition is
+   * added or dropped. Tables created before the timelines were maintained get
+   * their timelines built from all the partitions, on the first partition added.
+   */
+  private void updatePartitionTimelines(String storageTableName,
+      UpdatePeriod updatePeriod, Map<String, Date> timePartSpec, boolean added)
+          throws HiveException {
+    final String tableName = storageTableName.toLowerCase();
+    org.apache.hadoop.hive.metastore.api.Table tTable = new PartitionTimelineUpdater() {
+      @Override
+      protected org.apache.hadoop.hive.metastore.api.Table getTable() throws HiveException {
+        // read the table again, it could have been altered by other clients
+        return getClient().getTable(tableName).getTTable();
+      }
+
+      @Override
+      protected void alterTable(org.apache.hadoop.hive.metastore.api.Table table)
+          throws HiveException {
+        try {
+          getClient().alterTable(tableName, new Table(table));
+        } catch (InvalidOperationException e) {
+          throw new HiveException(e);
+        }
+      }
+
+      @Override
+      protected List<org.apache.hadoop.hive.metastore.api.Partition> getPartitions(
+          org.apache.hadoop.hive.metastore.api.Table table, String filter)
+              throws HiveException {
+        List<Partition> parts;
+        try {
+          parts = filter == null ? getClient().getPartitions(new Table(table)) :
+              getClient().getPartitionsByFilter(new Table(table), filter);
+        } catch (Exception e) {
+          throw new HiveException(e);
+        }
+        List<org.apache.hadoop.hive.metastore.api.Partition> tParts =
+            new ArrayList<org.apache.hadoop.hive.metastore.api.Partition>(parts.size());
+        for (Partition part : parts) {
+          tParts.add(part.getTPartition());
+        }
+        return tParts;
+      }
+    }.update(updatePeriod, timePartSpec, added);
+    if (tTable != null && enableCaching) {
+      allHiveTables.put(tableName, new Table(tTable));
+    }
   }
 
   private Map<String, String> getPartitionSpec(
@@ -654,6 +738,60 @@ public int getNumPartitionsByFilter(String storageTableName,
         getTable(storageTableName), filter);
   }
 
+  /**
+   * Get all the partitions of the storage table. The partitions are fetched with
+   * a single metastore call and, if caching is enabled, cached for the current
+   * session; the cache is invalidated when partitions are added or dropped through
+   * this client.
+   *
+   * @param storageTableName The storage table name
+   *
+   * @return {@link StoragePartitionSet} of the table
+   * @throws HiveException
+   */
+  public StoragePartitionSet getStoragePartitions(String storageTableName)
+      throws HiveException {
+    String tableName = storageTableName.toLowerCase();
+    StoragePartitionSet partitions;
+    synchronized (allStoragePartitions) {
+      checkPartitionCacheSession();
+      partitions = allStoragePartitions.get(tableName);
+    }
+    if (partitions == null) {
+      Table tbl = getTable(tableName);
+      try {
+        partitions = new StoragePartitionSet(getClient().getPartitionNames(
+            tbl.getDbName(), tbl.getTableName(), (short) -1));
+      } catch (MetaException e) {
+        throw new HiveException("Could not get partitions of " + tableName, e);
+      }
+      if (enableCaching) {
+        synchronized (allStoragePartitions) {
+          allStoragePartitions.put(tableName, partitions);
+        }
+      }
+    }
+    return partitions;
+  }
+
+  private void invalidatePartitionCache(String storageTableName) {
+    synchronized (allStoragePartitions) {
+      allStoragePartitions.remove(storageTableName.toLowerCase());
+    }
+  }
+
+  // The cached partitions are only kept for one session, new sessions see
+  // partitions added since
+  private void checkPartitionCacheSession() {
+    SessionState ss = SessionState.get();
+    String sessionId = ss == null ? null : ss.getSessionId();
+    if (sessionId == null ? partitionCacheSessionId != null
+        : !sessionId.equals(partitionCacheSessionId)) {
+      allStoragePartitions.clear();
+      partitionCacheSessionId = sessionId;
+    }
+  }
+
   boolean partitionExists(String storageTableName, UpdatePeriod updatePeriod,
       Map<String, Date> partitionTimestamps, Map<String, String> partSpec)
           throws HiveException {
@@ -740,6 +878,7 @@ private Table refreshTable(String tableName) throws HiveException {
   public void dropHiveTable(String table) throws HiveException {
     getClient().dropTable(table);
     allHiveTables.remove(table.toLowerCase());
+    invalidatePartitionCache(table);
   }
 
   /**
@@ -991,7 +1130,7 @@ public CubeFactTable getCubeFact(String tableName) throws HiveException {
     if (fact == null) {
       Table tbl = getTable(tableName);
       fact = getFactTable(tbl);
-      if (enableCaching) {
+      if (enableCaching && fact != null) {
         allFactTables.put(tableName.toLowerCase(), fact);
       }
     }
@@ -89,4 +89,8 @@ public interface MetastoreConstants {
   public static final String LATEST_PART_TIMESTAMP_SFX = ".latest.part.timestamp";
   public static final String PARTITION_UPDATE_PERIOD_SFX = ".partition.update.period";
   public static final String PARTITION_UPDATE_PERIOD = "cube.storagetable.partition.update.period";
+  public static final String PARTITION_TIMELINE_PFX = "cube.storagetable.partition.timeline.";
+  public static final String PARTITION_TIMELINES_PRESENT = "cube.storagetable.partition.timelines.present";
+  public static final String PARTITION_TIMELINE_UNKNOWN = "unknown";
+  public static final String PARTITION_TIMELINE_PART_SFX = ".part";
 }
@@ -284,6 +284,12 @@ public static String getLatestPartTimestampKey(String partCol) {
         MetastoreConstants.LATEST_PART_TIMESTAMP_SFX;
   }
 
+  public static String getPartitionTimelineKey(UpdatePeriod updatePeriod,
+      String partCol) {
+    return MetastoreConstants.PARTITION_TIMELINE_PFX +
+        updatePeriod.getName().toLowerCase() + "." + partCol;
+  }
+
   // //////////////////////////
   // Utils ///
   // /////////////////////////
@@ -0,0 +1,287 @@
+package org.apache.hadoop.hive.ql.cube.metadata;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+*/
+
+
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Timeline of the partitions of one update period on one time partition column
+ * of a storage table.
+ *
+ * The timeline is kept as the first and the last partition, and the ranges of
+ * missing partitions (holes) in between, so that it stays small enough to be
+ * stored in the storage table properties. Existence of a partition can then be
+ * checked without listing the partitions of the table.
+ */
+public class PartitionTimeline {
+  private static final String SEPARATOR = ",";
+  private static final String RANGE_SEPARATOR = "~";
+
+  private final UpdatePeriod updatePeriod;
+  private Date first;
+  private Date last;
+  // start to end (both inclusive) of the ranges of missing partitions
+  private final TreeMap<Date, Date> holes = new TreeMap<Date, Date>();
+
+  public PartitionTimeline(UpdatePeriod updatePeriod) {
+    this.updatePeriod = updatePeriod;
+  }
+
+  /**
+   * Parse a timeline written by {@link #toString()}
+   *
+   * @param updatePeriod The update period of the partitions
+   * @param str The timeline string, null or empty for a timeline with no partitions
+   *
+   * @return the timeline
+   * @throws ParseException if the string is not a valid timeline
+   */
+  public static PartitionTimeline parse(UpdatePeriod updatePeriod, String str)
+      throws ParseException {
+    PartitionTimeline timeline = new PartitionTimeline(updatePeriod);
+    if (StringUtils.isBlank(str)) {
+      return timeline;
+    }
+    String[] parts = StringUtils.split(str, SEPARATOR);
+    if (parts.length < 2) {
+      throw new ParseException("Invalid partition timeline:" + str, 0);
+    }
+    timeline.first = timeline.parseDate(parts[0]);
+    timeline.last = timeline.parseDate(parts[1]);
+    for (int i = 2; i < parts.length; i++) {
+      String[] range = StringUtils.split(parts[i], RANGE_SEPARATOR);
+      Date start = timeline.parseDate(range[0]);
+      Date end = range.length > 1 ? timeline.parseDate(range[1]) : start;
+      timeline.holes.put(start, end);
+    }
+    return timeline;
+  }
+
+  public UpdatePeriod getUpdatePeriod() {
+    return updatePeriod;
+  }
+
+  /**
+   * @return true if there are no partitions
+   */
+  public boolean isEmpty() {
+    return first == null;
+  }
+
+  /**
+   * @return the first partition, null if there are no partitions
+   */
+  public Date getFirst() {
+    return first;
+  }
+
+  /**
+   * @return the last partition, null if there are no partitions
+   */
+  public Date getLast() {
+    return last;
+  }
+
+  /**
+   * @return the number of ranges of missing partitions between the first and
+   * the last partition
+   */
+  public int getNumHoles() {
+    return holes.size();
+  }
+
+  /**
+   * Check if the partition exists.
+   *
+   * @param partition The partition timestamp
+   *
+   * @return true if the partition is between the first and last partitions,
+   * and is not a hole
+   */
+  public boolean exists(Date partition) {
+    if (isEmpty()) {
+      return false;
+    }
+    Date dt = truncate(partition);
+    if (dt.before(first) || dt.after(last)) {
+      return false;
+    }
+    return getHole(dt) == null;
+  }
+
+  /**
+   * Add a partition to the timeline.
+   *
+   * @param partition The partition timestamp
+   *
+   * @return true if the timeline changed
+   */
+  public boolean add(Date partition) {
+    Date dt = truncate(partition);
+    if (isEmpty()) {
+      first = dt;
+      last = dt;
+      return true;
+    }
+    if (dt.before(first)) {
+      if (next(dt).before(first)) {
+        holes.put(next(dt), previous(first));
+      }
+      first = dt;
+      return true;
+    }
+    if (dt.after(last)) {
+      if (next(last).before(dt)) {
+        holes.put(next(last), previous(dt));
+      }
+      last = dt;
+      return true;
+    }
+    Map.Entry<Date, Date> hole = getHole(dt);
+    if (hole == null) {
+      return false;
+    }
+    holes.remove(hole.getKey());
+    if (hole.getKey().before(dt)) {
+      holes.put(hole.getKey(), previous(dt));
+    }
+    if (dt.before(hole.getValue())) {
+      holes.put(next(dt), hole.getValue());
+    }
+    return true;
+  }
+
+  /**
+   * Drop a partition from the timeline.
+   *
+   * @param partition The partition timestamp
+   *
+   * @return true if the timeline changed
+   */
+  public boolean drop(Date partition) {
+    Date dt = truncate(partition);
+    if (!exists(dt)) {
+      return false;
+    }
+    if (first.equals(last)) {
+      first = null;
+      last = null;
+      return true;
+    }
+    if (dt.equals(first)) {
+      first = next(dt);
+      Date holeEnd = holes.remove(first);
+      if (holeEnd != null) {
+        first = next(holeEnd);
+      }
+      return true;
+    }
+    if (dt.equals(last)) {
+      last = previous(dt);
+      Map.Entry<Date, Date> hole = holes.floorEntry(last);
+      if (hole != null && hole.getValue().equals(last)) {
+        holes.remove(hole.getKey());
+        last = previous(hole.getKey());
+      }
+      return true;
+    }
+    Date start = dt;
+    Date end = dt;
+    Map.Entry<Date, Date> before = holes.lowerEntry(dt);
+    if (before != null && before.getValue().equals(previous(dt))) {
+      holes.remove(before.getKey());
+      start = before.getKey();
+    }
+    Date after = holes.remove(next(dt));
+    if (after != null) {
+      end = after;
+    }
+    holes.put(start, end);
+    return true;
+  }
+
+  /**
+   * @return the timeline as a string, which can be read back with
+   * {@link #parse(UpdatePeriod, String)}
+   */
+  @Override
+  public String toString() {
+    if (isEmpty()) {
+      return "";
+    }
+    StringBuilder builder = new StringBuilder();
+    builder.append(format(first)).append(SEPARATOR).append(format(last));
+    for (Map.Entry<Date, Date> hole : holes.entrySet()) {
+      builder.append(SEPARATOR).append(format(hole.getKey()));
+      if (!hole.getKey().equals(hole.getValue())) {
+        builder.append(RANGE_SEPARATOR).append(format(hole.getValue()));
+      }
+    }
+    return builder.toString();
+  }
+
+  private Map.Entry<Date, Date> getHole(Date dt) {
+    Map.Entry<Date, Date> hole = holes.floorEntry(dt);
+    if (hole != null && !hole.getValue().before(dt)) {
+      return hole;
+    }
+    return null;
+  }
+
+  private Date next(Date dt) {
+    return shift(dt, 1);
+  }
+
+  private Date previous(Date dt) {
+    return shift(dt, -1);
+  }
+
+  // partitions are enumerated the same way as the storage table resolver does
+  private Date shift(Date dt, int amount) {
+    Calendar cal = Calendar.getInstance();
+    cal.setTime(dt);
+    cal.add(updatePeriod.calendarField(), amount);
+    return cal.getTime();
+  }
+
+  private String format(Date dt) {
+    return updatePeriod.format().format(dt);
+  }
+
+  private Date parseDate(String str) throws ParseException {
+    return updatePeriod.format().parse(str);
+  }
+
+  private Date truncate(Date dt) {
+    try {
+      return parseDate(format(dt));
+    } catch (ParseException e) {
+      throw new IllegalArgumentException("Invalid partition " + dt, e);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package org.apache.hadoop.hive.ql.cube.metadata;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.metastore.HiveMetaStore.HMSHandler;
+import org.apache.hadoop.hive.metastore.MetaStoreEventListener;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.metastore.events.AddPartitionEvent;
+import org.apache.hadoop.hive.metastore.events.DropPartitionEvent;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Metastore event listener keeping the partition timelines of the storage
+ * tables up to date when partitions are added or dropped by other clients than
+ * {@link CubeMetastoreClient}, e.g. by ALTER TABLE statements or by hooks.
+ *
+ * Enabled by adding this class to hive.metastore.event.listeners. Updates that
+ * were already made by {@link CubeMetastoreClient} leave the timelines as they
+ * are.
+ */
+public class PartitionTimelineListener extends MetaStoreEventListener {
+  private static final Log LOG = LogFactory.getLog(
+      PartitionTimelineListener.class.getName());
+
+  public PartitionTimelineListener(Configuration config) {
+    super(config);
+  }
+
+  @Override
+  public void onAddPartition(AddPartitionEvent partitionEvent) throws MetaException {
+    if (!partitionEvent.getStatus()) {
+      return;
+    }
+    for (Partition part : partitionEvent.getPartitions()) {
+      updatePartitionTimelines(partitionEvent.getHandler(), partitionEvent.getTable(),
+          part, true);
+    }
+  }
+
+  @Override
+  public void onDropPartition(DropPartitionEvent partitionEvent) throws MetaException {
+    if (!partitionEvent.getStatus()) {
+      return;
+    }
+    updatePartitionTimelines(partitionEvent.getHandler(), partitionEvent.getTable(),
+        partitionEvent.getPartition(), false);
+  }
+
+  private void updatePartitionTimelines(final HMSHandler handler, Table table,
+      Partition part, boolean added) {
+    String timePartColsStr = table.getParameters() == null ? null :
+        table.getParameters().get(MetastoreConstants.TIME_PART_COLUMNS);
+    String updatePeriodStr = part.getParameters() == null ? null :
+        part.getParameters().get(MetastoreConstants.PARTITION_UPDATE_PERIOD);
+    // partitions without an update period are not in the timelines
+    if (timePartColsStr == null || updatePeriodStr == null ||
+        part.getValues().contains(StorageConstants.LATEST_PARTITION_VALUE)) {
+      return;
+    }
+    UpdatePeriod updatePeriod = UpdatePeriod.valueOf(updatePeriodStr.toUpperCase());
+    List<String> timePartCols = Arrays.asList(StringUtils.split(timePartColsStr, ','));
+    Map<String, Date> timePartSpec = new HashMap<String, Date>();
+    for (int i = 0; i < table.getPartitionKeysSize(); i++) {
+      String partCol = table.getPartitionKeys().get(i).getName();
+      if (!timePartCols.contains(partCol)) {
+        continue;
+      }
+      try {
+        timePartSpec.put(partCol, updatePeriod.format().parse(part.getValues().get(i)));
+      } catch (ParseException e) {
+        continue;
+      }
+    }
+
+    final String dbName = table.getDbName();
+    final String tableName = table.getTableName();
+    try {
+      new PartitionTimelineUpdater() {
+        @Override
+        protected Table getTable() throws HiveException {
+          try {
+            return handler.get_table(dbName, tableName);
+          } catch (Exception e) {
+            throw new HiveException(e);
+          }
+        }
+
+        @Override
+        protected void alterTable(Table newTable) throws HiveException {
+          try {
+            handler.alter_table(dbName, tableName, newTable);
+          } catch (Exception e) {
+            throw new HiveException(e);
+          }
+        }
+
+        @Override
+        protected List<Partition> getPartitions(Table t, String filter)
+            throws HiveException {
+          try {
+            return filter == null ? handler.get_partitions(dbName, tableName, (short) -1) :
+                handler.get_partitions_by_filter(dbName, tableName, filter, (short) -1);
+          } catch (Exception e) {
+            throw new HiveException(e);
+          }
+        }
+      }.update(updatePeriod, timePartSpec, added);
+    } catch (HiveException e) {
+      // failing the call would not undo the partition added or dropped
+      LOG.error("Could not update the partition timelines of " + dbName + "."
+          + tableName, e);
+    }
+  }
+}
@@ -0,0 +1,301 @@
+package org.apache.hadoop.hive.ql.cube.metadata;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+
+/**
+ * Updates the partition timelines kept in the properties of a storage table,
+ * after a partition is added or dropped.
+ *
+ * The timelines are read, changed and written back with the table, and the
+ * metastore cannot alter a table only if it did not change in between. So the
+ * update is optimistic: the table is written only if its timelines did not
+ * change since they were read, and the update is tried again if another update
+ * got in before the table was written.
+ *
+ * Timelines longer than a table property value are split over several
+ * properties. The timelines are built from the partitions of the table when
+ * the table does not have them yet, or when a timeline is unknown.
+ */
+abstract class PartitionTimelineUpdater {
+  private static final Log LOG = LogFactory.getLog(
+      PartitionTimelineUpdater.class.getName());
+
+  // maximum length of a table property value in the metastore
+  static final int MAX_PARAM_LENGTH = 4000;
+  // number of tries of an update before the timelines of the table are dropped
+  static final int MAX_ATTEMPTS = 5;
+
+  /**
+   * @return the storage table, as currently stored in the metastore
+   */
+  protected abstract Table getTable() throws HiveException;
+
+  protected abstract void alterTable(Table table) throws HiveException;
+
+  /**
+   * @return the partitions of the storage table matching the filter, all the
+   * partitions if the filter is null
+   */
+  protected abstract List<Partition> getPartitions(Table table, String filter)
+      throws HiveException;
+
+  /**
+   * Update the partition timelines of the storage table after a partition is
+   * added or dropped.
+   *
+   * @param updatePeriod The update period of the partition
+   * @param timePartSpec The time partition values of the partition
+   * @param added Whether the partition was added or dropped
+   *
+   * @return the table as written to the metastore, null if the timelines did
+   * not change
+   * @throws HiveException
+   */
+  Table update(UpdatePeriod updatePeriod, Map<String, Date> timePartSpec,
+      boolean added) throws HiveException {
+    if (timePartSpec == null || timePartSpec.isEmpty()) {
+      return null;
+    }
+    for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+      Table table = getTable();
+      Map<String, String> readTimelines = getTimelineParams(table);
+      // when retrying, another update may have dropped the partition again
+      if (!apply(table, updatePeriod, timePartSpec, added, attempt > 1)) {
+        return null;
+      }
+      if (!readTimelines.equals(getTimelineParams(getTable()))) {
+        continue;
+      }
+      alterTable(table);
+      // another update, written at the same time, may have overwritten this one
+      if (getTimelineParams(table).equals(getTimelineParams(getTable()))) {
+        return table;
+      }
+    }
+    // readers fall back on the partitions, and the timelines are built again
+    // on the next partition added
+    Table table = getTable();
+    LOG.warn("Could not update the partition timelines of " + table.getTableName()
+        + " in " + MAX_ATTEMPTS + " attempts, dropping them");
+    table.getParameters().put(MetastoreConstants.PARTITION_TIMELINES_PRESENT, "false");
+    alterTable(table);
+    return table;
+  }
+
+  private boolean apply(Table table, UpdatePeriod updatePeriod,
+      Map<String, Date> timePartSpec, boolean added, boolean checkAdded)
+          throws HiveException {
+    Map<String, String> params = table.getParameters();
+    String timePartColsStr = params.get(MetastoreConstants.TIME_PART_COLUMNS);
+    if (timePartColsStr == null) {
+      return false;
+    }
+    List<String> timePartCols = Arrays.asList(StringUtils.split(timePartColsStr, ','));
+    if (!"true".equals(params.get(MetastoreConstants.PARTITION_TIMELINES_PRESENT))) {
+      if (!added) {
+        return false;
+      }
+      buildPartitionTimelines(table, timePartCols);
+      return true;
+    }
+    for (String partCol : timePartSpec.keySet()) {
+      // timelines too long for one table property used to be stored as unknown
+      if (MetastoreConstants.PARTITION_TIMELINE_UNKNOWN.equals(params.get(
+          MetastoreUtil.getPartitionTimelineKey(updatePeriod, partCol)))) {
+        buildPartitionTimelines(table, timePartCols);
+        return true;
+      }
+    }
+    boolean changed = false;
+    for (Map.Entry<String, Date> entry : timePartSpec.entrySet()) {
+      String partCol = entry.getKey();
+      if (!timePartCols.contains(partCol)) {
+        continue;
+      }
+      PartitionTimeline timeline = getPartitionTimeline(table, updatePeriod, partCol);
+      boolean timelineChanged;
+      if (added) {
+        timelineChanged = !timeline.exists(entry.getValue())
+            && (!checkAdded || timePartitionExists(table, updatePeriod, partCol,
+                entry.getValue()))
+            && timeline.add(entry.getValue());
+      } else {
+        // other partitions can have the same time partition value, when the
+        // table has other partition columns
+        timelineChanged = timeline.exists(entry.getValue())
+            && (table.getPartitionKeys().size() == 1 || !timePartitionExists(table,
+                updatePeriod, partCol, entry.getValue()))
+            && timeline.drop(entry.getValue());
+      }
+      if (timelineChanged) {
+        setPartitionTimeline(params,
+            MetastoreUtil.getPartitionTimelineKey(updatePeriod, partCol), timeline);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  private void buildPartitionTimelines(Table table, List<String> timePartCols)
+      throws HiveException {
+    Map<String, PartitionTimeline> timelines =
+        new HashMap<String, PartitionTimeline>();
+    List<FieldSchema> partCols = table.getPartitionKeys();
+    for (Partition part : getPartitions(table, null)) {
+      String updatePeriodStr = part.getParameters() == null ? null :
+          part.getParameters().get(MetastoreConstants.PARTITION_UPDATE_PERIOD);
+      if (updatePeriodStr == null ||
+          part.getValues().contains(StorageConstants.LATEST_PARTITION_VALUE)) {
+        continue;
+      }
+      UpdatePeriod partInterval = UpdatePeriod.valueOf(updatePeriodStr.toUpperCase());
+      for (int i = 0; i < partCols.size(); i++) {
+        String partCol = partCols.get(i).getName();
+        if (!timePartCols.contains(partCol)) {
+          continue;
+        }
+        Date partDate;
+        try {
+          partDate = partInterval.format().parse(part.getValues().get(i));
+        } catch (ParseException e) {
+          continue;
+        }
+        String key = MetastoreUtil.getPartitionTimelineKey(partInterval, partCol);
+        PartitionTimeline timeline = timelines.get(key);
+        if (timeline == null) {
+          timeline = new PartitionTimeline(partInterval);
+          timelines.put(key, timeline);
+        }
+        timeline.add(partDate);
+      }
+    }
+    Map<String, String> params = table.getParameters();
+    Iterator<String> it = params.keySet().iterator();
+    while (it.hasNext()) {
+      if (it.next().startsWith(MetastoreConstants.PARTITION_TIMELINE_PFX)) {
+        it.remove();
+      }
+    }
+    for (Map.Entry<String, PartitionTimeline> entry : timelines.entrySet()) {
+      setPartitionTimeline(params, entry.getKey(), entry.getValue());
+    }
+    params.put(MetastoreConstants.PARTITION_TIMELINES_PRESENT, "true");
+  }
+
+  private boolean timePartitionExists(Table table, UpdatePeriod updatePeriod,
+      String partCol, Date partDate) throws HiveException {
+    List<Partition> parts = getPartitions(table,
+        partCol + "='" + updatePeriod.format().format(partDate) + "'");
+    for (Partition part : parts) {
+      String updatePeriodStr = part.getParameters() == null ? null :
+          part.getParameters().get(MetastoreConstants.PARTITION_UPDATE_PERIOD);
+      if (updatePeriodStr != null &&
+          updatePeriod.equals(UpdatePeriod.valueOf(updatePeriodStr.toUpperCase()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get the timeline of the partitions of the storage table for an update period
+   * and a time partition column.
+   *
+   * @return the {@link PartitionTimeline}, null if the table does not maintain
+   * a timeline for the update period and the column
+   * @throws HiveException if the timeline stored in the table is not valid
+   */
+  static PartitionTimeline getPartitionTimeline(Table table,
+      UpdatePeriod updatePeriod, String partCol) throws HiveException {
+    Map<String, String> params = table.getParameters();
+    if (!"true".equals(params.get(MetastoreConstants.PARTITION_TIMELINES_PRESENT))) {
+      return null;
+    }
+    String timePartColsStr = params.get(MetastoreConstants.TIME_PART_COLUMNS);
+    if (timePartColsStr == null ||
+        !Arrays.asList(StringUtils.split(timePartColsStr, ',')).contains(partCol)) {
+      return null;
+    }
+    String key = MetastoreUtil.getPartitionTimelineKey(updatePeriod, partCol);
+    String timelineStr = params.get(key);
+    if (MetastoreConstants.PARTITION_TIMELINE_UNKNOWN.equals(timelineStr)) {
+      return null;
+    }
+    if (timelineStr != null) {
+      StringBuilder builder = new StringBuilder(timelineStr);
+      for (int i = 1; params.containsKey(getPartKey(key, i)); i++) {
+        builder.append(params.get(getPartKey(key, i)));
+      }
+      timelineStr = builder.toString();
+    }
+    try {
+      return PartitionTimeline.parse(updatePeriod, timelineStr);
+    } catch (ParseException e) {
+      throw new HiveException("Invalid partition timeline in "
+          + table.getTableName(), e);
+    }
+  }
+
+  static void setPartitionTimeline(Map<String, String> params, String key,
+      PartitionTimeline timeline) {
+    for (int i = 1; params.remove(getPartKey(key, i)) != null; i++) {
+    }
+    String timelineStr = timeline.toString();
+    params.put(key, timelineStr.substring(0,
+        Math.min(timelineStr.length(), MAX_PARAM_LENGTH)));
+    for (int i = 1; i * MAX_PARAM_LENGTH < timelineStr.length(); i++) {
+      params.put(getPartKey(key, i), timelineStr.substring(i * MAX_PARAM_LENGTH,
+          Math.min(timelineStr.length(), (i + 1) * MAX_PARAM_LENGTH)));
+    }
+  }
+
+  private static String getPartKey(String key, int part) {
+    return key + MetastoreConstants.PARTITION_TIMELINE_PART_SFX + part;
+  }
+
+  private static Map<String, String> getTimelineParams(Table table) {
+    Map<String, String> timelineParams = new HashMap<String, String>();
+    for (Map.Entry<String, String> entry : table.getParameters().entrySet()) {
+      if (entry.getKey().startsWith(MetastoreConstants.PARTITION_TIMELINE_PFX) ||
+          entry.getKey().equals(MetastoreConstants.PARTITION_TIMELINES_PRESENT)) {
+        timelineParams.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return timelineParams;
+  }
+}
@@ -0,0 +1,131 @@
+package org.apache.hadoop.hive.ql.cube.metadata;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+*/
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.MetaException;
+
+/**
+ * The partitions of a storage table, loaded with a single metastore call.
+ *
+ * Partition lookups are answered from memory, so that resolving the partitions
+ * of a time range does not need a metastore call per partition.
+ */
+public class StoragePartitionSet {
+  // partition specs, with the columns in the order of the table partition columns
+  private final List<LinkedHashMap<String, String>> partSpecs;
+
+  // projections of all the partition specs on a set of columns, built on first use
+  private final Map<Set<String>, Set<Map<String, String>>> projections =
+      new HashMap<Set<String>, Set<Map<String, String>>>();
+
+  /**
+   * @param partNames Partition names of the table, as returned by the metastore
+   *
+   * @throws MetaException if a partition name is invalid
+   */
+  public StoragePartitionSet(List<String> partNames) throws MetaException {
+    partSpecs = new ArrayList<LinkedHashMap<String, String>>(partNames.size());
+    for (String partName : partNames) {
+      partSpecs.add(Warehouse.makeSpecFromName(partName));
+    }
+  }
+
+  /**
+   * @return the number of partitions
+   */
+  public int size() {
+    return partSpecs.size();
+  }
+
+  /**
+   * Check if there is a partition with the given values for the given columns.
+   *
+   * @param partSpec Values of some of the partition columns
+   *
+   * @return true if at least one partition matches the spec
+   */
+  public boolean exists(Map<String, String> partSpec) {
+    return getProjection(partSpec.keySet()).contains(partSpec);
+  }
+
+  /**
+   * Get all the partitions with the given values for the given columns.
+   *
+   * @param partSpec Values of some of the partition columns
+   *
+   * @return the full specs of the matching partitions
+   */
+  public List<LinkedHashMap<String, String>> getPartitions(
+      Map<String, String> partSpec) {
+    List<LinkedHashMap<String, String>> result =
+        new ArrayList<LinkedHashMap<String, String>>();
+    if (!exists(partSpec)) {
+      return result;
+    }
+    for (LinkedHashMap<String, String> spec : partSpecs) {
+      if (matches(spec, partSpec)) {
+        result.add(spec);
+      }
+    }
+    return result;
+  }
+
+  private synchronized Set<Map<String, String>> getProjection(Set<String> columns) {
+    Set<Map<String, String>> projection = projections.get(columns);
+    if (projection == null) {
+      Set<String> key = new TreeSet<String>(columns);
+      projection = new HashSet<Map<String, String>>();
+      for (Map<String, String> spec : partSpecs) {
+        if (!spec.keySet().containsAll(key)) {
+          continue;
+        }
+        Map<String, String> projected = new HashMap<String, String>();
+        for (String column : key) {
+          projected.put(column, spec.get(column));
+        }
+        projection.add(projected);
+      }
+      projections.put(key, projection);
+    }
+    return projection;
+  }
+
+  private static boolean matches(Map<String, String> spec,
+      Map<String, String> partSpec) {
+    for (Map.Entry<String, String> entry : partSpec.entrySet()) {
+      if (!entry.getValue().equals(spec.get(entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
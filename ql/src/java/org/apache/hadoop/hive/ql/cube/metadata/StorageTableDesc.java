@@ -46,6 +46,8 @@ public void setTimePartCols(List<String> timePartCols) {
     }
     super.getTblProps().put(MetastoreConstants.TIME_PART_COLUMNS,
         StringUtils.join(this.timePartCols, ','));
+    // new storage tables maintain partition timelines from the first partition
+    super.getTblProps().put(MetastoreConstants.PARTITION_TIMELINES_PRESENT, "true");
   }
 
   /**
@@ -23,7 +23,9 @@
 
 import java.text.DateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.hadoop.hive.ql.cube.metadata.UpdatePeriod;
@@ -102,6 +104,19 @@ public String getFormattedFilter(String partCol, String tableName) {
     return builder.toString();
   }
 
+  /**
+   * @return the partition column values of this partition and its containing
+   *  partitions, as used in {@link #getFilter()}
+   */
+  public Map<String, String> getPartitionValues() {
+    Map<String, String> values = new HashMap<String, String>();
+    if (containingPart != null) {
+      values.putAll(containingPart.getPartitionValues());
+    }
+    values.put(partCol, getPartString());
+    return values;
+  }
+
   public String getFilter() {
     StringBuilder builder = new StringBuilder();
     if (containingPart != null) {
@@ -45,14 +45,15 @@
 import org.apache.hadoop.hive.ql.cube.metadata.CubeFactTable;
 import org.apache.hadoop.hive.ql.cube.metadata.CubeMetastoreClient;
 import org.apache.hadoop.hive.ql.cube.metadata.MetastoreUtil;
+import org.apache.hadoop.hive.ql.cube.metadata.PartitionTimeline;
 import org.apache.hadoop.hive.ql.cube.metadata.StorageConstants;
+import org.apache.hadoop.hive.ql.cube.metadata.StoragePartitionSet;
 import org.apache.hadoop.hive.ql.cube.metadata.Dimension;
 import org.apache.hadoop.hive.ql.cube.metadata.UpdatePeriod;
 import org.apache.hadoop.hive.ql.cube.parse.CandidateTablePruneCause.CubeTableCause;
 import org.apache.hadoop.hive.ql.cube.parse.CandidateTablePruneCause.SkipStorageCause;
 import org.apache.hadoop.hive.ql.cube.parse.CandidateTablePruneCause.SkipUpdatePeriodCause;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
-import org.apache.hadoop.hive.ql.metadata.Partition;
 import org.apache.hadoop.hive.ql.parse.SemanticException;
 import org.apache.hadoop.util.ReflectionUtils;
 
@@ -79,6 +80,12 @@ class StorageTableResolver implements ContextRewriter {
   private final Map<String, List<String>> nonExistingPartitions = new HashMap<String, List<String>>();
   private TimeRangeWriter rangeWriter;
   private DateFormat partWhereClauseFormat = null;
+  // partitions of the fact storage tables, fetched once per query
+  private final Map<String, StoragePartitionSet> storagePartitions =
+      new HashMap<String, StoragePartitionSet>();
+  // partition timelines of the fact storage tables, read once per query
+  private final Map<String, PartitionTimeline> partitionTimelines =
+      new HashMap<String, PartitionTimeline>();
 
   public StorageTableResolver(Configuration conf) {
     this.conf = conf;
@@ -136,6 +143,8 @@ public boolean isStorageSupported(String storage) {
   public void rewriteContext(CubeQueryContext cubeql)
       throws SemanticException {
     client = cubeql.getMetastoreClient();
+    storagePartitions.clear();
+    partitionTimelines.clear();
 
     if (!cubeql.getCandidateFactTables().isEmpty()) {
       // resolve storage table names
@@ -448,6 +457,53 @@ void addNonExistingParts(String name, List<String> nonExistingParts) {
     nonExistingPartitions.put(name, nonExistingParts);
   }
 
+  /**
+   * Get the partitions of the storage table. All the partitions of the table are
+   * fetched with one metastore call, and partition lookups for the time ranges
+   * of the query are answered from memory.
+   */
+  private StoragePartitionSet getStoragePartitions(String storageTableName)
+      throws HiveException {
+    StoragePartitionSet parts = storagePartitions.get(storageTableName);
+    if (parts == null) {
+      parts = client.getStoragePartitions(storageTableName);
+      storagePartitions.put(storageTableName, parts);
+    }
+    return parts;
+  }
+
+  /**
+   * Get the partition timeline of the storage table, null if the table does not
+   * maintain a timeline for the update period and the column.
+   */
+  private PartitionTimeline getPartitionTimeline(String storageTableName,
+      UpdatePeriod updatePeriod, String partCol) throws HiveException {
+    String key = storageTableName + "." +
+        MetastoreUtil.getPartitionTimelineKey(updatePeriod, partCol);
+    if (!partitionTimelines.containsKey(key)) {
+      partitionTimelines.put(key,
+          client.getPartitionTimeline(storageTableName, updatePeriod, partCol));
+    }
+    return partitionTimelines.get(key);
+  }
+
+  /**
+   * Check if the partition exists in the storage table. The partition timeline
+   * of the table is used when it is available, otherwise the partitions of the
+   * table are fetched.
+   */
+  private boolean partitionExists(String storageTableName, FactPartition part)
+      throws HiveException {
+    if (!part.hasContainingPart()) {
+      PartitionTimeline timeline = getPartitionTimeline(storageTableName,
+          part.getPeriod(), part.getPartCol());
+      if (timeline != null) {
+        return timeline.exists(part.getPartSpec());
+      }
+    }
+    return getStoragePartitions(storageTableName).exists(part.getPartitionValues());
+  }
+
   private Set<FactPartition> getPartitions(CubeFactTable fact, TimeRange range,
       Map<String, SkipStorageCause> skipStorageCauses, List<String> nonExistingParts)
       throws SemanticException {
@@ -532,20 +588,24 @@ private boolean getPartitions(CubeFactTable fact, Date fromDate, Date toDate,
         CubeQueryConfUtil.getLookAheadPTPartsKey(interval),
         CubeQueryConfUtil.DEFAULT_LOOK_AHEAD_PT_PARTS);
     boolean leastInterval = updatePeriods.first().equals(interval);
+    // full partition specs are only needed to look ahead the process time partitions
+    boolean lookAhead = !leastInterval && containingPart == null
+        && processTimePartCol != null && !partCol.equals(processTimePartCol);
     while (dt.compareTo(floorToDate) < 0) {
       cal.add(interval.calendarField(), 1);
       boolean foundPart = false;
       FactPartition part = new FactPartition(partCol,
           dt, interval, containingPart, partWhereClauseFormat);
-      Map<String, List<Partition>> metaParts = new HashMap<String, List<Partition>>();
+      Map<String, List<LinkedHashMap<String, String>>> metaParts =
+          new HashMap<String, List<LinkedHashMap<String, String>>>();
       for (String storageTableName : storageTbls) {
         int numParts;
-        if (leastInterval) {
-          numParts = client.getNumPartitionsByFilter(
-              storageTableName, part.getFilter());
+        if (!lookAhead) {
+          numParts = partitionExists(storageTableName, part) ? 1 : 0;
         } else {
-          List<Partition> sParts = client.getPartitionsByFilter(
-              storageTableName, part.getFilter());
+          List<LinkedHashMap<String, String>> sParts =
+              getStoragePartitions(storageTableName).getPartitions(
+                  part.getPartitionValues());
           metaParts.put(storageTableName, sParts);
           numParts = sParts.size();
         }
@@ -606,9 +666,11 @@ private boolean getPartitions(CubeFactTable fact, Date fromDate, Date toDate,
                   String lPart = interval.format().format(pdt);
                   temp.add(interval.calendarField(), 1);
                   Boolean foundLookAheadParts = false;
-                  for (Map.Entry<String, List<Partition>> entry : metaParts.entrySet()) {
-                    for (Partition mpart :entry.getValue()) {
-                      if (mpart.getValues().get(0).contains(lPart)) {
+                  for (Map.Entry<String, List<LinkedHashMap<String, String>>> entry :
+                      metaParts.entrySet()) {
+                    for (LinkedHashMap<String, String> mpart : entry.getValue()) {
+                      // the first partition column value
+                      if (mpart.values().iterator().next().contains(lPart)) {
                         LOG.info("Founr lPart in " + mpart + " in table:" + entry.getKey());
                         foundLookAheadParts = true;
                         break;
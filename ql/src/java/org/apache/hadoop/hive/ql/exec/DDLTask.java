@@ -484,11 +484,12 @@ public int execute(DriverContext driverContext) {
 
   /**
    * First, make sure the source table/partition is not
-   * archived/indexes/non-rcfile. If either of these is true, throw an
+   * archived/indexes/non-rcfile/non-orc. If either of these is true, throw an
    * exception.
    *
    * The way how it does the merge is to create a BlockMergeTask from the
-   * mergeFilesDesc.
+   * mergeFilesDesc. RCFiles are merged block by block and ORC files stripe
+   * by stripe.
    *
    * @param db
    * @param mergeFilesDesc
@@ -499,7 +500,8 @@ private int mergeFiles(Hive db, AlterTablePartMergeFilesDesc mergeFilesDesc)
       throws HiveException {
     // merge work only needs input and output.
     MergeWork mergeWork = new MergeWork(mergeFilesDesc.getInputDir(),
-        mergeFilesDesc.getOutputDir());
+        mergeFilesDesc.getOutputDir(), false, null,
+        mergeFilesDesc.getInputFormatClass());
     mergeWork.setListBucketingCtx(mergeFilesDesc.getLbCtx());
     mergeWork.resolveConcatenateMerge(db.getConf());
     mergeWork.setMapperCannotSpanPartns(true);
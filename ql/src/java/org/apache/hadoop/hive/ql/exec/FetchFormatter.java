@@ -40,6 +40,16 @@
 
   T convert(Object row, ObjectInspector rowOI) throws Exception;
 
+  /**
+   * Result list that takes the rows as they are, with their object inspector.
+   * When the list passed to the fetch task implements this, rows bypass the
+   * formatter. Rows are only valid during the call.
+   */
+  public static interface RowCollector {
+
+    void collect(Object row, ObjectInspector rowOI) throws Exception;
+  }
+
   public static class ThriftFormatter implements FetchFormatter<Object> {
 
     int protocol;
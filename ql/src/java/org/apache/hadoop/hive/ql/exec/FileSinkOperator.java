@@ -605,20 +605,7 @@ public void processOp(Object row, int tag) throws HiveException {
         row_count.set(row_count.get() + 1);
       }
 
-      if (!multiFileSpray) {
-        rowOutWriter = rowOutWriters[0];
-      } else {
-        int keyHashCode = 0;
-        for (int i = 0; i < partitionEval.length; i++) {
-          Object o = partitionEval[i].evaluate(row);
-          keyHashCode = keyHashCode * 31
-              + ObjectInspectorUtils.hashCode(o, partitionObjectInspectors[i]);
-        }
-        key.setHashCode(keyHashCode);
-        int bucketNum = prtner.getBucket(key, null, totalFiles);
-        int idx = bucketMap.get(bucketNum);
-        rowOutWriter = rowOutWriters[idx];
-      }
+      rowOutWriter = rowOutWriters[findWriterOffset(row)];
       rowOutWriter.write(recordValue);
     } catch (IOException e) {
       throw new HiveException(e);
@@ -627,6 +614,26 @@ public void processOp(Object row, int tag) throws HiveException {
     }
   }
 
+  /**
+   * Find the writer of the bucket file the row goes to.
+   * @param row the row, described by the operator's input object inspector
+   * @return the index of the writer in the output writers
+   */
+  protected int findWriterOffset(Object row) throws HiveException {
+    if (!multiFileSpray) {
+      return 0;
+    }
+    int keyHashCode = 0;
+    for (int i = 0; i < partitionEval.length; i++) {
+      Object o = partitionEval[i].evaluate(row);
+      keyHashCode = keyHashCode * 31
+          + ObjectInspectorUtils.hashCode(o, partitionObjectInspectors[i]);
+    }
+    key.setHashCode(keyHashCode);
+    int bucketNum = prtner.getBucket(key, null, totalFiles);
+    return bucketMap.get(bucketNum);
+  }
+
   private boolean areAllTrue(boolean[] statsFromRW) {
     for(boolean b : statsFromRW) {
       if (!b) {
@@ -28,6 +28,7 @@
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -663,9 +664,12 @@ public static Set<String> getFunctionNames() {
   }
 
   private static Set<String> getFunctionNames(boolean searchMetastore) {
-    Set<String> functionNames = mFunctions.keySet();
+    // copy the names, the registry can be changed by concurrent compilations
+    Set<String> functionNames;
+    synchronized (mFunctions) {
+      functionNames = new LinkedHashSet<String>(mFunctions.keySet());
+    }
     if (searchMetastore) {
-      functionNames = new HashSet<String>(functionNames);
       try {
         Hive db = getHive();
         List<String> dbNames = db.getAllDatabases();
@@ -705,9 +709,11 @@ public static Set<String> getFunctionNames(String funcPatternStr) {
     } catch (PatternSyntaxException e) {
       return funcNames;
     }
-    for (String funcName : mFunctions.keySet()) {
-      if (funcPattern.matcher(funcName).matches()) {
-        funcNames.add(funcName);
+    synchronized (mFunctions) {
+      for (String funcName : mFunctions.keySet()) {
+        if (funcPattern.matcher(funcName).matches()) {
+          funcNames.add(funcName);
+        }
       }
     }
     return funcNames;
@@ -729,12 +735,14 @@ public static Set<String> getFunctionSynonyms(String funcName) {
     }
 
     Class<?> funcClass = funcInfo.getFunctionClass();
-    for (String name : mFunctions.keySet()) {
-      if (name.equals(funcName)) {
-        continue;
-      }
-      if (mFunctions.get(name).getFunctionClass().equals(funcClass)) {
-        synonyms.add(name);
+    synchronized (mFunctions) {
+      for (Map.Entry<String, FunctionInfo> entry : mFunctions.entrySet()) {
+        if (entry.getKey().equals(funcName)) {
+          continue;
+        }
+        if (entry.getValue().getFunctionClass().equals(funcClass)) {
+          synonyms.add(entry.getKey());
+        }
       }
     }
 
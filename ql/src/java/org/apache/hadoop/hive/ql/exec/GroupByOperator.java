@@ -19,8 +19,12 @@
 package org.apache.hadoop.hive.ql.exec;
 
 import java.io.Serializable;
+import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.lang.reflect.Field;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -38,6 +42,7 @@
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.persistence.HashAggregationSpill;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.parse.OpParseContext;
 import org.apache.hadoop.hive.ql.plan.AggregationDesc;
@@ -78,7 +83,7 @@ public class GroupByOperator extends Operator<GroupByDesc> implements
   private static final Log LOG = LogFactory.getLog(GroupByOperator.class
       .getName());
   private static final long serialVersionUID = 1L;
-  private static final int NUMROWSESTIMATESIZE = 1000;
+  static final int NUMROWSESTIMATESIZE = 1000;
 
   protected transient ExprNodeEvaluator[] keyFields;
   protected transient ObjectInspector[] keyObjectInspectors;
@@ -115,6 +120,9 @@ public class GroupByOperator extends Operator<GroupByDesc> implements
   // Used by hash-based GroupBy: Mode = HASH, PARTIALS
   protected transient HashMap<KeyWrapper, AggregationBuffer[]> hashAggregations;
 
+  // Spill files of the hash table, null when the hash table is flushed instead of spilled
+  protected transient HashAggregationSpill hashSpill;
+
   // Used by hash distinct aggregations when hashGrpKeyNotRedKey is true
   protected transient HashSet<KeyWrapper> keysCurrentGroup;
 
@@ -139,6 +147,9 @@ public class GroupByOperator extends Operator<GroupByDesc> implements
   transient StructObjectInspector newKeyObjectInspector;
   transient StructObjectInspector currentKeyObjectInspector;
   public static MemoryMXBean memoryMXBean;
+  // heap pools that report their usage after a collection, and the collectors
+  private static List<MemoryPoolMXBean> heapPools;
+  private static List<GarbageCollectorMXBean> collectors;
 
   /**
    * Total amount of memory allowed for JVM heap.
@@ -166,12 +177,35 @@ public class GroupByOperator extends Operator<GroupByDesc> implements
 
   transient int fixedRowSize;
 
+  // aggregations whose buffers estimate their own size
+  transient boolean[] estimableAggrs;
+  transient boolean hasEstimableAggrs;
+
   /**
    * Max memory usable by the hashtable before it should flush.
    */
   protected transient long maxHashTblMemory;
-  transient int totalVariableSize;
-  transient int numEntriesVarSize;
+
+  /**
+   * Estimated memory used by the entries of the hash table.
+   */
+  protected transient long hashTableMemory;
+
+  /**
+   * Size of the variable length fields of the aggregations that do not estimate
+   * their own size, sampled from an entry every NUMROWSESTIMATESIZE rows.
+   */
+  transient boolean hasAggrVariableFields;
+  transient long totalAggrVariableSize;
+  transient int numAggrVariableSamples;
+
+  // rows processed since the memory was last checked
+  transient int numRowsSinceCheck;
+
+  // collection count, and estimated memory of the hash table, when the heap was
+  // last checked after a new collection
+  transient long lastCollectionCount;
+  transient long hashTableMemoryAtCollection;
 
   /**
    * Current number of entries in the hash table.
@@ -420,18 +454,91 @@ protected void initializeOp(Configuration hconf) throws HiveException {
     // is not known, estimate that based on the number of entries
     if (hashAggr) {
       computeMaxEntriesHashAggr(hconf);
+      if (canSpillHashTable(hconf)) {
+        hashSpill = new HashAggregationSpill(
+            HiveConf.getIntVar(hconf, HiveConf.ConfVars.HIVEMAPAGGRHASHSPILLPARTITIONS),
+            keyFields.length, (StructObjectInspector) outputObjInspector,
+            aggregationEvaluators, hconf);
+      }
     }
     memoryMXBean = ManagementFactory.getMemoryMXBean();
     maxMemory = memoryMXBean.getHeapMemoryUsage().getMax();
     memoryThreshold = this.getConf().getMemoryThreshold();
+    lastCollectionCount = -1;
+    initHeapPools();
     initializeChildren(hconf);
   }
 
+  private static synchronized void initHeapPools() {
+    if (heapPools != null) {
+      return;
+    }
+    List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.getCollectionUsage() != null) {
+        pools.add(pool);
+      }
+    }
+    collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    heapPools = pools;
+  }
+
+  /**
+   * @return the usage of the heap pools after their last collection, or -1 if the
+   *         pools do not report it
+   */
+  private static long getHeapUsageAfterCollection() {
+    if (heapPools.isEmpty()) {
+      return -1;
+    }
+    long used = 0;
+    for (MemoryPoolMXBean pool : heapPools) {
+      MemoryUsage usage = pool.isValid() ? pool.getCollectionUsage() : null;
+      if (usage != null) {
+        used += usage.getUsed();
+      }
+    }
+    return used;
+  }
+
+  private static long getCollectionCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : collectors) {
+      count += Math.max(0, collector.getCollectionCount());
+    }
+    return count;
+  }
+
   /**
-   * Estimate the number of entries in map-side hash table. The user can specify
+   * Safety net for when the estimated memory of the hash table falls short. The
+   * usage of the heap after the last collection is what was live then, so the
+   * growth of the hash table since is added to it. The current usage of the heap
+   * is not used, since it includes all the garbage created since the last
+   * collection, by this operator and any other.
+   *
+   * @param memory
+   *          estimated memory of the hash table
+   */
+  private boolean isHeapOverThreshold(long memory) {
+    long used = getHeapUsageAfterCollection();
+    if (used < 0) {
+      return false;
+    }
+    long collectionCount = getCollectionCount();
+    if (collectionCount != lastCollectionCount) {
+      lastCollectionCount = collectionCount;
+      hashTableMemoryAtCollection = memory;
+    }
+    used += Math.max(0, memory - hashTableMemoryAtCollection);
+    return (float) used / (float) maxMemory > memoryThreshold;
+  }
+
+  /**
+   * Compute the memory usable by the map-side hash table. The user can specify
    * the total amount of memory to be used by the map-side hash. By default, all
-   * available memory is used. The size of each row is estimated, rather
-   * crudely, and the number of entries are figure out based on that.
+   * available memory is used. The fixed size of each entry is estimated here,
+   * and the size of each entry is added up as the entries are created and
+   * aggregated.
    *
    * @return number of entries that can fit in hash table - useful for map-side
    *         aggregation only
@@ -442,6 +549,15 @@ private void computeMaxEntriesHashAggr(Configuration hconf) throws HiveException
     estimateRowSize();
   }
 
+  /**
+   * The hash table can be spilled if the output are partial aggregations that the
+   * reducers merge, so that the spilled aggregations can be merged again by key.
+   */
+  private boolean canSpillHashTable(Configuration hconf) {
+    return keyFields.length != 0 && unionExprEval == null && !groupKeyIsNotReduceKey
+        && HashAggregationSpill.canSpill(hconf, conf);
+  }
+
   private static final int javaObjectOverHead = 64;
   private static final int javaHashEntryOverHead = 64;
   private static final int javaSizePrimitiveType = 16;
@@ -545,6 +661,12 @@ private void estimateRowSize() throws HiveException {
     // bytes for now).
     // 64 bytes is the overhead for a reference
     fixedRowSize = javaHashEntryOverHead;
+    estimableAggrs = new boolean[aggregationEvaluators.length];
+    hasEstimableAggrs = false;
+    hasAggrVariableFields = false;
+    totalAggrVariableSize = 0;
+    numAggrVariableSamples = 0;
+    numRowsSinceCheck = 0;
 
     ArrayList<ExprNodeDesc> keys = conf.getKeys();
 
@@ -562,12 +684,15 @@ private void estimateRowSize() throws HiveException {
       fixedRowSize += javaObjectOverHead;
       AggregationBuffer agg = aggregationEvaluators[i].getNewAggregationBuffer();
       if (GenericUDAFEvaluator.isEstimable(agg)) {
+        estimableAggrs[i] = true;
+        hasEstimableAggrs = true;
         continue;
       }
       Field[] fArr = ObjectInspectorUtils.getDeclaredNonStaticFields(agg.getClass());
       for (Field f : fArr) {
         fixedRowSize += getSize(i, f.getType(), f);
       }
+      hasAggrVariableFields |= aggrPositions[i] != null;
     }
   }
 
@@ -816,14 +941,18 @@ private void processHashAggr(Object row, ObjectInspector rowInspector,
     boolean newEntryForHashAggr = false;
 
     // hash-based aggregations
+    KeyWrapper newKeyProber = null;
     aggs = hashAggregations.get(newKeys);
     if (aggs == null) {
-      KeyWrapper newKeyProber = newKeys.copyKey();
+      newKeyProber = newKeys.copyKey();
       aggs = newAggregations();
       hashAggregations.put(newKeyProber, aggs);
       newEntryForHashAggr = true;
       numRowsHashTbl++; // new entry in the hash table
     }
+    if (hashSpill != null) {
+      hashSpill.addRow(hashSpill.getPartition(newKeys.hashCode()), newEntryForHashAggr);
+    }
 
     // If the grouping key and the reduction key are different, a set of
     // grouping keys for the current reduction key are maintained in
@@ -834,8 +963,17 @@ private void processHashAggr(Object row, ObjectInspector rowInspector,
       newEntryForHashAggr = keysCurrentGroup.add(newKeys.copyKey());
     }
 
-    // Update the aggs
-    updateAggregations(aggs, row, rowInspector, true, newEntryForHashAggr, null);
+    // Update the aggs, and the size of the entry
+    if (newKeyProber != null) {
+      updateAggregations(aggs, row, rowInspector, true, newEntryForHashAggr, null);
+      hashTableMemory += getEntrySize(newKeyProber.getKeyArray(), aggs);
+    } else if (hasEstimableAggrs) {
+      long oldSize = getEstimableSize(aggs);
+      updateAggregations(aggs, row, rowInspector, true, newEntryForHashAggr, null);
+      hashTableMemory += getEstimableSize(aggs) - oldSize;
+    } else {
+      updateAggregations(aggs, row, rowInspector, true, newEntryForHashAggr, null);
+    }
 
     // We can only flush after the updateAggregations is done, or the
     // potentially new entry "aggs"
@@ -846,7 +984,7 @@ private void processHashAggr(Object row, ObjectInspector rowInspector,
     // If the grouping key is not the same as reduction key, flushing can only
     // happen at boundaries
     if ((!groupKeyIsNotReduceKey || firstRowInGroup)
-        && shouldBeFlushed(newKeys)) {
+        && shouldBeFlushed(aggs)) {
       flushHashTable(false);
     }
   }
@@ -906,75 +1044,113 @@ private void processAggr(Object row,
   }
 
   /**
-   * Based on user-parameters, should the hash table be flushed.
+   * Based on user-parameters, should the hash table be flushed. The estimated
+   * memory of the hash table is checked for every row. Every NUMROWSESTIMATESIZE
+   * rows, the variable length fields of the aggregations are sampled again from
+   * the current entry, and the heap is checked in case the estimates fall short.
    *
-   * @param newKeys
-   *          keys for the row under consideration
+   * @param aggs
+   *          aggregations of the row under consideration
    **/
-  private boolean shouldBeFlushed(KeyWrapper newKeys) {
+  private boolean shouldBeFlushed(AggregationBuffer[] aggs) {
+    if (hasAggrVariableFields && numAggrVariableSamples == 0) {
+      sampleAggrVariableSize(aggs);
+    }
+
+    // flush if the entries use up the memory of the hash table
+    long memory = getHashTableMemory();
+    if (memory >= maxHashTblMemory) {
+      return true;
+    }
+
+    if (++numRowsSinceCheck < NUMROWSESTIMATESIZE) {
+      return false;
+    }
+    numRowsSinceCheck = 0;
+    if (hasAggrVariableFields) {
+      sampleAggrVariableSize(aggs);
+      memory = getHashTableMemory();
+    }
+    if (memory >= maxHashTblMemory || isHeapOverThreshold(memory)) {
+      return true;
+    }
+
+    // Update the number of entries that can fit in the hash table
     int numEntries = hashAggregations.size();
-    long usedMemory;
-    float rate;
-
-    // The fixed size for the aggregation class is already known. Get the
-    // variable portion of the size every NUMROWSESTIMATESIZE rows.
-    if ((numEntriesHashTable == 0) || ((numEntries % NUMROWSESTIMATESIZE) == 0)) {
-      //check how much memory left memory
-      usedMemory = memoryMXBean.getHeapMemoryUsage().getUsed();
-      rate = (float) usedMemory / (float) maxMemory;
-      if(rate > memoryThreshold){
-        return true;
-      }
-      for (Integer pos : keyPositionsSize) {
-        Object key = newKeys.getKeyArray()[pos.intValue()];
-        // Ignore nulls
-        if (key != null) {
-          if (key instanceof LazyString) {
-              totalVariableSize +=
-                  ((LazyPrimitive<LazyStringObjectInspector, Text>) key).
-                      getWritableObject().getLength();
-          } else if (key instanceof String) {
-            totalVariableSize += ((String) key).length();
-          } else if (key instanceof Text) {
-            totalVariableSize += ((Text) key).getLength();
-          } else if (key instanceof LazyBinary) {
-            totalVariableSize +=
-                ((LazyPrimitive<LazyBinaryObjectInspector, BytesWritable>) key).
-                    getWritableObject().getLength();
-          } else if (key instanceof BytesWritable) {
-            totalVariableSize += ((BytesWritable) key).getLength();
-          } else if (key instanceof ByteArrayRef) {
-            totalVariableSize += ((ByteArrayRef) key).getData().length;
-          }
-        }
-      }
+    numEntriesHashTable = (int) Math.min(Integer.MAX_VALUE,
+        maxHashTblMemory / Math.max(1, memory / Math.max(1, numEntries)));
+    LOG.trace("Hash Aggr: #hash table = " + numEntries
+        + " #max in hash table = " + numEntriesHashTable
+        + " memory of hash table = " + memory);
+    return false;
+  }
 
-      AggregationBuffer[] aggs = hashAggregations.get(newKeys);
-      for (int i = 0; i < aggs.length; i++) {
-        AggregationBuffer agg = aggs[i];
-        if (GenericUDAFEvaluator.isEstimable(agg)) {
-          totalVariableSize += ((GenericUDAFEvaluator.AbstractAggregationBuffer)agg).estimate();
-          continue;
-        }
-        if (aggrPositions[i] != null) {
-          totalVariableSize += estimateSize(agg, aggrPositions[i]);
-        }
+  private void sampleAggrVariableSize(AggregationBuffer[] aggs) {
+    for (int i = 0; i < aggs.length; i++) {
+      if (aggrPositions[i] != null) {
+        totalAggrVariableSize += estimateSize(aggs[i], aggrPositions[i]);
       }
+    }
+    numAggrVariableSamples++;
+  }
+
+  /**
+   * @return the estimated memory of the entries of the hash table. The variable
+   *         length fields of the aggregations that do not estimate their own size
+   *         are accounted for by the average of their samples.
+   */
+  long getHashTableMemory() {
+    if (numAggrVariableSamples == 0 || hashAggregations == null) {
+      return hashTableMemory;
+    }
+    return hashTableMemory
+        + hashAggregations.size() * (totalAggrVariableSize / numAggrVariableSamples);
+  }
 
-      numEntriesVarSize++;
+  /**
+   * @return the estimated size of an entry of the hash table, without the
+   *         variable length fields of the aggregations that do not estimate their
+   *         own size
+   */
+  private long getEntrySize(Object[] keys, AggregationBuffer[] aggs) {
+    long size = fixedRowSize;
+    for (Integer pos : keyPositionsSize) {
+      size += getKeyVariableSize(keys[pos.intValue()]);
+    }
+    return size + getEstimableSize(aggs);
+  }
 
-      // Update the number of entries that can fit in the hash table
-      numEntriesHashTable =
-          (int) (maxHashTblMemory / (fixedRowSize + (totalVariableSize / numEntriesVarSize)));
-      LOG.trace("Hash Aggr: #hash table = " + numEntries
-          + " #max in hash table = " + numEntriesHashTable);
+  private long getEstimableSize(AggregationBuffer[] aggs) {
+    long size = 0;
+    for (int i = 0; i < aggs.length; i++) {
+      if (estimableAggrs[i]) {
+        size += ((GenericUDAFEvaluator.AbstractAggregationBuffer) aggs[i]).estimate();
+      }
     }
+    return size;
+  }
 
-    // flush if necessary
-    if (numEntries >= numEntriesHashTable) {
-      return true;
+  private int getKeyVariableSize(Object key) {
+    // Ignore nulls
+    if (key == null) {
+      return 0;
     }
-    return false;
+    if (key instanceof LazyString) {
+      return ((LazyPrimitive<LazyStringObjectInspector, Text>) key).
+          getWritableObject().getLength();
+    } else if (key instanceof String) {
+      return ((String) key).length();
+    } else if (key instanceof Text) {
+      return ((Text) key).getLength();
+    } else if (key instanceof LazyBinary) {
+      return ((LazyPrimitive<LazyBinaryObjectInspector, BytesWritable>) key).
+          getWritableObject().getLength();
+    } else if (key instanceof BytesWritable) {
+      return ((BytesWritable) key).getLength();
+    } else if (key instanceof ByteArrayRef) {
+      return ((ByteArrayRef) key).getData().length;
+    }
+    return 0;
   }
 
   private int estimateSize(AggregationBuffer agg, List<Field> fields) {
@@ -1016,10 +1192,19 @@ private void flushHashTable(boolean complete) throws HiveException {
       }
       hashAggregations.clear();
       hashAggregations = null;
+      hashTableMemory = 0;
+      if (hashSpill != null) {
+        hashSpill.clearEntries();
+      }
       LOG.info("Hash Table completed flushed");
       return;
     }
 
+    if (hashSpill != null) {
+      spillHashTable();
+      return;
+    }
+
     int oldSize = hashAggregations.size();
     LOG.info("Hash Tbl flush: #hash table = " + oldSize);
     Iterator<Map.Entry<KeyWrapper, AggregationBuffer[]>> iter = hashAggregations
@@ -1028,6 +1213,7 @@ private void flushHashTable(boolean complete) throws HiveException {
     while (iter.hasNext()) {
       Map.Entry<KeyWrapper, AggregationBuffer[]> m = iter.next();
       forward(m.getKey().getKeyArray(), m.getValue());
+      hashTableMemory -= getEntrySize(m.getKey().getKeyArray(), m.getValue());
       iter.remove();
       numDel++;
       if (numDel * 10 >= oldSize) {
@@ -1037,6 +1223,28 @@ private void flushHashTable(boolean complete) throws HiveException {
     }
   }
 
+  /**
+   * Spill the entries of the coldest partitions of the hash table. The partitions are
+   * merged again when the operator is closed.
+   */
+  private void spillHashTable() throws HiveException {
+    boolean[] partitions = hashSpill.selectPartitionsToSpill();
+    int oldSize = hashAggregations.size();
+    Iterator<Map.Entry<KeyWrapper, AggregationBuffer[]>> iter = hashAggregations
+        .entrySet().iterator();
+    while (iter.hasNext()) {
+      Map.Entry<KeyWrapper, AggregationBuffer[]> m = iter.next();
+      int partition = hashSpill.getPartition(m.getKey().hashCode());
+      if (partitions[partition]) {
+        hashSpill.spill(partition, getForwardRow(m.getKey().getKeyArray(), m.getValue()));
+        hashTableMemory -= getEntrySize(m.getKey().getKeyArray(), m.getValue());
+        iter.remove();
+      }
+    }
+    LOG.info("Hash Table spilled: #hash table = " + oldSize + " new size = "
+        + hashAggregations.size() + " memory of hash table = " + getHashTableMemory());
+  }
+
   transient Object[] forwardCache;
 
   /**
@@ -1048,7 +1256,11 @@ private void flushHashTable(boolean complete) throws HiveException {
    */
   protected void forward(Object[] keys,
       AggregationBuffer[] aggs) throws HiveException {
+    forward(getForwardRow(keys, aggs), outputObjInspector);
+  }
 
+  private Object[] getForwardRow(Object[] keys,
+      AggregationBuffer[] aggs) throws HiveException {
     int totalFields = keys.length + aggs.length;
     if (forwardCache == null) {
       forwardCache = new Object[totalFields];
@@ -1060,8 +1272,7 @@ protected void forward(Object[] keys,
     for (int i = 0; i < aggs.length; i++) {
       forwardCache[keys.length + i] = aggregationEvaluators[i].evaluate(aggs[i]);
     }
-
-    forward(forwardCache, outputObjInspector);
+    return forwardCache;
   }
 
   /**
@@ -1079,10 +1290,17 @@ public void flush() throws HiveException{
           Map.Entry<KeyWrapper, AggregationBuffer[]> m = (Map.Entry) iter
               .next();
 
-          forward(m.getKey().getKeyArray(), m.getValue());
+          // the keys of the spilled partitions are merged with their spilled rows
+          int partition = hashSpill == null ? 0 : hashSpill.getPartition(m.getKey().hashCode());
+          if (hashSpill != null && hashSpill.isSpilled(partition)) {
+            hashSpill.spill(partition, getForwardRow(m.getKey().getKeyArray(), m.getValue()));
+          } else {
+            forward(m.getKey().getKeyArray(), m.getValue());
+          }
           iter.remove();
         }
         hashAggregations.clear();
+        hashTableMemory = 0;
       } else if (aggregations != null) {
         // sort-based aggregations
         if (currentKeys != null) {
@@ -1095,6 +1313,15 @@ public void flush() throws HiveException{
         // (since we initialize the operators when we see the first record).
         // Just do nothing here.
       }
+      if (hashSpill != null) {
+        hashSpill.mergeSpilled(Math.max(numEntriesHashTable, NUMROWSESTIMATESIZE),
+            new HashAggregationSpill.RowOutput() {
+              @Override
+              public void forward(Object[] row) throws HiveException {
+                GroupByOperator.this.forward(row, outputObjInspector);
+              }
+            });
+      }
     } catch (Exception e) {
       throw new HiveException(e);
     }
@@ -1106,6 +1333,16 @@ public void flush() throws HiveException{
    */
   @Override
   public void closeOp(boolean abort) throws HiveException {
+    try {
+      closeAggregations(abort);
+    } finally {
+      if (hashSpill != null) {
+        hashSpill.close();
+      }
+    }
+  }
+
+  private void closeAggregations(boolean abort) throws HiveException {
     if (!abort) {
       try {
         // If there is no grouping key and no row came to this operator
@@ -39,6 +39,7 @@ public class ListSinkOperator extends Operator<ListSinkDesc> {
   public static final String OUTPUT_PROTOCOL = "output.protocol";
 
   private transient List res;
+  private transient FetchFormatter.RowCollector collector;
   private transient FetchFormatter fetcher;
   private transient int numRows;
 
@@ -74,6 +75,8 @@ private FetchFormatter initializeFetcher(Configuration conf) throws Exception {
 
   public void reset(List res) {
     this.res = res;
+    this.collector = res instanceof FetchFormatter.RowCollector ?
+        (FetchFormatter.RowCollector) res : null;
     this.numRows = 0;
   }
 
@@ -84,7 +87,11 @@ public int getNumRows() {
   @SuppressWarnings("unchecked")
   public void processOp(Object row, int tag) throws HiveException {
     try {
-      res.add(fetcher.convert(row, inputObjInspectors[0]));
+      if (collector != null) {
+        collector.collect(row, inputObjInspectors[0]);
+      } else {
+        res.add(fetcher.convert(row, inputObjInspectors[0]));
+      }
       numRows++;
     } catch (Exception e) {
       throw new HiveException(e);
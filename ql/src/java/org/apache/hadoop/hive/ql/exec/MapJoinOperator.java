@@ -202,14 +202,21 @@ protected MapJoinKey getRefKey(MapJoinKey prevKey, byte alias) {
   }
 
 
+  /**
+   * Generates the map metadata and loads the hash tables, if that has not happened yet.
+   */
+  protected void loadHashTableOnFirstRow() throws HiveException, SerDeException {
+    if (firstRow) {
+      generateMapMetaData();
+      loadHashTable();
+      firstRow = false;
+    }
+  }
+
   @Override
   public void processOp(Object row, int tag) throws HiveException {
     try {
-      if (firstRow) {
-        generateMapMetaData();
-        loadHashTable();
-        firstRow = false;
-      }
+      loadHashTableOnFirstRow();
       alias = (byte)tag;
 
       // compute keys and values as StandardObjects
@@ -27,7 +27,6 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,7 +68,13 @@
   protected String operatorId;
   private transient ExecMapperContext execContext;
 
-  private static AtomicInteger seqId;
+  // operator ids are only unique within a query plan; each thread compiles its own plan
+  private static ThreadLocal<Integer> seqId = new ThreadLocal<Integer>() {
+    @Override
+    protected Integer initialValue() {
+      return Integer.valueOf(0);
+    }
+  };
 
   // It can be optimized later so that an operator operator (init/close) is performed
   // only after that operation has been performed on all the parents. This will require
@@ -92,21 +97,19 @@ public static enum State {
 
   protected transient State state = State.UNINIT;
 
-  static {
-    seqId = new AtomicInteger(0);
-  }
-
   private boolean useBucketizedHiveInputFormat;
 
   public Operator() {
-    id = String.valueOf(seqId.getAndIncrement());
+    int curValue = seqId.get().intValue();
+    seqId.set(Integer.valueOf(curValue + 1));
+    id = String.valueOf(curValue);
     childOperators = new ArrayList<Operator<? extends OperatorDesc>>();
     parentOperators = new ArrayList<Operator<? extends OperatorDesc>>();
     initOperatorId();
   }
 
   public static void resetId() {
-    seqId.set(0);
+    seqId.set(Integer.valueOf(0));
   }
 
   /**
@@ -0,0 +1,356 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * HashMap that maps byte arrays to byte arrays with limited functionality necessary for
+ * MapJoin hash tables, with small memory overhead. Supports multiple values for single key.
+ * Keys and values are stored in large byte arrays ("segments"); the hash table itself is an
+ * open-addressing array of longs referencing the key records. No per-row Java objects are
+ * created, so the table is cheap both in memory and for the garbage collector.
+ *
+ * Key record:   [4-byte hash][4-byte key length][key bytes][8-byte ref to the first value]
+ * Value record: [8-byte ref to the next value][4-byte value length][value bytes]
+ * A record never spans two segments; a ref of 0 denotes "no record".
+ */
+public final class BytesBytesMultiHashMap {
+  private static final Log LOG = LogFactory.getLog(BytesBytesMultiHashMap.class);
+
+  /*
+   * Ref layout: [16 bits of key hash][17 bits segment index][31 bits offset in segment].
+   * The hash bits let us skip most of the mismatched slots without touching the segments.
+   */
+  private static final int OFFSET_BITS = 31;
+  private static final int SEGMENT_BITS = 17;
+  private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+  private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+  private static final int HASH_SHIFT = OFFSET_BITS + SEGMENT_BITS;
+  private static final long ADDRESS_MASK = (1L << HASH_SHIFT) - 1;
+  private static final int MAX_SEGMENTS = 1 << SEGMENT_BITS;
+
+  private static final int KEY_HEADER_SIZE = 8;
+  private static final int KEY_TRAILER_SIZE = 8;
+  private static final int VALUE_HEADER_SIZE = 12;
+
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final float DEFAULT_LOAD_FACTOR = 0.75f;
+  private static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+  private long[] refs;
+  private int keysAssigned = 0;
+  private long valuesAssigned = 0;
+  private int resizeThreshold;
+  private final float loadFactor;
+
+  private final List<byte[]> segments = new ArrayList<byte[]>();
+  private final int segmentSize;
+  private byte[] writeSegment;
+  private int writePos;
+  private long segmentBytes = 0;
+
+  public BytesBytesMultiHashMap(int initialCapacity, float loadFactor, int segmentSize) {
+    if (loadFactor <= 0 || loadFactor > 1) {
+      throw new IllegalArgumentException("Invalid load factor " + loadFactor);
+    }
+    if (segmentSize <= KEY_HEADER_SIZE + KEY_TRAILER_SIZE) {
+      throw new IllegalArgumentException("Invalid segment size " + segmentSize);
+    }
+    this.loadFactor = loadFactor;
+    this.segmentSize = segmentSize;
+    int capacity = nextHighestPowerOfTwo(Math.max(initialCapacity, 16));
+    this.refs = new long[capacity];
+    this.resizeThreshold = (int)(capacity * loadFactor);
+    clearSegments();
+  }
+
+  public BytesBytesMultiHashMap() {
+    this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, DEFAULT_SEGMENT_SIZE);
+  }
+
+  /**
+   * Reusable holder for the values of one key. Not thread-safe; one per reader.
+   */
+  public static final class Result {
+    private BytesBytesMultiHashMap map;
+    private long nextRef;
+    private byte[] segment;
+    private int offset;
+    private int length;
+
+    /**
+     * Advances to the next value of the key.
+     * @return Whether there was a next value.
+     */
+    public boolean next() {
+      if (nextRef == 0) {
+        segment = null;
+        return false;
+      }
+      segment = map.segments.get(segmentOf(nextRef));
+      int pos = offsetOf(nextRef);
+      nextRef = readLong(segment, pos);
+      length = readInt(segment, pos + 8);
+      offset = pos + VALUE_HEADER_SIZE;
+      return true;
+    }
+
+    /** @return Array containing the current value; not a copy, must not be modified. */
+    public byte[] getBytes() {
+      return segment;
+    }
+
+    /** @return Offset of the current value in {@link #getBytes()}. */
+    public int getOffset() {
+      return offset;
+    }
+
+    /** @return Length of the current value. */
+    public int getLength() {
+      return length;
+    }
+
+    private void reset(BytesBytesMultiHashMap map, long firstValueRef) {
+      this.map = map;
+      this.nextRef = firstValueRef;
+      this.segment = null;
+    }
+  }
+
+  /**
+   * Adds a value for the key. Both arrays are copied and can be reused by the caller.
+   */
+  public void put(byte[] key, int keyOffset, int keyLength,
+      byte[] value, int valueOffset, int valueLength) {
+    int hash = hashCode(key, keyOffset, keyLength);
+    int slot = findSlot(key, keyOffset, keyLength, hash);
+    long ref = refs[slot];
+    if (ref == 0) {
+      long valueRef = writeValue(0, value, valueOffset, valueLength);
+      long keyRef = allocate(KEY_HEADER_SIZE + keyLength + KEY_TRAILER_SIZE);
+      int pos = offsetOf(keyRef);
+      writeInt(writeSegment, pos, hash);
+      writeInt(writeSegment, pos + 4, keyLength);
+      System.arraycopy(key, keyOffset, writeSegment, pos + KEY_HEADER_SIZE, keyLength);
+      writeLong(writeSegment, pos + KEY_HEADER_SIZE + keyLength, valueRef);
+      refs[slot] = keyRef | (((long)(hash >>> 16)) << HASH_SHIFT);
+      ++keysAssigned;
+      if (keysAssigned > resizeThreshold) {
+        expand();
+      }
+    } else {
+      // Prepend the value to the key's list; we have to re-read the segment after writing
+      // the value, as it may have been written into a new segment.
+      byte[] keySegment = segments.get(segmentOf(ref));
+      int headPos = offsetOf(ref) + KEY_HEADER_SIZE + keyLength;
+      long valueRef = writeValue(readLong(keySegment, headPos), value, valueOffset, valueLength);
+      writeLong(keySegment, headPos, valueRef);
+    }
+    ++valuesAssigned;
+  }
+
+  /**
+   * Finds the values for the key.
+   * @param result Reusable result holder, positioned before the first value.
+   * @return Whether the key was found.
+   */
+  public boolean getValues(byte[] key, int keyOffset, int keyLength, Result result) {
+    int hash = hashCode(key, keyOffset, keyLength);
+    long ref = refs[findSlot(key, keyOffset, keyLength, hash)];
+    if (ref == 0) {
+      result.reset(this, 0);
+      return false;
+    }
+    byte[] keySegment = segments.get(segmentOf(ref));
+    result.reset(this, readLong(keySegment, offsetOf(ref) + KEY_HEADER_SIZE + keyLength));
+    return true;
+  }
+
+  /** @return Number of distinct keys in the map. */
+  public int size() {
+    return keysAssigned;
+  }
+
+  /** @return Number of values in the map. */
+  public long getValueCount() {
+    return valuesAssigned;
+  }
+
+  /** @return Approximate memory used by the map, in bytes. */
+  public long memorySize() {
+    return segmentBytes + ((long)refs.length << 3);
+  }
+
+  public void clear() {
+    this.refs = new long[DEFAULT_CAPACITY];
+    this.resizeThreshold = (int)(DEFAULT_CAPACITY * loadFactor);
+    this.keysAssigned = 0;
+    this.valuesAssigned = 0;
+    clearSegments();
+  }
+
+  public void debugDumpMetrics() {
+    LOG.info("Map metrics: keys " + keysAssigned + ", values " + valuesAssigned + ", capacity "
+        + refs.length + ", segments " + segments.size() + ", memory " + memorySize());
+  }
+
+  /**
+   * Finds the slot for the key: either the slot containing the key, or an empty slot where
+   * it should be inserted. Uses triangular probing, which visits all slots for power of 2 sizes.
+   */
+  private int findSlot(byte[] key, int keyOffset, int keyLength, int hash) {
+    int mask = refs.length - 1;
+    int slot = hash & mask;
+    long hashBits = ((long)(hash >>> 16)) << HASH_SHIFT;
+    for (int i = 1; ; ++i) {
+      long ref = refs[slot];
+      if (ref == 0) {
+        return slot;
+      }
+      if ((ref & ~ADDRESS_MASK) == hashBits && isSameKey(ref, key, keyOffset, keyLength)) {
+        return slot;
+      }
+      slot = (slot + i) & mask;
+    }
+  }
+
+  private boolean isSameKey(long ref, byte[] key, int keyOffset, int keyLength) {
+    byte[] segment = segments.get(segmentOf(ref));
+    int pos = offsetOf(ref);
+    if (readInt(segment, pos + 4) != keyLength) {
+      return false;
+    }
+    pos += KEY_HEADER_SIZE;
+    for (int i = 0; i < keyLength; ++i) {
+      if (segment[pos + i] != key[keyOffset + i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void expand() {
+    long[] oldRefs = refs;
+    int capacity = oldRefs.length << 1;
+    if (capacity <= 0) {
+      throw new IllegalStateException("Cannot expand the hash table beyond " + oldRefs.length);
+    }
+    long[] newRefs = new long[capacity];
+    int mask = capacity - 1;
+    for (long ref : oldRefs) {
+      if (ref == 0) continue;
+      int hash = readInt(segments.get(segmentOf(ref)), offsetOf(ref));
+      int slot = hash & mask;
+      for (int i = 1; newRefs[slot] != 0; ++i) {
+        slot = (slot + i) & mask;
+      }
+      newRefs[slot] = ref;
+    }
+    refs = newRefs;
+    resizeThreshold = (int)(capacity * loadFactor);
+  }
+
+  private long writeValue(long nextRef, byte[] value, int valueOffset, int valueLength) {
+    long valueRef = allocate(VALUE_HEADER_SIZE + valueLength);
+    int pos = offsetOf(valueRef);
+    writeLong(writeSegment, pos, nextRef);
+    writeInt(writeSegment, pos + 8, valueLength);
+    System.arraycopy(value, valueOffset, writeSegment, pos + VALUE_HEADER_SIZE, valueLength);
+    return valueRef;
+  }
+
+  /**
+   * Reserves a contiguous range in the current segment, starting a new one if needed.
+   * @return The ref (without the hash bits) to the start of the range.
+   */
+  private long allocate(int length) {
+    if (writeSegment.length - writePos < length) {
+      if (segments.size() >= MAX_SEGMENTS) {
+        throw new IllegalStateException("Too many segments: " + segments.size());
+      }
+      writeSegment = new byte[Math.max(segmentSize, length)];
+      writePos = 0;
+      segments.add(writeSegment);
+      segmentBytes += writeSegment.length;
+    }
+    long ref = (((long)(segments.size() - 1)) << OFFSET_BITS) | writePos;
+    writePos += length;
+    return ref;
+  }
+
+  private void clearSegments() {
+    segments.clear();
+    writeSegment = new byte[segmentSize];
+    segments.add(writeSegment);
+    segmentBytes = segmentSize;
+    writePos = 1; // ref 0 is reserved for "no record"
+  }
+
+  private static int segmentOf(long ref) {
+    return (int)((ref >>> OFFSET_BITS) & SEGMENT_MASK);
+  }
+
+  private static int offsetOf(long ref) {
+    return (int)(ref & OFFSET_MASK);
+  }
+
+  private static int hashCode(byte[] bytes, int offset, int length) {
+    int h = 1;
+    for (int i = offset; i < offset + length; ++i) {
+      h = 31 * h + bytes[i];
+    }
+    // Finalization mix from murmur3; the low bits are used as slot index.
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static int nextHighestPowerOfTwo(int v) {
+    return Integer.highestOneBit(v - 1) << 1;
+  }
+
+  private static void writeInt(byte[] b, int pos, int v) {
+    b[pos] = (byte)(v >>> 24);
+    b[pos + 1] = (byte)(v >>> 16);
+    b[pos + 2] = (byte)(v >>> 8);
+    b[pos + 3] = (byte)v;
+  }
+
+  private static int readInt(byte[] b, int pos) {
+    return ((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16)
+        | ((b[pos + 2] & 0xff) << 8) | (b[pos + 3] & 0xff);
+  }
+
+  private static void writeLong(byte[] b, int pos, long v) {
+    writeInt(b, pos, (int)(v >>> 32));
+    writeInt(b, pos + 4, (int)v);
+  }
+
+  private static long readLong(byte[] b, int pos) {
+    return (((long)readInt(b, pos)) << 32) | (readInt(b, pos + 4) & 0xffffffffL);
+  }
+}
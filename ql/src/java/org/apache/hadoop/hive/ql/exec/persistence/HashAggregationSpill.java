@@ -0,0 +1,430 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.AggregationDesc;
+import org.apache.hadoop.hive.ql.plan.GroupByDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator.AggregationBuffer;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.lazybinary.LazyBinarySerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorConverters.Converter;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
+import org.apache.hadoop.io.BytesWritable;
+
+/**
+ * Spill files of a map side hash aggregation.
+ *
+ * The key space is split in partitions by the hash code of the keys. When the hash table
+ * runs out of memory, the partitions whose keys are the least often aggregated are written
+ * to local disk as rows of keys and partial aggregations (the output rows of the group by),
+ * serialized with {@link LazyBinarySerDe}, and removed from the hash table. The keys of a
+ * spilled partition keep being aggregated in memory and can be spilled again. When the input
+ * is done, the spilled rows of each partition are merged again, one partition at a time, so
+ * that a key is forwarded about once instead of once per flush.
+ */
+public class HashAggregationSpill {
+  private static final Log LOG = LogFactory.getLog(HashAggregationSpill.class);
+
+  /**
+   * Receives the merged rows of the spilled partitions.
+   */
+  public static interface RowOutput {
+    void forward(Object[] row) throws HiveException;
+  }
+
+  private final int numPartitions;
+  private final int numKeys;
+  private final StructObjectInspector rowOI;
+  private final List<? extends StructField> rowFields;
+  private final GenericUDAFEvaluator[] evaluators;
+  private final LazyBinarySerDe serde;
+
+  // entries in the hash table, and rows aggregated into them, since the partition was spilled
+  private final long[] numEntries;
+  private final long[] numRows;
+
+  private File spillDir;
+  private final File[] spillFiles;
+  private final DataOutputStream[] spillOutputs;
+  private long numSpilledRows;
+
+  /**
+   * Checks if a map side group by can spill its hash table. The spilled rows are merged with
+   * the aggregations' merge functions, so only partial aggregations without distinct can be
+   * spilled.
+   * @param hconf Configuration
+   * @param desc Descriptor of the group by
+   * @return true if spilling is enabled and the aggregations can be merged again
+   */
+  public static boolean canSpill(Configuration hconf, GroupByDesc desc) {
+    if (!HiveConf.getBoolVar(hconf, HiveConf.ConfVars.HIVEMAPAGGRHASHSPILL)
+        || desc.getMode() != GroupByDesc.Mode.HASH) {
+      return false;
+    }
+    for (AggregationDesc aggr : desc.getAggregators()) {
+      if (aggr.getDistinct() || (aggr.getMode() != GenericUDAFEvaluator.Mode.PARTIAL1
+          && aggr.getMode() != GenericUDAFEvaluator.Mode.PARTIAL2)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param numPartitions Number of partitions of the key space
+   * @param numKeys Number of group by keys, the first fields of the rows
+   * @param rowOI Inspector of the rows, the keys followed by the partial aggregations
+   * @param evaluators Evaluators of the aggregations; they are initialized again to merge
+   *          the spilled rows, and must not be used by the caller once that started
+   * @param hconf Configuration
+   */
+  public HashAggregationSpill(int numPartitions, int numKeys, StructObjectInspector rowOI,
+      GenericUDAFEvaluator[] evaluators, Configuration hconf) throws HiveException {
+    this.numPartitions = numPartitions;
+    this.numKeys = numKeys;
+    this.rowOI = rowOI;
+    this.rowFields = rowOI.getAllStructFieldRefs();
+    this.evaluators = evaluators;
+    numEntries = new long[numPartitions];
+    numRows = new long[numPartitions];
+    spillFiles = new File[numPartitions];
+    spillOutputs = new DataOutputStream[numPartitions];
+
+    StringBuilder columnNames = new StringBuilder();
+    StringBuilder columnTypes = new StringBuilder();
+    for (StructField field : rowFields) {
+      if (columnNames.length() > 0) {
+        columnNames.append(',');
+        columnTypes.append(',');
+      }
+      columnNames.append(field.getFieldName());
+      columnTypes.append(TypeInfoUtils.getTypeInfoFromObjectInspector(
+          field.getFieldObjectInspector()).getTypeName());
+    }
+    Properties props = new Properties();
+    props.setProperty(serdeConstants.LIST_COLUMNS, columnNames.toString());
+    props.setProperty(serdeConstants.LIST_COLUMN_TYPES, columnTypes.toString());
+    try {
+      serde = new LazyBinarySerDe();
+      serde.initialize(hconf, props);
+    } catch (SerDeException e) {
+      throw new HiveException(e);
+    }
+  }
+
+  /**
+   * @return the partition of a key
+   */
+  public int getPartition(int keyHashCode) {
+    return (keyHashCode & Integer.MAX_VALUE) % numPartitions;
+  }
+
+  /**
+   * Called for each row aggregated in the hash table.
+   * @param partition Partition of the key of the row
+   * @param newEntry Whether a hash table entry was created for the key
+   */
+  public void addRow(int partition, boolean newEntry) {
+    numRows[partition]++;
+    if (newEntry) {
+      numEntries[partition]++;
+    }
+  }
+
+  /**
+   * Called when the whole hash table was forwarded.
+   */
+  public void clearEntries() {
+    Arrays.fill(numEntries, 0);
+    Arrays.fill(numRows, 0);
+  }
+
+  /**
+   * Choose the partitions to spill, those with the fewest aggregated rows per hash table
+   * entry, until they hold at least half of the entries.
+   * @return for each partition, whether its entries must be spilled
+   */
+  public boolean[] selectPartitionsToSpill() {
+    Integer[] order = new Integer[numPartitions];
+    long totalEntries = 0;
+    for (int i = 0; i < numPartitions; i++) {
+      order[i] = i;
+      totalEntries += numEntries[i];
+    }
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        double r1 = (double) numRows[o1] / Math.max(1, numEntries[o1]);
+        double r2 = (double) numRows[o2] / Math.max(1, numEntries[o2]);
+        return Double.compare(r1, r2);
+      }
+    });
+    boolean[] selected = new boolean[numPartitions];
+    long selectedEntries = 0;
+    for (int i = 0; i < numPartitions && selectedEntries * 2 < totalEntries; i++) {
+      int partition = order[i];
+      if (numEntries[partition] == 0) {
+        continue;
+      }
+      selected[partition] = true;
+      selectedEntries += numEntries[partition];
+      numEntries[partition] = 0;
+      numRows[partition] = 0;
+    }
+    return selected;
+  }
+
+  /**
+   * @return true if rows of the partition were spilled
+   */
+  public boolean isSpilled(int partition) {
+    return spillFiles[partition] != null;
+  }
+
+  /**
+   * @return true if any row was spilled
+   */
+  public boolean hasSpilled() {
+    return numSpilledRows > 0;
+  }
+
+  /**
+   * Write a row to the spill file of a partition.
+   * @param partition Partition of the keys of the row
+   * @param row The keys and the partial aggregations
+   */
+  public void spill(int partition, Object[] row) throws HiveException {
+    try {
+      DataOutputStream out = spillOutputs[partition];
+      if (out == null) {
+        out = openSpillFile(partition);
+      }
+      serde.serialize(row, rowOI).write(out);
+      numSpilledRows++;
+    } catch (IOException e) {
+      throw new HiveException(e);
+    } catch (SerDeException e) {
+      throw new HiveException(e);
+    }
+  }
+
+  /**
+   * Merge the spilled rows by key, one partition at a time, and forward the merged rows.
+   * @param maxEntries Maximum number of keys kept in memory; when a partition has more
+   *          keys, the merged rows are forwarded before the partition is done
+   * @param output Receives the merged rows
+   */
+  public void mergeSpilled(int maxEntries, RowOutput output) throws HiveException {
+    if (!hasSpilled()) {
+      return;
+    }
+    LOG.info("Merging " + numSpilledRows + " spilled rows");
+    StructObjectInspector spilledOI;
+    try {
+      for (int i = 0; i < numPartitions; i++) {
+        if (spillOutputs[i] != null) {
+          spillOutputs[i].close();
+          spillOutputs[i] = null;
+        }
+      }
+      spilledOI = (StructObjectInspector) serde.getObjectInspector();
+    } catch (IOException e) {
+      throw new HiveException(e);
+    } catch (SerDeException e) {
+      throw new HiveException(e);
+    }
+    List<? extends StructField> spilledFields = spilledOI.getAllStructFieldRefs();
+
+    ObjectInspector[] keyOIs = new ObjectInspector[numKeys];
+    Converter[] keyConverters = new Converter[numKeys];
+    for (int i = 0; i < numKeys; i++) {
+      keyOIs[i] = spilledFields.get(i).getFieldObjectInspector();
+      keyConverters[i] = ObjectInspectorConverters.getConverter(
+          ObjectInspectorUtils.getStandardObjectInspector(keyOIs[i],
+              ObjectInspectorCopyOption.WRITABLE),
+          rowFields.get(i).getFieldObjectInspector());
+    }
+    Converter[] aggConverters = new Converter[evaluators.length];
+    for (int i = 0; i < evaluators.length; i++) {
+      ObjectInspector partialOI = evaluators[i].init(GenericUDAFEvaluator.Mode.PARTIAL2,
+          new ObjectInspector[] {spilledFields.get(numKeys + i).getFieldObjectInspector()});
+      aggConverters[i] = ObjectInspectorConverters.getConverter(partialOI,
+          rowFields.get(numKeys + i).getFieldObjectInspector());
+    }
+
+    Map<List<Object>, AggregationBuffer[]> merged =
+        new HashMap<List<Object>, AggregationBuffer[]>();
+    Object[] row = new Object[numKeys + evaluators.length];
+    BytesWritable value = new BytesWritable();
+    for (int partition = 0; partition < numPartitions; partition++) {
+      if (spillFiles[partition] == null) {
+        continue;
+      }
+      DataInputStream in = null;
+      try {
+        in = new DataInputStream(new BufferedInputStream(
+            new FileInputStream(spillFiles[partition])));
+        while (readValue(in, value)) {
+          Object spilled = serde.deserialize(value);
+          List<Object> key = new ArrayList<Object>(numKeys);
+          for (int i = 0; i < numKeys; i++) {
+            key.add(ObjectInspectorUtils.copyToStandardObject(
+                spilledOI.getStructFieldData(spilled, spilledFields.get(i)), keyOIs[i],
+                ObjectInspectorCopyOption.WRITABLE));
+          }
+          AggregationBuffer[] aggs = merged.get(key);
+          if (aggs == null) {
+            if (merged.size() >= maxEntries) {
+              forwardMerged(merged, keyConverters, aggConverters, row, output);
+            }
+            aggs = new AggregationBuffer[evaluators.length];
+            for (int i = 0; i < evaluators.length; i++) {
+              aggs[i] = evaluators[i].getNewAggregationBuffer();
+            }
+            merged.put(key, aggs);
+          }
+          for (int i = 0; i < evaluators.length; i++) {
+            evaluators[i].merge(aggs[i],
+                spilledOI.getStructFieldData(spilled, spilledFields.get(numKeys + i)));
+          }
+        }
+      } catch (IOException e) {
+        throw new HiveException(e);
+      } catch (SerDeException e) {
+        throw new HiveException(e);
+      } finally {
+        closeQuietly(in);
+      }
+      forwardMerged(merged, keyConverters, aggConverters, row, output);
+      spillFiles[partition].delete();
+      spillFiles[partition] = null;
+    }
+    numSpilledRows = 0;
+  }
+
+  /**
+   * Delete the spill files.
+   */
+  public void close() {
+    for (int i = 0; i < numPartitions; i++) {
+      closeQuietly(spillOutputs[i]);
+      spillOutputs[i] = null;
+      if (spillFiles[i] != null) {
+        spillFiles[i].delete();
+        spillFiles[i] = null;
+      }
+    }
+    if (spillDir != null) {
+      spillDir.delete();
+      spillDir = null;
+    }
+  }
+
+  private void forwardMerged(Map<List<Object>, AggregationBuffer[]> merged,
+      Converter[] keyConverters, Converter[] aggConverters, Object[] row,
+      RowOutput output) throws HiveException {
+    Iterator<Map.Entry<List<Object>, AggregationBuffer[]>> iter = merged.entrySet().iterator();
+    while (iter.hasNext()) {
+      Map.Entry<List<Object>, AggregationBuffer[]> entry = iter.next();
+      List<Object> key = entry.getKey();
+      for (int i = 0; i < numKeys; i++) {
+        row[i] = keyConverters[i].convert(key.get(i));
+      }
+      AggregationBuffer[] aggs = entry.getValue();
+      for (int i = 0; i < evaluators.length; i++) {
+        row[numKeys + i] = aggConverters[i].convert(evaluators[i].terminatePartial(aggs[i]));
+      }
+      output.forward(row);
+      iter.remove();
+    }
+  }
+
+  private DataOutputStream openSpillFile(int partition) throws IOException {
+    if (spillDir == null) {
+      while (true) {
+        spillDir = File.createTempFile("hive-groupby", "");
+        if (spillDir.delete() && spillDir.mkdir()) {
+          break;
+        }
+        LOG.debug("retry creating tmp group by spill directory...");
+      }
+      // Caveat: it won't be deleted if JVM is killed by 'kill -9'.
+      spillDir.deleteOnExit();
+    }
+    File file = new File(spillDir, "partition-" + partition);
+    file.deleteOnExit();
+    LOG.info("Spilling hash aggregation partition " + partition + " to " + file);
+    spillFiles[partition] = file;
+    spillOutputs[partition] = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(file)));
+    return spillOutputs[partition];
+  }
+
+  private static boolean readValue(DataInputStream in, BytesWritable value) throws IOException {
+    try {
+      value.readFields(in);
+      return true;
+    } catch (EOFException e) {
+      return false;
+    }
+  }
+
+  private static void closeQuietly(Closeable stream) {
+    if (stream == null) {
+      return;
+    }
+    try {
+      stream.close();
+    } catch (IOException e) {
+      LOG.warn("Failed to close spill file", e);
+    }
+  }
+}
@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.persistence;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.ByteStream.Output;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Writable;
+
+/**
+ * Table container that stores keys and rows in serialized form in {@link BytesBytesMultiHashMap}.
+ * Keys are stored as the byte representation used by {@link MapJoinKeyBytes}, values as
+ * the raw serialized rows of the small table; rows are only deserialized on lookup.
+ * Only supports tables that are built from serialized key/value pairs (Tez), and only the
+ * key types supported by {@link MapJoinKey#isSupportedKey}.
+ */
+public class MapJoinBytesTableContainer extends AbstractMapJoinTableContainer {
+  private static final String CAPACITY_NAME = "capacity";
+  private static final String LOAD_NAME = "load";
+  private static final String WB_SIZE_NAME = "wbsize";
+
+  private final BytesBytesMultiHashMap hashMap;
+  private final BytesBytesMultiHashMap.Result result = new BytesBytesMultiHashMap.Result();
+  private final BytesWritable valueWritable = new BytesWritable();
+  private final Output output = new Output(); // Reusable output for key serialization.
+  private MapJoinObjectSerDeContext valueContext;
+  private MapJoinKey lastKey = null;
+  private MapJoinKey anyKey = null;
+
+  /**
+   * Most lookups on the big table side come in runs of the same key; we keep the rows
+   * deserialized for the last key to avoid re-reading them from the hash map.
+   */
+  private MapJoinKeyBytes lastGetKey = null;
+  private MapJoinRowContainer lastGetRows = null;
+
+  public MapJoinBytesTableContainer(Configuration hconf) {
+    this(HiveConf.getIntVar(hconf, HiveConf.ConfVars.HIVEHASHTABLETHRESHOLD),
+        HiveConf.getFloatVar(hconf, HiveConf.ConfVars.HIVEHASHTABLELOADFACTOR),
+        HiveConf.getIntVar(hconf, HiveConf.ConfVars.HIVEHASHTABLEWBSIZE));
+  }
+
+  public MapJoinBytesTableContainer(int capacity, float loadFactor, int wbSize) {
+    super(createConstructorMetaData(capacity, loadFactor, wbSize));
+    hashMap = new BytesBytesMultiHashMap(capacity, loadFactor, wbSize);
+  }
+
+  public MapJoinBytesTableContainer(Map<String, String> metaData) {
+    super(metaData);
+    hashMap = new BytesBytesMultiHashMap(Integer.parseInt(metaData.get(CAPACITY_NAME)),
+        Float.parseFloat(metaData.get(LOAD_NAME)), Integer.parseInt(metaData.get(WB_SIZE_NAME)));
+  }
+
+  /**
+   * Adds one serialized row of the small table.
+   * @param keyContext Key context; the key is re-serialized into the {@link MapJoinKeyBytes} form.
+   * @param currentKey Serialized key.
+   * @param valueContext Value context, used to deserialize the rows on lookup.
+   * @param currentValue Serialized value; stored as is.
+   */
+  @SuppressWarnings("deprecation")
+  public void putRow(MapJoinObjectSerDeContext keyContext, Writable currentKey,
+      MapJoinObjectSerDeContext valueContext, Writable currentValue)
+          throws SerDeException, HiveException {
+    if (this.valueContext == null) {
+      if (!MapJoinKey.isSupportedKey(keyContext.getSerDe().getObjectInspector())) {
+        throw new HiveException("Key type is not supported by " + getClass().getSimpleName());
+      }
+      this.valueContext = valueContext;
+    } else if (this.valueContext != valueContext) {
+      throw new AssertionError("Different valueContext for the same table");
+    }
+    lastKey = MapJoinKey.read(output, lastKey, keyContext, currentKey, true);
+    if (!(lastKey instanceof MapJoinKeyBytes)) {
+      throw new HiveException("Failed to serialize the key " + currentKey);
+    }
+    byte[] keyBytes = ((MapJoinKeyBytes)lastKey).getBytes();
+    if (anyKey == null) {
+      anyKey = MapJoinKeyBytes.fromBytes(null, false, keyBytes.clone());
+    }
+    BytesWritable value = (BytesWritable)currentValue;
+    hashMap.put(keyBytes, 0, keyBytes.length, value.getBytes(), 0, value.getLength());
+  }
+
+  @Override
+  public MapJoinRowContainer get(MapJoinKey key) {
+    if (hashMap.size() == 0) {
+      return null;
+    }
+    if (!(key instanceof MapJoinKeyBytes)) {
+      throw new AssertionError("Only optimized keys can be used with " + getClass().getName());
+    }
+    MapJoinKeyBytes keyBytes = (MapJoinKeyBytes)key;
+    if (lastGetKey != null && lastGetKey.equals(keyBytes)) {
+      return lastGetRows;
+    }
+    byte[] bytes = keyBytes.getBytes();
+    MapJoinRowContainer rows = null;
+    if (hashMap.getValues(bytes, 0, bytes.length, result)) {
+      LazyFlatRowContainer values = new LazyFlatRowContainer();
+      try {
+        while (result.next()) {
+          valueWritable.set(result.getBytes(), result.getOffset(), result.getLength());
+          values.add(valueContext, valueWritable, true);
+        }
+      } catch (HiveException e) {
+        throw new RuntimeException("Failed to read rows for " + key, e);
+      }
+      rows = values;
+    }
+    lastGetKey = (MapJoinKeyBytes)MapJoinKeyBytes.fromBytes(lastGetKey, true, bytes);
+    lastGetRows = rows;
+    return rows;
+  }
+
+  @Override
+  public void put(MapJoinKey key, MapJoinRowContainer value) {
+    throw new UnsupportedOperationException(getClass().getName() + " only supports putRow");
+  }
+
+  @Override
+  public int size() {
+    return hashMap.size();
+  }
+
+  @Override
+  public Set<Map.Entry<MapJoinKey, MapJoinRowContainer>> entrySet() {
+    throw new UnsupportedOperationException(getClass().getName() + " cannot be serialized");
+  }
+
+  @Override
+  public void clear() {
+    hashMap.clear();
+    anyKey = null;
+    lastGetKey = null;
+    lastGetRows = null;
+  }
+
+  @Override
+  public MapJoinKey getAnyKey() {
+    return anyKey;
+  }
+
+  /** @return Approximate memory used by the table, in bytes. */
+  public long memorySize() {
+    return hashMap.memorySize();
+  }
+
+  /** Called when the table has been loaded; releases the state only needed for loading. */
+  public void seal() {
+    lastKey = null;
+    hashMap.debugDumpMetrics();
+  }
+
+  private static Map<String, String> createConstructorMetaData(
+      int capacity, float loadFactor, int wbSize) {
+    Map<String, String> metaData = new HashMap<String, String>();
+    metaData.put(CAPACITY_NAME, String.valueOf(capacity));
+    metaData.put(LOAD_NAME, String.valueOf(loadFactor));
+    metaData.put(WB_SIZE_NAME, String.valueOf(wbSize));
+    return metaData;
+  }
+}
@@ -95,6 +95,32 @@ public static MapJoinKey read(Output output, MapJoinKey key, MapJoinObjectSerDeC
     SUPPORTED_PRIMITIVES.add(PrimitiveCategory.CHAR);
   }
 
+  /**
+   * Checks whether a key field of the given type can be stored in byte-serialized form.
+   * @param foi Field object inspector.
+   * @return Whether the field is supported by the optimized (byte-array based) keys.
+   */
+  public static boolean isSupportedField(ObjectInspector foi) {
+    if (foi.getCategory() != Category.PRIMITIVE) return false; // not supported
+    PrimitiveCategory pc = ((PrimitiveObjectInspector)foi).getPrimitiveCategory();
+    return SUPPORTED_PRIMITIVES.contains(pc);
+  }
+
+  /**
+   * Checks whether keys of the given struct type can be stored in byte-serialized form.
+   * @param oi Key object inspector, as produced by the key SerDe.
+   * @return Whether all the keys would be serialized into optimized keys.
+   */
+  public static boolean isSupportedKey(ObjectInspector oi) {
+    if (!(oi instanceof StructObjectInspector)) return false;
+    List<? extends StructField> fields = ((StructObjectInspector)oi).getAllStructFieldRefs();
+    if (fields.size() > 8) return false;
+    for (StructField field : fields) {
+      if (!isSupportedField(field.getFieldObjectInspector())) return false;
+    }
+    return true;
+  }
+
   private static byte[] serializeKey(Output byteStream,
       Object obj, ObjectInspector oi, boolean checkTypes) throws SerDeException {
     if (null == obj || !(oi instanceof StructObjectInspector)) {
@@ -113,10 +139,8 @@ private static byte[] serializeKey(Output byteStream,
     for (int i = 0; i < size; ++i) {
       StructField field = fields.get(i);
       ObjectInspector foi = field.getFieldObjectInspector();
-      if (checkTypes) {
-        if (foi.getCategory() != Category.PRIMITIVE) return null; // not supported
-        PrimitiveCategory pc = ((PrimitiveObjectInspector)foi).getPrimitiveCategory();
-        if (!SUPPORTED_PRIMITIVES.contains(pc)) return null; // not supported
+      if (checkTypes && !isSupportedField(foi)) {
+        return null; // not supported
       }
       fieldData[i] = soi.getStructFieldData(obj, field);
       fieldOis.add(foi);
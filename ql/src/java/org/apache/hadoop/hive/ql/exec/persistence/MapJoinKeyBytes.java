@@ -37,6 +37,11 @@ private void setBytes(byte[] array) {
     this.array = array;
   }
 
+  /** @return The serialized key; must not be modified by the caller. */
+  public byte[] getBytes() {
+    return array;
+  }
+
   @Override
   public void write(MapJoinObjectSerDeContext context, ObjectOutputStream out) {
     throw new UnsupportedOperationException(this.getClass().getName() + " cannot be serialized");
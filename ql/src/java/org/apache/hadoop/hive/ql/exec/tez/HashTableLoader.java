@@ -28,9 +28,11 @@
 import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.exec.mr.ExecMapperContext;
 import org.apache.hadoop.hive.ql.exec.persistence.HashMapWrapper;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinBytesTableContainer;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinKeyObject;
 import org.apache.hadoop.hive.ql.exec.persistence.LazyFlatRowContainer;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinKey;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinObjectSerDeContext;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainer;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainerSerDe;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -74,12 +76,15 @@ public void load(
     float hashTableLoadFactor = HiveConf.getFloatVar(hconf,
         HiveConf.ConfVars.HIVEHASHTABLELOADFACTOR);
     boolean useLazyRows = HiveConf.getBoolVar(hconf, HiveConf.ConfVars.HIVEMAPJOINLAZYHASHTABLE);
+    boolean useOptimizedTables = HiveConf.getBoolVar(
+        hconf, HiveConf.ConfVars.HIVEMAPJOINUSEOPTIMIZEDTABLE);
 
     TezCacheAccess tezCacheAccess = TezCacheAccess.createInstance(hconf);
     // We only check if we can use optimized keys here; that is ok because we don't
     // create optimized keys in MapJoin if hash map doesn't have optimized keys.
     if (!HiveConf.getBoolVar(hconf, HiveConf.ConfVars.HIVEMAPJOINUSEOPTIMIZEDKEYS)) {
       lastKey = new MapJoinKeyObject();
+      useOptimizedTables = false; // Optimized tables rely on optimized keys.
     }
     Output output = new Output(); // Reusable output for serialization.
     for (int pos = 0; pos < mapJoinTables.length; pos++) {
@@ -92,28 +97,40 @@ public void load(
 
       try {
         KeyValueReader kvReader = (KeyValueReader) input.getReader();
-
-        MapJoinTableContainer tableContainer = new HashMapWrapper(hashTableThreshold,
-            hashTableLoadFactor);
-
-        // simply read all the kv pairs into the hashtable.
-
-        while (kvReader.next()) {
-          // We pass key in as reference, to find out quickly if optimized keys can be used.
-          // However, we do not reuse the object since we are putting them into the hashmap.
-          lastKey = MapJoinKey.read(output, lastKey, mapJoinTableSerdes[pos].getKeyContext(),
-              (Writable)kvReader.getCurrentKey(), false);
-
-          LazyFlatRowContainer values = (LazyFlatRowContainer)tableContainer.get(lastKey);
-          if (values == null) {
-            values = new LazyFlatRowContainer();
-            tableContainer.put(lastKey, values);
+        MapJoinObjectSerDeContext keyContext = mapJoinTableSerdes[pos].getKeyContext();
+
+        if (useOptimizedTables
+            && MapJoinKey.isSupportedKey(keyContext.getSerDe().getObjectInspector())) {
+          MapJoinBytesTableContainer tableContainer = new MapJoinBytesTableContainer(hconf);
+          while (kvReader.next()) {
+            tableContainer.putRow(keyContext, (Writable)kvReader.getCurrentKey(),
+                mapJoinTableSerdes[pos].getValueContext(), (Writable)kvReader.getCurrentValue());
+          }
+          tableContainer.seal();
+          mapJoinTables[pos] = tableContainer;
+        } else {
+          MapJoinTableContainer tableContainer = new HashMapWrapper(hashTableThreshold,
+              hashTableLoadFactor);
+
+          // simply read all the kv pairs into the hashtable.
+
+          while (kvReader.next()) {
+            // We pass key in as reference, to find out quickly if optimized keys can be used.
+            // However, we do not reuse the object since we are putting them into the hashmap.
+            lastKey = MapJoinKey.read(output, lastKey, keyContext,
+                (Writable)kvReader.getCurrentKey(), false);
+
+            LazyFlatRowContainer values = (LazyFlatRowContainer)tableContainer.get(lastKey);
+            if (values == null) {
+              values = new LazyFlatRowContainer();
+              tableContainer.put(lastKey, values);
+            }
+            values.add(mapJoinTableSerdes[pos].getValueContext(),
+                (BytesWritable)kvReader.getCurrentValue(), useLazyRows);
           }
-          values.add(mapJoinTableSerdes[pos].getValueContext(),
-              (BytesWritable)kvReader.getCurrentValue(), useLazyRows);
-        }
 
-        mapJoinTables[pos] = tableContainer;
+          mapJoinTables[pos] = tableContainer;
+        }
       } catch (IOException e) {
         throw new HiveException(e);
       } catch (SerDeException e) {
@@ -121,17 +138,21 @@ public void load(
       } catch (Exception e) {
         throw new HiveException(e);
       }
-      // Register that the Input has been cached.
-      LOG.info("Is this a bucket map join: " + desc.isBucketMapJoin());
-      // cache is disabled for bucket map join because of the same reason
-      // given in loadHashTable in MapJoinOperator.
-      if (!desc.isBucketMapJoin()) {
-        tezCacheAccess.registerCachedInput(inputName);
-        LOG.info("Setting Input: " + inputName + " as cached");
-      }
+      registerCachedInput(tezCacheAccess, inputName);
     }
     if (lastKey == null) {
       lastKey = new MapJoinKeyObject(); // No rows in tables, the key type doesn't matter.
     }
   }
+
+  private void registerCachedInput(TezCacheAccess tezCacheAccess, String inputName) {
+    // Register that the Input has been cached.
+    LOG.info("Is this a bucket map join: " + desc.isBucketMapJoin());
+    // cache is disabled for bucket map join because of the same reason
+    // given in loadHashTable in MapJoinOperator.
+    if (!desc.isBucketMapJoin()) {
+      tezCacheAccess.registerCachedInput(inputName);
+      LOG.info("Setting Input: " + inputName + " as cached");
+    }
+  }
 }
@@ -38,6 +38,9 @@
 import org.apache.hadoop.hive.ql.exec.mr.ExecMapperContext;
 import org.apache.hadoop.hive.ql.exec.tez.TezProcessor.TezKVOutputCollector;
 import org.apache.hadoop.hive.ql.exec.tez.tools.InputMerger;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedBatchUtil;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
 import org.apache.hadoop.hive.ql.log.PerfLogger;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
@@ -49,7 +52,10 @@
 import org.apache.hadoop.hive.serde2.SerDeUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.util.ReflectionUtils;
@@ -94,6 +100,18 @@ public class ReduceRecordProcessor  extends RecordProcessor{
 
   List<Object> row = new ArrayList<Object>(Utilities.reduceFieldNameList.size());
 
+  // vectorized reduce: rows of consecutive keys are copied into the batch, with the
+  // key columns first and the value columns after them
+  private boolean vectorized = false;
+  private VectorizedRowBatch batch;
+  private StructObjectInspector batchObjectInspector;
+  private StructObjectInspector keyStructInspector;
+  private StructObjectInspector valueStructInspector;
+  private List<? extends StructField> keyFields;
+  private List<? extends StructField> valueFields;
+  private Object[] batchRow;
+  private final DataOutputBuffer batchBuffer = new DataOutputBuffer();
+
   @Override
   void init(JobConf jconf, TezProcessorContext processorContext, MRTaskReporter mrReporter,
       Map<String, LogicalInput> inputs, Map<String, LogicalOutput> outputs) throws Exception {
@@ -118,6 +136,7 @@ void init(JobConf jconf, TezProcessorContext processorContext, MRTaskReporter mr
     reducer.setParentOperators(null); // clear out any parents as reducer is the
     // root
     isTagged = redWork.getNeedsTagging();
+    vectorized = redWork.getVectorMode();
     try {
       keyTableDesc = redWork.getKeyDesc();
       inputKeyDeserializer = (SerDe) ReflectionUtils.newInstance(keyTableDesc
@@ -142,6 +161,9 @@ void init(JobConf jconf, TezProcessorContext processorContext, MRTaskReporter mr
         rowObjectInspector[tag] = ObjectInspectorFactory
             .getStandardStructObjectInspector(Utilities.reduceFieldNameList, ois);
       }
+      if (vectorized) {
+        initBatch(keyObjectInspector, valueObjectInspector[0]);
+      }
     } catch (Exception e) {
       throw new RuntimeException(e);
     }
@@ -152,7 +174,11 @@ void init(JobConf jconf, TezProcessorContext processorContext, MRTaskReporter mr
     // initialize reduce operator tree
     try {
       l4j.info(reducer.dump(0));
-      reducer.initialize(jconf, rowObjectInspector);
+      if (vectorized) {
+        reducer.initialize(jconf, new ObjectInspector[] {batchObjectInspector});
+      } else {
+        reducer.initialize(jconf, rowObjectInspector);
+      }
 
       // Initialization isn't finished until all parents of all operators
       // are initialized. For broadcast joins that means initializing the
@@ -228,6 +254,36 @@ void run() throws Exception {
 
   }
 
+  /**
+   * Sets up the batch of the vectorized reduce side. The columns of the batch are the key
+   * columns followed by the value columns, named as the reduce operators refer to them.
+   */
+  private void initBatch(ObjectInspector keyObjectInspector,
+      ObjectInspector valueObjectInspector) throws HiveException {
+    keyStructInspector = (StructObjectInspector) keyObjectInspector;
+    valueStructInspector = (StructObjectInspector) valueObjectInspector;
+    keyFields = keyStructInspector.getAllStructFieldRefs();
+    valueFields = valueStructInspector.getAllStructFieldRefs();
+
+    List<String> colNames = new ArrayList<String>();
+    List<ObjectInspector> ois = new ArrayList<ObjectInspector>();
+    for (StructField field : keyFields) {
+      colNames.add(Utilities.ReduceField.KEY.toString() + "." + field.getFieldName());
+      ois.add(field.getFieldObjectInspector());
+    }
+    for (StructField field : valueFields) {
+      colNames.add(Utilities.ReduceField.VALUE.toString() + "." + field.getFieldName());
+      ois.add(field.getFieldObjectInspector());
+    }
+    batchObjectInspector =
+        ObjectInspectorFactory.getStandardStructObjectInspector(colNames, ois);
+    batchRow = new Object[colNames.size()];
+
+    VectorizedRowBatchCtx batchContext = new VectorizedRowBatchCtx();
+    batchContext.init(redWork.getScratchColumnVectorTypes(), batchObjectInspector);
+    batch = batchContext.createVectorizedRowBatch();
+  }
+
   /**
    * Get the inputs that should be streamed through reduce plan.
    * @param inputs
@@ -257,6 +313,10 @@ private boolean processKeyValues(Object key, Iterable<Object> values) {
     // reset the execContext for each new row
     execContext.resetRow();
 
+    if (vectorized) {
+      return processVectors(key, values);
+    }
+
     try {
       BytesWritable keyWritable = (BytesWritable) key;
 
@@ -347,6 +407,78 @@ private boolean processKeyValues(Object key, Iterable<Object> values) {
     return true; //give me more
   }
 
+  /**
+   * Adds the rows of the key to the batch, forwarding the batch whenever it is full.
+   * A batch can span several keys; the vectorized reduce operators don't depend on
+   * group boundaries.
+   * @return true if it is not done and can take more inputs
+   */
+  private boolean processVectors(Object key, Iterable<Object> values) {
+    try {
+      BytesWritable keyWritable = (BytesWritable) key;
+      try {
+        keyObject = inputKeyDeserializer.deserialize(keyWritable);
+      } catch (Exception e) {
+        throw new HiveException(
+            "Hive Runtime Error: Unable to deserialize reduce input key from "
+            + Utilities.formatBinaryString(keyWritable.get(), 0,
+            keyWritable.getSize()) + " with properties "
+            + keyTableDesc.getProperties(), e);
+      }
+      int keyCount = keyFields.size();
+      for (int i = 0; i < keyCount; i++) {
+        batchRow[i] = keyStructInspector.getStructFieldData(keyObject, keyFields.get(i));
+      }
+
+      Iterator<Object> valuesIt = values.iterator();
+      while (valuesIt.hasNext()) {
+        BytesWritable valueWritable = (BytesWritable) valuesIt.next();
+        Object valueObj;
+        try {
+          valueObj = inputValueDeserializer[0].deserialize(valueWritable);
+        } catch (SerDeException e) {
+          throw new HiveException(
+              "Hive Runtime Error: Unable to deserialize reduce input value from "
+              + Utilities.formatBinaryString(valueWritable.get(), 0,
+              valueWritable.getSize()) + " with properties "
+              + valueTableDesc[0].getProperties(), e);
+        }
+        for (int i = 0; i < valueFields.size(); i++) {
+          batchRow[keyCount + i] =
+              valueStructInspector.getStructFieldData(valueObj, valueFields.get(i));
+        }
+        VectorizedBatchUtil.addRowToBatch(batchRow, batchObjectInspector, batch.size,
+            batch, batchBuffer);
+        batch.size++;
+        if (batch.size == VectorizedRowBatch.DEFAULT_SIZE) {
+          forwardBatch();
+          if (reducer.getDone()) {
+            return false;
+          }
+        }
+        if (isLogInfoEnabled) {
+          logProgress();
+        }
+      }
+    } catch (Throwable e) {
+      abort = true;
+      if (e instanceof OutOfMemoryError) {
+        // Don't create a new object if we are already out of memory
+        throw (OutOfMemoryError) e;
+      } else {
+        l4j.fatal(StringUtils.stringifyException(e));
+        throw new RuntimeException(e);
+      }
+    }
+    return true; //give me more
+  }
+
+  private void forwardBatch() throws HiveException {
+    reducer.processOp(batch, 0);
+    batch.reset();
+    batchBuffer.reset();
+  }
+
   @Override
   void close(){
     // check if there are IOExceptions
@@ -355,6 +487,9 @@ void close(){
     }
 
     try {
+      if (vectorized && !abort && batch.size > 0) {
+        forwardBatch();
+      }
       if (groupKey != null) {
         // If a operator wants to do some work at the end of a group
         l4j.trace("End Group");
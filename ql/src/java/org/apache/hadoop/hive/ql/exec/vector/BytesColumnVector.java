@@ -38,6 +38,11 @@
  * You can also set data by value, as long as you call the initBuffer() method first.
  * You can mix "by value" and "by reference" in the same column vector,
  * though that use is probably not typical.
+ * <p>
+ * When the values come from a dictionary encoded source, the reader can also
+ * set dictionary and dictionaryIds. The values are still present by reference,
+ * so expressions that ignore the dictionary work unchanged, but expressions that
+ * know about it can evaluate once per dictionary entry and then work on the ids.
  */
 public class BytesColumnVector extends ColumnVector {
   public byte[][] vector;
@@ -48,6 +53,14 @@ public class BytesColumnVector extends ColumnVector {
    * in vector[0] and isRepeating from the superclass is set to true.
    */
   public int[] length;
+
+  /*
+   * The dictionary the values come from, or null if they don't come from a
+   * dictionary. If set, dictionaryIds holds the entry of each non-null value.
+   */
+  public BytesDictionary dictionary;
+  public int[] dictionaryIds;
+
   private byte[] buffer;   // optional buffer to use when actually copying in data
   private int nextFree;    // next free position in buffer
 
@@ -80,6 +93,17 @@ public BytesColumnVector(int size) {
     length = new int[size];
   }
 
+  /**
+   * Record that the values of the vector come from the given dictionary. The
+   * caller sets the values by reference and their ids in dictionaryIds.
+   */
+  public void setDictionary(BytesDictionary dictionary) {
+    if (dictionaryIds == null) {
+      dictionaryIds = new int[vector.length];
+    }
+    this.dictionary = dictionary;
+  }
+
   /** Set a field by reference.
    *
    * @param elementNum index within column vector to set
@@ -298,6 +322,15 @@ public void flatten(boolean selectedInUse, int[] sel, int size) {
             this.setRef(i, vector[0], start[0], length[0]);
           }
         }
+        if (dictionary != null) {
+          if (selectedInUse) {
+            for (int j = 1; j < size; j++) {
+              dictionaryIds[sel[j]] = dictionaryIds[0];
+            }
+          } else {
+            Arrays.fill(dictionaryIds, 1, size, dictionaryIds[0]);
+          }
+        }
       }
       flattenRepeatingNulls(selectedInUse, sel, size);
     }
@@ -306,6 +339,7 @@ public void flatten(boolean selectedInUse, int[] sel, int size) {
 
   // Fill the all the vector entries with provided value
   public void fill(byte[] value) {
+    dictionary = null;
     noNulls = true;
     isRepeating = true;
     setRef(0, value, 0, value.length);
@@ -317,6 +351,12 @@ public void setElement(int outElementNum, int inputElementNum, ColumnVector inpu
     setVal(outElementNum, in.vector[inputElementNum], in.start[inputElementNum], in.length[outElementNum]);
   }
 
+  @Override
+  public void reset() {
+    super.reset();
+    dictionary = null;
+  }
+
   @Override
   public void init() {
     initBuffer(0);
@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector;
+
+/**
+ * The entries of a dictionary encoded string column, for example the
+ * dictionary of a string column in one ORC stripe. The entries are stored
+ * back to back in a single byte array and are identified by their position.
+ * <p>
+ * A new BytesDictionary is created whenever the entries change, so the
+ * identity of the object can be used as the key for results computed from
+ * its entries.
+ */
+public class BytesDictionary {
+  private final byte[] buffer;
+  private final int[] offsets;
+  private final int size;
+
+  /**
+   * @param buffer the bytes of all entries
+   * @param offsets the start of each entry in buffer, followed by the end of
+   *                the last entry
+   * @param size the number of entries
+   */
+  public BytesDictionary(byte[] buffer, int[] offsets, int size) {
+    this.buffer = buffer;
+    this.offsets = offsets;
+    this.size = size;
+  }
+
+  /**
+   * @return the number of entries
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return the byte array holding all entries
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  public int getStart(int id) {
+    return offsets[id];
+  }
+
+  public int getLength(int id) {
+    return offsets[id + 1] - offsets[id];
+  }
+}
@@ -151,15 +151,26 @@ public void compileAggregationBatchInfo(VectorAggregateExpression[] aggregators)
         variableSizeAggregators, 0, indexVariableSizes);
   }
 
-  public int getVariableSize(int batchSize) {
+  /**
+   * Returns the variable size of the distinct aggregation buffer sets of the current batch.
+   */
+  public int getVariableSize() {
+    int variableSize = 0;
+    for(int r=0; r<distinctCount; ++r) {
+      variableSize += getVariableSize(distinctAggregationBuffers[r]);
+    }
+    return variableSize;
+  }
+
+  /**
+   * Returns the variable size of the aggregators of one aggregation buffer set.
+   */
+  public int getVariableSize(VectorAggregationBufferRow bufferSet) {
     int variableSize = 0;
     for (int i=0; i< variableSizeAggregators.length; ++i) {
-      for(int r=0; r<distinctCount; ++r) {
-         VectorAggregationBufferRow buf = distinctAggregationBuffers[r];
-         variableSize += buf.getAggregationBuffer(variableSizeAggregators[i]).getVariableSize();
-      }
+      variableSize += bufferSet.getAggregationBuffer(variableSizeAggregators[i]).getVariableSize();
     }
-    return (variableSize * batchSize)/distinctCount;
+    return variableSize;
   }
 
 }
@@ -24,15 +24,18 @@
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriter;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriterFactory;
+import org.apache.hadoop.hive.ql.io.FSRecordWriter;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.plan.FileSinkDesc;
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
 import org.apache.hadoop.hive.common.StatsSetupConst;
+import org.apache.hadoop.hive.serde2.Deserializer;
 import org.apache.hadoop.hive.serde2.SerDeException;
 import org.apache.hadoop.hive.serde2.SerDeStats;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.ObjectInspectorCopyOption;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.io.ObjectWritable;
 import org.apache.hadoop.io.Text;
@@ -49,6 +52,13 @@ public class VectorFileSinkOperator extends FileSinkOperator {
 
   protected transient VectorExpressionWriter[] valueWriters;
 
+  /**
+   * The row type of the output files, when the serializer can describe it and
+   * all of its columns are primitive. Record writers that take whole batches
+   * need it to create the file.
+   */
+  protected transient StructObjectInspector outputObjInspector;
+
   public VectorFileSinkOperator(VectorizationContext context,
       OperatorDesc conf) {
     super();
@@ -65,6 +75,17 @@ protected void initializeOp(Configuration hconf) throws HiveException {
     valueWriters = VectorExpressionWriterFactory.getExpressionWriters(
         (StructObjectInspector) inputObjInspectors[0]);
     singleRow = new Object[valueWriters.length];
+    outputObjInspector = null;
+    if (serializer instanceof VectorizedSerde && serializer instanceof Deserializer) {
+      try {
+        ObjectInspector oi = ((Deserializer) serializer).getObjectInspector();
+        if (oi instanceof StructObjectInspector && isPrimitiveStruct((StructObjectInspector) oi)) {
+          outputObjInspector = (StructObjectInspector) oi;
+        }
+      } catch (SerDeException e) {
+        throw new HiveException(e);
+      }
+    }
   }
 
   @Override
@@ -72,6 +93,10 @@ public void processOp(Object data, int tag) throws HiveException {
 
     VectorizedRowBatch vrg = (VectorizedRowBatch)data;
 
+    if (processBatch(vrg)) {
+      return;
+    }
+
     Writable [] records = null;
     boolean vectorizedSerde = false;
     try {
@@ -85,14 +110,14 @@ public void processOp(Object data, int tag) throws HiveException {
       throw new HiveException(e1);
     }
 
+    if (vrg.valueWriters == null) {
+      vrg.setValueWriters(this.valueWriters);
+    }
     for (int i = 0; i < vrg.size; i++) {
       Writable row = null;
       if (vectorizedSerde) {
         row = records[i];
       } else {
-        if (vrg.valueWriters == null) {
-          vrg.setValueWriters(this.valueWriters);
-        }
         try {
           row = serializer.serialize(getRowObject(vrg, i), inputObjInspectors[0]);
         } catch (SerDeException ex) {
@@ -146,7 +171,8 @@ public void processOp(Object data, int tag) throws HiveException {
 
       rowOutWriters = fpaths.getOutWriters();
       if (conf.isGatherStats()) {
-        if (statsCollectRawDataSize) {
+        // the serializer only has the stats of the row when it serialized it alone
+        if (statsCollectRawDataSize && !vectorizedSerde) {
           SerDeStats stats = serializer.getSerDeStats();
           if (stats != null) {
             fpaths.getStat().addToStat(StatsSetupConst.RAW_DATA_SIZE, stats.getRawDataSize());
@@ -163,11 +189,8 @@ public void processOp(Object data, int tag) throws HiveException {
       if (!multiFileSpray) {
         rowOutWriters[0].write(row);
       } else {
-        int keyHashCode = 0;
-        key.setHashCode(keyHashCode);
-        int bucketNum = prtner.getBucket(key, null, totalFiles);
-        int idx = bucketMap.get(bucketNum);
-        rowOutWriters[idx].write(row);
+        // the bucket comes from the row's values, which the serialized row hides
+        rowOutWriters[findWriterOffset(getRowObject(vrg, i))].write(row);
       }
     } catch (IOException e) {
       throw new HiveException(e);
@@ -175,6 +198,53 @@ public void processOp(Object data, int tag) throws HiveException {
     }
   }
 
+  private static boolean isPrimitiveStruct(StructObjectInspector oi) {
+    for (StructField field : oi.getAllStructFieldRefs()) {
+      if (field.getFieldObjectInspector().getCategory() != ObjectInspector.Category.PRIMITIVE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Hand the whole batch to the record writer, if it can write column vectors
+   * and all of the rows go to the same file. That is the case unless the
+   * rows are split by dynamic partitions, list bucketing or buckets.
+   * @return true if the batch was written
+   */
+  private boolean processBatch(VectorizedRowBatch vrg) throws HiveException {
+    if (bDynParts || lbCtx != null || multiFileSpray || outputObjInspector == null ||
+        outputObjInspector.getAllStructFieldRefs().size() != vrg.projectionSize) {
+      return false;
+    }
+    if (!filesCreated) {
+      createBucketFiles(fsp);
+    }
+    rowOutWriters = fsp.getOutWriters();
+    if (!(rowOutWriters[0] instanceof FSRecordWriter.VectorizedRecordWriter)) {
+      return false;
+    }
+
+    try {
+      updateProgress();
+      // the batch is not serialized, so the serializer has no raw data size for it
+      if (conf.isGatherStats()) {
+        fsp.getStat().addToStat(StatsSetupConst.ROW_COUNT, vrg.size);
+      }
+
+      if (row_count != null) {
+        row_count.set(row_count.get() + vrg.size);
+      }
+
+      ((FSRecordWriter.VectorizedRecordWriter) rowOutWriters[0]).writeBatch(vrg,
+          outputObjInspector);
+    } catch (IOException e) {
+      throw new HiveException(e);
+    }
+    return true;
+  }
+
   private Object[] getRowObject(VectorizedRowBatch vrg, int rowIndex)
       throws HiveException {
     int batchIndex = rowIndex;
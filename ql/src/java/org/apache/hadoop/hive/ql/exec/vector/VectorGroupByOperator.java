@@ -34,6 +34,7 @@
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.exec.GroupByOperator;
 import org.apache.hadoop.hive.ql.exec.KeyWrapper;
+import org.apache.hadoop.hive.ql.exec.persistence.HashAggregationSpill;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriter;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriterFactory;
@@ -44,9 +45,11 @@
 import org.apache.hadoop.hive.ql.plan.GroupByDesc;
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
 import org.apache.hadoop.hive.ql.plan.api.OperatorType;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
 import org.apache.hadoop.hive.ql.util.JavaDataModel;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 
 /**
  * Vectorized GROUP BY operator implementation. Consumes the vectorized input and
@@ -191,14 +194,10 @@ private class ProcessingModeHashAggregate extends ProcessingModeBase {
     private int fixedHashEntrySize;
 
     /**
-     * Average per hashtable entry variable size memory (depends on key/agg value).
+     * Memory of the hashtable entries, including the variable size of their keys and
+     * aggregation buffers, updated as the entries are added, aggregated and removed.
      */
-    private int avgVariableSize;
-
-    /**
-     * Number of entries added to the hashtable since the last check if it should flush.
-     */
-    private int numEntriesSinceCheck;
+    private long hashTableMemory;
 
     /**
      * Sum of batch size processed (ie. rows).
@@ -211,11 +210,6 @@ private class ProcessingModeHashAggregate extends ProcessingModeBase {
      */
     private int maxHtEntries = 1000000;
 
-    /**
-     * The number of new entries that must be added to the hashtable before a memory size check.
-     */
-    private int checkInterval = 10000;
-
     /**
      * Percent of entries to flush when memory threshold exceeded.
      */
@@ -244,30 +238,40 @@ private class ProcessingModeHashAggregate extends ProcessingModeBase {
 
     /**
      * Number of rows processed between checks for minReductionHashAggr factor
-     * TODO: there is overlap between numRowsCompareHashAggr and checkInterval
      */
     private long numRowsCompareHashAggr;
 
+    /**
+     * Spill files of the hash table, null when the hash table is flushed instead of spilled
+     */
+    private HashAggregationSpill hashSpill;
+
     @Override
     public void initialize(Configuration hconf) throws HiveException {
       // hconf is null in unit testing
       if (null != hconf) {
         this.percentEntriesToFlush = HiveConf.getFloatVar(hconf,
           HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_FLUSH_PERCENT);
-        this.checkInterval = HiveConf.getIntVar(hconf,
-          HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_CHECKINTERVAL);
         this.maxHtEntries = HiveConf.getIntVar(hconf,
             HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_MAXENTRIES);
         this.minReductionHashAggr = HiveConf.getFloatVar(hconf,
             HiveConf.ConfVars.HIVEMAPAGGRHASHMINREDUCTION);
           this.numRowsCompareHashAggr = HiveConf.getIntVar(hconf,
             HiveConf.ConfVars.HIVEGROUPBYMAPINTERVAL);
+        if (HashAggregationSpill.canSpill(hconf, conf)) {
+          GenericUDAFEvaluator[] evaluators = new GenericUDAFEvaluator[aggregators.length];
+          for (int i = 0; i < aggregators.length; ++i) {
+            evaluators[i] = conf.getAggregators().get(i).getGenericUDAFEvaluator();
+          }
+          hashSpill = new HashAggregationSpill(
+              HiveConf.getIntVar(hconf, HiveConf.ConfVars.HIVEMAPAGGRHASHSPILLPARTITIONS),
+              keyExpressions.length, (StructObjectInspector) outputObjInspector,
+              evaluators, hconf);
+        }
       } 
       else {
         this.percentEntriesToFlush =
             HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_FLUSH_PERCENT.defaultFloatVal;
-        this.checkInterval =
-            HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_CHECKINTERVAL.defaultIntVal;
         this.maxHtEntries =
             HiveConf.ConfVars.HIVE_VECTORIZATION_GROUPBY_MAXENTRIES.defaultIntVal;
         this.minReductionHashAggr =
@@ -291,8 +295,14 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
       // Next we locate the aggregation buffer set for each key
       prepareBatchAggregationBufferSets(batch);
 
-      // Finally, evaluate the aggregators
-      processAggregators(batch);
+      // Finally, evaluate the aggregators, keeping track of the growth of their variable size
+      if (aggregationBatchInfo.getHasVariableSize()) {
+        int oldVariableSize = aggregationBatchInfo.getVariableSize();
+        processAggregators(batch);
+        hashTableMemory += aggregationBatchInfo.getVariableSize() - oldVariableSize;
+      } else {
+        processAggregators(batch);
+      }
 
       //Flush if memory limits were reached
       // We keep flushing until the memory is under threshold 
@@ -317,11 +327,6 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
         preFlushEntriesCount = numEntriesHashTable;
       }
 
-      if (sumBatchSize == 0 && 0 != batch.size) {
-        // Sample the first batch processed for variable sizes.
-        updateAvgVariableSize(batch);
-      }
-
       sumBatchSize += batch.size;
       lastModeCheckRowCount += batch.size;
 
@@ -331,11 +336,22 @@ public void processBatch(VectorizedRowBatch batch) throws HiveException {
 
     @Override
     public void close(boolean aborted) throws HiveException {
-      if (!aborted) {
-        flush(true);
+      try {
+        if (!aborted) {
+          flush(true);
+        }
+      } finally {
+        if (hashSpill != null) {
+          hashSpill.close();
+        }
       }
     }
 
+    /**
+     * The hash table can be spilled if the output are partial aggregations that the
+     * reducers merge, so that the spilled aggregations can be merged again by key.
+     * The spilled rows are merged with the row mode evaluators of the aggregations.
+     */
     /**
      * Locates the aggregation buffer sets to use for each key in the current batch.
      * The keyWrappersBatch must have evaluated the current batch first.
@@ -351,6 +367,9 @@ private void prepareBatchAggregationBufferSets(VectorizedRowBatch batch) throws
       for (int i=0; i < batch.size; ++i) {
         VectorHashKeyWrapper kw = keyWrappers[i];
         VectorAggregationBufferRow aggregationBuffer = mapKeysAggregationBuffers.get(kw);
+        if (hashSpill != null) {
+          hashSpill.addRow(hashSpill.getPartition(kw.hashCode()), null == aggregationBuffer);
+        }
         if (null == aggregationBuffer) {
           // the probe failed, we must allocate a set of aggregation buffers
           // and push the (keywrapper,buffers) pair into the hash.
@@ -359,14 +378,23 @@ private void prepareBatchAggregationBufferSets(VectorizedRowBatch batch) throws
           aggregationBuffer = allocateAggregationBuffer();
           mapKeysAggregationBuffers.put(kw.copyKey(), aggregationBuffer);
           numEntriesHashTable++;
-          numEntriesSinceCheck++;
+          hashTableMemory += getEntrySize(kw, aggregationBuffer);
         }
         aggregationBatchInfo.mapAggregationBufferSet(aggregationBuffer, i);
       }
     }
 
     /**
-     * Computes the memory limits for hash table flush (spill).
+     * Returns the memory used by a hash table entry.
+     */
+    private long getEntrySize(VectorHashKeyWrapper kw, VectorAggregationBufferRow aggregationBuffer) {
+      return fixedHashEntrySize + kw.getVariableSize()
+          + aggregationBatchInfo.getVariableSize(aggregationBuffer);
+    }
+
+    /**
+     * Computes the memory limits for hash table flush (spill). The memory of the
+     * entries is then tracked as they are added, aggregated and removed.
      */
     private void computeMemoryLimits() {
       JavaDataModel model = JavaDataModel.get();
@@ -384,7 +412,7 @@ private void computeMemoryLimits() {
         memoryThreshold = 1.0f;
       }
 
-      maxHashTblMemory = (int)(maxMemory * memoryThreshold);
+      maxHashTblMemory = (long)(maxMemory * memoryThreshold);
 
       if (LOG.isDebugEnabled()) {
         LOG.debug(String.format("maxMemory:%dMb (%d * %f) fixSize:%d (key:%d agg:%d)",
@@ -405,16 +433,21 @@ private void computeMemoryLimits() {
      */
     private void flush(boolean all) throws HiveException {
 
+      if (hashSpill != null) {
+        spill(all);
+        return;
+      }
+
       int entriesToFlush = all ? numEntriesHashTable :
         (int)(numEntriesHashTable * this.percentEntriesToFlush);
       int entriesFlushed = 0;
 
       if (LOG.isDebugEnabled()) {
         LOG.debug(String.format(
-            "Flush %d %s entries:%d fixed:%d variable:%d (used:%dMb max:%dMb) gcCanary:%s",
+            "Flush %d %s entries:%d fixed:%d (used:%dMb max:%dMb) gcCanary:%s",
             entriesToFlush, all ? "(all)" : "",
-            numEntriesHashTable, fixedHashEntrySize, avgVariableSize,
-            numEntriesHashTable * (fixedHashEntrySize + avgVariableSize)/1024/1024,
+            numEntriesHashTable, fixedHashEntrySize,
+            hashTableMemory/1024/1024,
             maxHashTblMemory/1024/1024,
             gcCanary.get() == null ? "dead" : "alive"));
       }
@@ -429,6 +462,7 @@ private void flush(boolean all) throws HiveException {
         flushSingleRow((VectorHashKeyWrapper) pair.getKey(), pair.getValue());
 
         if (!all) {
+          hashTableMemory -= getEntrySize((VectorHashKeyWrapper) pair.getKey(), pair.getValue());
           iter.remove();
           --numEntriesHashTable;
           if (++entriesFlushed >= entriesToFlush) {
@@ -440,6 +474,7 @@ private void flush(boolean all) throws HiveException {
       if (all) {
         mapKeysAggregationBuffers.clear();
         numEntriesHashTable = 0;
+        hashTableMemory = 0;
       }
       
       if (all && LOG.isDebugEnabled()) {
@@ -447,6 +482,46 @@ private void flush(boolean all) throws HiveException {
       }
     }
 
+    /**
+     * Spills the entries of the coldest partitions of the hash table. When parameter 'all'
+     * is true the entries of all the partitions spilled so far are spilled, the others are
+     * emitted, and then the spilled partitions are merged and emitted.
+     * @param all
+     * @throws HiveException
+     */
+    private void spill(boolean all) throws HiveException {
+      boolean[] partitions = all ? null : hashSpill.selectPartitionsToSpill();
+      Iterator<Map.Entry<KeyWrapper, VectorAggregationBufferRow>> iter =
+          mapKeysAggregationBuffers.entrySet().iterator();
+      while (iter.hasNext()) {
+        Map.Entry<KeyWrapper, VectorAggregationBufferRow> pair = iter.next();
+        VectorHashKeyWrapper kw = (VectorHashKeyWrapper) pair.getKey();
+        int partition = hashSpill.getPartition(kw.hashCode());
+        if (all ? hashSpill.isSpilled(partition) : partitions[partition]) {
+          hashSpill.spill(partition, getOutputRow(kw, pair.getValue()));
+        } else if (all) {
+          flushSingleRow(kw, pair.getValue());
+        } else {
+          continue;
+        }
+        hashTableMemory -= getEntrySize(kw, pair.getValue());
+        iter.remove();
+        --numEntriesHashTable;
+      }
+
+      if (all) {
+        hashTableMemory = 0;
+        hashSpill.clearEntries();
+        hashSpill.mergeSpilled(maxHtEntries, new HashAggregationSpill.RowOutput() {
+          @Override
+          public void forward(Object[] row) throws HiveException {
+            VectorGroupByOperator.this.forward(row, outputObjInspector);
+          }
+        });
+        hashSpill.close();
+      }
+    }
+
     /**
      * Returns true if the memory threshold for the hash table was reached.
      */
@@ -454,15 +529,8 @@ private boolean shouldFlush(VectorizedRowBatch batch) {
       if (batch.size == 0) {
         return false;
       }
-      //numEntriesSinceCheck is the number of entries added to the hash table
-      // since the last time we checked the average variable size
-      if (numEntriesSinceCheck >= this.checkInterval) {
-        // Were going to update the average variable row size by sampling the current batch
-        updateAvgVariableSize(batch);
-        numEntriesSinceCheck = 0;
-      }
       if (numEntriesHashTable > this.maxHtEntries ||
-          numEntriesHashTable * (fixedHashEntrySize + avgVariableSize) > maxHashTblMemory) {
+          hashTableMemory > maxHashTblMemory) {
         return true;
       }
       if (gcCanary.get() == null) {
@@ -472,21 +540,6 @@ private boolean shouldFlush(VectorizedRowBatch batch) {
       return false;
     }
 
-    /**
-     * Updates the average variable size of the hash table entries.
-     * The average is only updates by probing the batch that added the entry in the hash table
-     * that caused the check threshold to be reached.
-     */
-    private void updateAvgVariableSize(VectorizedRowBatch batch) {
-      int keyVariableSize = keyWrappersBatch.getVariableSize(batch.size);
-      int aggVariableSize = aggregationBatchInfo.getVariableSize(batch.size);
-
-      // This assumes the distribution of variable size keys/aggregates in the input
-      // is the same as the distribution of variable sizes in the hash entries
-      avgVariableSize = (int)((avgVariableSize * sumBatchSize + keyVariableSize +aggVariableSize) /
-          (sumBatchSize + batch.size));
-    }
-
     /**
      * Checks if the HT reduces the number of entries by at least minReductionHashAggr factor 
      * @throws HiveException
@@ -631,9 +684,10 @@ public VectorGroupByOperator(VectorizationContext vContext, OperatorDesc conf)
     keyExpressions = vContext.getVectorExpressions(keysDesc);
     ArrayList<AggregationDesc> aggrDesc = desc.getAggregators();
     aggregators = new VectorAggregateExpression[aggrDesc.size()];
+    boolean isMergePartial = desc.getMode() == GroupByDesc.Mode.MERGEPARTIAL;
     for (int i = 0; i < aggrDesc.size(); ++i) {
       AggregationDesc aggDesc = aggrDesc.get(i);
-      aggregators[i] = vContext.getAggregatorExpression(aggDesc);
+      aggregators[i] = vContext.getAggregatorExpression(aggDesc, isMergePartial);
     }
   }
 
@@ -683,6 +737,11 @@ protected void initializeOp(Configuration hconf) throws HiveException {
     if (keyExpressions.length == 0) {
       processingMode = this.new ProcessingModeGlobalAggregate();
     }
+    else if (isReduceSide()) {
+      // The reduce side input is sorted on the group by keys, so the aggregates of
+      // a key are final as soon as the next key shows up.
+      processingMode = this.new ProcessingModeStreaming();
+    }
     else {
       //TODO: consider if parent can offer order guarantees
       // If input is sorted, is more efficient to use the streaming mode
@@ -703,6 +762,15 @@ private void changeToStreamingMode() throws HiveException {
     LOG.trace("switched to streaming mode");
   }
 
+  /**
+   * @return true if this group by runs on the reduce side, where each group by key
+   *         arrives as a sorted run of rows.
+   */
+  private boolean isReduceSide() {
+    return conf.getMode() == GroupByDesc.Mode.MERGEPARTIAL
+        || conf.getMode() == GroupByDesc.Mode.COMPLETE;
+  }
+
   @Override
   public void processOp(Object row, int tag) throws HiveException {
     VectorizedRowBatch batch = (VectorizedRowBatch) row;
@@ -721,6 +789,20 @@ public void processOp(Object row, int tag) throws HiveException {
    */
   private void flushSingleRow(VectorHashKeyWrapper kw, VectorAggregationBufferRow agg)
       throws HiveException {
+    getOutputRow(kw, agg);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(String.format("forwarding keys: %s: %s",
+          kw, Arrays.toString(forwardCache)));
+    }
+    forward(forwardCache, outputObjInspector);
+  }
+
+  /**
+   * Makes the output row of a key and its aggregation buffers.
+   * The row is reused for every call.
+   */
+  private Object[] getOutputRow(VectorHashKeyWrapper kw, VectorAggregationBufferRow agg)
+      throws HiveException {
     int fi = 0;
     for (int i = 0; i < keyExpressions.length; ++i) {
       forwardCache[fi++] = keyWrappersBatch.getWritableKeyValue (
@@ -729,11 +811,7 @@ private void flushSingleRow(VectorHashKeyWrapper kw, VectorAggregationBufferRow
     for (int i = 0; i < aggregators.length; ++i) {
       forwardCache[fi++] = aggregators[i].evaluateOutput(agg.getAggregationBuffer(i));
     }
-    if (LOG.isDebugEnabled()) {
-      LOG.debug(String.format("forwarding keys: %s: %s",
-          kw, Arrays.toString(forwardCache)));
-    }
-    forward(forwardCache, outputObjInspector);
+    return forwardCache;
   }
 
   @Override
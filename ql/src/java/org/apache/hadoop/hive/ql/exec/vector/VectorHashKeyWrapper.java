@@ -42,6 +42,7 @@ public class VectorHashKeyWrapper extends KeyWrapper {
   private byte[][] byteValues;
   private int[] byteStarts;
   private int[] byteLengths;
+  private int[] byteHashes;
 
   private Decimal128[] decimalValues;
 
@@ -59,6 +60,7 @@ public VectorHashKeyWrapper(int longValuesCount, int doubleValuesCount,
     byteValues = new byte[byteValuesCount][];
     byteStarts = new int[byteValuesCount];
     byteLengths = new int[byteValuesCount];
+    byteHashes = new int[byteValuesCount];
     isNull = new boolean[longValuesCount + doubleValuesCount + byteValuesCount + decimalValuesCount];
   }
 
@@ -80,27 +82,28 @@ public void setHashKey() {
     // This code, with branches and all, is not executed if there are no string keys
     for (int i = 0; i < byteValues.length; ++i) {
       /*
-       *  Hashing the string is potentially expensive so is better to branch.
-       *  Additionally not looking at values for nulls allows us not reset the values.
+       *  The string hashes are computed when the strings are assigned.
+       *  Not looking at values for nulls allows us not reset the values.
        */
       if (!isNull[longValues.length + doubleValues.length + i]) {
-        byte[] bytes = byteValues[i];
-        int start = byteStarts[i];
-        int length = byteLengths[i];
-        if (length == bytes.length && start == 0) {
-          hashcode ^= Arrays.hashCode(bytes);
-        }
-        else {
-          // Unfortunately there is no Arrays.hashCode(byte[], start, length)
-          for(int j = start; j < start + length; ++j) {
-            // use 461 as is a (sexy!) prime.
-            hashcode ^= 461 * bytes[j];
-          }
-        }
+        hashcode ^= byteHashes[i];
       }
     }
   }
 
+  /**
+   * Hash a string key value. The hash only depends on the bytes of the value,
+   * not on where they are stored.
+   */
+  public static int hashBytes(byte[] bytes, int start, int length) {
+    // Unfortunately there is no Arrays.hashCode(byte[], start, length)
+    int hash = 1;
+    for (int j = start; j < start + length; ++j) {
+      hash = 31 * hash + bytes[j];
+    }
+    return hash;
+  }
+
   @Override
   public int hashCode() {
     return hashcode;
@@ -161,6 +164,7 @@ public void duplicateTo(VectorHashKeyWrapper clone) {
     clone.byteValues = new byte[byteValues.length][];
     clone.byteStarts = new int[byteValues.length];
     clone.byteLengths = byteLengths.clone();
+    clone.byteHashes = byteHashes.clone();
     for (int i = 0; i < byteValues.length; ++i) {
       // avoid allocation/copy of nulls, because it potentially expensive. branch instead.
       if (!isNull[longValues.length + doubleValues.length + i]) {
@@ -210,9 +214,17 @@ public void assignNullLong(int index) {
   }
 
   public void assignString(int index, byte[] bytes, int start, int length) {
+    assignString(index, bytes, start, length, hashBytes(bytes, start, length));
+  }
+
+  /**
+   * Assign a string whose hash, as computed by hashBytes, is already known.
+   */
+  public void assignString(int index, byte[] bytes, int start, int length, int hash) {
     byteValues[index] = bytes;
     byteStarts[index] = start;
     byteLengths[index] = length;
+    byteHashes[index] = hash;
     isNull[longValues.length + doubleValues.length + index] = false;
   }
 
@@ -72,7 +72,7 @@ public void setDecimal(int index) {
   /**
    * Number of object references in 'this' (for size computation)
    */
-  private static final int MODEL_REFERENCES_COUNT = 7;
+  private static final int MODEL_REFERENCES_COUNT = 8;
 
   /**
    * The key expressions that require evaluation and output the primitive values for each key.
@@ -107,6 +107,14 @@ public void setDecimal(int index) {
    */
   private VectorHashKeyWrapper[] vectorHashKeyWrappers;
 
+  /**
+   * For each string key, the dictionary of the last dictionary encoded batch and
+   * the hashes of its entries computed so far, so that each entry is hashed once.
+   */
+  private BytesDictionary[] stringKeyDictionaries;
+  private int[][] stringKeyHashes;
+  private boolean[][] stringKeyHashed;
+
   /**
    * Lookup vector to map from key index to primitive type index.
    */
@@ -194,7 +202,9 @@ public void evaluateBatch(VectorizedRowBatch batch) throws HiveException {
       int keyIndex = stringIndices[i];
       int columnIndex = keyExpressions[keyIndex].getOutputColumn();
       BytesColumnVector columnVector = (BytesColumnVector) batch.cols[columnIndex];
-      if (columnVector.noNulls && !columnVector.isRepeating && !batch.selectedInUse) {
+      if (columnVector.dictionary != null && !columnVector.isRepeating) {
+        assignStringDictionary(i, batch, columnVector);
+      } else if (columnVector.noNulls && !columnVector.isRepeating && !batch.selectedInUse) {
         assignStringNoNullsNoRepeatingNoSelection(i, batch.size, columnVector);
       } else if (columnVector.noNulls && !columnVector.isRepeating && batch.selectedInUse) {
         assignStringNoNullsNoRepeatingSelection(i, batch.size, columnVector, batch.selected);
@@ -239,6 +249,47 @@ public void evaluateBatch(VectorizedRowBatch batch) throws HiveException {
     }
   }
 
+  /**
+   * Helper method to assign values from a vector column into the key wrapper.
+   * Optimized for dictionary encoded string type: the hash of each dictionary entry is
+   * computed once and reused for all the rows with the same dictionary id.
+   */
+  private void assignStringDictionary(int index, VectorizedRowBatch batch,
+      BytesColumnVector columnVector) {
+    BytesDictionary dictionary = columnVector.dictionary;
+    if (stringKeyDictionaries[index] != dictionary) {
+      stringKeyDictionaries[index] = dictionary;
+      int size = dictionary.size();
+      if (stringKeyHashes[index] == null || stringKeyHashes[index].length < size) {
+        stringKeyHashes[index] = new int[size];
+        stringKeyHashed[index] = new boolean[size];
+      } else {
+        Arrays.fill(stringKeyHashed[index], 0, size, false);
+      }
+    }
+    int[] hashes = stringKeyHashes[index];
+    boolean[] hashed = stringKeyHashed[index];
+    int[] ids = columnVector.dictionaryIds;
+    for(int i=0; i<batch.size; ++i) {
+      int row = batch.selectedInUse ? batch.selected[i] : i;
+      if (!columnVector.noNulls && columnVector.isNull[row]) {
+        vectorHashKeyWrappers[i].assignNullString(index);
+      } else {
+        int id = ids[row];
+        if (!hashed[id]) {
+          hashes[id] = VectorHashKeyWrapper.hashBytes(dictionary.getBuffer(),
+              dictionary.getStart(id), dictionary.getLength(id));
+          hashed[id] = true;
+        }
+        vectorHashKeyWrappers[i].assignString(index,
+            columnVector.vector[row],
+            columnVector.start[row],
+            columnVector.length[row],
+            hashes[id]);
+      }
+    }
+  }
+
   /**
    * Helper method to assign values from a vector column into the key wrapper.
    * Optimized for string type, possible nulls, no repeat values, batch selection vector.
@@ -614,6 +665,9 @@ public static VectorHashKeyWrapperBatch compileKeyWrapperBatch(VectorExpression[
     compiledKeyWrapperBatch.doubleIndices = Arrays.copyOf(doubleIndices, doubleIndicesIndex);
     compiledKeyWrapperBatch.stringIndices = Arrays.copyOf(stringIndices, stringIndicesIndex);
     compiledKeyWrapperBatch.decimalIndices = Arrays.copyOf(decimalIndices, decimalIndicesIndex);
+    compiledKeyWrapperBatch.stringKeyDictionaries = new BytesDictionary[stringIndicesIndex];
+    compiledKeyWrapperBatch.stringKeyHashes = new int[stringIndicesIndex][];
+    compiledKeyWrapperBatch.stringKeyHashed = new boolean[stringIndicesIndex][];
     compiledKeyWrapperBatch.vectorHashKeyWrappers =
         new VectorHashKeyWrapper[VectorizedRowBatch.DEFAULT_SIZE];
     for(int i=0;i<VectorizedRowBatch.DEFAULT_SIZE; ++i) {
@@ -637,6 +691,7 @@ public static VectorHashKeyWrapperBatch compileKeyWrapperBatch(VectorExpression[
     compiledKeyWrapperBatch.keysFixedSize += model.lengthForObjectArrayOfSize(stringIndicesIndex);
     compiledKeyWrapperBatch.keysFixedSize += model.lengthForObjectArrayOfSize(decimalIndicesIndex);
     compiledKeyWrapperBatch.keysFixedSize += model.lengthForIntArrayOfSize(longIndicesIndex) * 2;
+    compiledKeyWrapperBatch.keysFixedSize += model.lengthForIntArrayOfSize(stringIndicesIndex);
     compiledKeyWrapperBatch.keysFixedSize +=
         model.lengthForBooleanArrayOfSize(keyExpressions.length);
 
@@ -680,16 +735,5 @@ public Object getWritableKeyValue(VectorHashKeyWrapper kw, int i,
           i, klh.longIndex, klh.doubleIndex, klh.stringIndex, klh.decimalIndex));
     }
   }
-
-  public int getVariableSize(int batchSize) {
-    int variableSize = 0;
-    if ( 0 < stringIndices.length) {
-      for (int k=0; k<batchSize; ++k) {
-        VectorHashKeyWrapper hkw = vectorHashKeyWrappers[k];
-        variableSize += hkw.getVariableSize();
-      }
-    }
-    return variableSize;
-  }
 }
 
@@ -19,6 +19,7 @@
 package org.apache.hadoop.hive.ql.exec.vector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,22 +27,32 @@
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.exec.ExprNodeEvaluator;
 import org.apache.hadoop.hive.ql.exec.MapJoinOperator;
 import org.apache.hadoop.hive.ql.exec.TableScanOperator;
 import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.persistence.AbstractRowContainer;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinKeyBytes;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinKeyObject;
 import org.apache.hadoop.hive.ql.exec.persistence.MapJoinKey;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinRowContainer;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpression;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriter;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.VectorExpressionWriterFactory;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.JoinCondDesc;
+import org.apache.hadoop.hive.ql.plan.JoinDesc;
 import org.apache.hadoop.hive.ql.plan.MapJoinDesc;
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
 import org.apache.hadoop.hive.ql.plan.api.OperatorType;
 import org.apache.hadoop.hive.serde2.ByteStream.Output;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.lazybinary.LazyBinaryUtils;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 
 /**
@@ -84,6 +95,19 @@ public class VectorMapJoinOperator extends MapJoinOperator implements Vectorizat
   
   private transient VectorizationContext vOutContext = null;
   private transient VectorizedRowBatchCtx vrbCtx = null;
+
+  // State of the native (batch-at-a-time) join; see canUseNativeJoin for when it's used.
+  private transient boolean useNativeJoin;
+  private transient int nativeJoinType;
+  private transient byte smallTableAlias;
+  private transient boolean isStringKey;
+  private transient int[] bigTableValueColumns;
+  private transient int[] bigTableOutputColumns;
+  private transient VectorColumnAssign[] smallTableAssigners;
+  private transient byte[] keyBuffer;
+  private transient byte[] lastKeyBytes;
+  private transient MapJoinRowContainer lastKeyRows;
+  private transient MapJoinKeyBytes probeKey;
   
   public VectorMapJoinOperator() {
     super();
@@ -219,23 +243,133 @@ protected Object _evaluate(Object row, int version) throws HiveException {
     filterMaps[posBigTable] = null;
 
     outputVectorAssigners = new HashMap<ObjectInspector, VectorColumnAssign[]>();
+
+    useNativeJoin = HiveConf.getBoolVar(hconf,
+        HiveConf.ConfVars.HIVE_VECTORIZATION_MAPJOIN_NATIVE_ENABLED) && canUseNativeJoin();
+    LOG.info("Using native vectorized map join: " + useNativeJoin);
   }
 
   /**
-   * 'forwards' the (row-mode) record into the (vectorized) output batch
+   * Checks whether the join can be done batch-at-a-time, without going through the row-mode
+   * map join. That is the case for inner, left outer and left semi joins of two tables, on a
+   * single key which we can serialize the same way the small table keys are stored (see
+   * {@link MapJoinKey#readFromRow}), without filters on the small table or null-safe keys.
    */
-  @Override
-  protected void internalForward(Object row, ObjectInspector outputOI) throws HiveException {
-    Object[] values = (Object[]) row;
+  private boolean canUseNativeJoin() {
+    JoinCondDesc[] conds = conf.getConds();
+    if (order.length != 2 || conds.length != 1 || keyExpressions.length != 1) {
+      return false;
+    }
+    nativeJoinType = conds[0].getType();
+    if (nativeJoinType != JoinDesc.INNER_JOIN) {
+      boolean isBigTableLeft = conds[0].getLeft() == posBigTable;
+      if (!isBigTableLeft || (nativeJoinType != JoinDesc.LEFT_OUTER_JOIN
+          && nativeJoinType != JoinDesc.LEFT_SEMI_JOIN)) {
+        return false;
+      }
+      if (bigTableFilterExpressions != null && bigTableFilterExpressions.length > 0) {
+        return false; // for outer joins, filtered rows still need to be emitted
+      }
+    }
+    if (nullsafes != null) {
+      for (boolean nullsafe : nullsafes) {
+        if (nullsafe) return false;
+      }
+    }
+    smallTableAlias = (order[0] == posBigTable) ? order[1] : order[0];
+    if (filterMaps != null && filterMaps[smallTableAlias] != null) {
+      return false;
+    }
+    List<ExprNodeDesc> smallTableFilters = conf.getFilters().get(smallTableAlias);
+    if (smallTableFilters != null && !smallTableFilters.isEmpty()) {
+      return false;
+    }
+    ObjectInspector keyOI = keyOutputWriters[0].getObjectInspector();
+    if (keyOI.getCategory() != Category.PRIMITIVE) {
+      return false;
+    }
+    // These types are serialized as vlongs or as vint length + bytes, see LazyBinarySerDe.
+    switch (((PrimitiveObjectInspector) keyOI).getPrimitiveCategory()) {
+    case INT:
+    case LONG:
+    case DATE:
+      isStringKey = false;
+      keyBuffer = new byte[10];
+      break;
+    case STRING:
+      isStringKey = true;
+      keyBuffer = new byte[64];
+      break;
+    default:
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return Whether the batches are joined natively. Final once the first batch is processed.
+   */
+  boolean isNativeJoin() {
+    return useNativeJoin;
+  }
+
+  /**
+   * Binds the native join to the output batch columns. Can only be called when the
+   * hash tables are loaded, since the table keys need to be in the optimized format.
+   */
+  private boolean initNativeJoinColumns() throws HiveException {
+    MapJoinKey anyKey = mapJoinTables[smallTableAlias].getAnyKey();
+    if (anyKey != null && !(anyKey instanceof MapJoinKeyBytes)) {
+      LOG.info("Small table does not use optimized keys; not using native vectorized map join");
+      return false;
+    }
+    int bigTablePos = 0;
+    int smallTablePos = 0;
+    for (int i = 0; i < order.length; ++i) {
+      if (order[i] == posBigTable) {
+        bigTablePos = i;
+      } else {
+        smallTablePos = i;
+      }
+    }
+    VectorColumnAssign[] vcas = getOutputAssigners(outputObjInspector);
+    Map<String, Integer> columnMap = getOutputColumnMap();
+    List<String> outputColumnNames = conf.getOutputColumnNames();
+    int bigTableValueCount = offsets[bigTablePos + 1] - offsets[bigTablePos];
+    bigTableValueColumns = new int[bigTableValueCount];
+    bigTableOutputColumns = new int[bigTableValueCount];
+    for (int i = 0; i < bigTableValueCount; ++i) {
+      bigTableValueColumns[i] = bigTableValueExpressions[i].getOutputColumn();
+      bigTableOutputColumns[i] = columnMap.get(outputColumnNames.get(offsets[bigTablePos] + i));
+    }
+    smallTableAssigners = Arrays.copyOfRange(
+        vcas, offsets[smallTablePos], offsets[smallTablePos + 1]);
+    return true;
+  }
+
+  private Map<String, Integer> getOutputColumnMap() {
+    Map<String, Map<String, Integer>> allColumnMaps = Utilities.
+        getMapRedWork(hconf).getMapWork().getScratchColumnMap();
+    return allColumnMaps.get(fileKey);
+  }
+
+  private VectorColumnAssign[] getOutputAssigners(ObjectInspector outputOI) throws HiveException {
     VectorColumnAssign[] vcas = outputVectorAssigners.get(outputOI);
     if (null == vcas) {
-      Map<String, Map<String, Integer>> allColumnMaps = Utilities.
-          getMapRedWork(hconf).getMapWork().getScratchColumnMap();
-      Map<String, Integer> columnMap = allColumnMaps.get(fileKey);
       vcas = VectorColumnAssignFactory.buildAssigners(
-          outputBatch, outputOI, columnMap, conf.getOutputColumnNames());
+          outputBatch, outputOI, getOutputColumnMap(), conf.getOutputColumnNames());
       outputVectorAssigners.put(outputOI, vcas);
     }
+    return vcas;
+  }
+
+  /**
+   * 'forwards' the (row-mode) record into the (vectorized) output batch
+   */
+  @Override
+  protected void internalForward(Object row, ObjectInspector outputOI) throws HiveException {
+    Object[] values = (Object[]) row;
+    VectorColumnAssign[] vcas = getOutputAssigners(outputOI);
     for (int i=0; i<values.length; ++i) {
       vcas[i].assignObjectValue(values[i], outputBatch.size);
     }
@@ -248,6 +382,11 @@ protected void internalForward(Object row, ObjectInspector outputOI) throws Hive
   private void flushOutput() throws HiveException {
     forward(outputBatch, null);
     outputBatch.reset();
+    for (VectorColumnAssign[] vcas : outputVectorAssigners.values()) {
+      for (VectorColumnAssign vca : vcas) {
+        vca.reset();
+      }
+    }
   }
 
   @Override
@@ -279,6 +418,24 @@ public void processOp(Object row, int tag) throws HiveException {
       }
     }
 
+    if (useNativeJoin) {
+      try {
+        loadHashTableOnFirstRow();
+      } catch (SerDeException e) {
+        throw new HiveException(e);
+      }
+      if (bigTableValueColumns == null) {
+        useNativeJoin = initNativeJoinColumns();
+      }
+    }
+    if (useNativeJoin) {
+      for (VectorExpression ve : keyExpressions) {
+        ve.evaluate(inBatch);
+      }
+      processBatchNative(inBatch);
+      return;
+    }
+
     keyWrapperBatch.evaluateBatch(inBatch);
     keyValues = keyWrapperBatch.getVectorHashKeyWrappers();
 
@@ -298,6 +455,113 @@ public void processOp(Object row, int tag) throws HiveException {
     keyValues = null;
   }
 
+  /**
+   * Joins the batch by probing the small table for each selected row and writing the
+   * big table columns and the matched small table rows straight into the output batch.
+   * The big table strings are set by reference, so the output is flushed before returning.
+   */
+  private void processBatchNative(VectorizedRowBatch inBatch) throws HiveException {
+    ColumnVector keyColumn = inBatch.cols[keyExpressions[0].getOutputColumn()];
+    for (int i = 0; i < inBatch.size; ++i) {
+      int row = inBatch.selectedInUse ? inBatch.selected[i] : i;
+      int keyLength = serializeKey(keyColumn, row);
+      MapJoinRowContainer rows = (keyLength < 0) ? null : lookupKey(keyLength);
+      if (rows == null) {
+        if (nativeJoinType == JoinDesc.LEFT_OUTER_JOIN) {
+          emitRow(inBatch, row, null);
+        }
+      } else if (nativeJoinType == JoinDesc.LEFT_SEMI_JOIN) {
+        emitRow(inBatch, row, null);
+      } else {
+        AbstractRowContainer.RowIterator<List<Object>> iter = rows.rowIter();
+        for (List<Object> smallRow = iter.first(); smallRow != null; smallRow = iter.next()) {
+          emitRow(inBatch, row, smallRow);
+        }
+      }
+    }
+    if (outputBatch.size > 0) {
+      flushOutput();
+    }
+  }
+
+  /**
+   * Serializes the key of the row into keyBuffer, in the same format as MapJoinKeyBytes
+   * (LazyBinary struct with one field).
+   * @return Key length, or -1 if the key is null and cannot match anything.
+   */
+  private int serializeKey(ColumnVector keyColumn, int row) {
+    int index = keyColumn.isRepeating ? 0 : row;
+    if (!keyColumn.noNulls && keyColumn.isNull[index]) {
+      return -1;
+    }
+    keyBuffer[0] = 1; // null byte: the only field is not null
+    if (!isStringKey) {
+      long value = ((LongColumnVector) keyColumn).vector[index];
+      return 1 + LazyBinaryUtils.writeVLongToByteArray(keyBuffer, 1, value);
+    }
+    BytesColumnVector bytesColumn = (BytesColumnVector) keyColumn;
+    int length = bytesColumn.length[index];
+    if (keyBuffer.length < length + 6) {
+      keyBuffer = new byte[(length + 6) * 2];
+    }
+    int offset = 1 + LazyBinaryUtils.writeVLongToByteArray(keyBuffer, 1, length);
+    System.arraycopy(bytesColumn.vector[index], bytesColumn.start[index],
+        keyBuffer, offset, length);
+    return offset + length;
+  }
+
+  private MapJoinRowContainer lookupKey(int keyLength) {
+    if (lastKeyBytes != null && lastKeyBytes.length == keyLength) {
+      boolean isSameKey = true;
+      for (int i = 0; i < keyLength && isSameKey; ++i) {
+        isSameKey = (lastKeyBytes[i] == keyBuffer[i]);
+      }
+      if (isSameKey) {
+        return lastKeyRows;
+      }
+    }
+    lastKeyBytes = Arrays.copyOf(keyBuffer, keyLength);
+    probeKey = (MapJoinKeyBytes) MapJoinKeyBytes.fromBytes(probeKey, true, lastKeyBytes);
+    lastKeyRows = mapJoinTables[smallTableAlias].get(probeKey);
+    return lastKeyRows;
+  }
+
+  private void emitRow(VectorizedRowBatch inBatch, int row, List<Object> smallRow)
+      throws HiveException {
+    int outRow = outputBatch.size;
+    for (int i = 0; i < bigTableValueColumns.length; ++i) {
+      copyValue(inBatch.cols[bigTableValueColumns[i]], row,
+          outputBatch.cols[bigTableOutputColumns[i]], outRow);
+    }
+    for (int i = 0; i < smallTableAssigners.length; ++i) {
+      smallTableAssigners[i].assignObjectValue(smallRow == null ? null : smallRow.get(i), outRow);
+    }
+    ++outputBatch.size;
+    if (outputBatch.size == VectorizedRowBatch.DEFAULT_SIZE) {
+      flushOutput();
+    }
+  }
+
+  private static void copyValue(ColumnVector in, int row, ColumnVector out, int outRow)
+      throws HiveException {
+    int index = in.isRepeating ? 0 : row;
+    if (!in.noNulls && in.isNull[index]) {
+      VectorizedBatchUtil.setNullColIsNullValue(out, outRow);
+    } else if (in instanceof LongColumnVector) {
+      ((LongColumnVector) out).vector[outRow] = ((LongColumnVector) in).vector[index];
+    } else if (in instanceof DoubleColumnVector) {
+      ((DoubleColumnVector) out).vector[outRow] = ((DoubleColumnVector) in).vector[index];
+    } else if (in instanceof BytesColumnVector) {
+      BytesColumnVector bytesIn = (BytesColumnVector) in;
+      ((BytesColumnVector) out).setRef(outRow,
+          bytesIn.vector[index], bytesIn.start[index], bytesIn.length[index]);
+    } else if (in instanceof DecimalColumnVector) {
+      ((DecimalColumnVector) out).vector[outRow].update(((DecimalColumnVector) in).vector[index]);
+    } else {
+      throw new HiveException("Unimplemented vector column type: " + in.getClass().getName());
+    }
+  }
+
   @Override
   public VectorizationContext getOuputVectorizationContext() {
     return vOutContext;
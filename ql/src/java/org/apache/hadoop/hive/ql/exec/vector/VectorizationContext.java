@@ -1579,6 +1579,18 @@ static String getNormalizedTypeName(String colType){
 
   public VectorAggregateExpression getAggregatorExpression(AggregationDesc desc)
       throws HiveException {
+    return getAggregatorExpression(desc, false);
+  }
+
+  /**
+   * Returns the vector aggregate for the aggregation.
+   * @param desc Aggregation.
+   * @param isReduceMergePartial Whether the aggregation merges the partial results of
+   *                             map-side aggregations, as the reduce side group by does.
+   *                             The partial result of count is merged by summing it.
+   */
+  public VectorAggregateExpression getAggregatorExpression(AggregationDesc desc,
+      boolean isReduceMergePartial) throws HiveException {
 
     ArrayList<ExprNodeDesc> paramDescList = desc.getParameters();
     VectorExpression[] vectorParams = new VectorExpression[paramDescList.size()];
@@ -1589,6 +1601,9 @@ public VectorAggregateExpression getAggregatorExpression(AggregationDesc desc)
     }
 
     String aggregateName = desc.getGenericUDAFName();
+    if (isReduceMergePartial && aggregateName.equalsIgnoreCase("count")) {
+      aggregateName = "sum";
+    }
     String inputType = null;
 
     if (paramDescList.size() > 0) {
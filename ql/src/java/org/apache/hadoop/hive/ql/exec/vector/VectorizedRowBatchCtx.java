@@ -89,6 +89,10 @@ public class VectorizedRowBatchCtx {
 
   private Map<Integer, String> columnTypeMap = null;
 
+  // Partition being read and its properties, when initialized from a split
+  private PartitionDesc partDesc;
+  private Properties partProps;
+
   /**
    * Constructor for VectorizedRowBatchCtx
    *
@@ -136,6 +140,22 @@ public void init(Configuration hiveConf, String fileKey,
     this.rawRowOI = rowOI;
   }
   
+  /**
+   * Initializes the VectorizedRowBatch context based on an arbitrary object inspector
+   * and the given scratch columns. Used on the reduce side, where the batches are
+   * filled from the shuffle input instead of a file.
+   * @param scratchColumnTypeMap
+   *          Vector types of the scratch columns, by column index
+   * @param rowOI
+   *          Object inspector that shapes the column types
+   */
+  public void init(Map<Integer, String> scratchColumnTypeMap,
+      StructObjectInspector rowOI) {
+    columnTypeMap = scratchColumnTypeMap;
+    this.rowOI= rowOI;
+    this.rawRowOI = rowOI;
+  }
+
 
   /**
    * Initializes VectorizedRowBatch context based on the
@@ -170,7 +190,8 @@ public void init(Configuration hiveConf, FileSplit split) throws ClassNotFoundEx
         .getMapRedWork(hiveConf).getMapWork().getScratchColumnVectorTypes()
         .get(partitionPath);
 
-    Properties partProps =
+    partDesc = part;
+    partProps =
         (part.getPartSpec() == null || part.getPartSpec().isEmpty()) ?
             part.getTableDesc().getProperties() : part.getProperties();
 
@@ -253,7 +274,30 @@ public void init(Configuration hiveConf, FileSplit split) throws ClassNotFoundEx
 
     colsToInclude = ColumnProjectionUtils.getReadColumnIDs(hiveConf);
   }
-  
+
+  /**
+   * @return the number of columns read from the file, i.e. the columns of the
+   *         batch that come before the partition columns
+   */
+  public int getDataColumnCount() {
+    return rawRowOI.getAllStructFieldRefs().size();
+  }
+
+  /**
+   * @return the partition of the split, when initialized from a split
+   */
+  public PartitionDesc getPartitionDesc() {
+    return partDesc;
+  }
+
+  /**
+   * @return the properties the deserializer was initialized with, when
+   *         initialized from a split
+   */
+  public Properties getPartitionProperties() {
+    return partProps;
+  }
+
   /**
    * Creates a Vectorized row batch and the column vectors.
    *
@@ -43,6 +43,7 @@ public abstract class AbstractFilterStringColLikeStringScalar extends VectorExpr
   private int colNum;
   private String pattern;
   transient Checker checker = null;
+  private transient DictionaryFilter dictionaryFilter = null;
 
   public AbstractFilterStringColLikeStringScalar() {
     super();
@@ -75,6 +76,7 @@ public void evaluate(VectorizedRowBatch batch) {
 
     if (checker == null) {
       checker = createChecker(pattern);
+      dictionaryFilter = new DictionaryFilter(checker);
     }
 
     if (childExpressions != null) {
@@ -94,6 +96,12 @@ public void evaluate(VectorizedRowBatch batch) {
       return;
     }
 
+    // Match each dictionary entry once and then filter by dictionary id.
+    if (DictionaryFilter.canFilter(inputColVector)) {
+      dictionaryFilter.filter(batch, inputColVector);
+      return;
+    }
+
     if (inputColVector.noNulls) {
       if (inputColVector.isRepeating) {
 
@@ -190,7 +198,7 @@ public String getOutputType() {
   /**
    * A Checker contains a pattern and checks whether a given string matches or not.
    */
-  public interface Checker {
+  public interface Checker extends DictionaryFilter.Predicate {
     /**
      * Checks whether the given string matches with its pattern.
      * @param byteS The byte array that contains the string
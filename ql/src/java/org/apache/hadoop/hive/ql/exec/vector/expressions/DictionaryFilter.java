@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector.expressions;
+
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.BytesDictionary;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+
+/**
+ * Filters a batch on a string column whose values come from a dictionary.
+ * The predicate is evaluated at most once per dictionary entry and the rows
+ * are then filtered by their dictionary ids. The results are kept until the
+ * column switches to a different dictionary, e.g. at the next ORC stripe.
+ */
+public class DictionaryFilter {
+
+  /**
+   * A predicate on a string value.
+   */
+  public interface Predicate {
+    boolean check(byte[] bytes, int start, int length);
+  }
+
+  private static final byte UNKNOWN = 0;
+  private static final byte MATCH = 1;
+  private static final byte NO_MATCH = 2;
+
+  private final Predicate predicate;
+  private BytesDictionary dictionary;
+  private byte[] results;
+
+  public DictionaryFilter(Predicate predicate) {
+    this.predicate = predicate;
+  }
+
+  /**
+   * Can the column be filtered by dictionary ids? Repeating columns are
+   * cheaper to check directly.
+   */
+  public static boolean canFilter(BytesColumnVector column) {
+    return column.dictionary != null && !column.isRepeating;
+  }
+
+  /**
+   * Remove the rows of the batch whose value is null or doesn't satisfy
+   * the predicate.
+   * @param batch the batch to filter
+   * @param column a column of the batch for which canFilter is true
+   */
+  public void filter(VectorizedRowBatch batch, BytesColumnVector column) {
+    setDictionary(column.dictionary);
+    int[] ids = column.dictionaryIds;
+    boolean[] nullPos = column.isNull;
+    int[] sel = batch.selected;
+    int n = batch.size;
+    int newSize = 0;
+    if (column.noNulls) {
+      if (batch.selectedInUse) {
+        for (int j = 0; j != n; j++) {
+          int i = sel[j];
+          if (matches(ids[i])) {
+            sel[newSize++] = i;
+          }
+        }
+      } else {
+        for (int i = 0; i != n; i++) {
+          if (matches(ids[i])) {
+            sel[newSize++] = i;
+          }
+        }
+      }
+    } else {
+      if (batch.selectedInUse) {
+        for (int j = 0; j != n; j++) {
+          int i = sel[j];
+          if (!nullPos[i] && matches(ids[i])) {
+            sel[newSize++] = i;
+          }
+        }
+      } else {
+        for (int i = 0; i != n; i++) {
+          if (!nullPos[i] && matches(ids[i])) {
+            sel[newSize++] = i;
+          }
+        }
+      }
+    }
+    if (batch.selectedInUse) {
+      batch.size = newSize;
+    } else if (newSize < n) {
+      batch.size = newSize;
+      batch.selectedInUse = true;
+    }
+  }
+
+  private void setDictionary(BytesDictionary newDictionary) {
+    if (newDictionary != dictionary) {
+      dictionary = newDictionary;
+      int size = newDictionary.size();
+      if (results == null || results.length < size) {
+        results = new byte[size];
+      } else {
+        Arrays.fill(results, 0, size, UNKNOWN);
+      }
+    }
+  }
+
+  private boolean matches(int id) {
+    byte result = results[id];
+    if (result == UNKNOWN) {
+      result = predicate.check(dictionary.getBuffer(), dictionary.getStart(id),
+          dictionary.getLength(id)) ? MATCH : NO_MATCH;
+      results[id] = result;
+    }
+    return result == MATCH;
+  }
+}
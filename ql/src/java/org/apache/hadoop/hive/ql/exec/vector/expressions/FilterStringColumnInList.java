@@ -45,6 +45,7 @@ public class FilterStringColumnInList extends VectorExpression implements IStrin
   // The set object containing the IN list. This is optimized for lookup
   // of the data type of the column.
   private transient CuckooSetBytes inSet;
+  private transient DictionaryFilter dictionaryFilter;
 
   public FilterStringColumnInList() {
     super();
@@ -69,6 +70,12 @@ public void evaluate(VectorizedRowBatch batch) {
     if (inSet == null) {
       inSet = new CuckooSetBytes(inListValues.length);
       inSet.load(inListValues);
+      dictionaryFilter = new DictionaryFilter(new DictionaryFilter.Predicate() {
+        @Override
+        public boolean check(byte[] bytes, int start, int length) {
+          return inSet.lookup(bytes, start, length);
+        }
+      });
     }
 
     BytesColumnVector inputColVector = (BytesColumnVector) batch.cols[inputCol];
@@ -84,6 +91,12 @@ public void evaluate(VectorizedRowBatch batch) {
       return;
     }
 
+    // Look up each dictionary entry once and then filter by dictionary id.
+    if (DictionaryFilter.canFilter(inputColVector)) {
+      dictionaryFilter.filter(batch, inputColVector);
+      return;
+    }
+
     if (inputColVector.noNulls) {
       if (inputColVector.isRepeating) {
 
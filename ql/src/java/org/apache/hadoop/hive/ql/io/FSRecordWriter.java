@@ -20,7 +20,9 @@
 
 import java.io.IOException;
 
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.serde2.SerDeStats;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.io.Writable;
 
 /**
@@ -50,4 +52,23 @@ public interface StatsProvidingRecordWriter extends FSRecordWriter{
     SerDeStats getStats();
   }
 
+  /**
+   * If a file format can write the column vectors of a row batch directly,
+   * the vectorized file sink hands it the batches instead of serializing
+   * each of the rows.
+   * VectorizedRecordWriter.
+   *
+   */
+  public interface VectorizedRecordWriter extends FSRecordWriter {
+    /**
+     * Write the selected rows of a batch.
+     * @param batch the rows to write
+     * @param inspector the object inspector of the serializer, which
+     *                  describes the rows of the file
+     * @throws IOException
+     */
+    void writeBatch(VectorizedRowBatch batch,
+                    ObjectInspector inspector) throws IOException;
+  }
+
 }
\ No newline at end of file
@@ -34,6 +34,7 @@
 import org.apache.hadoop.hive.io.HiveIOExceptionHandlerUtil;
 import org.apache.hadoop.hive.ql.exec.Utilities;
 import org.apache.hadoop.hive.ql.exec.FooterBuffer;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.IOContext.Comparison;
 import org.apache.hadoop.hive.ql.plan.PartitionDesc;
 import org.apache.hadoop.hive.ql.plan.TableDesc;
@@ -295,8 +296,11 @@ public boolean doNext(K key, V value) throws IOException {
        * If file contains header, skip header lines before reading the records.
        * If file contains footer, used a FooterBuffer to remove footer lines
        * at the end of the table file.
+       * Vectorized readers return batches of rows and skip the header lines
+       * themselves.
        **/
-      if (this.ioCxtRef.getCurrentBlockStart() == 0) {
+      if (this.ioCxtRef.getCurrentBlockStart() == 0
+          && !(value instanceof VectorizedRowBatch)) {
 
         // Check if the table file has header to skip.
         Path filePath = this.ioCxtRef.getInputPath();
@@ -0,0 +1,507 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io;
+
+import java.io.IOException;
+import java.nio.charset.CharacterCodingException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampUtils;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.lazy.LazyByte;
+import org.apache.hadoop.hive.serde2.lazy.LazyInteger;
+import org.apache.hadoop.hive.serde2.lazy.LazyLong;
+import org.apache.hadoop.hive.serde2.lazy.LazyShort;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe.SerDeParameters;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector.PrimitiveCategory;
+import org.apache.hadoop.hive.serde2.typeinfo.DecimalTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.HiveDecimalUtils;
+import org.apache.hadoop.hive.serde2.typeinfo.PrimitiveTypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.LineRecordReader;
+import org.apache.hadoop.mapred.RecordReader;
+
+/**
+ * Reads delimited text files into vectorized row batches. The lines are split
+ * into fields the same way LazyStruct does and each field is parsed straight
+ * into its column vector, without creating lazy objects or writables. Strings
+ * reference the copy of the lines kept for the batch instead of being copied
+ * one by one.
+ */
+public class VectorizedTextRecordReader implements RecordReader<NullWritable, VectorizedRowBatch> {
+
+  private static final double[] POWERS_OF_TEN = new double[23];
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; ++i) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private final LineRecordReader in;
+  private final LongWritable lineKey;
+  private final Text line;
+  private VectorizedRowBatchCtx rbCtx;
+  private boolean addPartitionCols = true;
+  private int headerLinesToSkip = 0;
+
+  private final byte separator;
+  private final boolean escaped;
+  private final byte escapeChar;
+  private final byte[] nullSequence;
+  private final boolean lastColumnTakesRest;
+  private final int numColumns;
+  // the type of each table column that is read, null for the others
+  private final PrimitiveCategory[] categories;
+  private final DecimalTypeInfo[] decimalTypes;
+  private int lastIncluded = -1;
+
+  // the lines of the current batch, referenced by the string columns
+  private byte[] buffer = new byte[64 * 1024];
+  private int bufferUsed = 0;
+
+  public VectorizedTextRecordReader(Configuration conf, FileSplit split)
+      throws IOException {
+    this.in = new LineRecordReader(conf, split);
+    this.lineKey = in.createKey();
+    this.line = in.createValue();
+
+    VectorizedRowBatch batch;
+    SerDeParameters serdeParams;
+    try {
+      rbCtx = new VectorizedRowBatchCtx();
+      rbCtx.init(conf, split);
+      batch = rbCtx.createVectorizedRowBatch();
+      serdeParams = LazySimpleSerDe.initSerdeParams(conf, rbCtx.getPartitionProperties(),
+          getClass().getName());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    if (split.getStart() == 0 && rbCtx.getPartitionDesc().getTableDesc() != null) {
+      headerLinesToSkip = Utilities.getHeaderCount(rbCtx.getPartitionDesc().getTableDesc());
+    }
+
+    separator = serdeParams.getSeparators()[0];
+    escaped = serdeParams.isEscaped();
+    escapeChar = serdeParams.getEscapeChar();
+    Text nullText = serdeParams.getNullSequence();
+    nullSequence = new byte[nullText.getLength()];
+    System.arraycopy(nullText.getBytes(), 0, nullSequence, 0, nullSequence.length);
+    lastColumnTakesRest = serdeParams.isLastColumnTakesRest();
+
+    List<TypeInfo> columnTypes = serdeParams.getColumnTypes();
+    numColumns = columnTypes.size();
+    categories = new PrimitiveCategory[numColumns];
+    decimalTypes = new DecimalTypeInfo[numColumns];
+    for (int i = 0; i < numColumns && i < batch.numCols; i++) {
+      if (batch.cols[i] == null) {
+        continue;
+      }
+      TypeInfo type = columnTypes.get(i);
+      if (type.getCategory() != Category.PRIMITIVE) {
+        throw new IOException("Vectorizaton is not supported for datatype:" + type);
+      }
+      categories[i] = ((PrimitiveTypeInfo) type).getPrimitiveCategory();
+      if (categories[i] == PrimitiveCategory.DECIMAL) {
+        decimalTypes[i] = (DecimalTypeInfo) type;
+      }
+      lastIncluded = i;
+    }
+  }
+
+  @Override
+  public boolean next(NullWritable key, VectorizedRowBatch value) throws IOException {
+    // Check and update partition cols if necessary. Ideally, this should be done
+    // in CreateValue as the partition is constant per split. But since Hive uses
+    // CombineHiveRecordReader and
+    // as this does not call CreateValue for each new RecordReader it creates, this check is
+    // required in next()
+    if (addPartitionCols) {
+      try {
+        rbCtx.addPartitionColsToBatch(value);
+      } catch (HiveException e) {
+        throw new IOException(e);
+      }
+      addPartitionCols = false;
+    }
+    value.selectedInUse = false;
+    for (int i = 0; i <= lastIncluded; i++) {
+      if (categories[i] != null) {
+        value.cols[i].noNulls = true;
+        value.cols[i].isRepeating = false;
+      }
+    }
+    bufferUsed = 0;
+    int row = 0;
+    while (row < VectorizedRowBatch.DEFAULT_SIZE && in.next(lineKey, line)) {
+      if (headerLinesToSkip > 0) {
+        headerLinesToSkip--;
+        continue;
+      }
+      parseLine(value, row++);
+    }
+    value.size = row;
+    return row > 0;
+  }
+
+  /**
+   * Splits the line into fields like LazyStruct and fills the row of the batch.
+   */
+  private void parseLine(VectorizedRowBatch batch, int row) {
+    int length = line.getLength();
+    if (bufferUsed + length > buffer.length) {
+      // the earlier rows of the batch keep referencing the old buffer
+      buffer = new byte[Math.max(buffer.length * 2, length)];
+      bufferUsed = 0;
+    }
+    System.arraycopy(line.getBytes(), 0, buffer, bufferUsed, length);
+    int end = bufferUsed + length;
+    int fieldBegin = bufferUsed;
+    int pos = bufferUsed;
+    bufferUsed = end;
+
+    int fieldId = 0;
+    while (fieldId <= lastIncluded) {
+      if (pos == end || buffer[pos] == separator) {
+        if (lastColumnTakesRest && fieldId == numColumns - 1) {
+          pos = end;
+        }
+        if (categories[fieldId] != null) {
+          setField(batch.cols[fieldId], fieldId, row, fieldBegin, pos - fieldBegin);
+        }
+        fieldId++;
+        if (pos == end) {
+          break;
+        }
+        fieldBegin = ++pos;
+      } else if (escaped && buffer[pos] == escapeChar && pos + 1 < end) {
+        // ignore the char after escape_char
+        pos += 2;
+      } else {
+        pos++;
+      }
+    }
+    // missing fields are nulls
+    for (; fieldId <= lastIncluded; fieldId++) {
+      if (categories[fieldId] != null) {
+        setNull(batch.cols[fieldId], row);
+      }
+    }
+  }
+
+  private void setField(ColumnVector col, int column, int row, int start, int length) {
+    if (isNullSequence(start, length)) {
+      setNull(col, row);
+      return;
+    }
+    try {
+      switch (categories[column]) {
+      case BOOLEAN:
+        if (matchesIgnoreCase(start, length, "true")) {
+          setLong(col, row, 1);
+        } else if (matchesIgnoreCase(start, length, "false")) {
+          setLong(col, row, 0);
+        } else {
+          setNull(col, row);
+        }
+        break;
+      case BYTE:
+        setLong(col, row, LazyByte.parseByte(buffer, start, length));
+        break;
+      case SHORT:
+        setLong(col, row, LazyShort.parseShort(buffer, start, length));
+        break;
+      case INT:
+        setLong(col, row, LazyInteger.parseInt(buffer, start, length));
+        break;
+      case LONG:
+        setLong(col, row, LazyLong.parseLong(buffer, start, length));
+        break;
+      case DATE: {
+        int days = parseDate(buffer, start, length);
+        if (days == Integer.MIN_VALUE) {
+          String s = decode(start, length);
+          if (s == null) {
+            setNull(col, row);
+            break;
+          }
+          days = DateWritable.dateToDays(Date.valueOf(s));
+        }
+        setLong(col, row, days);
+        break;
+      }
+      case TIMESTAMP: {
+        String s = new String(buffer, start, length, "US-ASCII");
+        setLong(col, row, TimestampUtils.getTimeNanoSec(Timestamp.valueOf(s)));
+        break;
+      }
+      case FLOAT: {
+        String s = decode(start, length);
+        if (s == null) {
+          setNull(col, row);
+        } else {
+          setDouble(col, row, Float.parseFloat(s));
+        }
+        break;
+      }
+      case DOUBLE: {
+        double d = parseDouble(buffer, start, length);
+        if (Double.isNaN(d)) {
+          String s = decode(start, length);
+          if (s == null) {
+            setNull(col, row);
+            break;
+          }
+          d = Double.parseDouble(s);
+        }
+        setDouble(col, row, d);
+        break;
+      }
+      case DECIMAL: {
+        String s = decode(start, length);
+        HiveDecimal dec = s == null ? null : HiveDecimal.create(s);
+        dec = dec == null ? null : HiveDecimalUtils.enforcePrecisionScale(dec, decimalTypes[column]);
+        if (dec == null) {
+          setNull(col, row);
+        } else {
+          DecimalColumnVector dcv = (DecimalColumnVector) col;
+          dcv.isNull[row] = false;
+          dcv.vector[row].update(dec.unscaledValue(), (short) dec.scale());
+        }
+        break;
+      }
+      case STRING: {
+        BytesColumnVector bcv = (BytesColumnVector) col;
+        bcv.isNull[row] = false;
+        bcv.setRef(row, buffer, start, escaped ? unescape(start, length) : length);
+        break;
+      }
+      default:
+        throw new RuntimeException("Vectorizaton is not supported for datatype:"
+            + categories[column]);
+      }
+    } catch (IllegalArgumentException e) {
+      // NumberFormatException included, the field is converted to null like the lazy objects do
+      setNull(col, row);
+    } catch (IOException e) {
+      setNull(col, row);
+    }
+  }
+
+  private static void setLong(ColumnVector col, int row, long value) {
+    col.isNull[row] = false;
+    ((LongColumnVector) col).vector[row] = value;
+  }
+
+  private static void setDouble(ColumnVector col, int row, double value) {
+    col.isNull[row] = false;
+    ((DoubleColumnVector) col).vector[row] = value;
+  }
+
+  private static void setNull(ColumnVector col, int row) {
+    col.noNulls = false;
+    col.isNull[row] = true;
+    if (col instanceof LongColumnVector) {
+      ((LongColumnVector) col).vector[row] = LongColumnVector.NULL_VALUE;
+    } else if (col instanceof DoubleColumnVector) {
+      ((DoubleColumnVector) col).vector[row] = DoubleColumnVector.NULL_VALUE;
+    }
+  }
+
+  private boolean isNullSequence(int start, int length) {
+    if (length != nullSequence.length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (buffer[start + i] != nullSequence[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean matchesIgnoreCase(int start, int length, String word) {
+    if (length != word.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (Character.toLowerCase(buffer[start + i]) != word.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String decode(int start, int length) {
+    try {
+      return Text.decode(buffer, start, length);
+    } catch (CharacterCodingException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Removes the escape characters of a string field in place, the same way
+   * LazyString does.
+   * @return the length of the unescaped field
+   */
+  private int unescape(int start, int length) {
+    int end = start + length;
+    int k = start;
+    for (int i = start; i < end; i++) {
+      byte b = buffer[i];
+      if (b != escapeChar || i == end - 1) {
+        buffer[k++] = b;
+      } else {
+        // get the next byte
+        i++;
+        buffer[k++] = buffer[i];
+      }
+    }
+    return k - start;
+  }
+
+  /**
+   * Parses plain decimal numbers with at most 15 digits, which a double
+   * holds exactly, so one division by a power of ten rounds the same way as
+   * Double.parseDouble.
+   * @return the value or NaN if the field needs the full parser
+   */
+  static double parseDouble(byte[] buffer, int start, int length) {
+    int end = start + length;
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+      negative = buffer[i] == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int fractionDigits = -1;
+    for (; i < end; i++) {
+      byte b = buffer[i];
+      if (b >= '0' && b <= '9') {
+        if (++digits > 15) {
+          return Double.NaN;
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        if (fractionDigits >= 0) {
+          fractionDigits++;
+        }
+      } else if (b == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+      } else {
+        return Double.NaN;
+      }
+    }
+    if (digits == 0) {
+      return Double.NaN;
+    }
+    double result = mantissa;
+    if (fractionDigits > 0) {
+      result /= POWERS_OF_TEN[fractionDigits];
+    }
+    return negative ? -result : result;
+  }
+
+  /**
+   * Parses dates in the yyyy-mm-dd form after the Gregorian reform. Days past
+   * the end of the month roll over into the next month, as with Date.valueOf.
+   * @return the days since the epoch or Integer.MIN_VALUE if the field needs
+   *         the full parser
+   */
+  static int parseDate(byte[] buffer, int start, int length) {
+    if (length != 10 || buffer[start + 4] != '-' || buffer[start + 7] != '-') {
+      return Integer.MIN_VALUE;
+    }
+    int year = parseDigits(buffer, start, 4);
+    int month = parseDigits(buffer, start + 5, 2);
+    int day = parseDigits(buffer, start + 8, 2);
+    if (year < 1600 || month < 1 || month > 12 || day < 1 || day > 31) {
+      return Integer.MIN_VALUE;
+    }
+    // days from the civil date, counting March as the first month of the year
+    int y = month <= 2 ? year - 1 : year;
+    int era = y / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146097 + dayOfEra - 719468 + day - 1;
+  }
+
+  private static int parseDigits(byte[] buffer, int start, int length) {
+    int result = 0;
+    for (int i = start; i < start + length; i++) {
+      byte b = buffer[i];
+      if (b < '0' || b > '9') {
+        return -1;
+      }
+      result = result * 10 + (b - '0');
+    }
+    return result;
+  }
+
+  @Override
+  public NullWritable createKey() {
+    return NullWritable.get();
+  }
+
+  @Override
+  public VectorizedRowBatch createValue() {
+    try {
+      return rbCtx.createVectorizedRowBatch();
+    } catch (HiveException e) {
+      throw new RuntimeException("Error creating a batch", e);
+    }
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return in.getPos();
+  }
+
+  @Override
+  public float getProgress() throws IOException {
+    return in.getProgress();
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,212 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hive.common.util.Murmur3;
+
+/**
+ * A bloom filter over the values of a column in one row group. The writer
+ * builds one per row index entry for the columns that are listed in the
+ * orc.bloom.filter.columns table property, and the reader uses them to skip
+ * the row groups that cannot contain the literal of an equality or IN
+ * predicate.
+ *
+ * Values are hashed once with Murmur3 and the positions of the bits are
+ * derived from the two halves of the 64 bit hash (Kirsch and Mitzenmacher,
+ * "Less Hashing, Same Performance: Building a Better Bloom Filter").
+ * Integer and date values are added as longs, floating point values as the
+ * bits of the double and strings and decimals as their UTF-8 bytes, so the
+ * literals of a predicate have to be converted the same way before testing.
+ */
+final class BloomFilter {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
+  private final long[] bits;
+  private final int numBits;
+  private final int numHashFunctions;
+
+  /**
+   * Create an empty bloom filter.
+   * @param expectedEntries the number of distinct values expected
+   * @param fpp the expected false positive probability
+   */
+  BloomFilter(long expectedEntries, double fpp) {
+    if (expectedEntries <= 0) {
+      throw new IllegalArgumentException("expectedEntries should be > 0");
+    }
+    if (fpp <= 0.0 || fpp >= 1.0) {
+      throw new IllegalArgumentException(
+          "False positive probability should be > 0.0 and < 1.0: " + fpp);
+    }
+    int words = (int) ((optimalNumOfBits(expectedEntries, fpp) + 63) / 64);
+    bits = new long[words];
+    numBits = words * 64;
+    numHashFunctions = optimalNumOfHashFunctions(expectedEntries, numBits);
+  }
+
+  /**
+   * Read a bloom filter from the file.
+   */
+  BloomFilter(OrcProto.BloomFilter bloomFilter) {
+    List<Long> bitset = bloomFilter.getBitsetList();
+    bits = new long[bitset.size()];
+    for (int i = 0; i < bits.length; ++i) {
+      bits[i] = bitset.get(i);
+    }
+    numBits = bits.length * 64;
+    numHashFunctions = bloomFilter.getNumHashFunctions();
+  }
+
+  static long optimalNumOfBits(long n, double p) {
+    return (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+  }
+
+  static int optimalNumOfHashFunctions(long n, long m) {
+    return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+  }
+
+  void addBytes(byte[] val, int offset, int length) {
+    addHash(Murmur3.hash64(val, offset, length, Murmur3.DEFAULT_SEED));
+  }
+
+  void addString(String val) {
+    byte[] bytes = val.getBytes(UTF8);
+    addBytes(bytes, 0, bytes.length);
+  }
+
+  void addLong(long val) {
+    addHash(Murmur3.hash64(val));
+  }
+
+  void addDouble(double val) {
+    addLong(doubleToLong(val));
+  }
+
+  boolean testBytes(byte[] val, int offset, int length) {
+    return testHash(Murmur3.hash64(val, offset, length, Murmur3.DEFAULT_SEED));
+  }
+
+  boolean testString(String val) {
+    byte[] bytes = val.getBytes(UTF8);
+    return testBytes(bytes, 0, bytes.length);
+  }
+
+  boolean testLong(long val) {
+    return testHash(Murmur3.hash64(val));
+  }
+
+  boolean testDouble(double val) {
+    return testLong(doubleToLong(val));
+  }
+
+  private static long doubleToLong(double val) {
+    // -0.0 and 0.0 compare as equal, so they must set the same bits
+    return Double.doubleToLongBits(val == 0.0 ? 0.0 : val);
+  }
+
+  private void addHash(long hash64) {
+    int hash1 = (int) hash64;
+    int hash2 = (int) (hash64 >>> 32);
+    for (int i = 1; i <= numHashFunctions; ++i) {
+      int combinedHash = hash1 + i * hash2;
+      // hashes are turned positive by flipping all of the bits
+      if (combinedHash < 0) {
+        combinedHash = ~combinedHash;
+      }
+      int pos = combinedHash % numBits;
+      bits[pos >>> 6] |= 1L << pos;
+    }
+  }
+
+  private boolean testHash(long hash64) {
+    int hash1 = (int) hash64;
+    int hash2 = (int) (hash64 >>> 32);
+    for (int i = 1; i <= numHashFunctions; ++i) {
+      int combinedHash = hash1 + i * hash2;
+      if (combinedHash < 0) {
+        combinedHash = ~combinedHash;
+      }
+      int pos = combinedHash % numBits;
+      if ((bits[pos >>> 6] & (1L << pos)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Clear all of the bits, so that the filter can be reused for the next
+   * row group.
+   */
+  void reset() {
+    Arrays.fill(bits, 0);
+  }
+
+  int getBitSize() {
+    return numBits;
+  }
+
+  int getNumHashFunctions() {
+    return numHashFunctions;
+  }
+
+  /**
+   * Get the number of bits that are set.
+   */
+  int getPopCount() {
+    int result = 0;
+    for (long word : bits) {
+      result += Long.bitCount(word);
+    }
+    return result;
+  }
+
+  /**
+   * Get the false positive probability given the bits that are set.
+   */
+  double getEffectiveFpp() {
+    return Math.pow((double) getPopCount() / numBits, numHashFunctions);
+  }
+
+  /**
+   * Get the size of the bits in memory.
+   */
+  long getSizeInBytes() {
+    return bits.length * 8L;
+  }
+
+  OrcProto.BloomFilter.Builder serialize() {
+    OrcProto.BloomFilter.Builder builder = OrcProto.BloomFilter.newBuilder();
+    builder.setNumHashFunctions(numHashFunctions);
+    for (long word : bits) {
+      builder.addBitset(word);
+    }
+    return builder;
+  }
+
+  @Override
+  public String toString() {
+    return "numHashFunctions: " + numHashFunctions + " bitCount: " + numBits +
+        " popCount: " + getPopCount() + " expectedFpp: " + getEffectiveFpp();
+  }
+}
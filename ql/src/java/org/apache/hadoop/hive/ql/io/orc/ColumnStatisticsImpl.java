@@ -125,6 +125,11 @@ void reset() {
 
     @Override
     void updateInteger(long value) {
+      updateInteger(value, 1);
+    }
+
+    @Override
+    void updateInteger(long value, int repetitions) {
       if (!hasMinimum) {
         hasMinimum = true;
         minimum = value;
@@ -135,10 +140,15 @@ void updateInteger(long value) {
         maximum = value;
       }
       if (!overflow) {
-        boolean wasPositive = sum >= 0;
-        sum += value;
-        if ((value >= 0) == wasPositive) {
-          overflow = (sum >= 0) != wasPositive;
+        long increment = value * repetitions;
+        if (increment / repetitions != value) {
+          overflow = true;
+        } else {
+          boolean wasPositive = sum >= 0;
+          sum += increment;
+          if ((increment >= 0) == wasPositive) {
+            overflow = (sum >= 0) != wasPositive;
+          }
         }
       }
     }
@@ -258,6 +268,11 @@ void reset() {
 
     @Override
     void updateDouble(double value) {
+      updateDouble(value, 1);
+    }
+
+    @Override
+    void updateDouble(double value, int repetitions) {
       if (!hasMinimum) {
         hasMinimum = true;
         minimum = value;
@@ -267,7 +282,7 @@ void updateDouble(double value) {
       } else if (value > maximum) {
         maximum = value;
       }
-      sum += value;
+      sum += value * repetitions;
     }
 
     @Override
@@ -366,6 +381,11 @@ void reset() {
 
     @Override
     void updateString(String value) {
+      updateString(value, 1);
+    }
+
+    @Override
+    void updateString(String value, int repetitions) {
       if (minimum == null) {
         minimum = value;
         maximum = value;
@@ -374,7 +394,7 @@ void updateString(String value) {
       } else if (maximum.compareTo(value) < 0) {
         maximum = value;
       }
-      sum += value.length();
+      sum += (long) value.length() * repetitions;
     }
 
     @Override
@@ -465,6 +485,11 @@ void updateBinary(BytesWritable value) {
       sum += value.getLength();
     }
 
+    @Override
+    void updateBinary(int length) {
+      sum += length;
+    }
+
     @Override
     void merge(ColumnStatisticsImpl other) {
       super.merge(other);
@@ -721,6 +746,10 @@ void increment() {
     count += 1;
   }
 
+  void increment(int values) {
+    count += values;
+  }
+
   void updateBoolean(boolean value) {
     throw new UnsupportedOperationException("Can't update boolean");
   }
@@ -729,18 +758,38 @@ void updateInteger(long value) {
     throw new UnsupportedOperationException("Can't update integer");
   }
 
+  /**
+   * Update the statistics with a value that repeats several times, which is
+   * how a repeating column vector is written.
+   */
+  void updateInteger(long value, int repetitions) {
+    throw new UnsupportedOperationException("Can't update integer");
+  }
+
   void updateDouble(double value) {
     throw new UnsupportedOperationException("Can't update double");
   }
 
+  void updateDouble(double value, int repetitions) {
+    throw new UnsupportedOperationException("Can't update double");
+  }
+
   void updateString(String value) {
     throw new UnsupportedOperationException("Can't update string");
   }
 
+  void updateString(String value, int repetitions) {
+    throw new UnsupportedOperationException("Can't update string");
+  }
+
   void updateBinary(BytesWritable value) {
     throw new UnsupportedOperationException("Can't update binary");
   }
 
+  void updateBinary(int length) {
+    throw new UnsupportedOperationException("Can't update binary");
+  }
+
   void updateDecimal(HiveDecimal value) {
     throw new UnsupportedOperationException("Can't update decimal");
   }
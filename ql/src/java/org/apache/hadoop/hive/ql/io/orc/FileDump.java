@@ -57,7 +57,9 @@ public static void main(String[] args) throws Exception {
         System.out.println("  Column " + i + ": " + stats[i].toString());
       }
       System.out.println("\nStripes:");
+      int stripeIx = -1;
       for(StripeInformation stripe: reader.getStripes()) {
+        ++stripeIx;
         long stripeStart = stripe.getOffset();
         System.out.println("  Stripe: " + stripe.toString());
         OrcProto.StripeFooter footer = rows.readStripeFooter(stripe);
@@ -82,6 +84,19 @@ public static void main(String[] args) throws Exception {
           }
           System.out.println(buf);
         }
+        OrcProto.BloomFilterIndex[] bloomFilters =
+            rows.readBloomFilterIndex(stripeIx);
+        for(int col=0; col < bloomFilters.length; ++col) {
+          if (bloomFilters[col] != null) {
+            System.out.println("    Bloom filters for column " + col + ":");
+            for(int entry=0; entry < bloomFilters[col].getBloomFilterCount();
+                ++entry) {
+              BloomFilter bloomFilter =
+                  new BloomFilter(bloomFilters[col].getBloomFilter(entry));
+              System.out.println("      Entry " + entry + ": " + bloomFilter);
+            }
+          }
+        }
       }
       rows.close();
     }
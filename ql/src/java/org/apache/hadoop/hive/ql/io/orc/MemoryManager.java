@@ -153,7 +153,18 @@ synchronized double getAllocationScale() {
    * @throws IOException
    */
   synchronized void addedRow() throws IOException {
-    if (++rowsAddedSinceCheck >= ROWS_BETWEEN_CHECKS) {
+    addedRow(1);
+  }
+
+  /**
+   * Give the memory manager an opportunity for doing a memory check after
+   * a batch of rows was added.
+   * @param rows the number of rows that were added
+   * @throws IOException
+   */
+  synchronized void addedRow(int rows) throws IOException {
+    rowsAddedSinceCheck += rows;
+    if (rowsAddedSinceCheck >= ROWS_BETWEEN_CHECKS) {
       notifyWriters();
     }
   }
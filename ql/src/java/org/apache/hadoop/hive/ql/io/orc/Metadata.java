@@ -42,4 +42,13 @@ public List<StripeStatistics> getStripeStatistics() {
     }
     return result;
   }
+
+  /**
+   * Return the serialized stripe level column statistics.
+   *
+   * @return list of stripe statistics
+   */
+  List<OrcProto.StripeStatistics> getStripeStatisticsList() {
+    return metadata.getStripeStatsList();
+  }
 }
@@ -117,7 +117,9 @@ public static enum OrcTableProperties {
     STRIPE_SIZE("orc.stripe.size"),
     ROW_INDEX_STRIDE("orc.row.index.stride"),
     ENABLE_INDEXES("orc.create.index"),
-    BLOCK_PADDING("orc.block.padding");
+    BLOCK_PADDING("orc.block.padding"),
+    BLOOM_FILTER_COLUMNS("orc.bloom.filter.columns"),
+    BLOOM_FILTER_FPP("orc.bloom.filter.fpp");
 
     private final String propName;
 
@@ -221,6 +223,8 @@ public static class WriterOptions {
     private MemoryManager memoryManagerValue;
     private Version versionValue;
     private WriterCallback callback;
+    private String bloomFilterColumnsValue;
+    private double bloomFilterFppValue;
 
     WriterOptions(Configuration conf) {
       configuration = conf;
@@ -243,6 +247,10 @@ public static class WriterOptions {
               .HIVE_ORC_DEFAULT_COMPRESS.varname,
               HiveConf.ConfVars
               .HIVE_ORC_DEFAULT_COMPRESS.defaultVal));
+      bloomFilterFppValue =
+          conf.getFloat(HiveConf.ConfVars.HIVE_ORC_DEFAULT_BLOOM_FILTER_FPP
+              .varname, HiveConf.ConfVars.HIVE_ORC_DEFAULT_BLOOM_FILTER_FPP
+              .defaultFloatVal);
       String versionName =
         conf.get(HiveConf.ConfVars.HIVE_ORC_WRITE_FORMAT.varname);
       if (versionName == null) {
@@ -308,6 +316,25 @@ public WriterOptions compress(CompressionKind value) {
       return this;
     }
 
+    /**
+     * Comma separated list of the top level columns that bloom filters are
+     * created for. A bloom filter is written for each row index entry, so
+     * that the row groups that can't contain the literal of an equality or
+     * IN predicate are skipped by the reader.
+     */
+    public WriterOptions bloomFilterColumns(String columns) {
+      bloomFilterColumnsValue = columns;
+      return this;
+    }
+
+    /**
+     * Sets the false positive probability of the bloom filters.
+     */
+    public WriterOptions bloomFilterFpp(double fpp) {
+      bloomFilterFppValue = fpp;
+      return this;
+    }
+
     /**
      * A required option that sets the object inspector for the rows. Used
      * to determine the schema for the file.
@@ -370,7 +397,8 @@ public static Writer createWriter(Path path,
                           opts.stripeSizeValue, opts.compressValue,
                           opts.bufferSizeValue, opts.rowIndexStrideValue,
                           opts.memoryManagerValue, opts.blockPaddingValue,
-                          opts.versionValue, opts.callback);
+                          opts.versionValue, opts.callback,
+                          opts.bloomFilterColumnsValue, opts.bloomFilterFppValue);
   }
 
   /**
@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.io.WritableComparable;
+
+/**
+ * The key of the records read by OrcFileStripeMergeRecordReader: the file a
+ * stripe comes from and the file level settings a stripe depends on.
+ */
+public class OrcFileKeyWrapper implements WritableComparable<OrcFileKeyWrapper> {
+
+  protected Path inputPath;
+  protected CompressionKind compression;
+  protected int compressBufferSize;
+  protected int rowIndexStride;
+  protected List<OrcProto.Type> types;
+  protected ObjectInspector objectInspector;
+
+  public OrcFileKeyWrapper() {
+  }
+
+  /**
+   * Checks whether the stripes of this file can be appended to a file with
+   * the settings of the given key.
+   */
+  public boolean isCompatible(OrcFileKeyWrapper other) {
+    return compression == other.compression
+        && compressBufferSize == other.compressBufferSize
+        && rowIndexStride == other.rowIndexStride
+        && types.equals(other.types);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    throw new RuntimeException("Not supported.");
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    throw new RuntimeException("Not supported.");
+  }
+
+  @Override
+  public int compareTo(OrcFileKeyWrapper o) {
+    return inputPath.compareTo(o.inputPath);
+  }
+
+  public Path getInputPath() {
+    return inputPath;
+  }
+
+  public void setInputPath(Path inputPath) {
+    this.inputPath = inputPath;
+  }
+
+  public CompressionKind getCompression() {
+    return compression;
+  }
+
+  public void setCompression(CompressionKind compression) {
+    this.compression = compression;
+  }
+
+  public int getCompressBufferSize() {
+    return compressBufferSize;
+  }
+
+  public void setCompressBufferSize(int compressBufferSize) {
+    this.compressBufferSize = compressBufferSize;
+  }
+
+  public int getRowIndexStride() {
+    return rowIndexStride;
+  }
+
+  public void setRowIndexStride(int rowIndexStride) {
+    this.rowIndexStride = rowIndexStride;
+  }
+
+  public List<OrcProto.Type> getTypes() {
+    return types;
+  }
+
+  public void setTypes(List<OrcProto.Type> types) {
+    this.types = types;
+  }
+
+  public ObjectInspector getObjectInspector() {
+    return objectInspector;
+  }
+
+  public void setObjectInspector(ObjectInspector objectInspector) {
+    this.objectInspector = objectInspector;
+  }
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import org.apache.hadoop.hive.ql.io.rcfile.merge.MergeMapper;
+import org.apache.hadoop.hive.shims.CombineHiveKey;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * Merges ORC files by appending their stripes, still compressed and encoded,
+ * to one output file per mapper. Only the file footer and the file
+ * statistics are written anew. All the input files must have been written
+ * with the same schema, compression, compression buffer size and row index
+ * stride.
+ */
+@SuppressWarnings("deprecation")
+public class OrcFileMergeMapper extends MergeMapper implements
+    Mapper<Object, OrcFileValueWrapper, Object, Object> {
+
+  Writer outWriter;
+  // the settings of the first input file, which all the others must match
+  OrcFileKeyWrapper fileSettings;
+
+  public OrcFileMergeMapper() {
+  }
+
+  @Override
+  public void map(Object k, OrcFileValueWrapper value,
+      OutputCollector<Object, Object> output, Reporter reporter)
+      throws IOException {
+    try {
+
+      OrcFileKeyWrapper key = null;
+      if (k instanceof CombineHiveKey) {
+        key = (OrcFileKeyWrapper) ((CombineHiveKey) k).getKey();
+      } else {
+        key = (OrcFileKeyWrapper) k;
+      }
+
+      fixOutputPath(key.getInputPath().getParent());
+
+      if (outWriter == null) {
+        fileSettings = new OrcFileKeyWrapper();
+        fileSettings.setCompression(key.getCompression());
+        fileSettings.setCompressBufferSize(key.getCompressBufferSize());
+        fileSettings.setRowIndexStride(key.getRowIndexStride());
+        fileSettings.setTypes(key.getTypes());
+        outWriter = OrcFile.createWriter(outPath,
+            OrcFile.writerOptions(jc)
+                .fileSystem(fs)
+                .compress(key.getCompression())
+                .bufferSize(key.getCompressBufferSize())
+                .rowIndexStride(key.getRowIndexStride())
+                .inspector(key.getObjectInspector()));
+      }
+
+      if (!key.isCompatible(fileSettings)) {
+        throw new IOException("OrcFileMerge failed because " +
+            key.getInputPath() + " uses a different schema, compression, " +
+            "compression buffer size or row index stride than the other input files.");
+      }
+
+      outWriter.appendStripe(value.getStripe(), 0, value.getLength(),
+          value.getStripeInformation(), value.getStripeStatistics());
+
+      if (value.getUserMetadata() != null) {
+        for (Map.Entry<String, ByteBuffer> entry : value.getUserMetadata().entrySet()) {
+          outWriter.addUserMetadata(entry.getKey(), entry.getValue());
+        }
+      }
+    } catch (Throwable e) {
+      this.exception = true;
+      close();
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  protected boolean closeWriter() throws IOException {
+    if (outWriter == null) {
+      return false;
+    }
+
+    outWriter.close();
+    outWriter = null;
+    return true;
+  }
+
+}
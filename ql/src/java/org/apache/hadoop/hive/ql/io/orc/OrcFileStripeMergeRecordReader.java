@@ -0,0 +1,163 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.RecordReader;
+
+/**
+ * Reads the stripes of an ORC file without decompressing or decoding them.
+ * A split returns the stripes that start within it, so each stripe is read
+ * by exactly one split.
+ */
+public class OrcFileStripeMergeRecordReader implements
+    RecordReader<OrcFileKeyWrapper, OrcFileValueWrapper> {
+
+  private final Reader reader;
+  private final Path path;
+  private final FileSystem fs;
+  private final List<StripeInformation> stripes;
+  private final List<OrcProto.StripeStatistics> stripeStatistics;
+  private final long start;
+  private final long end;
+  private FSDataInputStream file = null;
+  private int currentStripe;
+  private long bytesRead = 0;
+  private long totalBytes = 0;
+
+  public OrcFileStripeMergeRecordReader(Configuration conf, FileSplit split)
+      throws IOException {
+    path = split.getPath();
+    fs = path.getFileSystem(conf);
+    reader = OrcFile.createReader(path,
+        OrcFile.readerOptions(conf).filesystem(fs));
+    stripes = reader.getStripes();
+    stripeStatistics = reader.getMetadata().getStripeStatisticsList();
+    if (stripeStatistics.size() != stripes.size()) {
+      throw new IOException("Can't merge the stripes of " + path +
+          " because it has no stripe statistics");
+    }
+    start = split.getStart();
+    end = start + split.getLength();
+
+    currentStripe = stripes.size();
+    for (int i = stripes.size() - 1; i >= 0; --i) {
+      StripeInformation stripe = stripes.get(i);
+      if (stripe.getOffset() >= start && stripe.getOffset() < end) {
+        currentStripe = i;
+        totalBytes += stripe.getLength();
+      }
+    }
+  }
+
+  public Class<?> getKeyClass() {
+    return OrcFileKeyWrapper.class;
+  }
+
+  public Class<?> getValueClass() {
+    return OrcFileValueWrapper.class;
+  }
+
+  @Override
+  public OrcFileKeyWrapper createKey() {
+    return new OrcFileKeyWrapper();
+  }
+
+  @Override
+  public OrcFileValueWrapper createValue() {
+    return new OrcFileValueWrapper();
+  }
+
+  @Override
+  public boolean next(OrcFileKeyWrapper key, OrcFileValueWrapper value)
+      throws IOException {
+    if (currentStripe >= stripes.size() ||
+        stripes.get(currentStripe).getOffset() >= end) {
+      return false;
+    }
+    StripeInformation stripe = stripes.get(currentStripe);
+
+    key.inputPath = path;
+    key.compression = reader.getCompression();
+    key.compressBufferSize = reader.getCompressionSize();
+    key.rowIndexStride = reader.getRowIndexStride();
+    key.types = reader.getTypes();
+    key.objectInspector = reader.getObjectInspector();
+
+    int length = (int) stripe.getLength();
+    if (value.stripe == null || value.stripe.length < length) {
+      value.stripe = new byte[length];
+    }
+    if (file == null) {
+      file = fs.open(path);
+    }
+    file.readFully(stripe.getOffset(), value.stripe, 0, length);
+    value.length = length;
+    value.stripeInformation = stripe;
+    value.stripeStatistics = stripeStatistics.get(currentStripe);
+    value.userMetadata = null;
+    if (currentStripe == stripes.size() - 1) {
+      value.userMetadata = new HashMap<String, ByteBuffer>();
+      for (String name : reader.getMetadataKeys()) {
+        value.userMetadata.put(name, reader.getMetadataValue(name));
+      }
+    }
+
+    bytesRead += length;
+    currentStripe += 1;
+    return true;
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return start + bytesRead;
+  }
+
+  /**
+   * Return the progress within the input split.
+   *
+   * @return 0.0 to 1.0 of the input byte range
+   */
+  @Override
+  public float getProgress() throws IOException {
+    if (totalBytes == 0) {
+      return 0.0f;
+    }
+    return Math.min(1.0f, bytesRead / (float) totalBytes);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (file != null) {
+      file.close();
+      file = null;
+    }
+  }
+
+}
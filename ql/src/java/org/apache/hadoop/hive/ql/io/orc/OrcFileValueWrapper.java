@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import org.apache.hadoop.io.WritableComparable;
+
+/**
+ * The value of the records read by OrcFileStripeMergeRecordReader: the bytes
+ * of one stripe, as they are stored in the file, with its stripe information
+ * and statistics.
+ */
+public class OrcFileValueWrapper implements WritableComparable<OrcFileValueWrapper> {
+
+  protected byte[] stripe;
+  protected int length;
+  protected StripeInformation stripeInformation;
+  protected OrcProto.StripeStatistics stripeStatistics;
+  // the user metadata of the file, set on the last stripe of the file only
+  protected Map<String, ByteBuffer> userMetadata;
+
+  public OrcFileValueWrapper() {
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    throw new RuntimeException("Not supported.");
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    throw new RuntimeException("Not supported.");
+  }
+
+  @Override
+  public int compareTo(OrcFileValueWrapper o) {
+    long offset = stripeInformation.getOffset();
+    long otherOffset = o.stripeInformation.getOffset();
+    return offset < otherOffset ? -1 : (offset == otherOffset ? 0 : 1);
+  }
+
+  public byte[] getStripe() {
+    return stripe;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  public StripeInformation getStripeInformation() {
+    return stripeInformation;
+  }
+
+  public OrcProto.StripeStatistics getStripeStatistics() {
+    return stripeStatistics;
+  }
+
+  public Map<String, ByteBuffer> getUserMetadata() {
+    return userMetadata;
+  }
+
+}
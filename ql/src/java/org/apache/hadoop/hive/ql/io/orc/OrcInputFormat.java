@@ -28,6 +28,7 @@
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -124,6 +125,16 @@ public class OrcInputFormat  implements InputFormat<NullWritable, OrcStruct>,
    */
   private static final double MIN_INCLUDED_LOCATION = 0.80;
 
+  /**
+   * How often, in milliseconds, the progress of split generation is logged.
+   */
+  private static final long PROGRESS_INTERVAL = 10000;
+
+  /**
+   * How many files of a directory a thread generates the splits of.
+   */
+  static final int FILES_PER_SPLIT_TASK = 1000;
+
   private static class OrcRecordReader
       implements org.apache.hadoop.mapred.RecordReader<NullWritable, OrcStruct>,
       StatsProvidingRecordReader {
@@ -263,6 +274,21 @@ static void setIncludedColumns(Reader.Options options,
     }
   }
 
+  /**
+   * Evaluate a predicate against the minimum and maximum of a column. This
+   * lets other columnar formats apply the same range logic as ORC to their
+   * own statistics.
+   * @param predicate the leaf predicate
+   * @param min the minimum of the column, as a Long, Double, String,
+   *   HiveDecimal or DateWritable
+   * @param max the maximum of the column
+   * @return the set of truth values that may be returned for the predicate
+   */
+  public static TruthValue evaluatePredicateRange(PredicateLeaf predicate,
+                                                  Object min, Object max) {
+    return RecordReaderImpl.evaluatePredicateRange(predicate, min, max);
+  }
+
   static void setSearchArgument(Reader.Options options,
                                 List<OrcProto.Type> types,
                                 Configuration conf,
@@ -358,8 +384,17 @@ static class Context {
     private final long minSize;
     private final boolean footerInSplits;
     private final boolean cacheStripeDetails;
+    // split files on block boundaries when nothing needs their footers
+    private final boolean skipFooters;
     private final AtomicInteger cacheHitCounter = new AtomicInteger(0);
     private final AtomicInteger numFilesCounter = new AtomicInteger(0);
+
+    // the progress and the time spent in each phase, summed over threads
+    private final AtomicInteger directoriesListed = new AtomicInteger(0);
+    private final AtomicInteger filesListed = new AtomicInteger(0);
+    private final AtomicInteger footersRead = new AtomicInteger(0);
+    private final AtomicLong listingNanos = new AtomicLong(0);
+    private final AtomicLong footerNanos = new AtomicLong(0);
     private Throwable fatalError = null;
     private ValidTxnList transactionList;
 
@@ -383,6 +418,12 @@ static class Context {
           ConfVars.HIVE_ORC_COMPUTE_SPLITS_NUM_THREADS);
 
       cacheStripeDetails = (cacheStripeDetailsSize > 0);
+      // the footers are needed for predicate pushdown on the stripe stats
+      boolean hasPushdown = conf.get(TableScanDesc.FILTER_EXPR_CONF_STR) != null
+          || conf.get(SARG_PUSHDOWN) != null;
+      skipFooters = HiveConf.getBoolVar(conf,
+          ConfVars.HIVE_ORC_SPLITS_SKIP_FOOTERS) && !footerInSplits &&
+          !hasPushdown;
 
       threadPool = Executors.newFixedThreadPool(numThreads,
           new ThreadFactoryBuilder().setDaemon(true)
@@ -421,6 +462,23 @@ List<Throwable> getErrors() {
       return errors;
     }
 
+    /**
+     * Describe the progress of split generation and the time spent listing
+     * directories and reading footers.
+     */
+    String getProgress() {
+      int numSplits;
+      synchronized (splits) {
+        numSplits = splits.size();
+      }
+      return directoriesListed.get() + " directories listed in " +
+          TimeUnit.NANOSECONDS.toMillis(listingNanos.get()) + " ms, " +
+          filesListed.get() + " files, " + footersRead.get() +
+          " footers read in " +
+          TimeUnit.NANOSECONDS.toMillis(footerNanos.get()) + " ms, " +
+          numSplits + " splits";
+    }
+
     /**
      * Add a unit of work.
      * @param runnable the object to run
@@ -428,6 +486,7 @@ List<Throwable> getErrors() {
     synchronized void schedule(Runnable runnable) {
       if (fatalError == null) {
         if (runnable instanceof FileGenerator ||
+            runnable instanceof SplitBatchGenerator ||
             runnable instanceof SplitGenerator) {
           schedulers += 1;
         }
@@ -459,12 +518,18 @@ synchronized void notifyOnNonIOException(Throwable th) {
      */
     synchronized void waitForTasks() {
       try {
+        long lastReport = System.currentTimeMillis();
         while (schedulers != 0) {
-          wait();
+          wait(PROGRESS_INTERVAL);
           if (fatalError != null) {
             threadPool.shutdownNow();
             throw new RuntimeException("serious problem", fatalError);
           }
+          long now = System.currentTimeMillis();
+          if (schedulers != 0 && now - lastReport >= PROGRESS_INTERVAL) {
+            LOG.info("ORC split generation in progress: " + getProgress());
+            lastReport = now;
+          }
         }
         threadPool.shutdown();
         threadPool.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
@@ -476,29 +541,59 @@ synchronized void waitForTasks() {
 
   /**
    * Given a directory, get the list of files and blocks in those files.
-   * A thread is used for each directory.
+   * A thread is used for each directory, and the subdirectories of the
+   * original files are listed by threads of their own.
    */
   static final class FileGenerator implements Runnable {
     private final Context context;
     private final FileSystem fs;
     private final Path dir;
+    // a subdirectory of original files, listed without looking for a base
+    // or deltas
+    private final boolean isOriginalSubdir;
 
     FileGenerator(Context context, FileSystem fs, Path dir) {
+      this(context, fs, dir, false);
+    }
+
+    FileGenerator(Context context, FileSystem fs, Path dir,
+                  boolean isOriginalSubdir) {
       this.context = context;
       this.fs = fs;
       this.dir = dir;
+      this.isOriginalSubdir = isOriginalSubdir;
     }
 
-    private void scheduleSplits(FileStatus file,
+    /**
+     * Generate the splits of the files. The files past the first batch are
+     * handed to other threads, so that the splits of large directories are
+     * built in parallel.
+     */
+    private void scheduleSplits(List<FileStatus> files,
                                 boolean isOriginal,
                                 boolean hasBase,
-                                List<Long> deltas) throws IOException{
-      FileInfo info = null;
-      if (context.cacheStripeDetails) {
-        info = verifyCachedFileInfo(file);
+                                List<Long> deltas) throws IOException {
+      for(int start = FILES_PER_SPLIT_TASK; start < files.size();
+          start += FILES_PER_SPLIT_TASK) {
+        context.schedule(new SplitBatchGenerator(context, fs,
+            files.subList(start,
+                Math.min(files.size(), start + FILES_PER_SPLIT_TASK)),
+            isOriginal, hasBase, deltas));
+      }
+      new SplitBatchGenerator(context, fs,
+          files.subList(0, Math.min(files.size(), FILES_PER_SPLIT_TASK)),
+          isOriginal, hasBase, deltas).scheduleSplits();
+    }
+
+    private static boolean hasAcidDirectories(List<FileStatus> children) {
+      for(FileStatus child: children) {
+        String name = child.getPath().getName();
+        if (child.isDir() && (name.startsWith(AcidUtils.BASE_PREFIX) ||
+            name.startsWith(AcidUtils.DELTA_PREFIX))) {
+          return true;
+        }
       }
-      new SplitGenerator(context, fs, file, info, isOriginal, deltas,
-          hasBase).schedule();
+      return false;
     }
 
     /**
@@ -507,51 +602,143 @@ private void scheduleSplits(FileStatus file,
     @Override
     public void run() {
       try {
-        AcidUtils.Directory dirInfo = AcidUtils.getAcidState(dir,
-            context.conf, context.transactionList);
-        List<Long> deltas =
-            AcidUtils.serializeDeltas(dirInfo.getCurrentDirectories());
-        Path base = dirInfo.getBaseDirectory();
-        List<FileStatus> original = dirInfo.getOriginalFiles();
-
-        boolean[] covered = new boolean[context.numBuckets];
-        boolean isOriginal = base == null;
-
-        // if we have a base to work from
-        if (base != null || !original.isEmpty()) {
-
-          // find the base files (original or new style)
-          List<FileStatus> children = original;
-          if (base != null) {
-            children = SHIMS.listLocatedStatus(fs, base,
-               AcidUtils.hiddenFileFilter);
-          }
-
-          // for each child, schedule splits and mark off the bucket
+        long start = System.nanoTime();
+        List<FileStatus> children = SHIMS.listLocatedStatus(fs, dir,
+            AcidUtils.hiddenFileFilter);
+        if (isOriginalSubdir || !hasAcidDirectories(children)) {
+          // only original files, so list the subdirectories in parallel
+          List<FileStatus> files = new ArrayList<FileStatus>(children.size());
           for(FileStatus child: children) {
-            AcidOutputFormat.Options opts = AcidUtils.parseBaseBucketFilename
-                (child.getPath(), context.conf);
-            scheduleSplits(child, isOriginal, true, deltas);
-            int b = opts.getBucket();
-            // If the bucket is in the valid range, mark it as covered.
-            // I wish Hive actually enforced bucketing all of the time.
-            if (b >= 0 && b < covered.length) {
-              covered[b] = true;
+            if (child.isDir()) {
+              context.schedule(new FileGenerator(context, fs, child.getPath(),
+                  true));
+            } else {
+              files.add(child);
             }
           }
+          context.listingNanos.addAndGet(System.nanoTime() - start);
+          context.directoriesListed.incrementAndGet();
+          context.filesListed.addAndGet(files.size());
+          scheduleSplits(files, true, true, new ArrayList<Long>());
+        } else {
+          generateAcidSplits(start);
+        }
+      } catch (Throwable th) {
+        if (!(th instanceof IOException)) {
+          LOG.error("Unexpected Exception", th);
+        }
+        synchronized (context.errors) {
+          context.errors.add(th);
+        }
+        if (!(th instanceof IOException)) {
+          context.notifyOnNonIOException(th);
+        }
+      } finally {
+        context.decrementSchedulers();
+      }
+    }
+
+    /**
+     * Get the splits of a directory with a base or deltas, which are few and
+     * listed again to find the current ones.
+     */
+    private void generateAcidSplits(long start) throws IOException {
+      AcidUtils.Directory dirInfo = AcidUtils.getAcidState(dir,
+          context.conf, context.transactionList);
+      List<Long> deltas =
+          AcidUtils.serializeDeltas(dirInfo.getCurrentDirectories());
+      Path base = dirInfo.getBaseDirectory();
+      List<FileStatus> original = dirInfo.getOriginalFiles();
+
+      boolean[] covered = new boolean[context.numBuckets];
+      boolean isOriginal = base == null;
+
+      // if we have a base to work from
+      if (base != null || !original.isEmpty()) {
+
+        // find the base files (original or new style)
+        List<FileStatus> children = original;
+        if (base != null) {
+          children = SHIMS.listLocatedStatus(fs, base,
+             AcidUtils.hiddenFileFilter);
+        }
+        context.listingNanos.addAndGet(System.nanoTime() - start);
+        context.directoriesListed.incrementAndGet();
+        context.filesListed.addAndGet(children.size());
+
+        // for each child, mark off the bucket
+        for(FileStatus child: children) {
+          AcidOutputFormat.Options opts = AcidUtils.parseBaseBucketFilename
+              (child.getPath(), context.conf);
+          int b = opts.getBucket();
+          // If the bucket is in the valid range, mark it as covered.
+          // I wish Hive actually enforced bucketing all of the time.
+          if (b >= 0 && b < covered.length) {
+            covered[b] = true;
+          }
         }
+        scheduleSplits(children, isOriginal, true, deltas);
+      } else {
+        context.listingNanos.addAndGet(System.nanoTime() - start);
+        context.directoriesListed.incrementAndGet();
+      }
 
-        // Generate a split for any buckets that weren't covered.
-        // This happens in the case where a bucket just has deltas and no
-        // base.
-        if (!deltas.isEmpty()) {
-          for (int b = 0; b < context.numBuckets; ++b) {
-            if (!covered[b]) {
+      // Generate a split for any buckets that weren't covered.
+      // This happens in the case where a bucket just has deltas and no
+      // base.
+      if (!deltas.isEmpty()) {
+        for (int b = 0; b < context.numBuckets; ++b) {
+          if (!covered[b]) {
+            synchronized (context.splits) {
               context.splits.add(new OrcSplit(dir, b, 0, new String[0], null,
                   false, false, deltas));
             }
           }
         }
+      }
+    }
+  }
+
+  /**
+   * Generate the splits of a batch of files of a directory. The files that
+   * need their footers read are handed to other threads.
+   */
+  static final class SplitBatchGenerator implements Runnable {
+    private final Context context;
+    private final FileSystem fs;
+    private final List<FileStatus> files;
+    private final boolean isOriginal;
+    private final boolean hasBase;
+    private final List<Long> deltas;
+
+    SplitBatchGenerator(Context context, FileSystem fs,
+                        List<FileStatus> files,
+                        boolean isOriginal,
+                        boolean hasBase,
+                        List<Long> deltas) {
+      this.context = context;
+      this.fs = fs;
+      this.files = files;
+      this.isOriginal = isOriginal;
+      this.hasBase = hasBase;
+      this.deltas = deltas;
+    }
+
+    void scheduleSplits() throws IOException {
+      for(FileStatus file: files) {
+        FileInfo info = null;
+        if (context.cacheStripeDetails) {
+          info = verifyCachedFileInfo(file);
+        }
+        new SplitGenerator(context, fs, file, info, isOriginal, deltas,
+            hasBase).schedule();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        scheduleSplits();
       } catch (Throwable th) {
         if (!(th instanceof IOException)) {
           LOG.error("Unexpected Exception", th);
@@ -646,12 +833,46 @@ void schedule() throws IOException {
           context.splits.add(new OrcSplit(file.getPath(), 0, file.getLen(),
                 hosts, fileMetaInfo, isOriginal, hasBase, deltas));
         }
+      } else if (context.skipFooters && deltas.isEmpty()) {
+        // the deltas need the stripe boundaries to find the key ranges
+        createBlockSplits();
       } else {
         // if it requires a compute task
         context.schedule(this);
       }
     }
 
+    /**
+     * Divide the file into input splits on block boundaries without reading
+     * its footer. Each split reads the stripes that start in it, so a split
+     * may read past its end or be empty.
+     */
+    void createBlockSplits() throws IOException {
+      long currentOffset = -1;
+      long currentLength = 0;
+      for(BlockLocation block: locations) {
+        // if we are working on a split over the min size, cut it here.
+        if (currentOffset != -1 && currentLength > context.minSize) {
+          createSplit(currentOffset, currentLength, null);
+          currentOffset = -1;
+        }
+        if (currentOffset == -1) {
+          currentOffset = block.getOffset();
+          currentLength = block.getLength();
+        } else {
+          currentLength =
+              (block.getOffset() + block.getLength()) - currentOffset;
+        }
+        if (currentLength >= context.maxSize) {
+          createSplit(currentOffset, currentLength, null);
+          currentOffset = -1;
+        }
+      }
+      if (currentOffset != -1) {
+        createSplit(currentOffset, currentLength, null);
+      }
+    }
+
     @Override
     public String toString() {
       return "splitter(" + file.getPath() + ")";
@@ -837,6 +1058,7 @@ public void run() {
     }
 
     private void populateAndCacheStripeDetails() {
+      long start = System.nanoTime();
       try {
         Reader orcReader;
         if (fileInfo != null) {
@@ -848,6 +1070,7 @@ private void populateAndCacheStripeDetails() {
           if (fileMetaInfo == null && context.footerInSplits) {
             orcReader = OrcFile.createReader(file.getPath(),
                 OrcFile.readerOptions(context.conf).filesystem(fs));
+            context.footersRead.incrementAndGet();
             fileInfo.fileMetaInfo = ((ReaderImpl) orcReader).getFileMetaInfo();
             fileInfo.metadata = orcReader.getMetadata();
             fileInfo.types = orcReader.getTypes();
@@ -855,6 +1078,7 @@ private void populateAndCacheStripeDetails() {
         } else {
           orcReader = OrcFile.createReader(file.getPath(),
               OrcFile.readerOptions(context.conf).filesystem(fs));
+          context.footersRead.incrementAndGet();
           stripes = orcReader.getStripes();
           metadata = orcReader.getMetadata();
           types = orcReader.getTypes();
@@ -877,6 +1101,8 @@ private void populateAndCacheStripeDetails() {
         if (!(th instanceof IOException)) {
           context.notifyOnNonIOException(th);
         }
+      } finally {
+        context.footerNanos.addAndGet(System.nanoTime() - start);
       }
     }
 
@@ -934,6 +1160,7 @@ static List<OrcSplit> generateSplitsInfo(Configuration conf)
       LOG.info("FooterCacheHitRatio: " + context.cacheHitCounter.get() + "/"
           + context.numFilesCounter.get());
     }
+    LOG.info("ORC split generation done: " + context.getProgress());
 	  return context.splits;
   }
 
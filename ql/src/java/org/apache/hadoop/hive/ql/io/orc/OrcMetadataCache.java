@@ -0,0 +1,258 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.conf.HiveConf;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.protobuf.MessageLite;
+
+/**
+ * A cache of the parsed metadata of ORC files that is shared by all of the
+ * readers in the JVM, so that tasks that run one after another in a reused
+ * container don't read the same file tails, stripe footers and row indexes
+ * again. The entries of a file are keyed by its path, modification time and
+ * length, so a file that is rewritten gets new entries and the old ones age
+ * out of the cache.
+ * <p>
+ * The cache is bounded by the serialized size of the entries, which is set by
+ * hive.exec.orc.metadata.cache.max.bytes in the first configuration that
+ * enables it.
+ */
+public final class OrcMetadataCache {
+
+  private static final Log LOG = LogFactory.getLog(OrcMetadataCache.class);
+
+  private static OrcMetadataCache instance = null;
+
+  /**
+   * The identity of one version of a file.
+   */
+  static final class FileKey {
+    private final Path path;
+    private final long modificationTime;
+    private final long length;
+
+    FileKey(FileStatus status, long length) {
+      this.path = status.getPath();
+      this.modificationTime = status.getModificationTime();
+      this.length = length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof FileKey)) {
+        return false;
+      }
+      FileKey that = (FileKey) other;
+      return modificationTime == that.modificationTime &&
+          length == that.length && path.equals(that.path);
+    }
+
+    @Override
+    public int hashCode() {
+      return path.hashCode() * 31 + (int) (modificationTime ^ length);
+    }
+
+    @Override
+    public String toString() {
+      return path + " (" + modificationTime + ", " + length + ")";
+    }
+  }
+
+  private static enum Kind {
+    FILE_TAIL, STRIPE_FOOTER, ROW_INDEX, BLOOM_FILTER
+  }
+
+  private static final class Key {
+    private final FileKey file;
+    private final Kind kind;
+    private final long offset;
+    private final int column;
+
+    Key(FileKey file, Kind kind, long offset, int column) {
+      this.file = file;
+      this.kind = kind;
+      this.offset = offset;
+      this.column = column;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key that = (Key) other;
+      return kind == that.kind && offset == that.offset &&
+          column == that.column && file.equals(that.file);
+    }
+
+    @Override
+    public int hashCode() {
+      return ((file.hashCode() * 31 + kind.hashCode()) * 31 +
+          (int) offset) * 31 + column;
+    }
+  }
+
+  /**
+   * The parsed tail of a file.
+   */
+  static final class FileTail {
+    final ReaderImpl.FileMetaInfo fileMetaInfo;
+    final OrcProto.Metadata metadata;
+    final OrcProto.Footer footer;
+
+    FileTail(ReaderImpl.FileMetaInfo fileMetaInfo, OrcProto.Metadata metadata,
+             OrcProto.Footer footer) {
+      this.fileMetaInfo = fileMetaInfo;
+      this.metadata = metadata;
+      this.footer = footer;
+    }
+  }
+
+  private final Cache<Key, Object> cache;
+  private final AtomicLong hits = new AtomicLong(0);
+  private final AtomicLong misses = new AtomicLong(0);
+
+  private OrcMetadataCache(long maxBytes) {
+    cache = CacheBuilder.newBuilder().maximumWeight(maxBytes)
+        .weigher(new Weigher<Key, Object>() {
+          @Override
+          public int weigh(Key key, Object value) {
+            return getSize(value);
+          }
+        }).build();
+  }
+
+  /**
+   * Get the cache of the JVM.
+   * @param conf the configuration of the reader
+   * @return the cache or null if it is disabled
+   */
+  static OrcMetadataCache get(Configuration conf) {
+    if (conf == null) {
+      return null;
+    }
+    long maxBytes = HiveConf.getLongVar(conf,
+        HiveConf.ConfVars.HIVE_ORC_METADATA_CACHE_MAX_BYTES);
+    if (maxBytes <= 0) {
+      return null;
+    }
+    synchronized (OrcMetadataCache.class) {
+      if (instance == null) {
+        LOG.info("Creating ORC metadata cache of " + maxBytes + " bytes");
+        instance = new OrcMetadataCache(maxBytes);
+      }
+      return instance;
+    }
+  }
+
+  /**
+   * @return the number of lookups that found an entry in the cache of the
+   *   JVM, or 0 if it hasn't been created
+   */
+  public static synchronized long getHitCount() {
+    return instance == null ? 0 : instance.hits.get();
+  }
+
+  /**
+   * @return the number of lookups that didn't find an entry in the cache of
+   *   the JVM, or 0 if it hasn't been created
+   */
+  public static synchronized long getMissCount() {
+    return instance == null ? 0 : instance.misses.get();
+  }
+
+  /**
+   * Remove all of the entries from the cache of the JVM.
+   */
+  public static synchronized void invalidateAll() {
+    if (instance != null) {
+      instance.cache.invalidateAll();
+    }
+  }
+
+  private static int getSize(Object value) {
+    if (value instanceof FileTail) {
+      ByteBuffer buffer = ((FileTail) value).fileMetaInfo.footerBuffer;
+      return buffer.limit() - buffer.position();
+    }
+    return ((MessageLite) value).getSerializedSize();
+  }
+
+  private Object lookup(Key key) {
+    Object result = cache.getIfPresent(key);
+    if (result == null) {
+      misses.incrementAndGet();
+    } else {
+      hits.incrementAndGet();
+    }
+    return result;
+  }
+
+  FileTail getFileTail(FileKey file) {
+    return (FileTail) lookup(new Key(file, Kind.FILE_TAIL, 0, 0));
+  }
+
+  void putFileTail(FileKey file, FileTail tail) {
+    cache.put(new Key(file, Kind.FILE_TAIL, 0, 0), tail);
+  }
+
+  OrcProto.StripeFooter getStripeFooter(FileKey file, long stripeOffset) {
+    return (OrcProto.StripeFooter)
+        lookup(new Key(file, Kind.STRIPE_FOOTER, stripeOffset, 0));
+  }
+
+  void putStripeFooter(FileKey file, long stripeOffset,
+                       OrcProto.StripeFooter footer) {
+    cache.put(new Key(file, Kind.STRIPE_FOOTER, stripeOffset, 0), footer);
+  }
+
+  OrcProto.RowIndex getRowIndex(FileKey file, long stripeOffset, int column) {
+    return (OrcProto.RowIndex)
+        lookup(new Key(file, Kind.ROW_INDEX, stripeOffset, column));
+  }
+
+  void putRowIndex(FileKey file, long stripeOffset, int column,
+                   OrcProto.RowIndex index) {
+    cache.put(new Key(file, Kind.ROW_INDEX, stripeOffset, column), index);
+  }
+
+  OrcProto.BloomFilterIndex getBloomFilterIndex(FileKey file,
+                                                long stripeOffset,
+                                                int column) {
+    return (OrcProto.BloomFilterIndex)
+        lookup(new Key(file, Kind.BLOOM_FILTER, stripeOffset, column));
+  }
+
+  void putBloomFilterIndex(FileKey file, long stripeOffset, int column,
+                           OrcProto.BloomFilterIndex index) {
+    cache.put(new Key(file, Kind.BLOOM_FILTER, stripeOffset, column), index);
+  }
+}
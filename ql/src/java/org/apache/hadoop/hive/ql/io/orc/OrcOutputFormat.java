@@ -19,6 +19,7 @@
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.AcidOutputFormat;
 import org.apache.hadoop.hive.ql.io.AcidUtils;
 import org.apache.hadoop.hive.ql.io.FSRecordWriter;
@@ -54,7 +55,8 @@ public class OrcOutputFormat extends FileOutputFormat<NullWritable, OrcSerdeRow>
   private static class OrcRecordWriter
       implements RecordWriter<NullWritable, OrcSerdeRow>,
                  FSRecordWriter,
-                 FSRecordWriter.StatsProvidingRecordWriter {
+                 FSRecordWriter.StatsProvidingRecordWriter,
+                 FSRecordWriter.VectorizedRecordWriter {
     private Writer writer = null;
     private final Path path;
     private final OrcFile.WriterOptions options;
@@ -86,6 +88,16 @@ public void write(Writable row) throws IOException {
       writer.addRow(serdeRow.getRow());
     }
 
+    @Override
+    public void writeBatch(VectorizedRowBatch batch,
+                           ObjectInspector inspector) throws IOException {
+      if (writer == null) {
+        options.inspector(inspector);
+        writer = OrcFile.createWriter(path, options);
+      }
+      writer.addRowBatch(batch);
+    }
+
     @Override
     public void close(Reporter reporter) throws IOException {
       close(true);
@@ -165,6 +177,16 @@ private OrcFile.WriterOptions getOptions(JobConf conf, Properties props) {
       options.blockPadding(Boolean.parseBoolean(propVal));
     }
 
+    if ((propVal = getSettingFromPropsFallingBackToConf(
+        OrcFile.OrcTableProperties.BLOOM_FILTER_COLUMNS.getPropName(),props,conf)) != null){
+      options.bloomFilterColumns(propVal);
+    }
+
+    if ((propVal = getSettingFromPropsFallingBackToConf(
+        OrcFile.OrcTableProperties.BLOOM_FILTER_FPP.getPropName(),props,conf)) != null){
+      options.bloomFilterFpp(Double.parseDouble(propVal));
+    }
+
     return options;
   }
 
@@ -31,6 +31,7 @@
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcProto.Type;
@@ -66,6 +67,9 @@ final class ReaderImpl implements Reader {
   // memory footprint.
   private final ByteBuffer footerByteBuffer;
 
+  // the version of the file in the metadata cache or null if it is disabled
+  private final OrcMetadataCache.FileKey fileKey;
+
   static class StripeInformationImpl
       implements StripeInformation {
     private final OrcProto.StripeInformation stripe;
@@ -285,12 +289,43 @@ static void checkOrcVersion(Log log, Path path, List<Integer> version) {
     this.path = path;
     this.conf = options.getConfiguration();
 
+    // the metadata cache is validated by the modification time and length
+    OrcMetadataCache cache = OrcMetadataCache.get(conf);
+    long maxLength = options.getMaxLength();
+    OrcMetadataCache.FileTail cachedTail = null;
+    if (cache != null) {
+      FileStatus status = fs.getFileStatus(path);
+      if (maxLength == Long.MAX_VALUE) {
+        maxLength = status.getLen();
+      }
+      fileKey = new OrcMetadataCache.FileKey(status, maxLength);
+      if (options.getFileMetaInfo() == null) {
+        cachedTail = cache.getFileTail(fileKey);
+      }
+    } else {
+      fileKey = null;
+    }
+
+    if (cachedTail != null) {
+      FileMetaInfo footerMetaData = cachedTail.fileMetaInfo;
+      this.footerByteBuffer = footerMetaData.footerBuffer.duplicate();
+      this.compressionKind =
+          CompressionKind.valueOf(footerMetaData.compressionType);
+      this.codec = WriterImpl.createCodec(compressionKind);
+      this.bufferSize = footerMetaData.bufferSize;
+      this.metadataSize = footerMetaData.metadataSize;
+      this.metadata = cachedTail.metadata;
+      this.footer = cachedTail.footer;
+      this.inspector = OrcStruct.createObjectInspector(0,
+          footer.getTypesList());
+      return;
+    }
+
     FileMetaInfo footerMetaData;
     if (options.getFileMetaInfo() != null) {
       footerMetaData = options.getFileMetaInfo();
     } else {
-      footerMetaData = extractMetaInfoFromFooter(fs, path,
-          options.getMaxLength());
+      footerMetaData = extractMetaInfoFromFooter(fs, path, maxLength);
     }
     MetaInfoObjExtractor rInfo =
         new MetaInfoObjExtractor(footerMetaData.compressionType,
@@ -306,6 +341,13 @@ static void checkOrcVersion(Log log, Path path, List<Integer> version) {
     this.metadata = rInfo.metadata;
     this.footer = rInfo.footer;
     this.inspector = rInfo.inspector;
+    if (cache != null) {
+      cache.putFileTail(fileKey, new OrcMetadataCache.FileTail(
+          new FileMetaInfo(footerMetaData.compressionType,
+              footerMetaData.bufferSize, footerMetaData.metadataSize,
+              footerMetaData.footerBuffer.duplicate()),
+          metadata, footer));
+    }
   }
 
 
@@ -479,7 +521,7 @@ public RecordReader rowsOptions(Options options) throws IOException {
     }
     return new RecordReaderImpl(this.getStripes(), fileSystem, path,
         options, footer.getTypesList(), codec, bufferSize,
-        footer.getRowIndexStride(), conf);
+        footer.getRowIndexStride(), conf, fileKey);
   }
 
 
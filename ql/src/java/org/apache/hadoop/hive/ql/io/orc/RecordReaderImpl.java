@@ -17,10 +17,13 @@
  */
 package org.apache.hadoop.hive.ql.io.orc;
 
+import static org.apache.hadoop.hive.conf.HiveConf.ConfVars.HIVE_ORC_PREFETCH_MAX_BYTES;
+import static org.apache.hadoop.hive.conf.HiveConf.ConfVars.HIVE_ORC_PREFETCH_STRIPES;
 import static org.apache.hadoop.hive.conf.HiveConf.ConfVars.HIVE_ORC_ZEROCOPY;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.sql.Date;
@@ -28,9 +31,16 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.HashCodeBuilder;
@@ -45,6 +55,7 @@
 import org.apache.hadoop.hive.common.type.HiveVarchar;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.BytesDictionary;
 import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
 import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
@@ -71,6 +82,7 @@
 import org.apache.hadoop.io.Text;
 
 import com.google.common.collect.ComparisonChain;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 class RecordReaderImpl implements RecordReader {
 
@@ -96,6 +108,8 @@ class RecordReaderImpl implements RecordReader {
   List<BufferChunk> bufferChunks = new ArrayList<BufferChunk>(0);
   private final TreeReader reader;
   private final OrcProto.RowIndex[] indexes;
+  // the bloom filters of the columns in the sarg for the current stripe
+  private final OrcProto.BloomFilterIndex[] bloomFilterIndices;
   private final SearchArgument sarg;
   // the leaf predicates for the sarg
   private final List<PredicateLeaf> sargLeaves;
@@ -107,6 +121,11 @@ class RecordReaderImpl implements RecordReader {
 
   private final ByteBufferAllocatorPool pool = new ByteBufferAllocatorPool();
   private final ZeroCopyReaderShim zcr;
+  // reads the following stripes in the background, if enabled
+  private final StripePrefetcher prefetcher;
+  // the cache of stripe footers and indexes, if enabled, and the file's key
+  private final OrcMetadataCache metadataCache;
+  private final OrcMetadataCache.FileKey fileKey;
 
   // this is an implementation copied from ElasticByteBufferPool in hadoop-2,
   // which lacks a clear()/clean() operation
@@ -234,10 +253,13 @@ static int[] mapSargColumns(List<PredicateLeaf> sargLeaves,
                    CompressionCodec codec,
                    int bufferSize,
                    long strideRate,
-                   Configuration conf
+                   Configuration conf,
+                   OrcMetadataCache.FileKey fileKey
                   ) throws IOException {
     this.file = fileSystem.open(path);
     this.codec = codec;
+    this.fileKey = fileKey;
+    this.metadataCache = fileKey == null ? null : OrcMetadataCache.get(conf);
     this.types = types;
     this.bufferSize = bufferSize;
     this.included = options.getInclude();
@@ -280,10 +302,148 @@ static int[] mapSargColumns(List<PredicateLeaf> sargLeaves,
     totalRowCount = rows;
     reader = createTreeReader(path, 0, types, included, conf);
     indexes = new OrcProto.RowIndex[types.size()];
+    bloomFilterIndices = new OrcProto.BloomFilterIndex[types.size()];
     rowIndexStride = strideRate;
+    // zero copy reads hand out buffers of the main stream, so they can't be
+    // combined with reads from a second stream
+    if (conf != null && zcr == null && this.stripes.size() > 1 &&
+        HiveConf.getBoolVar(conf, HIVE_ORC_PREFETCH_STRIPES)) {
+      prefetcher = new StripePrefetcher(fileSystem, path,
+          HiveConf.getLongVar(conf, HIVE_ORC_PREFETCH_MAX_BYTES));
+    } else {
+      prefetcher = null;
+    }
     advanceToNextRow(0L);
   }
 
+  /**
+   * The footer, indexes and data of a stripe, which are everything that is
+   * read from the file to start reading the stripe.
+   */
+  private static final class StripeData {
+    final OrcProto.StripeFooter footer;
+    final OrcProto.RowIndex[] indexes;
+    final OrcProto.BloomFilterIndex[] bloomFilterIndices;
+    // the row groups that aren't skipped or null if all of them are read
+    final boolean[] includedRowGroups;
+    // the first row that isn't skipped
+    final long firstRow;
+    // the data ranges or null if the whole stripe is skipped
+    final List<BufferChunk> bufferChunks;
+
+    StripeData(OrcProto.StripeFooter footer, OrcProto.RowIndex[] indexes,
+               OrcProto.BloomFilterIndex[] bloomFilterIndices,
+               boolean[] includedRowGroups, long firstRow,
+               List<BufferChunk> bufferChunks) {
+      this.footer = footer;
+      this.indexes = indexes;
+      this.bloomFilterIndices = bloomFilterIndices;
+      this.includedRowGroups = includedRowGroups;
+      this.firstRow = firstRow;
+      this.bufferChunks = bufferChunks;
+    }
+  }
+
+  /**
+   * Reads the stripes after the current one on a background thread, so that
+   * decoding a stripe overlaps with reading the next ones. The stripes are
+   * read with their own stream, exactly as readStripe would read them, and
+   * the prefetched stripes are limited to a total size. If the reader seeks
+   * to another stripe, the prefetched stripes are dropped.
+   */
+  private final class StripePrefetcher {
+    private final FSDataInputStream prefetchFile;
+    private final ExecutorService executor;
+    private final long maxBytes;
+    private final Map<Integer, Future<StripeData>> pending =
+        new LinkedHashMap<Integer, Future<StripeData>>();
+    private long pendingBytes = 0;
+    private int nextStripe = 0;
+
+    StripePrefetcher(FileSystem fileSystem, Path path,
+                     long maxBytes) throws IOException {
+      this.prefetchFile = fileSystem.open(path);
+      this.maxBytes = maxBytes;
+      this.executor = Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setDaemon(true)
+              .setNameFormat("ORC-Prefetch-%d").build());
+    }
+
+    private long getStripeLength(int stripeIndex) {
+      StripeInformation stripe = stripes.get(stripeIndex);
+      return stripe.getIndexLength() + stripe.getDataLength() +
+          stripe.getFooterLength();
+    }
+
+    /**
+     * Get the stripe if it was prefetched and start prefetching the stripes
+     * after it.
+     * @param stripeIndex the stripe to get
+     * @return the stripe or null if it wasn't prefetched
+     * @throws IOException
+     */
+    StripeData take(int stripeIndex) throws IOException {
+      Future<StripeData> future = pending.remove(stripeIndex);
+      if (future == null) {
+        // we moved to a stripe that wasn't expected, so start over after it
+        cancel();
+        nextStripe = stripeIndex + 1;
+        schedule();
+        return null;
+      }
+      pendingBytes -= getStripeLength(stripeIndex);
+      schedule();
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted while reading stripe " +
+            stripeIndex);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        }
+        throw new IOException("Failed to read stripe " + stripeIndex, cause);
+      }
+    }
+
+    /**
+     * Queue the next stripes while they fit into the budget.
+     */
+    private void schedule() {
+      while (nextStripe < stripes.size() &&
+          pendingBytes + getStripeLength(nextStripe) <= maxBytes) {
+        final int stripeIndex = nextStripe++;
+        pendingBytes += getStripeLength(stripeIndex);
+        pending.put(stripeIndex, executor.submit(new Callable<StripeData>() {
+          @Override
+          public StripeData call() throws IOException {
+            return readStripeData(prefetchFile, stripeIndex);
+          }
+        }));
+      }
+    }
+
+    /**
+     * Drop the stripes that were queued. A stripe that is already being
+     * read is finished, but its data is dropped.
+     */
+    private void cancel() {
+      Iterator<Future<StripeData>> itr = pending.values().iterator();
+      while (itr.hasNext()) {
+        itr.next().cancel(false);
+        itr.remove();
+      }
+      pendingBytes = 0;
+    }
+
+    void close() throws IOException {
+      cancel();
+      executor.shutdownNow();
+      prefetchFile.close();
+    }
+  }
+
   private static final class PositionProviderImpl implements PositionProvider {
     private final OrcProto.RowIndexEntry entry;
     private int index = 0;
@@ -1430,6 +1590,7 @@ Object nextVector(Object previousVector, long batchSize) throws IOException {
 
       // Read present/isNull stream
       super.nextVector(result, batchSize);
+      result.dictionary = null;
 
       // Read lengths
       scratchlcv.isNull = result.isNull;
@@ -1503,9 +1664,11 @@ void skipRows(long items) throws IOException {
   private static class StringDictionaryTreeReader extends TreeReader {
     private DynamicByteArray dictionaryBuffer;
     private int[] dictionaryOffsets;
+    private int dictionarySize;
     private IntegerReader reader;
 
     private byte[] dictionaryBufferInBytesCache = null;
+    private BytesDictionary dictionaryCache = null;
     private final LongColumnVector scratchlcv;
 
     StringDictionaryTreeReader(Path path, int columnId, Configuration conf) {
@@ -1529,7 +1692,7 @@ void startStripe(Map<StreamName, InStream> streams,
       super.startStripe(streams, encodings);
 
       // read the dictionary blob
-      int dictionarySize = encodings.get(columnId).getDictionarySize();
+      dictionarySize = encodings.get(columnId).getDictionarySize();
       StreamName name = new StreamName(columnId,
           OrcProto.Stream.Kind.DICTIONARY_DATA);
       InStream in = streams.get(name);
@@ -1538,6 +1701,7 @@ void startStripe(Map<StreamName, InStream> streams,
         dictionaryBuffer.readAll(in);
         // Since its start of strip invalidate the cache.
         dictionaryBufferInBytesCache = null;
+        dictionaryCache = null;
       } else {
         dictionaryBuffer = null;
       }
@@ -1615,8 +1779,15 @@ Object nextVector(Object previousVector, long batchSize) throws IOException {
         // Load dictionaryBuffer into cache.
         if (dictionaryBufferInBytesCache == null) {
           dictionaryBufferInBytesCache = dictionaryBuffer.get();
+          dictionaryCache = new BytesDictionary(dictionaryBufferInBytesCache,
+              dictionaryOffsets, dictionarySize);
         }
 
+        // Pass the dictionary ids along with the strings, so that
+        // expressions can work once per dictionary entry.
+        result.setDictionary(dictionaryCache);
+        int[] ids = result.dictionaryIds;
+
         // Read string offsets
         scratchlcv.isNull = result.isNull;
         reader.nextVector(scratchlcv, batchSize);
@@ -1626,9 +1797,11 @@ Object nextVector(Object previousVector, long batchSize) throws IOException {
           // and set strings one by one
           for (int i = 0; i < batchSize; i++) {
             if (!scratchlcv.isNull[i]) {
-              offset = dictionaryOffsets[(int) scratchlcv.vector[i]];
-              length = getDictionaryEntryLength((int) scratchlcv.vector[i], offset);
+              int entry = (int) scratchlcv.vector[i];
+              offset = dictionaryOffsets[entry];
+              length = getDictionaryEntryLength(entry, offset);
               result.setRef(i, dictionaryBufferInBytesCache, offset, length);
+              ids[i] = entry;
             } else {
               // If the value is null then set offset and length to zero (null string)
               result.setRef(i, dictionaryBufferInBytesCache, 0, 0);
@@ -1638,13 +1811,16 @@ Object nextVector(Object previousVector, long batchSize) throws IOException {
           // If the value is repeating then just set the first value in the
           // vector and set the isRepeating flag to true. No need to iterate thru and
           // set all the elements to the same value
-          offset = dictionaryOffsets[(int) scratchlcv.vector[0]];
-          length = getDictionaryEntryLength((int) scratchlcv.vector[0], offset);
+          int entry = (int) scratchlcv.vector[0];
+          offset = dictionaryOffsets[entry];
+          length = getDictionaryEntryLength(entry, offset);
           result.setRef(0, dictionaryBufferInBytesCache, offset, length);
+          ids[0] = entry;
         }
         result.isRepeating = scratchlcv.isRepeating;
       } else {
         // Entire stripe contains null strings.
+        result.dictionary = null;
         result.isRepeating = true;
         result.noNulls = false;
         result.isNull[0] = true;
@@ -2155,17 +2331,35 @@ private static TreeReader createTreeReader(Path path,
 
   OrcProto.StripeFooter readStripeFooter(StripeInformation stripe
                                          ) throws IOException {
+    return readStripeFooter(file, stripe);
+  }
+
+  private OrcProto.StripeFooter readStripeFooter(FSDataInputStream in,
+                                                 StripeInformation stripe
+                                                 ) throws IOException {
+    if (metadataCache != null) {
+      OrcProto.StripeFooter result =
+          metadataCache.getStripeFooter(fileKey, stripe.getOffset());
+      if (result != null) {
+        return result;
+      }
+    }
     long offset = stripe.getOffset() + stripe.getIndexLength() +
         stripe.getDataLength();
     int tailLength = (int) stripe.getFooterLength();
 
     // read the footer
     ByteBuffer tailBuf = ByteBuffer.allocate(tailLength);
-    file.seek(offset);
-    file.readFully(tailBuf.array(), tailBuf.arrayOffset(), tailLength);
-    return OrcProto.StripeFooter.parseFrom(InStream.create("footer",
-        new ByteBuffer[]{tailBuf}, new long[]{0}, tailLength, codec,
-        bufferSize));
+    in.seek(offset);
+    in.readFully(tailBuf.array(), tailBuf.arrayOffset(), tailLength);
+    OrcProto.StripeFooter result =
+        OrcProto.StripeFooter.parseFrom(InStream.create("footer",
+            new ByteBuffer[]{tailBuf}, new long[]{0}, tailLength, codec,
+            bufferSize));
+    if (metadataCache != null) {
+      metadataCache.putStripeFooter(fileKey, stripe.getOffset(), result);
+    }
+    return result;
   }
 
   static enum Location {
@@ -2251,6 +2445,22 @@ static Object getMin(ColumnStatistics index) {
    */
   static TruthValue evaluatePredicate(OrcProto.ColumnStatistics index,
                                       PredicateLeaf predicate) {
+    return evaluatePredicate(index, null, predicate);
+  }
+
+  /**
+   * Evaluate a predicate with respect to the statistics and the bloom filter
+   * of the row group for the column that is referenced in the predicate.
+   * @param index the statistics for the column mentioned in the predicate
+   * @param bloomFilter the bloom filter of the column or null if the column
+   *   doesn't have one
+   * @param predicate the leaf predicate we need to evaluation
+   * @return the set of truth values that may be returned for the given
+   *   predicate.
+   */
+  static TruthValue evaluatePredicate(OrcProto.ColumnStatistics index,
+                                      BloomFilter bloomFilter,
+                                      PredicateLeaf predicate) {
     ColumnStatistics cs = ColumnStatisticsImpl.deserialize(index);
     Object minValue = getMin(cs);
     // if we didn't have any values, everything must have been null
@@ -2262,7 +2472,101 @@ static TruthValue evaluatePredicate(OrcProto.ColumnStatistics index,
       }
     }
     Object maxValue = getMax(cs);
-    return evaluatePredicateRange(predicate, minValue, maxValue);
+    TruthValue result = evaluatePredicateRange(predicate, minValue, maxValue);
+    if (bloomFilter != null && result.isNeeded()) {
+      result = evaluatePredicateBloomFilter(predicate, bloomFilter, minValue,
+          result);
+    }
+    return result;
+  }
+
+  /**
+   * Use the bloom filter to refine the truth value of an equality or IN
+   * predicate that the statistics couldn't rule out.
+   * @param predicate the leaf predicate
+   * @param bloomFilter the bloom filter of the row group
+   * @param statsObj a value of the column from the statistics, which is used
+   *   to find how the values were added to the bloom filter
+   * @param result the truth value from the statistics
+   * @return the refined truth value
+   */
+  static TruthValue evaluatePredicateBloomFilter(PredicateLeaf predicate,
+                                                 BloomFilter bloomFilter,
+                                                 Object statsObj,
+                                                 TruthValue result) {
+    switch (predicate.getOperator()) {
+      case NULL_SAFE_EQUALS:
+        if (predicate.getLiteral() != null &&
+            !mightContain(bloomFilter, predicate.getLiteral(), statsObj)) {
+          return TruthValue.NO;
+        }
+        return result;
+      case EQUALS:
+        if (!mightContain(bloomFilter, predicate.getLiteral(), statsObj)) {
+          return TruthValue.NO_NULL;
+        }
+        return result;
+      case IN:
+        for (Object arg : predicate.getLiteralList()) {
+          if (mightContain(bloomFilter, arg, statsObj)) {
+            return result;
+          }
+        }
+        return TruthValue.NO_NULL;
+      default:
+        return result;
+    }
+  }
+
+  /**
+   * Test the bloom filter for a literal. The literal is converted to the
+   * type of the column, which is found from the statistics object, and if
+   * the conversion isn't exact the value is assumed to be there.
+   */
+  private static boolean mightContain(BloomFilter bloomFilter, Object literal,
+                                      Object statsObj) {
+    if (literal == null) {
+      return true;
+    }
+    try {
+      if (statsObj instanceof Long) {
+        if (literal instanceof Long) {
+          return bloomFilter.testLong((Long) literal);
+        } else if (literal instanceof Double) {
+          double val = (Double) literal;
+          return val != (long) val || bloomFilter.testLong((long) val);
+        } else if (literal instanceof String) {
+          return bloomFilter.testLong(Long.parseLong(literal.toString()));
+        }
+      } else if (statsObj instanceof Double) {
+        if (literal instanceof Double) {
+          return bloomFilter.testDouble((Double) literal);
+        } else if (literal instanceof Long) {
+          return bloomFilter.testDouble(((Long) literal).doubleValue());
+        }
+      } else if (statsObj instanceof String) {
+        if (literal instanceof String) {
+          // char values are stored without the trailing spaces
+          String val = literal.toString();
+          return bloomFilter.testString(val) ||
+              bloomFilter.testString(StringUtils.stripEnd(val, null));
+        }
+      } else if (statsObj instanceof DateWritable) {
+        if (literal instanceof DateWritable) {
+          return bloomFilter.testLong(((DateWritable) literal).getDays());
+        }
+      } else if (statsObj instanceof HiveDecimal) {
+        if (literal instanceof HiveDecimal) {
+          return bloomFilter.testString(literal.toString());
+        } else if (literal instanceof Long) {
+          return bloomFilter.testString(
+              HiveDecimal.create((Long) literal).toString());
+        }
+      }
+    } catch (NumberFormatException nfe) {
+      // fall through, the literal can't be compared exactly
+    }
+    return true;
   }
 
   static TruthValue evaluatePredicateRange(PredicateLeaf predicate, Object min,
@@ -2423,28 +2727,38 @@ private static Object getConvertedStatsObj(Object statsObj, Object predObj) {
   }
 
   /**
-   * Pick the row groups that we need to load from the current stripe.
+   * Pick the row groups that we need to load from a stripe.
+   * @param stripe the stripe to pick the row groups of
+   * @param indexes the row indexes of the stripe
+   * @param bloomFilterIndices the bloom filters of the stripe
    * @return an array with a boolean for each row group or null if all of the
    *    row groups must be read.
    * @throws IOException
    */
-  private boolean[] pickRowGroups() throws IOException {
+  private boolean[] pickRowGroups(StripeInformation stripe,
+                                  OrcProto.RowIndex[] indexes,
+                                  OrcProto.BloomFilterIndex[] bloomFilterIndices
+                                  ) throws IOException {
     // if we don't have a sarg or indexes, we read everything
     if (sarg == null || rowIndexStride == 0) {
       return null;
     }
-    readRowIndex(currentStripe);
-    long rowsInStripe = stripes.get(currentStripe).getNumberOfRows();
+    long rowsInStripe = stripe.getNumberOfRows();
     int groupsInStripe = (int) ((rowsInStripe + rowIndexStride - 1) /
         rowIndexStride);
     boolean[] result = new boolean[groupsInStripe];
     TruthValue[] leafValues = new TruthValue[sargLeaves.size()];
+    BloomFilter[][] bloomFilters = readBloomFilters(bloomFilterIndices);
     for(int rowGroup=0; rowGroup < result.length; ++rowGroup) {
       for(int pred=0; pred < leafValues.length; ++pred) {
         if (filterColumns[pred] != -1) {
           OrcProto.ColumnStatistics stats =
               indexes[filterColumns[pred]].getEntry(rowGroup).getStatistics();
-          leafValues[pred] = evaluatePredicate(stats, sargLeaves.get(pred));
+          BloomFilter[] columnBloomFilters = bloomFilters[filterColumns[pred]];
+          BloomFilter bloomFilter = columnBloomFilters == null ? null :
+              columnBloomFilters[rowGroup];
+          leafValues[pred] = evaluatePredicate(stats, bloomFilter,
+              sargLeaves.get(pred));
           if (LOG.isDebugEnabled()) {
             LOG.debug("Stats = " + stats);
             LOG.debug("Setting " + sargLeaves.get(pred) + " to " +
@@ -2472,6 +2786,30 @@ private boolean[] pickRowGroups() throws IOException {
     return null;
   }
 
+  /**
+   * Read the bloom filters of the columns in the predicate, once for all of
+   * the row groups of the stripe and all of the predicates on the column.
+   * @param bloomFilterIndices the bloom filters of the stripe
+   * @return the bloom filters of each column and row group, null for the
+   *    columns without bloom filters
+   */
+  private BloomFilter[][] readBloomFilters(
+      OrcProto.BloomFilterIndex[] bloomFilterIndices) {
+    BloomFilter[][] result = new BloomFilter[bloomFilterIndices.length][];
+    for(int column: filterColumns) {
+      if (column != -1 && result[column] == null &&
+          bloomFilterIndices[column] != null) {
+        OrcProto.BloomFilterIndex index = bloomFilterIndices[column];
+        result[column] = new BloomFilter[index.getBloomFilterCount()];
+        for(int rowGroup=0; rowGroup < result[column].length; ++rowGroup) {
+          result[column][rowGroup] =
+              new BloomFilter(index.getBloomFilter(rowGroup));
+        }
+      }
+    }
+    return result;
+  }
+
   private void clearStreams() throws IOException {
     // explicit close of all streams to de-ref ByteBuffers
     for(InStream is: streams.values()) {
@@ -2494,54 +2832,95 @@ private void clearStreams() throws IOException {
    */
   private void readStripe() throws IOException {
     StripeInformation stripe = stripes.get(currentStripe);
-    stripeFooter = readStripeFooter(stripe);
     clearStreams();
+    StripeData data = null;
+    if (prefetcher != null) {
+      data = prefetcher.take(currentStripe);
+    }
+    if (data == null) {
+      data = readStripeData(file, currentStripe);
+    }
+    stripeFooter = data.footer;
     // setup the position in the stripe
     rowCountInStripe = stripe.getNumberOfRows();
-    rowInStripe = 0;
+    rowInStripe = data.firstRow;
     rowBaseInStripe = 0;
     for(int i=0; i < currentStripe; ++i) {
       rowBaseInStripe += stripes.get(i).getNumberOfRows();
     }
-    // reset all of the indexes
-    for(int i=0; i < indexes.length; ++i) {
-      indexes[i] = null;
+    System.arraycopy(data.indexes, 0, indexes, 0, indexes.length);
+    System.arraycopy(data.bloomFilterIndices, 0, bloomFilterIndices, 0,
+        bloomFilterIndices.length);
+    includedRowGroups = data.includedRowGroups;
+
+    // if we haven't skipped the whole stripe, set up the streams
+    if (rowInStripe < rowCountInStripe) {
+      bufferChunks = data.bufferChunks;
+      createStreams(stripeFooter.getStreamsList(), bufferChunks, included,
+          codec, bufferSize, streams);
+      reader.startStripe(streams, stripeFooter.getColumnsList());
+      // if we skipped the first row group, move the pointers forward
+      if (rowInStripe != 0) {
+        seekToRowEntry((int) (rowInStripe / rowIndexStride));
+      }
+    }
+  }
+
+  /**
+   * Read everything that is needed to start reading a stripe. This doesn't
+   * change the state of the reader, so that the stripes can be read ahead
+   * by the prefetcher.
+   * @param in the stream to read from
+   * @param stripeIndex the stripe to read
+   * @return the footer, indexes and data of the stripe
+   * @throws IOException
+   */
+  private StripeData readStripeData(FSDataInputStream in,
+                                    int stripeIndex) throws IOException {
+    StripeInformation stripe = stripes.get(stripeIndex);
+    OrcProto.StripeFooter footer = readStripeFooter(in, stripe);
+    OrcProto.RowIndex[] stripeIndexes = new OrcProto.RowIndex[types.size()];
+    OrcProto.BloomFilterIndex[] stripeBloomFilters =
+        new OrcProto.BloomFilterIndex[types.size()];
+    boolean[] rowGroups = null;
+    if (sarg != null && rowIndexStride != 0) {
+      readRowIndex(in, stripe, footer, stripeIndexes, stripeBloomFilters);
+      rowGroups = pickRowGroups(stripe, stripeIndexes, stripeBloomFilters);
     }
-    includedRowGroups = pickRowGroups();
 
     // move forward to the first unskipped row
-    if (includedRowGroups != null) {
-      while (rowInStripe < rowCountInStripe &&
-             !includedRowGroups[(int) (rowInStripe / rowIndexStride)]) {
-        rowInStripe = Math.min(rowCountInStripe, rowInStripe + rowIndexStride);
+    long rowCount = stripe.getNumberOfRows();
+    long firstRow = 0;
+    if (rowGroups != null) {
+      while (firstRow < rowCount &&
+             !rowGroups[(int) (firstRow / rowIndexStride)]) {
+        firstRow = Math.min(rowCount, firstRow + rowIndexStride);
       }
     }
 
     // if we haven't skipped the whole stripe, read the data
-    if (rowInStripe < rowCountInStripe) {
+    List<BufferChunk> chunks = null;
+    if (firstRow < rowCount) {
       // if we aren't projecting columns or filtering rows, just read it all
-      if (included == null && includedRowGroups == null) {
-        readAllDataStreams(stripe);
+      if (included == null && rowGroups == null) {
+        chunks = readAllDataStreams(in, stripe);
       } else {
-        readPartialDataStreams(stripe);
-      }
-      reader.startStripe(streams, stripeFooter.getColumnsList());
-      // if we skipped the first row group, move the pointers forward
-      if (rowInStripe != 0) {
-        seekToRowEntry((int) (rowInStripe / rowIndexStride));
+        chunks = readPartialDataStreams(in, stripe, footer, stripeIndexes,
+            rowGroups);
       }
     }
+    return new StripeData(footer, stripeIndexes, stripeBloomFilters,
+        rowGroups, firstRow, chunks);
   }
 
-  private void readAllDataStreams(StripeInformation stripe
-                                  ) throws IOException {
+  private List<BufferChunk> readAllDataStreams(FSDataInputStream in,
+                                               StripeInformation stripe
+                                               ) throws IOException {
     long start = stripe.getIndexLength();
     long end = start + stripe.getDataLength();
     // explicitly trigger 1 big read
     DiskRange[] ranges = new DiskRange[]{new DiskRange(start, end)};
-    bufferChunks = readDiskRanges(file, stripe.getOffset(), Arrays.asList(ranges));
-    List<OrcProto.Stream> streamDescriptions = stripeFooter.getStreamsList();
-    createStreams(streamDescriptions, bufferChunks, null, codec, bufferSize, streams);
+    return readDiskRanges(in, stripe.getOffset(), Arrays.asList(ranges));
   }
 
   /**
@@ -2905,13 +3284,15 @@ static void createStreams(List<OrcProto.Stream> streamDescriptions,
     }
   }
 
-  private void readPartialDataStreams(StripeInformation stripe
-                                      ) throws IOException {
-    List<OrcProto.Stream> streamList = stripeFooter.getStreamsList();
+  private List<BufferChunk> readPartialDataStreams(FSDataInputStream in,
+      StripeInformation stripe, OrcProto.StripeFooter footer,
+      OrcProto.RowIndex[] indexes, boolean[] includedRowGroups
+      ) throws IOException {
+    List<OrcProto.Stream> streamList = footer.getStreamsList();
     List<DiskRange> chunks =
         planReadPartialDataStreams(streamList,
             indexes, included, includedRowGroups, codec != null,
-            stripeFooter.getColumnsList(), types, bufferSize);
+            footer.getColumnsList(), types, bufferSize);
     if (LOG.isDebugEnabled()) {
       LOG.debug("chunks = " + stringifyDiskRanges(chunks));
     }
@@ -2919,9 +3300,7 @@ private void readPartialDataStreams(StripeInformation stripe
     if (LOG.isDebugEnabled()) {
       LOG.debug("merge = " + stringifyDiskRanges(chunks));
     }
-    bufferChunks = readDiskRanges(file, stripe.getOffset(), chunks);
-    createStreams(streamList, bufferChunks, included, codec, bufferSize,
-        streams);
+    return readDiskRanges(in, stripe.getOffset(), chunks);
   }
 
   @Override
@@ -3056,6 +3435,9 @@ public VectorizedRowBatch nextBatch(VectorizedRowBatch previous) throws IOExcept
   public void close() throws IOException {
     clearStreams();
     pool.clear();
+    if (prefetcher != null) {
+      prefetcher.close();
+    }
     file.close();
   }
 
@@ -3086,32 +3468,118 @@ private int findStripe(long rowNumber) {
   }
 
   OrcProto.RowIndex[] readRowIndex(int stripeIndex) throws IOException {
-    long offset = stripes.get(stripeIndex).getOffset();
-    OrcProto.StripeFooter stripeFooter;
-    OrcProto.RowIndex[] indexes;
     // if this is the current stripe, use the cached objects.
     if (stripeIndex == currentStripe) {
-      stripeFooter = this.stripeFooter;
-      indexes = this.indexes;
-    } else {
-      stripeFooter = readStripeFooter(stripes.get(stripeIndex));
-      indexes = new OrcProto.RowIndex[this.indexes.length];
+      readRowIndex(file, stripes.get(stripeIndex), stripeFooter, indexes,
+          bloomFilterIndices);
+      return indexes;
     }
+    OrcProto.RowIndex[] result = new OrcProto.RowIndex[indexes.length];
+    readRowIndex(file, stripes.get(stripeIndex),
+        readStripeFooter(stripes.get(stripeIndex)), result, null);
+    return result;
+  }
+
+  /**
+   * Read the row indexes of the included columns that haven't been read yet.
+   * @param in the stream to read from
+   * @param stripe the stripe to read the indexes of
+   * @param stripeFooter the footer of the stripe
+   * @param indexes the row index of each column, which are filled in
+   * @param bloomFilterIndices if not null, the bloom filters of the columns
+   *   in the sarg are filled in, since they are only needed to pick the row
+   *   groups
+   * @throws IOException
+   */
+  private void readRowIndex(FSDataInputStream in,
+                            StripeInformation stripe,
+                            OrcProto.StripeFooter stripeFooter,
+                            OrcProto.RowIndex[] indexes,
+                            OrcProto.BloomFilterIndex[] bloomFilterIndices
+                            ) throws IOException {
+    long offset = stripe.getOffset();
     for(OrcProto.Stream stream: stripeFooter.getStreamsList()) {
       if (stream.getKind() == OrcProto.Stream.Kind.ROW_INDEX) {
         int col = stream.getColumn();
         if ((included == null || included[col]) && indexes[col] == null) {
-          byte[] buffer = new byte[(int) stream.getLength()];
-          file.seek(offset);
-          file.readFully(buffer);
-          indexes[col] = OrcProto.RowIndex.parseFrom(InStream.create("index",
-              new ByteBuffer[] {ByteBuffer.wrap(buffer)}, new long[]{0},
-              stream.getLength(), codec, bufferSize));
+          if (metadataCache != null) {
+            indexes[col] = metadataCache.getRowIndex(fileKey,
+                stripe.getOffset(), col);
+          }
+          if (indexes[col] == null) {
+            indexes[col] = OrcProto.RowIndex.parseFrom(
+                readIndexStream(in, offset, stream));
+            if (metadataCache != null) {
+              metadataCache.putRowIndex(fileKey, stripe.getOffset(), col,
+                  indexes[col]);
+            }
+          }
+        }
+      } else if (stream.getKind() == OrcProto.Stream.Kind.BLOOM_FILTER &&
+          bloomFilterIndices != null && isFilterColumn(stream.getColumn())) {
+        int col = stream.getColumn();
+        if (bloomFilterIndices[col] == null) {
+          if (metadataCache != null) {
+            bloomFilterIndices[col] = metadataCache.getBloomFilterIndex(
+                fileKey, stripe.getOffset(), col);
+          }
+          if (bloomFilterIndices[col] == null) {
+            bloomFilterIndices[col] = OrcProto.BloomFilterIndex.parseFrom(
+                readIndexStream(in, offset, stream));
+            if (metadataCache != null) {
+              metadataCache.putBloomFilterIndex(fileKey, stripe.getOffset(),
+                  col, bloomFilterIndices[col]);
+            }
+          }
         }
       }
       offset += stream.getLength();
     }
-    return indexes;
+  }
+
+  /**
+   * Read the bloom filters of all of the columns in a stripe.
+   * @param stripeIndex the stripe to read
+   * @return the bloom filter index of each column, or null for the columns
+   *   without bloom filters
+   * @throws IOException
+   */
+  OrcProto.BloomFilterIndex[] readBloomFilterIndex(int stripeIndex
+                                                   ) throws IOException {
+    long offset = stripes.get(stripeIndex).getOffset();
+    OrcProto.StripeFooter stripeFooter =
+        readStripeFooter(stripes.get(stripeIndex));
+    OrcProto.BloomFilterIndex[] result =
+        new OrcProto.BloomFilterIndex[bloomFilterIndices.length];
+    for(OrcProto.Stream stream: stripeFooter.getStreamsList()) {
+      if (stream.getKind() == OrcProto.Stream.Kind.BLOOM_FILTER) {
+        result[stream.getColumn()] = OrcProto.BloomFilterIndex.parseFrom(
+            readIndexStream(file, offset, stream));
+      }
+      offset += stream.getLength();
+    }
+    return result;
+  }
+
+  private InStream readIndexStream(FSDataInputStream in, long offset,
+                                   OrcProto.Stream stream) throws IOException {
+    byte[] buffer = new byte[(int) stream.getLength()];
+    in.seek(offset);
+    in.readFully(buffer);
+    return InStream.create("index",
+        new ByteBuffer[] {ByteBuffer.wrap(buffer)}, new long[]{0},
+        stream.getLength(), codec, bufferSize);
+  }
+
+  private boolean isFilterColumn(int column) {
+    if (filterColumns != null) {
+      for(int filterColumn: filterColumns) {
+        if (filterColumn == column) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   private void seekToRowEntry(int rowEntry) throws IOException {
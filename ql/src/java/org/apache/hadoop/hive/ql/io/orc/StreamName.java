@@ -74,6 +74,7 @@ public Area getArea() {
   public static Area getArea(OrcProto.Stream.Kind kind) {
     switch (kind) {
       case ROW_INDEX:
+      case BLOOM_FILTER:
       case DICTIONARY_COUNT:
         return Area.INDEX;
       default:
@@ -38,6 +38,22 @@ public StringRedBlackTree(int initialCapacity) {
 
   public int add(String value) {
     newKey.set(value);
+    return addNewKey();
+  }
+
+  /**
+   * Add the UTF-8 bytes of a string without decoding them first.
+   * @param bytes the buffer that holds the string
+   * @param offset the offset of the string in the buffer
+   * @param length the number of bytes in the string
+   * @return the number of the key, which is also returned for duplicates
+   */
+  public int add(byte[] bytes, int offset, int length) {
+    newKey.set(bytes, offset, length);
+    return addNewKey();
+  }
+
+  private int addNewKey() {
     // if the key is new, add it to our byteArray and store the offset & length
     if (add()) {
       int len = newKey.getLength();
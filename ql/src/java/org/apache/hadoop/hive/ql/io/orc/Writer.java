@@ -21,6 +21,8 @@
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+
 /**
  * The interface for writing ORC files.
  */
@@ -41,6 +43,17 @@ public interface Writer {
    */
   void addRow(Object row) throws IOException;
 
+  /**
+   * Add a batch of rows to the ORC file. The projected columns of the batch
+   * are written as the fields of the file's struct, in order, taking the
+   * selected rows of the batch into account. Column vectors only hold
+   * primitive values, so the file can't have struct, list, map or union
+   * columns.
+   * @param batch the rows to add
+   * @throws IOException
+   */
+  void addRowBatch(VectorizedRowBatch batch) throws IOException;
+
   /**
    * Flush all of the buffers and close the file. No methods on this writer
    * should be called afterwards.
@@ -72,4 +85,22 @@ public interface Writer {
    * @return the offset that would be a valid end location for an ORC file
    */
   long writeIntermediateFooter() throws IOException;
+
+  /**
+   * Append a stripe that was copied, still encoded and compressed, from
+   * another ORC file. The stripe must have been written with the same schema,
+   * compression kind, compression buffer size and row index stride as this
+   * writer. Any buffered rows are flushed into their own stripe first, and
+   * the file statistics are updated from the given stripe statistics.
+   * @param stripe the bytes of the stripe: index, data and stripe footer
+   * @param offset the offset of the stripe in the array
+   * @param length the length of the stripe
+   * @param stripeInfo the stripe information from the source file
+   * @param stripeStatistics the stripe statistics from the source file
+   * @throws IOException
+   */
+  void appendStripe(byte[] stripe, int offset, int length,
+                    StripeInformation stripeInfo,
+                    OrcProto.StripeStatistics stripeStatistics
+                    ) throws IOException;
 }
@@ -21,10 +21,13 @@
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeMap;
 
 import com.google.common.annotations.VisibleForTesting;
@@ -36,6 +39,13 @@
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampUtils;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.orc.OrcProto.RowIndexEntry;
 import org.apache.hadoop.hive.ql.io.orc.OrcProto.StripeStatistics;
 import org.apache.hadoop.hive.ql.io.orc.OrcProto.Type;
@@ -91,6 +101,7 @@ class WriterImpl implements Writer, MemoryManager.Callback {
 
   private static final int HDFS_BUFFER_SIZE = 256 * 1024;
   private static final int MIN_ROW_INDEX_STRIDE = 1000;
+  private static final Charset UTF8 = Charset.forName("UTF-8");
 
   // HDFS requires blocks < 2GB and multiples of 512, so pick 1.5GB
   private static final long MAX_BLOCK_SIZE = 1536 * 1024 * 1024;
@@ -134,6 +145,8 @@ class WriterImpl implements Writer, MemoryManager.Callback {
   private final Configuration conf;
   private final OrcFile.WriterCallback callback;
   private final OrcFile.WriterContext callbackContext;
+  private final boolean[] bloomFilterColumns;
+  private final double bloomFilterFpp;
 
   WriterImpl(FileSystem fs,
              Path path,
@@ -146,7 +159,9 @@ class WriterImpl implements Writer, MemoryManager.Callback {
              MemoryManager memoryManager,
              boolean addBlockPadding,
              OrcFile.Version version,
-             OrcFile.WriterCallback callback) throws IOException {
+             OrcFile.WriterCallback callback,
+             String bloomFilterColumnNames,
+             double bloomFilterFpp) throws IOException {
     this.fs = fs;
     this.path = path;
     this.conf = conf;
@@ -173,6 +188,9 @@ public Writer getWriter() {
     this.memoryManager = memoryManager;
     buildIndex = rowIndexStride > 0;
     codec = createCodec(compress);
+    this.bloomFilterFpp = bloomFilterFpp;
+    bloomFilterColumns = getBloomFilterColumns(inspector,
+        buildIndex ? bloomFilterColumnNames : null);
     treeWriter = createTreeWriter(inspector, streamFactory, false);
     if (buildIndex && rowIndexStride < MIN_ROW_INDEX_STRIDE) {
       throw new IllegalArgumentException("Row stride must be at least " +
@@ -209,6 +227,92 @@ static CompressionCodec createCodec(CompressionKind kind) {
     }
   }
 
+  /**
+   * Find the columns that bloom filters are created for. Only the top level
+   * columns can be listed, and the columns with types that equality
+   * predicates aren't pushed down for are ignored.
+   * @param inspector the inspector of the rows
+   * @param columnNames comma separated list of column names or null
+   * @return a boolean for each column id
+   */
+  static boolean[] getBloomFilterColumns(ObjectInspector inspector,
+                                         String columnNames) {
+    boolean[] result = new boolean[getColumnCount(inspector)];
+    if (columnNames == null ||
+        inspector.getCategory() != ObjectInspector.Category.STRUCT) {
+      return result;
+    }
+    Set<String> names = new HashSet<String>();
+    for (String name : columnNames.split(",")) {
+      names.add(name.trim().toLowerCase());
+    }
+    // the column ids are assigned in pre-order, like createTreeWriter does
+    int columnId = 1;
+    for (StructField field :
+        ((StructObjectInspector) inspector).getAllStructFieldRefs()) {
+      ObjectInspector fieldInspector = field.getFieldObjectInspector();
+      if (names.contains(field.getFieldName().toLowerCase()) &&
+          isBloomFilterSupported(fieldInspector)) {
+        result[columnId] = true;
+      }
+      columnId += getColumnCount(fieldInspector);
+    }
+    return result;
+  }
+
+  private static int getColumnCount(ObjectInspector inspector) {
+    int result = 1;
+    switch (inspector.getCategory()) {
+      case STRUCT:
+        for (StructField field :
+            ((StructObjectInspector) inspector).getAllStructFieldRefs()) {
+          result += getColumnCount(field.getFieldObjectInspector());
+        }
+        break;
+      case LIST:
+        result += getColumnCount(((ListObjectInspector) inspector)
+            .getListElementObjectInspector());
+        break;
+      case MAP:
+        result += getColumnCount(((MapObjectInspector) inspector)
+            .getMapKeyObjectInspector());
+        result += getColumnCount(((MapObjectInspector) inspector)
+            .getMapValueObjectInspector());
+        break;
+      case UNION:
+        for (ObjectInspector child :
+            ((UnionObjectInspector) inspector).getObjectInspectors()) {
+          result += getColumnCount(child);
+        }
+        break;
+      default:
+        break;
+    }
+    return result;
+  }
+
+  private static boolean isBloomFilterSupported(ObjectInspector inspector) {
+    if (inspector.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+      return false;
+    }
+    switch (((PrimitiveObjectInspector) inspector).getPrimitiveCategory()) {
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+      case STRING:
+      case CHAR:
+      case VARCHAR:
+      case DATE:
+      case DECIMAL:
+        return true;
+      default:
+        return false;
+    }
+  }
+
   @Override
   public synchronized boolean checkMemory(double newScale) throws IOException {
     long limit = (long) Math.round(stripeSize * newScale);
@@ -395,6 +499,22 @@ public boolean buildIndex() {
       return buildIndex;
     }
 
+    /**
+     * Should a bloom filter be written for the column?
+     * @param column the column id
+     * @return true if the column has a bloom filter for each index entry
+     */
+    public boolean hasBloomFilter(int column) {
+      return bloomFilterColumns[column];
+    }
+
+    /**
+     * Get the false positive probability of the bloom filters.
+     */
+    public double getBloomFilterFpp() {
+      return bloomFilterFpp;
+    }
+
     /**
      * Is the ORC file compressed?
      * @return are the streams compressed
@@ -438,6 +558,9 @@ private abstract static class TreeWriter {
     private final OrcProto.RowIndex.Builder rowIndex;
     private final OrcProto.RowIndexEntry.Builder rowIndexEntry;
     private final PositionedOutputStream rowIndexStream;
+    protected final BloomFilter bloomFilter;
+    private final OrcProto.BloomFilterIndex.Builder bloomFilterIndex;
+    private final PositionedOutputStream bloomFilterStream;
     private boolean foundNulls;
     private OutStream isPresentOutStream;
     private final List<StripeStatistics.Builder> stripeStatsBuilders;
@@ -478,6 +601,17 @@ private abstract static class TreeWriter {
       } else {
         rowIndexStream = null;
       }
+      if (streamFactory.hasBloomFilter(id)) {
+        bloomFilter = new BloomFilter(streamFactory.getRowIndexStride(),
+            streamFactory.getBloomFilterFpp());
+        bloomFilterIndex = OrcProto.BloomFilterIndex.newBuilder();
+        bloomFilterStream = streamFactory.createStream(id,
+            OrcProto.Stream.Kind.BLOOM_FILTER);
+      } else {
+        bloomFilter = null;
+        bloomFilterIndex = null;
+        bloomFilterStream = null;
+      }
     }
 
     protected OrcProto.RowIndex.Builder getRowIndex() {
@@ -526,6 +660,98 @@ void write(Object obj) throws IOException {
       }
     }
 
+    /**
+     * Handle the top level of a row batch. Only the root struct knows how
+     * to split the batch into its columns, so any other root writes the
+     * first projected column.
+     * @param batch the batch to write
+     * @param offset the position of the first row to write
+     * @param length the number of rows to write
+     * @throws IOException
+     */
+    void writeRootBatch(VectorizedRowBatch batch, int offset,
+                        int length) throws IOException {
+      checkPrimitive();
+      writeBatch(batch.cols[batch.projectedColumns[0]],
+          batch.selectedInUse ? batch.selected : null, offset, length);
+    }
+
+    /**
+     * Column vectors only hold primitive values, so only the writers of
+     * primitive columns write them.
+     */
+    void checkPrimitive() {
+      if (inspector.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+        throw new IllegalArgumentException("Column " + id + " of type " +
+            inspector.getTypeName() + " can't be written from a column vector");
+      }
+    }
+
+    /**
+     * Add a range of values from a column vector to the column. The base
+     * class only records which of the values are null, the subclasses write
+     * the values themselves.
+     * @param vector the column vector to take the values from
+     * @param selected the rows of the batch that are in use or null if all
+     *                 of them are
+     * @param offset the position of the first row to write
+     * @param length the number of rows to write
+     * @throws IOException
+     */
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      if (vector.noNulls) {
+        indexStatistics.increment(length);
+        if (isPresent != null) {
+          for (int i = 0; i < length; ++i) {
+            isPresent.write(1);
+          }
+        }
+      } else if (vector.isRepeating) {
+        boolean isNull = vector.isNull[0];
+        if (!isNull) {
+          indexStatistics.increment(length);
+        }
+        if (isPresent != null) {
+          for (int i = 0; i < length; ++i) {
+            isPresent.write(isNull ? 0 : 1);
+          }
+          if (isNull) {
+            foundNulls = true;
+          }
+        }
+      } else {
+        int nonNulls = 0;
+        for (int i = 0; i < length; ++i) {
+          boolean isNull = vector.isNull[getRow(selected, offset + i)];
+          if (!isNull) {
+            nonNulls += 1;
+          }
+          if (isPresent != null) {
+            isPresent.write(isNull ? 0 : 1);
+            if (isNull) {
+              foundNulls = true;
+            }
+          }
+        }
+        indexStatistics.increment(nonNulls);
+      }
+    }
+
+    /**
+     * Get the row of the batch at the given position.
+     */
+    static int getRow(int[] selected, int position) {
+      return selected == null ? position : selected[position];
+    }
+
+    /**
+     * Is the value of the row of a non-repeating vector null?
+     */
+    static boolean isNull(ColumnVector vector, int row) {
+      return !vector.noNulls && vector.isNull[row];
+    }
+
     private void removeIsPresentPositions() {
       for(int i=0; i < rowIndex.getEntryCount(); ++i) {
         RowIndexEntry.Builder entry = rowIndex.getEntryBuilder(i);
@@ -584,6 +810,11 @@ void writeStripe(OrcProto.StripeFooter.Builder builder,
       }
       rowIndex.clear();
       rowIndexEntry.clear();
+      if (bloomFilterStream != null) {
+        bloomFilterIndex.build().writeTo(bloomFilterStream);
+        bloomFilterStream.flush();
+        bloomFilterIndex.clear();
+      }
     }
 
     private void writeStripeStatistics(OrcProto.StripeStatistics.Builder builder,
@@ -622,12 +853,24 @@ void createRowIndexEntry() throws IOException {
       indexStatistics.reset();
       rowIndex.addEntry(rowIndexEntry);
       rowIndexEntry.clear();
+      addBloomFilterEntry();
       recordPosition(rowIndexPosition);
       for(TreeWriter child: childrenWriters) {
         child.createRowIndexEntry();
       }
     }
 
+    /**
+     * Add the bloom filter of the row group to the bloom filter index and
+     * clear it for the next row group.
+     */
+    void addBloomFilterEntry() {
+      if (bloomFilter != null) {
+        bloomFilterIndex.addBloomFilter(bloomFilter.serialize());
+        bloomFilter.reset();
+      }
+    }
+
     /**
      * Record the current position in each of this column's streams.
      * @param recorder where should the locations be recorded
@@ -676,6 +919,31 @@ void write(Object obj) throws IOException {
       }
     }
 
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      LongColumnVector vec = (LongColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          boolean val = vec.vector[0] != 0;
+          for (int i = 0; i < length; ++i) {
+            indexStatistics.updateBoolean(val);
+            writer.write(val ? 1 : 0);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            boolean val = vec.vector[row] != 0;
+            indexStatistics.updateBoolean(val);
+            writer.write(val ? 1 : 0);
+          }
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -710,10 +978,44 @@ void write(Object obj) throws IOException {
       if (obj != null) {
         byte val = ((ByteObjectInspector) inspector).get(obj);
         indexStatistics.updateInteger(val);
+        if (bloomFilter != null) {
+          bloomFilter.addLong(val);
+        }
         writer.write(val);
       }
     }
 
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      LongColumnVector vec = (LongColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          byte val = (byte) vec.vector[0];
+          indexStatistics.updateInteger(val, length);
+          if (bloomFilter != null) {
+            bloomFilter.addLong(val);
+          }
+          for (int i = 0; i < length; ++i) {
+            writer.write(val);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            byte val = (byte) vec.vector[row];
+            indexStatistics.updateInteger(val);
+            if (bloomFilter != null) {
+              bloomFilter.addLong(val);
+            }
+            writer.write(val);
+          }
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -785,10 +1087,44 @@ void write(Object obj) throws IOException {
           val = shortInspector.get(obj);
         }
         indexStatistics.updateInteger(val);
+        if (bloomFilter != null) {
+          bloomFilter.addLong(val);
+        }
         writer.write(val);
       }
     }
 
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      LongColumnVector vec = (LongColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          long val = vec.vector[0];
+          indexStatistics.updateInteger(val, length);
+          if (bloomFilter != null) {
+            bloomFilter.addLong(val);
+          }
+          for (int i = 0; i < length; ++i) {
+            writer.write(val);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            long val = vec.vector[row];
+            indexStatistics.updateInteger(val);
+            if (bloomFilter != null) {
+              bloomFilter.addLong(val);
+            }
+            writer.write(val);
+          }
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -823,10 +1159,44 @@ void write(Object obj) throws IOException {
       if (obj != null) {
         float val = ((FloatObjectInspector) inspector).get(obj);
         indexStatistics.updateDouble(val);
+        if (bloomFilter != null) {
+          bloomFilter.addDouble(val);
+        }
         SerializationUtils.writeFloat(stream, val);
       }
     }
 
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      DoubleColumnVector vec = (DoubleColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          float val = (float) vec.vector[0];
+          indexStatistics.updateDouble(val, length);
+          if (bloomFilter != null) {
+            bloomFilter.addDouble(val);
+          }
+          for (int i = 0; i < length; ++i) {
+            SerializationUtils.writeFloat(stream, val);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            float val = (float) vec.vector[row];
+            indexStatistics.updateDouble(val);
+            if (bloomFilter != null) {
+              bloomFilter.addDouble(val);
+            }
+            SerializationUtils.writeFloat(stream, val);
+          }
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -861,10 +1231,44 @@ void write(Object obj) throws IOException {
       if (obj != null) {
         double val = ((DoubleObjectInspector) inspector).get(obj);
         indexStatistics.updateDouble(val);
+        if (bloomFilter != null) {
+          bloomFilter.addDouble(val);
+        }
         SerializationUtils.writeDouble(stream, val);
       }
     }
 
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      DoubleColumnVector vec = (DoubleColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          double val = vec.vector[0];
+          indexStatistics.updateDouble(val, length);
+          if (bloomFilter != null) {
+            bloomFilter.addDouble(val);
+          }
+          for (int i = 0; i < length; ++i) {
+            SerializationUtils.writeDouble(stream, val);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            double val = vec.vector[row];
+            indexStatistics.updateDouble(val);
+            if (bloomFilter != null) {
+              bloomFilter.addDouble(val);
+            }
+            SerializationUtils.writeDouble(stream, val);
+          }
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -941,6 +1345,47 @@ void write(Object obj) throws IOException {
         String val = getStringValue(obj);
         rows.add(dictionary.add(val));
         indexStatistics.updateString(val);
+        if (bloomFilter != null) {
+          bloomFilter.addString(val);
+        }
+      }
+    }
+
+    /**
+     * Column vectors hold the UTF-8 bytes of the strings, so they go into the
+     * dictionary without being decoded. Only the statistics need the string.
+     */
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      BytesColumnVector vec = (BytesColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          int key = dictionary.add(vec.vector[0], vec.start[0], vec.length[0]);
+          for (int i = 0; i < length; ++i) {
+            rows.add(key);
+          }
+          indexStatistics.updateString(new String(vec.vector[0],
+              vec.start[0], vec.length[0], UTF8), length);
+          if (bloomFilter != null) {
+            bloomFilter.addBytes(vec.vector[0], vec.start[0], vec.length[0]);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            rows.add(dictionary.add(vec.vector[row], vec.start[row],
+                vec.length[row]));
+            indexStatistics.updateString(new String(vec.vector[row],
+                vec.start[row], vec.length[row], UTF8));
+            if (bloomFilter != null) {
+              bloomFilter.addBytes(vec.vector[row], vec.start[row],
+                  vec.length[row]);
+            }
+          }
+        }
       }
     }
 
@@ -1061,6 +1506,7 @@ void createRowIndexEntry() throws IOException {
       indexStatistics.reset();
       savedRowIndex.add(rowIndexEntry.build());
       rowIndexEntry.clear();
+      addBloomFilterEntry();
       recordPosition(rowIndexPosition);
       rowIndexValueCount.add(Long.valueOf(rows.size()));
     }
@@ -1155,6 +1601,21 @@ void write(Object obj) throws IOException {
       }
     }
 
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      BytesColumnVector vec = (BytesColumnVector) vector;
+      for (int i = 0; i < length; ++i) {
+        int row = vector.isRepeating ? 0 : getRow(selected, offset + i);
+        if (!isNull(vector, row)) {
+          stream.write(vec.vector[row], vec.start[row], vec.length[row]);
+          this.length.write(vec.length[row]);
+          indexStatistics.updateBinary(vec.length[row]);
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -1180,6 +1641,7 @@ private static class TimestampTreeWriter extends TreeWriter {
     private final IntegerWriter seconds;
     private final IntegerWriter nanos;
     private final boolean isDirectV2;
+    private final Timestamp scratchTimestamp = new Timestamp(0);
 
     TimestampTreeWriter(int columnId,
                      ObjectInspector inspector,
@@ -1216,6 +1678,40 @@ void write(Object obj) throws IOException {
       }
     }
 
+    /**
+     * Timestamp vectors hold the nanoseconds since the epoch, which are split
+     * into seconds and nanoseconds the same way as a java.sql.Timestamp.
+     */
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      LongColumnVector vec = (LongColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          TimestampUtils.assignTimeInNanoSec(vec.vector[0], scratchTimestamp);
+          long secs = (scratchTimestamp.getTime() / MILLIS_PER_SECOND) -
+              BASE_TIMESTAMP;
+          long formattedNanos = formatNanos(scratchTimestamp.getNanos());
+          for (int i = 0; i < length; ++i) {
+            seconds.write(secs);
+            nanos.write(formattedNanos);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            TimestampUtils.assignTimeInNanoSec(vec.vector[row],
+                scratchTimestamp);
+            seconds.write((scratchTimestamp.getTime() / MILLIS_PER_SECOND) -
+                BASE_TIMESTAMP);
+            nanos.write(formatNanos(scratchTimestamp.getNanos()));
+          }
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -1272,10 +1768,45 @@ void write(Object obj) throws IOException {
         // Using the Writable here as it's used directly for writing as well as for stats.
         DateWritable val = ((DateObjectInspector) inspector).getPrimitiveWritableObject(obj);
         indexStatistics.updateDate(val);
+        if (bloomFilter != null) {
+          bloomFilter.addLong(val.getDays());
+        }
         writer.write(val.getDays());
       }
     }
 
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      LongColumnVector vec = (LongColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          int days = (int) vec.vector[0];
+          indexStatistics.updateDate(new DateWritable(days));
+          if (bloomFilter != null) {
+            bloomFilter.addLong(days);
+          }
+          for (int i = 0; i < length; ++i) {
+            writer.write(days);
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            int days = (int) vec.vector[row];
+            // the statistics keep a reference to their minimum and maximum
+            indexStatistics.updateDate(new DateWritable(days));
+            if (bloomFilter != null) {
+              bloomFilter.addLong(days);
+            }
+            writer.write(days);
+          }
+        }
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -1337,10 +1868,45 @@ void write(Object obj) throws IOException {
         if (decimal == null) {
           return;
         }
-        SerializationUtils.writeBigInteger(valueStream,
-            decimal.unscaledValue());
-        scaleStream.write(decimal.scale());
-        indexStatistics.updateDecimal(decimal);
+        writeDecimal(decimal);
+      }
+    }
+
+    private void writeDecimal(HiveDecimal decimal) throws IOException {
+      SerializationUtils.writeBigInteger(valueStream,
+          decimal.unscaledValue());
+      scaleStream.write(decimal.scale());
+      indexStatistics.updateDecimal(decimal);
+      if (bloomFilter != null) {
+        bloomFilter.addString(decimal.toString());
+      }
+    }
+
+    @Override
+    void writeBatch(ColumnVector vector, int[] selected, int offset,
+                    int length) throws IOException {
+      super.writeBatch(vector, selected, offset, length);
+      DecimalColumnVector vec = (DecimalColumnVector) vector;
+      if (vector.isRepeating) {
+        if (!isNull(vector, 0)) {
+          HiveDecimal decimal = HiveDecimal.create(vec.vector[0].toBigDecimal());
+          if (decimal != null) {
+            for (int i = 0; i < length; ++i) {
+              writeDecimal(decimal);
+            }
+          }
+        }
+      } else {
+        for (int i = 0; i < length; ++i) {
+          int row = getRow(selected, offset + i);
+          if (!isNull(vector, row)) {
+            HiveDecimal decimal =
+                HiveDecimal.create(vec.vector[row].toBigDecimal());
+            if (decimal != null) {
+              writeDecimal(decimal);
+            }
+          }
+        }
       }
     }
 
@@ -1392,6 +1958,29 @@ void write(Object obj) throws IOException {
       }
     }
 
+    /**
+     * The columns of the struct are the projected columns of the batch.
+     */
+    @Override
+    void writeRootBatch(VectorizedRowBatch batch, int offset,
+                        int length) throws IOException {
+      if (batch.projectionSize != childrenWriters.length) {
+        throw new IllegalArgumentException("Row batch has " +
+            batch.projectionSize + " columns, but the file has " +
+            childrenWriters.length);
+      }
+      for(TreeWriter child: childrenWriters) {
+        child.checkPrimitive();
+      }
+      // the root struct is never null
+      indexStatistics.increment(length);
+      int[] selected = batch.selectedInUse ? batch.selected : null;
+      for(int i = 0; i < childrenWriters.length; ++i) {
+        childrenWriters[i].writeBatch(batch.cols[batch.projectedColumns[i]],
+            selected, offset, length);
+      }
+    }
+
     @Override
     void writeStripe(OrcProto.StripeFooter.Builder builder,
                      int requiredIndexEntries) throws IOException {
@@ -1801,20 +2390,7 @@ private void flushStripe() throws IOException {
 
       // Do we need to pad the file so the stripe doesn't straddle a block
       // boundary?
-      long start = rawWriter.getPos();
-      long stripeSize = indexSize + dataSize + footer.getSerializedSize();
-      if (addBlockPadding &&
-          stripeSize < blockSize &&
-          (start % blockSize) + stripeSize > blockSize) {
-        long padding = blockSize - (start % blockSize);
-        byte[] pad = new byte[(int) Math.min(HDFS_BUFFER_SIZE, padding)];
-        start += padding;
-        while (padding > 0) {
-          int writeLen = (int) Math.min(padding, pad.length);
-          rawWriter.write(pad, 0, writeLen);
-          padding -= writeLen;
-        }
-      }
+      long start = padStripe(indexSize + dataSize + footer.getSerializedSize());
 
       // write out the data streams
       for(Map.Entry<StreamName, BufferedStream> pair: streams.entrySet()) {
@@ -1841,6 +2417,29 @@ private void flushStripe() throws IOException {
     }
   }
 
+  /**
+   * Pad the file so that a stripe of the given length starting at the
+   * current position doesn't straddle a block boundary.
+   * @param stripeSize the length of the stripe that will be written next
+   * @return the position of the stripe after padding
+   */
+  private long padStripe(long stripeSize) throws IOException {
+    long start = rawWriter.getPos();
+    if (addBlockPadding &&
+        stripeSize < blockSize &&
+        (start % blockSize) + stripeSize > blockSize) {
+      long padding = blockSize - (start % blockSize);
+      byte[] pad = new byte[(int) Math.min(HDFS_BUFFER_SIZE, padding)];
+      start += padding;
+      while (padding > 0) {
+        int writeLen = (int) Math.min(padding, pad.length);
+        rawWriter.write(pad, 0, writeLen);
+        padding -= writeLen;
+      }
+    }
+    return start;
+  }
+
   private long computeRawDataSize() {
     long result = 0;
     for (TreeWriter child : treeWriter.getChildrenWriters()) {
@@ -2028,6 +2627,32 @@ public void addRow(Object row) throws IOException {
     memoryManager.addedRow();
   }
 
+  @Override
+  public void addRowBatch(VectorizedRowBatch batch) throws IOException {
+    synchronized (this) {
+      if (buildIndex) {
+        // split the batch at the row index boundaries, so that each entry
+        // covers exactly rowIndexStride rows like it does for addRow
+        int posn = 0;
+        while (posn < batch.size) {
+          int chunkSize = Math.min(batch.size - posn,
+              rowIndexStride - rowsInIndex);
+          treeWriter.writeRootBatch(batch, posn, chunkSize);
+          posn += chunkSize;
+          rowsInIndex += chunkSize;
+          rowsInStripe += chunkSize;
+          if (rowsInIndex >= rowIndexStride) {
+            createRowIndexEntry();
+          }
+        }
+      } else {
+        treeWriter.writeRootBatch(batch, 0, batch.size);
+        rowsInStripe += batch.size;
+      }
+    }
+    memoryManager.addedRow(batch.size);
+  }
+
   @Override
   public void close() throws IOException {
     if (callback != null) {
@@ -2063,6 +2688,49 @@ public long getNumberOfRows() {
     return rowCount;
   }
 
+  @Override
+  public void appendStripe(byte[] stripe, int offset, int length,
+                           StripeInformation stripeInfo,
+                           OrcProto.StripeStatistics stripeStatistics
+                           ) throws IOException {
+    if (stripeInfo.getLength() != length) {
+      throw new IllegalArgumentException("Stripe length " + length +
+          " doesn't match the stripe information " + stripeInfo);
+    }
+    if (stripeStatistics.getColStatsCount() != columnCount) {
+      throw new IllegalArgumentException("Stripe has statistics for " +
+          stripeStatistics.getColStatsCount() + " columns, expected " +
+          columnCount);
+    }
+    synchronized (this) {
+      flushStripe();
+      long start = padStripe(length);
+      rawWriter.write(stripe, offset, length);
+      OrcProto.StripeInformation dirEntry =
+          OrcProto.StripeInformation.newBuilder()
+              .setOffset(start)
+              .setNumberOfRows(stripeInfo.getNumberOfRows())
+              .setIndexLength(stripeInfo.getIndexLength())
+              .setDataLength(stripeInfo.getDataLength())
+              .setFooterLength(stripeInfo.getFooterLength()).build();
+      stripes.add(dirEntry);
+      rowCount += stripeInfo.getNumberOfRows();
+      // the stripe was written by another writer, so the stripe statistics
+      // are kept as they are and merged into the file statistics
+      treeWriter.stripeStatsBuilders.add(stripeStatistics.toBuilder());
+      mergeFileStatistics(treeWriter, stripeStatistics.getColStatsList());
+    }
+  }
+
+  private static void mergeFileStatistics(TreeWriter writer,
+      List<OrcProto.ColumnStatistics> stats) {
+    writer.fileStatistics.merge(
+        ColumnStatisticsImpl.deserialize(stats.get(writer.id)));
+    for (TreeWriter child : writer.getChildrenWriters()) {
+      mergeFileStatistics(child, stats);
+    }
+  }
+
   @Override
   public synchronized long writeIntermediateFooter() throws IOException {
     // flush any buffered rows
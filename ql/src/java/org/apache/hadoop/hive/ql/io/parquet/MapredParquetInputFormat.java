@@ -14,22 +14,42 @@
 package org.apache.hadoop.hive.ql.io.parquet;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedInputFormatInterface;
 import org.apache.hadoop.hive.ql.io.parquet.read.DataWritableReadSupport;
 import org.apache.hadoop.hive.ql.io.parquet.read.ParquetRecordReaderWrapper;
+import org.apache.hadoop.hive.ql.io.parquet.read.ParquetRowGroupFilter;
+import org.apache.hadoop.hive.ql.io.parquet.read.VectorizedParquetRecordReader;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.io.ArrayWritable;
 import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.RecordReader;
 
+import parquet.hadoop.ParquetFileReader;
 import parquet.hadoop.ParquetInputFormat;
+import parquet.hadoop.metadata.BlockMetaData;
 
 
 /**
  *
  * A Parquet InputFormat for Hive (with the deprecated package mapred)
  *
+ * In vectorized mode the record reader returns VectorizedRowBatches instead of rows.
+ *
  */
-public class MapredParquetInputFormat extends FileInputFormat<Void, ArrayWritable> {
+public class MapredParquetInputFormat extends FileInputFormat<Void, ArrayWritable>
+    implements VectorizedInputFormatInterface {
+
+  private static final Log LOG = LogFactory.getLog(MapredParquetInputFormat.class);
 
   private final ParquetInputFormat<ArrayWritable> realInput;
 
@@ -41,12 +61,60 @@ protected MapredParquetInputFormat(final ParquetInputFormat<ArrayWritable> input
     this.realInput = inputFormat;
   }
 
+  /**
+   * When a filter is pushed down, drops the splits whose row groups can all be
+   * skipped according to their column statistics.
+   */
+  @Override
+  public InputSplit[] getSplits(final JobConf job, final int numSplits) throws IOException {
+    final InputSplit[] splits = super.getSplits(job, numSplits);
+    final SearchArgument sarg = ParquetRowGroupFilter.getSearchArgument(job);
+    if (sarg == null) {
+      return splits;
+    }
+    final List<InputSplit> result = new ArrayList<InputSplit>(splits.length);
+    Path currentPath = null;
+    List<BlockMetaData> blocks = null;
+    for (final InputSplit split : splits) {
+      final FileSplit fileSplit = (FileSplit) split;
+      if (fileSplit.getLength() == 0) {
+        result.add(split);
+        continue;
+      }
+      // the splits of a file are next to each other, so each footer is read once
+      if (!fileSplit.getPath().equals(currentPath)) {
+        currentPath = fileSplit.getPath();
+        blocks = ParquetFileReader.readFooter(job, currentPath).getBlocks();
+      }
+      final long splitStart = fileSplit.getStart();
+      final long splitEnd = splitStart + fileSplit.getLength();
+      for (final BlockMetaData block : blocks) {
+        final long firstDataPage = block.getColumns().get(0).getFirstDataPageOffset();
+        if (firstDataPage >= splitStart && firstDataPage < splitEnd
+            && ParquetRowGroupFilter.isNeeded(sarg, block)) {
+          result.add(split);
+          break;
+        }
+      }
+    }
+    if (result.size() != splits.length) {
+      LOG.info("Skipped " + (splits.length - result.size()) + " of " + splits.length
+          + " Parquet splits using row group statistics");
+    }
+    return result.toArray(new InputSplit[result.size()]);
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
   @Override
   public org.apache.hadoop.mapred.RecordReader<Void, ArrayWritable> getRecordReader(
       final org.apache.hadoop.mapred.InputSplit split,
       final org.apache.hadoop.mapred.JobConf job,
       final org.apache.hadoop.mapred.Reporter reporter
       ) throws IOException {
+    if (Utilities.isVectorMode(job)) {
+      return (RecordReader) new VectorizedParquetRecordReader(realInput, (FileSplit) split, job,
+          reporter);
+    }
     try {
       return (RecordReader<Void, ArrayWritable>) new ParquetRecordReaderWrapper(realInput, split, job, reporter);
     } catch (final InterruptedException e) {
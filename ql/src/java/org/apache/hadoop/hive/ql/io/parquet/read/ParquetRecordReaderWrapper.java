@@ -205,7 +205,7 @@ protected ParquetInputSplit getSplit(
           .init(cloneJob, fileMetaData.getKeyValueMetaData(), fileMetaData.getSchema());
       schemaSize = MessageTypeParser.parseMessageType(readContext.getReadSupportMetadata()
           .get(DataWritableReadSupport.HIVE_SCHEMA_KEY)).getFieldCount();
-      final List<BlockMetaData> splitGroup = new ArrayList<BlockMetaData>();
+      List<BlockMetaData> splitGroup = new ArrayList<BlockMetaData>();
       final long splitStart = ((FileSplit) oldSplit).getStart();
       final long splitLength = ((FileSplit) oldSplit).getLength();
       for (final BlockMetaData block : blocks) {
@@ -214,6 +214,8 @@ protected ParquetInputSplit getSplit(
           splitGroup.add(block);
         }
       }
+      splitGroup = ParquetRowGroupFilter.filterBlocks(
+          ParquetRowGroupFilter.getSearchArgument(cloneJob), splitGroup);
       if (splitGroup.isEmpty()) {
         LOG.warn("Skipping split, could not find row group in: " + (FileSplit) oldSplit);
         split = null;
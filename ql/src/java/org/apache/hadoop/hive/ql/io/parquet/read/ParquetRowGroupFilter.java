@@ -0,0 +1,173 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.ql.io.parquet.read;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.sarg.PredicateLeaf;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument.TruthValue;
+import org.apache.hadoop.hive.ql.plan.TableScanDesc;
+
+import parquet.column.statistics.Statistics;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+
+/**
+ *
+ * Skips Parquet row groups using the column chunk statistics and the filter
+ * Hive pushed down to the table scan.
+ *
+ * The filter is converted to a SearchArgument and each leaf is evaluated
+ * against the minimum and maximum of its column with the same range logic as
+ * ORC. Only top level INT32, INT64, FLOAT and DOUBLE columns are used; the
+ * binary statistics written by this version of Parquet compare bytes as
+ * signed values, which does not match the order of Hive strings.
+ *
+ */
+public final class ParquetRowGroupFilter {
+  private static final Log LOG = LogFactory.getLog(ParquetRowGroupFilter.class);
+
+  private ParquetRowGroupFilter() {
+  }
+
+  /**
+   * @param conf the job configuration, with the projections and filters pushed
+   * @return the pushed filter as a SearchArgument or null if there is none
+   */
+  public static SearchArgument getSearchArgument(final Configuration conf) {
+    final String serializedPushdown = conf.get(TableScanDesc.FILTER_EXPR_CONF_STR);
+    if (serializedPushdown == null) {
+      return null;
+    }
+    final SearchArgument sarg =
+        SearchArgument.FACTORY.create(Utilities.deserializeExpression(serializedPushdown));
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Parquet pushdown predicate: " + sarg);
+    }
+    return sarg;
+  }
+
+  /**
+   * @param sarg the search argument, may be null
+   * @param blocks the row groups to filter
+   * @return the row groups that may contain rows matching the search argument
+   */
+  public static List<BlockMetaData> filterBlocks(final SearchArgument sarg,
+      final List<BlockMetaData> blocks) {
+    if (sarg == null) {
+      return blocks;
+    }
+    final List<BlockMetaData> result = new ArrayList<BlockMetaData>(blocks.size());
+    for (final BlockMetaData block : blocks) {
+      if (isNeeded(sarg, block)) {
+        result.add(block);
+      }
+    }
+    if (LOG.isDebugEnabled() && result.size() != blocks.size()) {
+      LOG.debug("Skipping " + (blocks.size() - result.size()) + " of " + blocks.size()
+          + " row groups");
+    }
+    return result;
+  }
+
+  /**
+   * @return false if the statistics of the row group prove that no row matches
+   */
+  public static boolean isNeeded(final SearchArgument sarg, final BlockMetaData block) {
+    final Map<String, ColumnChunkMetaData> columns = new HashMap<String, ColumnChunkMetaData>();
+    for (final ColumnChunkMetaData chunk : block.getColumns()) {
+      final String[] path = chunk.getPath();
+      if (path.length == 1) {
+        columns.put(path[0], chunk);
+      }
+    }
+    final List<PredicateLeaf> leaves = sarg.getLeaves();
+    final TruthValue[] leafValues = new TruthValue[leaves.size()];
+    for (int i = 0; i < leafValues.length; ++i) {
+      final PredicateLeaf leaf = leaves.get(i);
+      leafValues[i] = evaluatePredicate(columns.get(leaf.getColumnName()),
+          block.getRowCount(), leaf);
+    }
+    return sarg.evaluate(leafValues).isNeeded();
+  }
+
+  static TruthValue evaluatePredicate(final ColumnChunkMetaData chunk, final long rowCount,
+      final PredicateLeaf predicate) {
+    if (chunk == null) {
+      return TruthValue.YES_NO_NULL;
+    }
+    final Statistics stats = chunk.getStatistics();
+    if (stats == null || stats.isEmpty()) {
+      return TruthValue.YES_NO_NULL;
+    }
+    if (stats.getNumNulls() >= rowCount) {
+      // every value is null
+      if (predicate.getOperator() == PredicateLeaf.Operator.IS_NULL) {
+        return TruthValue.YES;
+      } else {
+        return TruthValue.NULL;
+      }
+    }
+    if (predicate.getOperator() == PredicateLeaf.Operator.IS_NULL) {
+      return stats.getNumNulls() == 0 ? TruthValue.NO : TruthValue.YES_NO;
+    }
+    final Object min;
+    final Object max;
+    switch (chunk.getType()) {
+    case INT32:
+    case INT64:
+      min = ((Number) stats.genericGetMin()).longValue();
+      max = ((Number) stats.genericGetMax()).longValue();
+      break;
+    case FLOAT:
+    case DOUBLE:
+      min = ((Number) stats.genericGetMin()).doubleValue();
+      max = ((Number) stats.genericGetMax()).doubleValue();
+      break;
+    default:
+      return TruthValue.YES_NO_NULL;
+    }
+    final TruthValue result = OrcInputFormat.evaluatePredicateRange(predicate, min, max);
+    if (stats.getNumNulls() == 0) {
+      return removeNull(result);
+    }
+    return result;
+  }
+
+  /**
+   * The range evaluation assumes the column may hold nulls; drop that
+   * possibility when the statistics say there are none.
+   */
+  private static TruthValue removeNull(final TruthValue value) {
+    switch (value) {
+    case YES_NULL:
+      return TruthValue.YES;
+    case NO_NULL:
+      return TruthValue.NO;
+    case YES_NO_NULL:
+      return TruthValue.YES_NO;
+    default:
+      return value;
+    }
+  }
+}
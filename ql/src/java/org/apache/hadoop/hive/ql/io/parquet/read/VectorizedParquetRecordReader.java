@@ -0,0 +1,461 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.ql.io.parquet.read;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedBatchUtil;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatchCtx;
+import org.apache.hadoop.hive.ql.io.IOConstants;
+import org.apache.hadoop.hive.ql.io.parquet.ProjectionPusher;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.metadata.VirtualColumn;
+import org.apache.hadoop.io.ArrayWritable;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.util.StringUtils;
+
+import parquet.column.ColumnDescriptor;
+import parquet.column.ColumnReader;
+import parquet.column.impl.ColumnReadStoreImpl;
+import parquet.column.page.PageReadStore;
+import parquet.hadoop.ParquetFileReader;
+import parquet.hadoop.ParquetInputFormat;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.io.api.Binary;
+import parquet.io.api.Converter;
+import parquet.io.api.GroupConverter;
+import parquet.io.api.PrimitiveConverter;
+import parquet.schema.MessageType;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+import parquet.schema.Type;
+
+/**
+ *
+ * A vectorized reader for Parquet files.
+ *
+ * Top level primitive columns are decoded page by page straight into the
+ * column vectors of the batch, without materializing a record per row. If
+ * any projected column is nested, repeated or of a type that has no direct
+ * column vector mapping, the reader falls back to reading rows through
+ * {@link ParquetRecordReaderWrapper} and adding them to the batch one at a time.
+ *
+ */
+public class VectorizedParquetRecordReader
+    implements RecordReader<NullWritable, VectorizedRowBatch> {
+  public static final Log LOG = LogFactory.getLog(VectorizedParquetRecordReader.class);
+
+  private static final PrimitiveConverter NO_OP_CONVERTER = new PrimitiveConverter() {
+  };
+
+  /**
+   * The column readers only need a converter to hand dictionaries and values
+   * to; as values are pulled out of the readers directly, it is never used.
+   */
+  private static final GroupConverter NO_OP_GROUP_CONVERTER = new GroupConverter() {
+    @Override
+    public Converter getConverter(final int fieldIndex) {
+      return NO_OP_CONVERTER;
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void end() {
+    }
+  };
+
+  private final long splitStart;
+  private final long splitLength;
+  private final VectorizedRowBatchCtx rbCtx;
+  private boolean addPartitionCols = true;
+
+  // native path
+  private ParquetFileReader fileReader;
+  private MessageType requestedSchema;
+  // batch column index of each requested column, and of the columns missing in the file
+  private int[] columnIndexes;
+  private int[] missingColumnIndexes;
+  private ColumnDescriptor[] descriptors;
+  private ColumnReader[] columnReaders;
+  private long totalRowCount = 0;
+  private long rowsRead = 0;
+  private long rowsLeftInGroup = 0;
+
+  // fallback path
+  private ParquetRecordReaderWrapper rowReader;
+  private ArrayWritable row;
+  private final DataOutputBuffer buffer = new DataOutputBuffer();
+
+  public VectorizedParquetRecordReader(
+      final ParquetInputFormat<ArrayWritable> realInput,
+      final FileSplit split,
+      final JobConf job,
+      final Reporter reporter) throws IOException {
+    this(realInput, split, job, reporter, new ProjectionPusher());
+  }
+
+  public VectorizedParquetRecordReader(
+      final ParquetInputFormat<ArrayWritable> realInput,
+      final FileSplit split,
+      final JobConf job,
+      final Reporter reporter,
+      final ProjectionPusher pusher) throws IOException {
+    this.splitStart = split.getStart();
+    this.splitLength = split.getLength();
+    final Path path = split.getPath();
+    final JobConf cloneJob = pusher.pushProjectionsAndFilters(job, path.getParent());
+
+    try {
+      rbCtx = new VectorizedRowBatchCtx();
+      rbCtx.init(cloneJob, split);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    final VectorizedRowBatch batch;
+    try {
+      batch = rbCtx.createVectorizedRowBatch();
+    } catch (HiveException e) {
+      throw new RuntimeException("Error creating a batch", e);
+    }
+
+    final ParquetMetadata footer = ParquetFileReader.readFooter(cloneJob, path);
+    final MessageType fileSchema = footer.getFileMetaData().getSchema();
+    final String columns = cloneJob.get(IOConstants.COLUMNS);
+    final List<String> listColumns = columns == null ? new ArrayList<String>()
+        : (List<String>) VirtualColumn.removeVirtualColumns(StringUtils.getStringCollection(columns));
+
+    if (initColumns(batch, fileSchema, listColumns)) {
+      final SearchArgument sarg = ParquetRowGroupFilter.getSearchArgument(cloneJob);
+      final List<BlockMetaData> splitGroup = new ArrayList<BlockMetaData>();
+      for (final BlockMetaData block : footer.getBlocks()) {
+        final long firstDataPage = block.getColumns().get(0).getFirstDataPageOffset();
+        if (firstDataPage >= splitStart && firstDataPage < splitStart + splitLength
+            && (sarg == null || ParquetRowGroupFilter.isNeeded(sarg, block))) {
+          splitGroup.add(block);
+          totalRowCount += block.getRowCount();
+        }
+      }
+      if (!splitGroup.isEmpty()) {
+        fileReader = new ParquetFileReader(cloneJob, path, splitGroup, requestedSchema.getColumns());
+      }
+    } else {
+      LOG.info("Reading " + path + " row by row, some projected columns are not supported"
+          + " by the vectorized Parquet reader");
+      try {
+        rowReader = new ParquetRecordReaderWrapper(realInput, split, job, reporter, pusher);
+      } catch (final InterruptedException e) {
+        throw new IOException(e);
+      }
+      row = rowReader.createValue();
+    }
+  }
+
+  /**
+   * Matches the columns of the batch against the file schema.
+   *
+   * @return false if one of the columns cannot be decoded into its column vector
+   */
+  private boolean initColumns(final VectorizedRowBatch batch, final MessageType fileSchema,
+      final List<String> listColumns) {
+    final List<Type> requestedTypes = new ArrayList<Type>();
+    final List<Integer> present = new ArrayList<Integer>();
+    final List<Integer> missing = new ArrayList<Integer>();
+    // partition columns follow the data columns and are filled in from the
+    // partition spec, they are never read from the file
+    final int tableColumns = Math.min(Math.min(listColumns.size(), batch.numCols),
+        rbCtx.getDataColumnCount());
+    for (int i = 0; i < tableColumns; ++i) {
+      if (batch.cols[i] == null) {
+        continue;
+      }
+      final String name = listColumns.get(i);
+      if (!fileSchema.containsField(name)) {
+        // below allows schema evolution
+        missing.add(i);
+        continue;
+      }
+      final Type type = fileSchema.getType(name);
+      if (!type.isPrimitive() || type.isRepetition(Type.Repetition.REPEATED)
+          || !isSupported(type.asPrimitiveType().getPrimitiveTypeName(), batch.cols[i])) {
+        return false;
+      }
+      requestedTypes.add(type);
+      present.add(i);
+    }
+    requestedSchema = new MessageType(fileSchema.getName(), requestedTypes);
+    columnIndexes = toArray(present);
+    missingColumnIndexes = toArray(missing);
+    descriptors = new ColumnDescriptor[columnIndexes.length];
+    for (int i = 0; i < columnIndexes.length; ++i) {
+      descriptors[i] = requestedSchema.getColumnDescription(
+          new String[] {requestedTypes.get(i).getName()});
+    }
+    columnReaders = new ColumnReader[columnIndexes.length];
+    return true;
+  }
+
+  private static boolean isSupported(final PrimitiveTypeName type, final ColumnVector vector) {
+    switch (type) {
+    case BOOLEAN:
+    case INT32:
+    case INT64:
+      return vector instanceof LongColumnVector;
+    case FLOAT:
+    case DOUBLE:
+      return vector instanceof DoubleColumnVector;
+    case BINARY:
+      return vector instanceof BytesColumnVector;
+    default:
+      return false;
+    }
+  }
+
+  private static int[] toArray(final List<Integer> list) {
+    final int[] result = new int[list.size()];
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = list.get(i);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean next(final NullWritable key, final VectorizedRowBatch value) throws IOException {
+    // Check and update partition cols if necessary. Ideally, this should be done
+    // in CreateValue as the partition is constant per split. But since Hive uses
+    // CombineHiveRecordReader and
+    // as this does not call CreateValue for each new RecordReader it creates, this check is
+    // required in next()
+    if (addPartitionCols) {
+      try {
+        rbCtx.addPartitionColsToBatch(value);
+      } catch (HiveException e) {
+        throw new IOException(e);
+      }
+      addPartitionCols = false;
+    }
+    if (rowReader != null) {
+      return nextRows(value);
+    }
+    if (fileReader == null) {
+      return false;
+    }
+    if (rowsLeftInGroup == 0) {
+      final PageReadStore pages = fileReader.readNextRowGroup();
+      if (pages == null) {
+        return false;
+      }
+      final ColumnReadStoreImpl columnReadStore =
+          new ColumnReadStoreImpl(pages, NO_OP_GROUP_CONVERTER, requestedSchema);
+      for (int i = 0; i < descriptors.length; ++i) {
+        columnReaders[i] = columnReadStore.getColumnReader(descriptors[i]);
+      }
+      rowsLeftInGroup = pages.getRowCount();
+    }
+    final int size = (int) Math.min(VectorizedRowBatch.DEFAULT_SIZE, rowsLeftInGroup);
+    for (int i = 0; i < columnIndexes.length; ++i) {
+      readColumn(columnReaders[i], value.cols[columnIndexes[i]], size);
+    }
+    for (final int index : missingColumnIndexes) {
+      final ColumnVector vector = value.cols[index];
+      vector.noNulls = false;
+      vector.isRepeating = true;
+      vector.isNull[0] = true;
+    }
+    value.selectedInUse = false;
+    value.size = size;
+    rowsLeftInGroup -= size;
+    rowsRead += size;
+    return true;
+  }
+
+  private static void readColumn(final ColumnReader reader, final ColumnVector vector,
+      final int size) {
+    final ColumnDescriptor descriptor = reader.getDescriptor();
+    final int maxDefinitionLevel = descriptor.getMaxDefinitionLevel();
+    vector.isRepeating = false;
+    vector.noNulls = true;
+    switch (descriptor.getType()) {
+    case BOOLEAN: {
+      final long[] vals = ((LongColumnVector) vector).vector;
+      for (int r = 0; r < size; ++r) {
+        if (reader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+          vector.isNull[r] = false;
+          vals[r] = reader.getBoolean() ? 1 : 0;
+        } else {
+          setNull(vector, r);
+          vals[r] = LongColumnVector.NULL_VALUE;
+        }
+        reader.consume();
+      }
+      break;
+    }
+    case INT32: {
+      final long[] vals = ((LongColumnVector) vector).vector;
+      for (int r = 0; r < size; ++r) {
+        if (reader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+          vector.isNull[r] = false;
+          vals[r] = reader.getInteger();
+        } else {
+          setNull(vector, r);
+          vals[r] = LongColumnVector.NULL_VALUE;
+        }
+        reader.consume();
+      }
+      break;
+    }
+    case INT64: {
+      final long[] vals = ((LongColumnVector) vector).vector;
+      for (int r = 0; r < size; ++r) {
+        if (reader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+          vector.isNull[r] = false;
+          vals[r] = reader.getLong();
+        } else {
+          setNull(vector, r);
+          vals[r] = LongColumnVector.NULL_VALUE;
+        }
+        reader.consume();
+      }
+      break;
+    }
+    case FLOAT: {
+      final double[] vals = ((DoubleColumnVector) vector).vector;
+      for (int r = 0; r < size; ++r) {
+        if (reader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+          vector.isNull[r] = false;
+          vals[r] = reader.getFloat();
+        } else {
+          setNull(vector, r);
+          vals[r] = DoubleColumnVector.NULL_VALUE;
+        }
+        reader.consume();
+      }
+      break;
+    }
+    case DOUBLE: {
+      final double[] vals = ((DoubleColumnVector) vector).vector;
+      for (int r = 0; r < size; ++r) {
+        if (reader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+          vector.isNull[r] = false;
+          vals[r] = reader.getDouble();
+        } else {
+          setNull(vector, r);
+          vals[r] = DoubleColumnVector.NULL_VALUE;
+        }
+        reader.consume();
+      }
+      break;
+    }
+    case BINARY: {
+      final BytesColumnVector bytes = (BytesColumnVector) vector;
+      for (int r = 0; r < size; ++r) {
+        if (reader.getCurrentDefinitionLevel() == maxDefinitionLevel) {
+          vector.isNull[r] = false;
+          final Binary binary = reader.getBinary();
+          // getBytes() hands out a private copy, so the batch can reference it
+          final byte[] value = binary.getBytes();
+          bytes.setRef(r, value, 0, value.length);
+        } else {
+          setNull(vector, r);
+        }
+        reader.consume();
+      }
+      break;
+    }
+    default:
+      throw new IllegalStateException("Unsupported column type " + descriptor);
+    }
+  }
+
+  private static void setNull(final ColumnVector vector, final int r) {
+    vector.noNulls = false;
+    vector.isNull[r] = true;
+  }
+
+  /**
+   * Fills the batch from the row reader, for files the native path cannot decode.
+   */
+  private boolean nextRows(final VectorizedRowBatch value) throws IOException {
+    VectorizedBatchUtil.setNoNullFields(value);
+    buffer.reset();
+    value.selectedInUse = false;
+    int i = 0;
+    try {
+      for (; i < VectorizedRowBatch.DEFAULT_SIZE && rowReader.next(null, row); i++) {
+        rbCtx.addRowToBatch(i, row, value, buffer);
+      }
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("Error while getting next row", e);
+    }
+    value.size = i;
+    return i > 0;
+  }
+
+  @Override
+  public NullWritable createKey() {
+    return NullWritable.get();
+  }
+
+  @Override
+  public VectorizedRowBatch createValue() {
+    try {
+      return rbCtx.createVectorizedRowBatch();
+    } catch (HiveException e) {
+      throw new RuntimeException("Error creating a batch", e);
+    }
+  }
+
+  @Override
+  public long getPos() throws IOException {
+    return splitStart + (long) (getProgress() * splitLength);
+  }
+
+  @Override
+  public float getProgress() throws IOException {
+    if (rowReader != null) {
+      return rowReader.getProgress();
+    }
+    return totalRowCount == 0 ? 1f : (float) rowsRead / totalRowCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fileReader != null) {
+      fileReader.close();
+    }
+    if (rowReader != null) {
+      rowReader.close();
+    }
+  }
+}
@@ -30,6 +30,9 @@
 import org.apache.hadoop.hive.common.HiveStatsUtils;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.io.CombineHiveInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcFileMergeMapper;
+import org.apache.hadoop.hive.ql.io.orc.OrcFileStripeMergeInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
 import org.apache.hadoop.hive.ql.plan.DynamicPartitionCtx;
 import org.apache.hadoop.hive.ql.plan.Explain;
 import org.apache.hadoop.hive.ql.plan.ListBucketingCtx;
@@ -50,6 +53,7 @@ public class MergeWork extends MapWork implements Serializable {
   private DynamicPartitionCtx dynPartCtx;
   private boolean isListBucketingAlterTableConcatenate;
   private ListBucketingCtx listBucketingCtx;
+  private Class<? extends InputFormat> mergeInputFormat;
 
   public MergeWork() {
   }
@@ -60,13 +64,29 @@ public MergeWork(List<Path> inputPaths, Path outputDir) {
 
   public MergeWork(List<Path> inputPaths, Path outputDir,
       boolean hasDynamicPartitions, DynamicPartitionCtx dynPartCtx) {
+    this(inputPaths, outputDir, hasDynamicPartitions, dynPartCtx, null);
+  }
+
+  /**
+   * @param srcInputFormat the input format of the files to merge. ORC files
+   *        are merged stripe by stripe, anything else block by block as
+   *        RCFiles.
+   */
+  public MergeWork(List<Path> inputPaths, Path outputDir,
+      boolean hasDynamicPartitions, DynamicPartitionCtx dynPartCtx,
+      Class<? extends InputFormat> srcInputFormat) {
     super();
     this.inputPaths = inputPaths;
     this.outputDir = outputDir;
     this.hasDynamicPartitions = hasDynamicPartitions;
     this.dynPartCtx = dynPartCtx;
     PartitionDesc partDesc = new PartitionDesc();
-    partDesc.setInputFileFormatClass(RCFileBlockMergeInputFormat.class);
+    if (OrcInputFormat.class.equals(srcInputFormat)) {
+      mergeInputFormat = OrcFileStripeMergeInputFormat.class;
+    } else {
+      mergeInputFormat = RCFileBlockMergeInputFormat.class;
+    }
+    partDesc.setInputFileFormatClass(mergeInputFormat);
     if(this.getPathToPartitionInfo() == null) {
       this.setPathToPartitionInfo(new LinkedHashMap<String, PartitionDesc>());
     }
@@ -92,9 +112,20 @@ public void setOutputDir(Path outputDir) {
   }
 
   public Class<? extends Mapper> getMapperClass() {
+    if (OrcFileStripeMergeInputFormat.class.equals(mergeInputFormat)) {
+      return OrcFileMergeMapper.class;
+    }
     return RCFileMergeMapper.class;
   }
 
+  public Class<? extends InputFormat> getMergeInputFormat() {
+    return mergeInputFormat;
+  }
+
+  public void setMergeInputFormat(Class<? extends InputFormat> mergeInputFormat) {
+    this.mergeInputFormat = mergeInputFormat;
+  }
+
   @Override
   public Long getMinSplitSize() {
     return null;
@@ -122,13 +153,17 @@ public void setHasDynamicPartitions(boolean hasDynamicPartitions) {
   public void resolveDynamicPartitionStoredAsSubDirsMerge(HiveConf conf, Path path,
       TableDesc tblDesc, ArrayList<String> aliases, PartitionDesc partDesc) {
 
-    String inputFormatClass = conf.getVar(HiveConf.ConfVars.HIVEMERGEINPUTFORMATBLOCKLEVEL);
-    try {
-      partDesc.setInputFileFormatClass((Class <? extends InputFormat>)
-          Class.forName(inputFormatClass));
-    } catch (ClassNotFoundException e) {
-      String msg = "Merge input format class not found";
-      throw new RuntimeException(msg);
+    if (OrcFileStripeMergeInputFormat.class.equals(mergeInputFormat)) {
+      partDesc.setInputFileFormatClass(mergeInputFormat);
+    } else {
+      String inputFormatClass = conf.getVar(HiveConf.ConfVars.HIVEMERGEINPUTFORMATBLOCKLEVEL);
+      try {
+        partDesc.setInputFileFormatClass((Class <? extends InputFormat>)
+            Class.forName(inputFormatClass));
+      } catch (ClassNotFoundException e) {
+        String msg = "Merge input format class not found";
+        throw new RuntimeException(msg);
+      }
     }
     super.resolveDynamicPartitionStoredAsSubDirsMerge(conf, path, tblDesc, aliases, partDesc);
 
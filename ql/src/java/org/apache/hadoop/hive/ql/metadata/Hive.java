@@ -60,10 +60,12 @@
 import org.apache.hadoop.hive.metastore.HiveMetaHookLoader;
 import org.apache.hadoop.hive.metastore.HiveMetaStoreClient;
 import org.apache.hadoop.hive.metastore.IMetaStoreClient;
+import org.apache.hadoop.hive.metastore.PartitionsByExprIterator;
 import org.apache.hadoop.hive.metastore.MetaStoreUtils;
 import org.apache.hadoop.hive.metastore.RetryingMetaStoreClient;
 import org.apache.hadoop.hive.metastore.TableType;
 import org.apache.hadoop.hive.metastore.Warehouse;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.AlreadyExistsException;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
@@ -1774,7 +1776,7 @@ public Set<Partition> getAllPartitionsOf(Table tbl) throws HiveException {
 
     List<org.apache.hadoop.hive.metastore.api.Partition> tParts;
     try {
-      tParts = getMSC().listPartitions(tbl.getDbName(), tbl.getTableName(), (short)-1);
+      tParts = getPartitionsCompact(tbl, null);
     } catch (Exception e) {
       LOG.error(StringUtils.stringifyException(e));
       throw new HiveException(e);
@@ -1893,8 +1895,7 @@ public List<Partition> getPartitionsByNames(Table tbl, List<String> partNames)
     try {
       for (int i = 0; i < nBatches; ++i) {
         List<org.apache.hadoop.hive.metastore.api.Partition> tParts =
-          getMSC().getPartitionsByNames(tbl.getDbName(), tbl.getTableName(),
-          partNames.subList(i*batchSize, (i+1)*batchSize));
+          getPartitionsCompact(tbl, partNames.subList(i*batchSize, (i+1)*batchSize));
         if (tParts != null) {
           for (org.apache.hadoop.hive.metastore.api.Partition tpart: tParts) {
             partitions.add(new Partition(tbl, tpart));
@@ -1904,8 +1905,7 @@ public List<Partition> getPartitionsByNames(Table tbl, List<String> partNames)
 
       if (nParts > nBatches * batchSize) {
         List<org.apache.hadoop.hive.metastore.api.Partition> tParts =
-          getMSC().getPartitionsByNames(tbl.getDbName(), tbl.getTableName(),
-          partNames.subList(nBatches*batchSize, nParts));
+          getPartitionsCompact(tbl, partNames.subList(nBatches*batchSize, nParts));
         if (tParts != null) {
           for (org.apache.hadoop.hive.metastore.api.Partition tpart: tParts) {
             partitions.add(new Partition(tbl, tpart));
@@ -1918,6 +1918,26 @@ public List<Partition> getPartitionsByNames(Table tbl, List<String> partNames)
     return partitions;
   }
 
+  /**
+   * Gets partitions from the metastore in the compact form, in which the storage descriptors
+   * shared by partitions are sent once; falls back to the full form for older metastores.
+   * @param tbl The table containing the partitions.
+   * @param partNames Names of the partitions to get; all partitions if null.
+   */
+  private List<org.apache.hadoop.hive.metastore.api.Partition> getPartitionsCompact(
+      Table tbl, List<String> partNames) throws TException {
+    try {
+      return getMSC().listPartitionsCompact(
+          tbl.getDbName(), tbl.getTableName(), partNames, (short)-1);
+    } catch (IMetaStoreClient.IncompatibleMetastoreException ime) {
+      // TODO: backward compat for Hive <= 0.13. Can be removed later.
+      LOG.debug("Metastore doesn't support listPartitionsCompact", ime);
+      return (partNames == null)
+          ? getMSC().listPartitions(tbl.getDbName(), tbl.getTableName(), (short)-1)
+          : getMSC().getPartitionsByNames(tbl.getDbName(), tbl.getTableName(), partNames);
+    }
+  }
+
   /**
    * Get a list of Partitions by filter.
    * @param tbl The table containing the partitions.
@@ -1967,14 +1987,44 @@ private static List<Partition> convertFromMetastore(Table tbl,
   public boolean getPartitionsByExpr(Table tbl, ExprNodeGenericFuncDesc expr, HiveConf conf,
       List<Partition> result) throws HiveException, TException {
     assert result != null;
+    PartitionIterator parts = getPartitionsByExprIterator(tbl, expr, conf);
+    while (parts.hasNext()) {
+      result.add(parts.next());
+    }
+    return parts.hasUnknownPartitions();
+  }
+
+  /**
+   * Iterate over the Partitions by expr. The partitions are got from the metastore in
+   * batches of hive.metastore.batch.retrieve.expr.partition.max, so that only one batch of
+   * them is held at a time besides the ones the caller keeps. If batches are disabled, or
+   * the metastore doesn't support them, all the partitions are got at once.
+   * @param tbl The table containing the partitions.
+   * @param expr A serialized expression for partition predicates.
+   * @param conf Hive config.
+   * @return the iterator; whether it returned partitions which may or may not match the expr
+   *    is known once it is used up
+   */
+  public PartitionIterator getPartitionsByExprIterator(Table tbl, ExprNodeGenericFuncDesc expr,
+      HiveConf conf) throws HiveException, TException {
     byte[] exprBytes = Utilities.serializeExpressionToKryo(expr);
     String defaultPartitionName = HiveConf.getVar(conf, ConfVars.DEFAULTPARTITIONNAME);
+    int batchSize = HiveConf.getIntVar(conf, ConfVars.METASTORE_BATCH_RETRIEVE_EXPR_PARTITION_MAX);
+    if (batchSize > 0) {
+      try {
+        return new PartitionIterator(tbl, getMSC().listPartitionsByExprInBatches(
+            tbl.getDbName(), tbl.getTableName(), exprBytes, defaultPartitionName,
+            (short)Math.min(batchSize, Short.MAX_VALUE)));
+      } catch (IMetaStoreClient.IncompatibleMetastoreException ime) {
+        // The first batch tells us; the metastore is older and returns all partitions at once.
+        LOG.debug("Metastore doesn't support getting partitions by expr in batches", ime);
+      }
+    }
     List<org.apache.hadoop.hive.metastore.api.Partition> msParts =
         new ArrayList<org.apache.hadoop.hive.metastore.api.Partition>();
     boolean hasUnknownParts = getMSC().listPartitionsByExpr(tbl.getDbName(),
         tbl.getTableName(), exprBytes, defaultPartitionName, (short)-1, msParts);
-    convertFromMetastore(tbl, msParts, result);
-    return hasUnknownParts;
+    return new PartitionIterator(tbl, new PartitionsByExprIterator(msParts, hasUnknownParts));
   }
 
   /**
@@ -2560,6 +2610,16 @@ public Map<String, List<ColumnStatisticsObj>> getPartitionColumnStatistics(Strin
     }
   }
 
+  public AggrStats getAggrColStatsFor(String dbName, String tblName,
+      List<String> colNames, List<String> partNames) throws HiveException {
+    try {
+      return getMSC().getAggrColStatsFor(dbName, tblName, colNames, partNames);
+    } catch (Exception e) {
+      LOG.debug(StringUtils.stringifyException(e));
+      throw new HiveException(e);
+    }
+  }
+
   public boolean deleteTableColumnStatistics(String dbName, String tableName, String colName)
     throws HiveException {
     try {
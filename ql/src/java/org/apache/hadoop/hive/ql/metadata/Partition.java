@@ -75,6 +75,14 @@ public class Partition implements Serializable {
   private Class<? extends HiveOutputFormat> outputFormatClass;
   private Class<? extends InputFormat> inputFormatClass;
 
+  /**
+   * Whether the column list of tPartition belongs to this partition. Partitions got from the
+   * metastore share an unmodifiable column list with the other partitions of the table, and
+   * partitions without columns share the list of the table, so the list is copied before it
+   * is first modified.
+   */
+  private transient boolean colsCopied;
+
   /**
    * @return The values of the partition
    * @see org.apache.hadoop.hive.metastore.api.Partition#getValues()
@@ -183,6 +191,7 @@ protected void initialize(Table table,
 
     this.table = table;
     this.tPartition = tPartition;
+    this.colsCopied = false;
 
     if (table.isView()) {
       return;
@@ -495,6 +504,7 @@ public org.apache.hadoop.hive.metastore.api.Partition getTPartition() {
   public void setTPartition(
       org.apache.hadoop.hive.metastore.api.Partition partition) {
     tPartition = partition;
+    colsCopied = false;
   }
 
   public Map<String, String> getParameters() {
@@ -517,6 +527,27 @@ public List<FieldSchema> getCols() {
     return new ArrayList<FieldSchema>();
   }
 
+  /**
+   * Returns the column list of the storage descriptor, to be modified in place. The list is
+   * copied on the first call, so that the change affects neither the table nor the other
+   * partitions that the list is shared with.
+   * @return The modifiable column list of this partition.
+   */
+  public List<FieldSchema> getColsForUpdate() {
+    StorageDescriptor sd = tPartition.getSd();
+    if (!colsCopied) {
+      List<FieldSchema> cols = new ArrayList<FieldSchema>();
+      if (sd.getCols() != null) {
+        for (FieldSchema col : sd.getCols()) {
+          cols.add(new FieldSchema(col));
+        }
+      }
+      sd.setCols(cols);
+      colsCopied = true;
+    }
+    return sd.getCols();
+  }
+
   public String getLocation() {
     if (tPartition.getSd() == null) {
       return null;
@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.metadata;
+
+import java.util.Iterator;
+
+import org.apache.hadoop.hive.metastore.PartitionsByExprIterator;
+
+/**
+ * Iterates over the Partitions of a table matching an expression, which are got from the
+ * metastore batch by batch. Only the current batch of metastore partitions is held, so
+ * the caller decides what to keep of them. Failures are thrown as a RuntimeException.
+ */
+public class PartitionIterator implements Iterator<Partition> {
+
+  private final Table table;
+  private final PartitionsByExprIterator partitions;
+
+  public PartitionIterator(Table table, PartitionsByExprIterator partitions) {
+    this.table = table;
+    this.partitions = partitions;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return partitions.hasNext();
+  }
+
+  @Override
+  public Partition next() {
+    try {
+      return new Partition(table, partitions.next());
+    } catch (HiveException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return whether the partitions iterated over so far contain partitions which may or
+   *    may not match the expression
+   */
+  public boolean hasUnknownPartitions() {
+    return partitions.hasUnknownPartitions();
+  }
+}
@@ -63,6 +63,7 @@
 import org.apache.hadoop.hive.ql.exec.mr.MapRedTask;
 import org.apache.hadoop.hive.ql.hooks.ReadEntity;
 import org.apache.hadoop.hive.ql.io.RCFileInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
 import org.apache.hadoop.hive.ql.io.rcfile.merge.MergeWork;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.metadata.Partition;
@@ -1249,8 +1250,17 @@ public static void createMRWorkForMergingFiles (FileSinkOperator fsInput,
     MapWork cplan;
     Serializable work;
 
-    if (conf.getBoolVar(ConfVars.HIVEMERGERCFILEBLOCKLEVEL) &&
-        fsInputDesc.getTableInfo().getInputFileFormatClass().equals(RCFileInputFormat.class)) {
+    Class<?> srcInputFormat = fsInputDesc.getTableInfo().getInputFileFormatClass();
+    if (conf.getBoolVar(ConfVars.HIVEMERGEORCFILESTRIPELEVEL) &&
+        srcInputFormat.equals(OrcInputFormat.class)) {
+
+      LOG.info("ORC format- Using stripe level merge");
+      cplan = GenMapRedUtils.createRCFileMergeTask(fsInputDesc, finalName,
+          dpCtx != null && dpCtx.getNumDPCols() > 0);
+      work = cplan;
+
+    } else if (conf.getBoolVar(ConfVars.HIVEMERGERCFILEBLOCKLEVEL) &&
+        srcInputFormat.equals(RCFileInputFormat.class)) {
 
       // Check if InputFormatClass is valid
       String inputFormatClass = conf.getVar(ConfVars.HIVEMERGEINPUTFORMATBLOCKLEVEL);
@@ -1478,11 +1488,12 @@ private static MapWork createMRWorkForMergingFiles (HiveConf conf,
   }
 
   /**
-   * Create a block level merge task for RCFiles.
+   * Create a block level merge task for RCFiles or a stripe level merge task
+   * for ORC files.
    *
    * @param fsInputDesc
    * @param finalName
-   * @return MergeWork if table is stored as RCFile,
+   * @return MergeWork if table is stored as RCFile or ORC,
    *         null otherwise
    */
   public static MapWork createRCFileMergeTask(FileSinkDesc fsInputDesc,
@@ -1491,7 +1502,8 @@ public static MapWork createRCFileMergeTask(FileSinkDesc fsInputDesc,
     Path inputDir = fsInputDesc.getFinalDirName();
     TableDesc tblDesc = fsInputDesc.getTableInfo();
 
-    if (tblDesc.getInputFileFormatClass().equals(RCFileInputFormat.class)) {
+    if (tblDesc.getInputFileFormatClass().equals(RCFileInputFormat.class) ||
+        tblDesc.getInputFileFormatClass().equals(OrcInputFormat.class)) {
       ArrayList<Path> inputDirs = new ArrayList<Path>(1);
       ArrayList<String> inputDirstr = new ArrayList<String>(1);
       if (!hasDynamicPartitions
@@ -1501,7 +1513,8 @@ public static MapWork createRCFileMergeTask(FileSinkDesc fsInputDesc,
       }
 
       MergeWork work = new MergeWork(inputDirs, finalName,
-          hasDynamicPartitions, fsInputDesc.getDynPartCtx());
+          hasDynamicPartitions, fsInputDesc.getDynPartCtx(),
+          tblDesc.getInputFileFormatClass());
       LinkedHashMap<String, ArrayList<String>> pathToAliases =
           new LinkedHashMap<String, ArrayList<String>>();
       pathToAliases.put(inputDir.toString(), (ArrayList<String>) inputDirstr.clone());
@@ -1519,7 +1532,7 @@ public static MapWork createRCFileMergeTask(FileSinkDesc fsInputDesc,
       return work;
     }
 
-    throw new SemanticException("createRCFileMergeTask called on non-RCFile table");
+    throw new SemanticException("createRCFileMergeTask called on non-RCFile, non-ORC table");
   }
 
   /**
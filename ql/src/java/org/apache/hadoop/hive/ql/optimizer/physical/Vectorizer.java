@@ -51,6 +51,7 @@
 import org.apache.hadoop.hive.ql.lib.Rule;
 import org.apache.hadoop.hive.ql.lib.RuleRegExp;
 import org.apache.hadoop.hive.ql.lib.TaskGraphWalker;
+import org.apache.hadoop.hive.ql.io.VectorizedTextInputFormat;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.metadata.VirtualColumn;
 import org.apache.hadoop.hive.ql.parse.SemanticException;
@@ -60,11 +61,14 @@
 import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
 import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
 import org.apache.hadoop.hive.ql.plan.ExprNodeGenericFuncDesc;
+import org.apache.hadoop.hive.ql.plan.GroupByDesc;
 import org.apache.hadoop.hive.ql.plan.MapJoinDesc;
 import org.apache.hadoop.hive.ql.plan.MapWork;
 import org.apache.hadoop.hive.ql.plan.OperatorDesc;
 import org.apache.hadoop.hive.ql.plan.PartitionDesc;
+import org.apache.hadoop.hive.ql.plan.ReduceWork;
 import org.apache.hadoop.hive.ql.plan.SMBJoinDesc;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
 import org.apache.hadoop.hive.ql.plan.TableScanDesc;
 import org.apache.hadoop.hive.ql.plan.TezWork;
 import org.apache.hadoop.hive.ql.plan.api.OperatorType;
@@ -107,6 +111,15 @@
 import org.apache.hadoop.hive.ql.udf.UDFWeekOfYear;
 import org.apache.hadoop.hive.ql.udf.UDFYear;
 import org.apache.hadoop.hive.ql.udf.generic.*;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.Deserializer;
+import org.apache.hadoop.hive.serde2.binarysortable.BinarySortableSerDe;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
+import org.apache.hadoop.hive.serde2.lazybinary.LazyBinarySerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.mapred.TextInputFormat;
 
 public class Vectorizer implements PhysicalPlanResolver {
 
@@ -119,6 +132,10 @@ public class Vectorizer implements PhysicalPlanResolver {
 
   Set<String> supportedAggregationUdfs = new HashSet<String>();
 
+  // Aggregates that can be computed on the reduce side; their partial and final
+  // results have the same type, and merging partials only needs the aggregate itself.
+  Set<String> supportedReduceAggregationUdfs = new HashSet<String>();
+
   private PhysicalContext physicalContext = null;;
 
   public Vectorizer() {
@@ -251,6 +268,11 @@ public Vectorizer() {
     supportedAggregationUdfs.add("stddev");
     supportedAggregationUdfs.add("stddev_pop");
     supportedAggregationUdfs.add("stddev_samp");
+
+    supportedReduceAggregationUdfs.add("min");
+    supportedReduceAggregationUdfs.add("max");
+    supportedReduceAggregationUdfs.add("count");
+    supportedReduceAggregationUdfs.add("sum");
   }
 
   class VectorizationDispatcher implements Dispatcher {
@@ -269,12 +291,118 @@ public Object dispatch(Node nd, Stack<Node> stack, Object... nodeOutputs)
         for (BaseWork w: work.getAllWork()) {
           if (w instanceof MapWork) {
             convertMapWork((MapWork)w);
+          } else if (w instanceof ReduceWork) {
+            // Only the Tez reduce side is vectorized, MR reducers stay in row mode.
+            if (HiveConf.getBoolVar(physicalContext.getConf(),
+                HiveConf.ConfVars.HIVE_VECTORIZATION_REDUCE_ENABLED)) {
+              convertReduceWork((ReduceWork)w);
+            }
           }
         }
       }
       return null;
     }
 
+    private void convertReduceWork(ReduceWork reduceWork) throws SemanticException {
+      Map<String, Integer> columnMap = new HashMap<String, Integer>();
+      boolean ret = validateReduceWork(reduceWork, columnMap);
+      if (ret) {
+        vectorizeReduceWork(reduceWork, columnMap);
+      }
+    }
+
+    private boolean validateReduceWork(ReduceWork reduceWork,
+        Map<String, Integer> columnMap) throws SemanticException {
+      // The batch is made of the key and value columns of a single input.
+      if (reduceWork.getNeedsTagging() || reduceWork.getTagToValueDesc().size() != 1) {
+        LOG.info("Reduce work with more than one input can't be vectorized");
+        return false;
+      }
+      TableDesc keyDesc = reduceWork.getKeyDesc();
+      TableDesc valueDesc = reduceWork.getTagToValueDesc().get(0);
+      if (!BinarySortableSerDe.class.getName().equals(keyDesc.getSerdeClassName())
+          || !LazyBinarySerDe.class.getName().equals(valueDesc.getSerdeClassName())) {
+        LOG.info("Reduce input serdes " + keyDesc.getSerdeClassName() + ", "
+            + valueDesc.getSerdeClassName() + " can't be vectorized");
+        return false;
+      }
+      if (!addReduceColumns(Utilities.ReduceField.KEY.toString(), keyDesc, columnMap)
+          || !addReduceColumns(Utilities.ReduceField.VALUE.toString(), valueDesc, columnMap)) {
+        return false;
+      }
+      return validateReduceOperator(reduceWork.getReducer());
+    }
+
+    /**
+     * Adds the columns of the reduce input key or value to the column map, in the
+     * order they appear in the reduce-side batch: key columns first, then value columns.
+     */
+    private boolean addReduceColumns(String prefix, TableDesc desc,
+        Map<String, Integer> columnMap) throws SemanticException {
+      StructObjectInspector oi;
+      try {
+        Deserializer deserializer = desc.getDeserializer();
+        oi = (StructObjectInspector) deserializer.getObjectInspector();
+      } catch (Exception e) {
+        throw new SemanticException(e);
+      }
+      for (StructField field : oi.getAllStructFieldRefs()) {
+        ObjectInspector fieldOI = field.getFieldObjectInspector();
+        if (fieldOI.getCategory() != ObjectInspector.Category.PRIMITIVE
+            || !validateDataType(fieldOI.getTypeName())) {
+          LOG.info("Reduce input column " + field.getFieldName() + " of type "
+              + fieldOI.getTypeName() + " can't be vectorized");
+          return false;
+        }
+        columnMap.put(prefix + "." + field.getFieldName(), columnMap.size());
+      }
+      return true;
+    }
+
+    private void vectorizeReduceWork(ReduceWork reduceWork,
+        Map<String, Integer> columnMap) throws SemanticException {
+      LOG.info("Vectorizing reduce task...");
+      VectorizationContext vContext = new VectorizationContext(columnMap, columnMap.size());
+      try {
+        reduceWork.setReducer(vectorizeReduceOperator(reduceWork.getReducer(), vContext));
+      } catch (HiveException e) {
+        throw new SemanticException(e);
+      }
+      reduceWork.setVectorMode(true);
+      // Operators below the reducer share its output column manager, so the reducer
+      // context knows about all the scratch columns of the batch.
+      Map<Integer, String> columnVectorTypes = vContext.getOutputColumnTypeMap();
+      reduceWork.setScratchColumnVectorTypes(columnVectorTypes);
+      reduceWork.setScratchColumnMap(vContext.getColumnMap());
+
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(String.format("vectorTypes: %s", columnVectorTypes.toString()));
+        LOG.debug(String.format("columnMap: %s", columnMap.toString()));
+      }
+    }
+
+    private Operator<? extends OperatorDesc> vectorizeReduceOperator(
+        Operator<? extends OperatorDesc> op, VectorizationContext vContext)
+            throws HiveException {
+      Operator<? extends OperatorDesc> vectorOp = vectorizeOperator(op, vContext);
+      if (vectorOp.getType().equals(OperatorType.GROUPBY)) {
+        // The vector group by forwards rows; the operators below it stay in row mode.
+        return vectorOp;
+      }
+      VectorizationContext childContext = vContext;
+      if (vectorOp instanceof VectorizationContextRegion) {
+        childContext = ((VectorizationContextRegion) vectorOp).getOuputVectorizationContext();
+      }
+      if (vectorOp.getChildOperators() != null) {
+        List<Operator<? extends OperatorDesc>> children =
+            new ArrayList<Operator<? extends OperatorDesc>>(vectorOp.getChildOperators());
+        for (Operator<? extends OperatorDesc> child : children) {
+          vectorizeReduceOperator(child, childContext);
+        }
+      }
+      return vectorOp;
+    }
+
     private void convertMapWork(MapWork mapWork) throws SemanticException {
       boolean ret = validateMapWork(mapWork);
       if (ret) {
@@ -289,7 +417,8 @@ private boolean validateMapWork(MapWork mapWork) throws SemanticException {
         PartitionDesc pd = mapWork.getPathToPartitionInfo().get(path);
         List<Class<?>> interfaceList =
             Arrays.asList(pd.getInputFileFormatClass().getInterfaces());
-        if (!interfaceList.contains(VectorizedInputFormatInterface.class)) {
+        if (!interfaceList.contains(VectorizedInputFormatInterface.class)
+            && !isVectorizedText(pd)) {
           LOG.info("Input format: " + pd.getInputFileFormatClassName()
               + ", doesn't provide vectorized input");
           return false;
@@ -321,6 +450,11 @@ private boolean validateMapWork(MapWork mapWork) throws SemanticException {
     private void vectorizeMapWork(MapWork mapWork) throws SemanticException {
       LOG.info("Vectorizing task...");
       mapWork.setVectorMode(true);
+      for (PartitionDesc pd : mapWork.getPathToPartitionInfo().values()) {
+        if (isVectorizedText(pd)) {
+          pd.setInputFileFormatClass(VectorizedTextInputFormat.class);
+        }
+      }
       Map<Rule, NodeProcessor> opRules = new LinkedHashMap<Rule, NodeProcessor>();
       VectorizationNodeProcessor vnp = new VectorizationNodeProcessor(mapWork);
       opRules.put(new RuleRegExp("R1", TableScanOperator.getOperatorName() + ".*" +
@@ -518,6 +652,66 @@ public PhysicalContext resolve(PhysicalContext pctx) throws SemanticException {
     return pctx;
   }
 
+  /**
+   * Delimited text read with LazySimpleSerDe has no vectorized input format of its own;
+   * VectorizedTextInputFormat is substituted for TextInputFormat when the map work is
+   * vectorized. Footer lines can't be skipped while reading batches.
+   */
+  private boolean isVectorizedText(PartitionDesc pd) {
+    if (!HiveConf.getBoolVar(physicalContext.getConf(),
+        HiveConf.ConfVars.HIVE_VECTORIZATION_TEXT_ENABLED)) {
+      return false;
+    }
+    if (pd.getInputFileFormatClass() != TextInputFormat.class
+        || !LazySimpleSerDe.class.getName().equals(pd.getSerdeClassName())) {
+      return false;
+    }
+    TableDesc table = pd.getTableDesc();
+    if (table == null) {
+      return true;
+    }
+    try {
+      return Integer.parseInt(
+          table.getProperties().getProperty(serdeConstants.FOOTER_COUNT, "0")) == 0;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Validates the reduce operator tree. The tree is vectorized down to the first group by,
+   * whose output is in row mode.
+   */
+  boolean validateReduceOperator(Operator<? extends OperatorDesc> op) {
+    boolean ret = false;
+    switch (op.getType()) {
+      case GROUPBY:
+        return validateReduceGroupByOperator((GroupByOperator) op);
+      case FILTER:
+      case SELECT:
+      case REDUCESINK:
+      case FILESINK:
+      case LIMIT:
+        ret = validateOperator(op);
+        break;
+      default:
+        ret = false;
+        break;
+    }
+    if (!ret) {
+      LOG.info("Reduce operator: " + op.getName() + " could not be vectorized.");
+      return false;
+    }
+    if (op.getChildOperators() != null) {
+      for (Operator<? extends OperatorDesc> child : op.getChildOperators()) {
+        if (!validateReduceOperator(child)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   boolean validateOperator(Operator<? extends OperatorDesc> op) {
     boolean ret = false;
     switch (op.getType()) {
@@ -616,6 +810,39 @@ private boolean validateGroupByOperator(GroupByOperator op) {
     return validateAggregationDesc(op.getConf().getAggregators());
   }
 
+  private boolean validateReduceGroupByOperator(GroupByOperator op) {
+    GroupByDesc desc = op.getConf();
+    // The vector group by streams over the sorted reduce input; this only gives final
+    // results when merging partials or when aggregating the raw rows in one step.
+    if (desc.getMode() != GroupByDesc.Mode.MERGEPARTIAL
+        && desc.getMode() != GroupByDesc.Mode.COMPLETE) {
+      LOG.info("Reduce group by mode " + desc.getMode() + " not supported in vector mode");
+      return false;
+    }
+    if (desc.isDistinct()) {
+      LOG.info("Reduce group by with distinct not supported in vector mode");
+      return false;
+    }
+    for (AggregationDesc aggDesc : desc.getAggregators()) {
+      String name = aggDesc.getGenericUDAFName().toLowerCase();
+      if (aggDesc.getDistinct() || !supportedReduceAggregationUdfs.contains(name)) {
+        LOG.info("Reduce aggregate " + name + " not supported in vector mode");
+        return false;
+      }
+      // Without keys a row is forwarded even for empty input, where the vector count
+      // (or its merge as a sum) would give NULL instead of 0.
+      if (desc.getKeys().isEmpty() && name.equals("count")) {
+        LOG.info("Reduce count without group by keys not supported in vector mode");
+        return false;
+      }
+    }
+    if (!validateGroupByOperator(op)) {
+      LOG.info("Reduce operator: " + op.getName() + " could not be vectorized.");
+      return false;
+    }
+    return true;
+  }
+
   private boolean validateExprNodeDesc(List<ExprNodeDesc> descs) {
     return validateExprNodeDesc(descs, VectorExpressionDescriptor.Mode.PROJECTION);
   }
@@ -43,6 +43,7 @@
 import org.apache.hadoop.hive.ql.metadata.Hive;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
 import org.apache.hadoop.hive.ql.metadata.Partition;
+import org.apache.hadoop.hive.ql.metadata.PartitionIterator;
 import org.apache.hadoop.hive.ql.metadata.Table;
 import org.apache.hadoop.hive.ql.optimizer.PrunerUtils;
 import org.apache.hadoop.hive.ql.optimizer.Transform;
@@ -310,14 +311,19 @@ private static PrunedPartitionList getPartitionsFromServer(Table tab,
       boolean doEvalClientSide = hasUserFunctions(compactExpr);
 
       // Now filter.
-      List<Partition> partitions = new ArrayList<Partition>();
+      Set<Partition> partitions = new LinkedHashSet<Partition>();
       boolean hasUnknownPartitions = false;
       PerfLogger perfLogger = PerfLogger.getPerfLogger();
       if (!doEvalClientSide) {
         perfLogger.PerfLogBegin(CLASS_NAME, PerfLogger.PARTITION_RETRIEVING);
         try {
-          hasUnknownPartitions = Hive.get().getPartitionsByExpr(
-              tab, compactExpr, conf, partitions);
+          // Only the partitions are kept, not the batches they are got in.
+          PartitionIterator parts = Hive.get().getPartitionsByExprIterator(
+              tab, compactExpr, conf);
+          while (parts.hasNext()) {
+            partitions.add(parts.next());
+          }
+          hasUnknownPartitions = parts.hasUnknownPartitions();
         } catch (IMetaStoreClient.IncompatibleMetastoreException ime) {
           // TODO: backward compat for Hive <= 0.12. Can be removed later.
           LOG.warn("Metastore doesn't support getPartitionsByExpr", ime);
@@ -334,7 +340,7 @@ private static PrunedPartitionList getPartitionsFromServer(Table tab,
       // evaluator returning null for a partition, or if we sent a partial expression to
       // metastore and so some partitions may have no data based on other filters.
       boolean isPruningByExactFilter = oldFilter.equals(compactExpr.getExprString());
-      return new PrunedPartitionList(tab, new LinkedHashSet<Partition>(partitions),
+      return new PrunedPartitionList(tab, partitions,
           hasUnknownPartitions || !isPruningByExactFilter);
     } catch (HiveException e) {
       throw e;
@@ -360,7 +366,7 @@ private static Set<Partition> getAllPartitions(Table tab) throws HiveException {
    * @param conf Hive Configuration object, can not be NULL.
    * @return true iff the partition pruning expression contains non-partition columns.
    */
-  static private boolean pruneBySequentialScan(Table tab, List<Partition> partitions,
+  static private boolean pruneBySequentialScan(Table tab, Set<Partition> partitions,
       ExprNodeGenericFuncDesc prunerExpr, HiveConf conf) throws HiveException, MetaException {
     PerfLogger perfLogger = PerfLogger.getPerfLogger();
     perfLogger.PerfLogBegin(CLASS_NAME, PerfLogger.PRUNE_LISTING);
@@ -69,6 +69,7 @@
 import org.apache.hadoop.hive.ql.index.HiveIndexHandler;
 import org.apache.hadoop.hive.ql.io.IgnoreKeyTextOutputFormat;
 import org.apache.hadoop.hive.ql.io.RCFileInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
 import org.apache.hadoop.hive.ql.lib.Node;
 import org.apache.hadoop.hive.ql.lockmgr.HiveTxnManager;
 import org.apache.hadoop.hive.ql.lockmgr.LockException;
@@ -1546,10 +1547,11 @@ private void analyzeAlterTablePartMergeFiles(ASTNode tablePartAST, ASTNode ast,
             tblObj.getSkewedColValueLocationMaps(), tblObj.isStoredAsSubDirectories(), conf);
       }
 
-      // throw a HiveException for non-rcfile.
-      if (!inputFormatClass.equals(RCFileInputFormat.class)) {
+      // throw a HiveException for anything but RCFile and ORC.
+      if (!inputFormatClass.equals(RCFileInputFormat.class) &&
+          !inputFormatClass.equals(OrcInputFormat.class)) {
         throw new SemanticException(
-            "Only RCFileFormat is supportted right now.");
+            "Only RCFileFormat and OrcFileFormat are supportted right now.");
       }
 
       // throw a HiveException if the table/partition is bucketized
@@ -1569,6 +1571,7 @@ private void analyzeAlterTablePartMergeFiles(ASTNode tablePartAST, ASTNode ast,
       mergeDesc.setInputDir(inputDir);
 
       mergeDesc.setLbCtx(lbCtx);
+      mergeDesc.setInputFormatClass(inputFormatClass);
 
       addInputsOutputsAlterTable(tableName, partSpec);
       DDLWork ddlWork = new DDLWork(getInputs(), getOutputs(), mergeDesc);
@@ -75,6 +75,12 @@ public ReduceWork(String name) {
 
   private Map<Integer, String> tagToInput = new HashMap<Integer, String>();
 
+  // vector types of the scratch columns of the reduce-side batch, used when vectorized
+  private Map<Integer, String> scratchColumnVectorTypes = null;
+
+  // column name to batch column index of the reduce-side batch, used when vectorized
+  private Map<String, Integer> scratchColumnMap = null;
+
   /**
    * If the plan has a reducer and correspondingly a reduce-sink, then store the TableDesc pointing
    * to keySerializeInfo of the ReduceSink
@@ -128,6 +134,26 @@ public Map<Integer, String> getTagToInput() {
     return tagToInput;
   }
 
+  public Map<Integer, String> getScratchColumnVectorTypes() {
+    return scratchColumnVectorTypes;
+  }
+
+  public void setScratchColumnVectorTypes(Map<Integer, String> scratchColumnVectorTypes) {
+    this.scratchColumnVectorTypes = scratchColumnVectorTypes;
+  }
+
+  public Map<String, Integer> getScratchColumnMap() {
+    return scratchColumnMap;
+  }
+
+  public void setScratchColumnMap(Map<String, Integer> scratchColumnMap) {
+    this.scratchColumnMap = scratchColumnMap;
+  }
+
+  public boolean getVectorMode() {
+    return vectorMode;
+  }
+
   @Override
   public void replaceRoots(Map<Operator<?>, Operator<?>> replacementMap) {
     assert replacementMap.size() == 1;
@@ -28,8 +28,10 @@
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.ObjectPair;
 import org.apache.hadoop.hive.common.StatsSetupConst;
 import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.metastore.api.AggrStats;
 import org.apache.hadoop.hive.metastore.api.ColumnStatistics;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsData;
 import org.apache.hadoop.hive.metastore.api.ColumnStatisticsObj;
@@ -206,16 +208,17 @@ public static Statistics collectStatistics(HiveConf conf, PrunedPartitionList pa
         for (Partition part : partList.getNotDeniedPartns()) {
           partNames.add(part.getName());
         }
-        Map<String, List<ColStatistics>> partStats =
-            getPartColumnStats(table, schema, partNames, neededColumns);
-        if (partStats != null) {
-          for (String partName : partNames) {
-            List<ColStatistics> partStat = partStats.get(partName);
-            haveFullStats &= (partStat != null);
-            if (partStat != null) {
-              stats.updateColumnStatsState(deriveStatType(partStat, neededColumns));
-              stats.addToColumnStats(partStat);
-            }
+        // The metastore merges the statistics of the partitions the same way
+        // Statistics.addToColumnStats does, so only the aggregates are fetched.
+        ObjectPair<List<ColStatistics>, Long> aggrStats =
+            getAggrColumnStats(table, schema, partNames, neededColumns);
+        if (aggrStats == null) {
+          haveFullStats = false;
+        } else {
+          haveFullStats &= (aggrStats.getSecond() == partNames.size());
+          if (!aggrStats.getFirst().isEmpty()) {
+            stats.updateColumnStatsState(deriveStatType(aggrStats.getFirst(), neededColumns));
+            stats.addToColumnStats(aggrStats.getFirst());
           }
         }
       }
@@ -504,6 +507,43 @@ public static Map<String, List<ColStatistics>> getPartColumnStats(Table table,
     return stats;
   }
 
+  /**
+   * Get column statistics for needed columns aggregated over partitions by the metastore
+   * @param table
+   *          - table
+   * @param schema
+   *          - output schema
+   * @param partNames
+   *          - names of the partitions
+   * @param neededColumns
+   *          - list of needed columns
+   * @return column statistics and the number of partitions that have statistics for all the
+   *         needed columns, or null if they could not be retrieved
+   */
+  public static ObjectPair<List<ColStatistics>, Long> getAggrColumnStats(Table table,
+      List<ColumnInfo> schema, List<String> partNames, List<String> neededColumns) {
+    String dbName = table.getDbName();
+    String tabName = table.getTableName();
+    Map<String, String> colToTabAlias = new HashMap<String, String>(schema.size());
+    List<String> neededColsInTable = processNeededColumns(schema, neededColumns, colToTabAlias);
+    try {
+      AggrStats aggrStats = Hive.get().getAggrColStatsFor(
+          dbName, tabName, neededColsInTable, partNames);
+      List<ColStatistics> stats = new ArrayList<ColStatistics>(aggrStats.getColStatsSize());
+      for (ColumnStatisticsObj statObj : aggrStats.getColStats()) {
+        ColStatistics cs = getColStatistics(statObj, tabName, statObj.getColName());
+        if (cs != null) {
+          cs.setTableAlias(colToTabAlias.get(cs.getColumnName()));
+        }
+        stats.add(cs);
+      }
+      return ObjectPair.create(stats, aggrStats.getPartsFound());
+    } catch (HiveException e) {
+      LOG.error("Failed to retrieve aggregated partitions statistics: ", e);
+      return null;
+    }
+  }
+
   private static List<String> processNeededColumns(List<ColumnInfo> schema,
       List<String> neededColumns, Map<String, String> colToTabAlias) {
     for (ColumnInfo col : schema) {
@@ -20,6 +20,8 @@
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 
 import org.apache.hadoop.hive.ql.exec.MapredContext;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -41,6 +43,12 @@
 @UDFType(deterministic = true)
 public abstract class GenericUDAFEvaluator implements Closeable {
 
+  /**
+   * Marks an aggregation buffer whose size can be estimated with
+   * {@link AbstractAggregationBuffer#estimate()}. The annotation is read at
+   * runtime, by the operators keeping track of the memory of their hash tables.
+   */
+  @Retention(RetentionPolicy.RUNTIME)
   public static @interface AggregationType {
     boolean estimable() default false;
   }
@@ -147,6 +155,10 @@ public static abstract class AbstractAggregationBuffer implements AggregationBuf
      * Estimate the size of memory which is occupied by aggregation buffer.
      * Currently, hive assumes that primitives types occupies 16 byte and java object has
      * 64 byte overhead for each. For map, each entry also has 64 byte overhead.
+     *
+     * Buffers annotated with estimable {@link AggregationType} return the current size,
+     * including the values they collected. The hash aggregation calls this for every
+     * row it aggregates, so the estimate must be computed in constant time.
      */
     public int estimate() { return -1; }
   }
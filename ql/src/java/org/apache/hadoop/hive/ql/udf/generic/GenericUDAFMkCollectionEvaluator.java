@@ -25,6 +25,7 @@
 import java.util.List;
 
 import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils;
@@ -84,9 +85,12 @@ public ObjectInspector init(Mode m, ObjectInspector[] parameters)
   }
 
 
+  @AggregationType(estimable = true)
   class MkArrayAggregationBuffer extends AbstractAggregationBuffer {
 
     private Collection<Object> container;
+    // size of the collected values, kept up to date as they are added
+    private int valuesSize;
 
     public MkArrayAggregationBuffer() {
       if (bufferType == BufferType.LIST){
@@ -97,11 +101,23 @@ public MkArrayAggregationBuffer() {
         throw new RuntimeException("Buffer type unknown");
       }
     }
+
+    @Override
+    public int estimate() {
+      JavaDataModel model = JavaDataModel.get();
+      int size = model.object() + model.ref() + model.primitive1() + valuesSize;
+      if (bufferType == BufferType.LIST) {
+        return size + model.arrayList() + model.ref() * container.size();
+      }
+      return size + model.hashSet(container.size());
+    }
   }
 
   @Override
   public void reset(AggregationBuffer agg) throws HiveException {
-    ((MkArrayAggregationBuffer) agg).container.clear();
+    MkArrayAggregationBuffer myagg = (MkArrayAggregationBuffer) agg;
+    myagg.container.clear();
+    myagg.valuesSize = 0;
   }
 
   @Override
@@ -152,7 +168,9 @@ public Object terminate(AggregationBuffer agg) throws HiveException {
 
   private void putIntoCollection(Object p, MkArrayAggregationBuffer myagg) {
     Object pCopy = ObjectInspectorUtils.copyToStandardObject(p,  this.inputOI);
-    myagg.container.add(pCopy);
+    if (myagg.container.add(pCopy)) {
+      myagg.valuesSize += JavaDataModel.get().lengthForPrimitive(pCopy);
+    }
   }
 
   public BufferType getBufferType() {
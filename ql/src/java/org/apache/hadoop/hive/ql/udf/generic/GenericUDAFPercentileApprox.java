@@ -356,8 +356,9 @@ static class PercentileAggBuf extends AbstractAggregationBuffer {
       @Override
       public int estimate() {
         JavaDataModel model = JavaDataModel.get();
+        // the quantiles are only known after the first merge on the reduce side
         return model.lengthFor(histogram) +
-            model.array() + JavaDataModel.PRIMITIVES2 * quantiles.length;
+            model.array() + JavaDataModel.PRIMITIVES2 * (quantiles == null ? 0 : quantiles.length);
       }
     };
 
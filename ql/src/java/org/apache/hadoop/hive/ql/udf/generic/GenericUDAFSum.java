@@ -112,10 +112,14 @@ public ObjectInspector init(Mode m, ObjectInspector[] parameters) throws HiveExc
     }
 
     /** class for storing decimal sum value. */
-    @AggregationType(estimable = false) // hard to know exactly for decimals
+    @AggregationType(estimable = true)
     static class SumHiveDecimalAgg extends AbstractAggregationBuffer {
       boolean empty;
       HiveDecimal sum;
+      @Override
+      public int estimate() {
+        return JavaDataModel.PRIMITIVES1 + JavaDataModel.get().lengthOfDecimal();
+      }
     }
 
     @Override
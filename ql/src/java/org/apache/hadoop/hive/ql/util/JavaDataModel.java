@@ -18,8 +18,15 @@
 
 package org.apache.hadoop.hive.ql.util;
 
+import java.sql.Timestamp;
+
+import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hadoop.hive.ql.udf.generic.NumDistinctValueEstimator;
 import org.apache.hadoop.hive.ql.udf.generic.NumericHistogram;
+import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
+import org.apache.hadoop.hive.serde2.io.TimestampWritable;
+import org.apache.hadoop.io.BytesWritable;
+import org.apache.hadoop.io.Text;
 
 /**
  * Estimation of memory footprint of object
@@ -173,6 +180,10 @@ public int lengthFor(NumericHistogram histogram) {
   }
 
   public int lengthFor(NumDistinctValueEstimator estimator) {
+    if (estimator == null) {
+      // created with the first row
+      return 0;
+    }
     int length = object();
     length += primitive1() * 2;       // two int
     length += primitive2();           // one double
@@ -305,4 +316,41 @@ public int lengthOfDate() {
   public int lengthForStringOfLength(int strLen) {
     return object() + primitive1() * 3 + array() + strLen;
   }
+
+  /**
+   * Estimate the memory footprint of a primitive value, as a java object or as
+   * a writable. Values of other classes are sized as a boxed long.
+   */
+  public int lengthForPrimitive(Object o) {
+    if (o == null) {
+      return 0;
+    }
+    if (o instanceof String) {
+      return lengthFor((String) o);
+    }
+    if (o instanceof Text) {
+      // bytes + length
+      return object() + primitive1() + lengthForByteArrayOfSize(((Text) o).getBytes().length);
+    }
+    if (o instanceof BytesWritable) {
+      // bytes + size
+      return object() + primitive1()
+          + lengthForByteArrayOfSize(((BytesWritable) o).getCapacity());
+    }
+    if (o instanceof byte[]) {
+      return lengthForByteArrayOfSize(((byte[]) o).length);
+    }
+    if (o instanceof HiveDecimal) {
+      return lengthOfDecimal();
+    }
+    if (o instanceof HiveDecimalWritable) {
+      // internal storage + scale
+      return object() + primitive1()
+          + lengthForByteArrayOfSize(((HiveDecimalWritable) o).getInternalStorage().length);
+    }
+    if (o instanceof Timestamp || o instanceof TimestampWritable) {
+      return lengthOfTimestamp();
+    }
+    return object() + primitive2();
+  }
 }
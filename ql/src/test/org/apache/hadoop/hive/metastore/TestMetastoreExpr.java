@@ -35,6 +35,7 @@
 import org.apache.hadoop.hive.metastore.api.NoSuchObjectException;
 import org.apache.hadoop.hive.metastore.api.Order;
 import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.PartitionsByExprResult;
 import org.apache.hadoop.hive.metastore.api.SerDeInfo;
 import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
 import org.apache.hadoop.hive.metastore.api.Table;
@@ -145,6 +146,8 @@ public void testPartitionExpr() throws Exception {
         .fn("instr", TypeInfoFactory.intTypeInfo, 2).val(0).pred("<=", 2).build());
     checkExpr(0, dbName, tblName, e.intCol("p2").pred("isnull", 1).build());
 
+    checkModifyPartition(dbName, tbl, e.val(0).intCol("p2").pred(">", 2).build());
+
     // Cannot deserialize => throw the specific exception.
     try {
       client.listPartitionsByExpr(dbName, tblName,
@@ -166,9 +169,72 @@ public void testPartitionExpr() throws Exception {
   public void checkExpr(int numParts,
       String dbName, String tblName, ExprNodeGenericFuncDesc expr) throws Exception {
     List<Partition> parts = new ArrayList<Partition>();
-    client.listPartitionsByExpr(
-        dbName, tblName, Utilities.serializeExpressionToKryo(expr), null, (short)-1, parts);
+    byte[] exprBytes = Utilities.serializeExpressionToKryo(expr);
+    client.listPartitionsByExpr(dbName, tblName, exprBytes, null, (short)-1, parts);
     assertEquals("Partition check failed: " + expr.getExprString(), numParts, parts.size());
+
+    // Getting the partitions in batches should produce the same partitions.
+    for (short batchSize = 1; batchSize <= 3; ++batchSize) {
+      List<Partition> batchedParts = new ArrayList<Partition>();
+      String cursor = "";
+      do {
+        PartitionsByExprResult batch = client.listPartitionsByExpr(
+            dbName, tblName, exprBytes, null, cursor, batchSize);
+        assertTrue(batch.getPartitionsSize() <= batchSize);
+        batchedParts.addAll(batch.getPartitions());
+        cursor = batch.getNextCursor();
+      } while (!cursor.isEmpty());
+      assertEquals("Batched partition check failed: " + expr.getExprString(),
+          parts, batchedParts);
+
+      List<Partition> iteratedParts = new ArrayList<Partition>();
+      PartitionsByExprIterator iter = client.listPartitionsByExprInBatches(
+          dbName, tblName, exprBytes, null, batchSize);
+      while (iter.hasNext()) {
+        iteratedParts.add(iter.next());
+      }
+      assertFalse(iter.hasNext());
+      assertEquals("Iterated partition check failed: " + expr.getExprString(),
+          parts, iteratedParts);
+    }
+  }
+
+  /**
+   * Checks that modifying one of the partitions returned for an expression doesn't change
+   * the others, although they share the column list.
+   */
+  private void checkModifyPartition(String dbName, Table tbl, ExprNodeGenericFuncDesc expr)
+      throws Exception {
+    List<Partition> parts = new ArrayList<Partition>();
+    client.listPartitionsByExpr(dbName, tbl.getTableName(),
+        Utilities.serializeExpressionToKryo(expr), null, (short)-1, parts);
+    assertTrue(parts.size() >= 2);
+    Partition part = parts.get(0), other = parts.get(1);
+    Partition otherCopy = other.deepCopy();
+    assertSame(part.getSd().getCols(), other.getSd().getCols());
+    try {
+      part.getSd().getCols().add(new FieldSchema("c3", serdeConstants.INT_TYPE_NAME, ""));
+      fail("The shared column list should not be modifiable");
+    } catch (UnsupportedOperationException ex) {
+    }
+
+    part.getSd().setLocation(part.getSd().getLocation() + "_moved");
+    part.getSd().getParameters().put("key", "value");
+    part.getSd().getSerdeInfo().getParameters().put("key", "value");
+    part.getSd().getBucketCols().add("c1");
+    part.getParameters().put("key", "value");
+    assertEquals(otherCopy, other);
+
+    // The ql partition copies the columns before they are modified.
+    org.apache.hadoop.hive.ql.metadata.Partition qlPart =
+        new org.apache.hadoop.hive.ql.metadata.Partition(
+            new org.apache.hadoop.hive.ql.metadata.Table(tbl), part);
+    List<FieldSchema> cols = qlPart.getColsForUpdate();
+    assertSame(cols, qlPart.getColsForUpdate());
+    cols.add(new FieldSchema("c3", serdeConstants.INT_TYPE_NAME, ""));
+    cols.get(0).setComment("modified");
+    assertEquals(3, part.getSd().getColsSize());
+    assertEquals(otherCopy, other);
   }
 
   private static class ExprBuilder {
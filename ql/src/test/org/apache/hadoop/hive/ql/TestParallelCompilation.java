@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.parse.ASTNode;
+import org.apache.hadoop.hive.ql.parse.AbstractSemanticAnalyzerHook;
+import org.apache.hadoop.hive.ql.parse.HiveSemanticAnalyzerHookContext;
+import org.apache.hadoop.hive.ql.parse.SemanticException;
+import org.apache.hadoop.hive.ql.session.SessionState;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Test that the queries of different sessions compile in parallel when
+ * hive.driver.parallel.compilation is on, and one at a time otherwise.
+ */
+public class TestParallelCompilation {
+
+  // the limit is read once per process, so all of the tests use the same one
+  private static final int LIMIT = 2;
+  private static final long TIMEOUT_SECONDS = 60;
+
+  @BeforeClass
+  public static void onetimeSetup() throws CommandNeedRetryException {
+    HiveConf conf = new HiveConf(Driver.class);
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_SUPPORT_CONCURRENCY, false);
+    SessionState.start(conf);
+    Driver driver = new Driver(conf);
+    driver.init();
+    int ret = driver.run("create table if not exists t1(i int)").getResponseCode();
+    assertEquals("Checking command success", 0, ret);
+  }
+
+  @Before
+  public void setup() {
+    CompileHook.barrier = null;
+    CompileHook.fail = false;
+    CompileHook.active.set(0);
+    CompileHook.maxActive.set(0);
+  }
+
+  @Test
+  public void testParallelCompilation() throws Exception {
+    // each compilation waits for the other one to start
+    CompileHook.barrier = new CyclicBarrier(LIMIT);
+    int[] results = compileInSessions(true, LIMIT);
+    for (int result : results) {
+      assertEquals("Checking command success", 0, result);
+    }
+    assertEquals(LIMIT, CompileHook.maxActive.get());
+  }
+
+  @Test
+  public void testSerialCompilation() throws Exception {
+    int[] results = compileInSessions(false, 3);
+    for (int result : results) {
+      assertEquals("Checking command success", 0, result);
+    }
+    assertEquals(1, CompileHook.maxActive.get());
+  }
+
+  @Test
+  public void testFailedCompilationReleasesPermit() throws Exception {
+    CompileHook.fail = true;
+    Driver driver = createDriver(true);
+    for (int i = 0; i < LIMIT; i++) {
+      assertFalse("Checking command failure",
+          driver.compileAndRespond("select * from t1").getResponseCode() == 0);
+    }
+    // the sessions only get all of the permits if the failures gave theirs back
+    CompileHook.fail = false;
+    CompileHook.barrier = new CyclicBarrier(LIMIT);
+    int[] results = compileInSessions(true, LIMIT);
+    for (int result : results) {
+      assertEquals("Checking command success", 0, result);
+    }
+  }
+
+  /**
+   * Compile a query in each of several sessions, each with its own thread.
+   * @return the response codes of the compilations
+   */
+  private static int[] compileInSessions(final boolean parallel, int numSessions)
+      throws InterruptedException {
+    final int[] results = new int[numSessions];
+    Thread[] threads = new Thread[numSessions];
+    for (int i = 0; i < numSessions; i++) {
+      final int session = i;
+      results[session] = -1;
+      threads[session] = new Thread() {
+        @Override
+        public void run() {
+          Driver driver = createDriver(parallel);
+          results[session] =
+              driver.compileAndRespond("select * from t1").getResponseCode();
+        }
+      };
+      // a session stuck waiting to compile must not keep the tests running
+      threads[session].setDaemon(true);
+      threads[session].start();
+    }
+    for (Thread thread : threads) {
+      thread.join(TimeUnit.SECONDS.toMillis(2 * TIMEOUT_SECONDS));
+      assertFalse("Session still compiling", thread.isAlive());
+    }
+    return results;
+  }
+
+  private static Driver createDriver(boolean parallel) {
+    HiveConf conf = new HiveConf(Driver.class);
+    conf.setVar(HiveConf.ConfVars.SEMANTIC_ANALYZER_HOOK,
+        CompileHook.class.getName());
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_SUPPORT_CONCURRENCY, false);
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_DRIVER_PARALLEL_COMPILATION,
+        parallel);
+    HiveConf.setIntVar(conf, HiveConf.ConfVars.HIVE_DRIVER_PARALLEL_COMPILATION_LIMIT,
+        LIMIT);
+    SessionState.start(conf);
+    Driver driver = new Driver(conf);
+    driver.init();
+    return driver;
+  }
+
+  /**
+   * Hook used in the test to count the queries compiling at the same time.
+   */
+  public static class CompileHook extends AbstractSemanticAnalyzerHook {
+    static volatile CyclicBarrier barrier;
+    static volatile boolean fail;
+    static final AtomicInteger active = new AtomicInteger();
+    static final AtomicInteger maxActive = new AtomicInteger();
+
+    @Override
+    public ASTNode preAnalyze(HiveSemanticAnalyzerHookContext context,
+        ASTNode ast) throws SemanticException {
+      if (fail) {
+        throw new SemanticException("failing the compilation");
+      }
+      int current = active.incrementAndGet();
+      try {
+        synchronized (maxActive) {
+          maxActive.set(Math.max(maxActive.get(), current));
+        }
+        if (barrier != null) {
+          barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } else {
+          // leave the other sessions time to start compiling too
+          Thread.sleep(200);
+        }
+      } catch (Exception e) {
+        throw new SemanticException("queries were not compiled in parallel", e);
+      } finally {
+        active.decrementAndGet();
+      }
+      return ast;
+    }
+  }
+}
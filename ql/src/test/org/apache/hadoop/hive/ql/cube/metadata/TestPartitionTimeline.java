@@ -0,0 +1,100 @@
+package org.apache.hadoop.hive.ql.cube.metadata;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+*/
+
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPartitionTimeline {
+
+  private static Date day(String str) throws Exception {
+    return UpdatePeriod.DAILY.format().parse(str);
+  }
+
+  @Test
+  public void testAddAndDrop() throws Exception {
+    PartitionTimeline timeline = new PartitionTimeline(UpdatePeriod.DAILY);
+    Assert.assertTrue(timeline.isEmpty());
+    Assert.assertFalse(timeline.exists(day("2014-01-01")));
+
+    Assert.assertTrue(timeline.add(day("2014-01-05")));
+    Assert.assertTrue(timeline.add(day("2014-01-01")));
+    Assert.assertTrue(timeline.add(day("2014-01-10")));
+    Assert.assertFalse(timeline.add(day("2014-01-10")));
+    Assert.assertEquals(day("2014-01-01"), timeline.getFirst());
+    Assert.assertEquals(day("2014-01-10"), timeline.getLast());
+    Assert.assertEquals(2, timeline.getNumHoles());
+    Assert.assertTrue(timeline.exists(day("2014-01-05")));
+    Assert.assertFalse(timeline.exists(day("2014-01-03")));
+    Assert.assertFalse(timeline.exists(day("2014-01-11")));
+    Assert.assertEquals("2014-01-01,2014-01-10,2014-01-02~2014-01-04,2014-01-06~2014-01-09",
+        timeline.toString());
+
+    // filling a hole splits it
+    Assert.assertTrue(timeline.add(day("2014-01-03")));
+    Assert.assertTrue(timeline.exists(day("2014-01-03")));
+    Assert.assertFalse(timeline.exists(day("2014-01-02")));
+    Assert.assertFalse(timeline.exists(day("2014-01-04")));
+    Assert.assertEquals(3, timeline.getNumHoles());
+
+    // dropping merges the holes around
+    Assert.assertTrue(timeline.drop(day("2014-01-03")));
+    Assert.assertEquals(2, timeline.getNumHoles());
+    Assert.assertFalse(timeline.drop(day("2014-01-03")));
+
+    // dropping the first or the last partition moves them past the holes
+    Assert.assertTrue(timeline.drop(day("2014-01-01")));
+    Assert.assertEquals(day("2014-01-05"), timeline.getFirst());
+    Assert.assertTrue(timeline.drop(day("2014-01-10")));
+    Assert.assertEquals(day("2014-01-05"), timeline.getLast());
+    Assert.assertEquals(0, timeline.getNumHoles());
+    Assert.assertTrue(timeline.drop(day("2014-01-05")));
+    Assert.assertTrue(timeline.isEmpty());
+    Assert.assertEquals("", timeline.toString());
+  }
+
+  @Test
+  public void testParse() throws Exception {
+    PartitionTimeline timeline = new PartitionTimeline(UpdatePeriod.HOURLY);
+    Date dt = UpdatePeriod.HOURLY.format().parse("2014-01-01-00");
+    for (int i = 0; i < 48; i += 5) {
+      timeline.add(new Date(dt.getTime() + i * UpdatePeriod.HOURLY.weight()));
+    }
+    PartitionTimeline parsed = PartitionTimeline.parse(UpdatePeriod.HOURLY,
+        timeline.toString());
+    Assert.assertEquals(timeline.toString(), parsed.toString());
+    Assert.assertEquals(timeline.getNumHoles(), parsed.getNumHoles());
+    for (int i = 0; i < 48; i++) {
+      Date hour = new Date(dt.getTime() + i * UpdatePeriod.HOURLY.weight());
+      Assert.assertEquals(i % 5 == 0, parsed.exists(hour));
+    }
+    Assert.assertTrue(PartitionTimeline.parse(UpdatePeriod.HOURLY, null).isEmpty());
+    try {
+      PartitionTimeline.parse(UpdatePeriod.HOURLY, "2014-01-01-00");
+      Assert.fail("Expected exception for invalid timeline");
+    } catch (java.text.ParseException e) {
+      // expected
+    }
+  }
+}
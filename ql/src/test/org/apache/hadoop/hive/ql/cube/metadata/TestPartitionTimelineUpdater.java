@@ -0,0 +1,256 @@
+package org.apache.hadoop.hive.ql.cube.metadata;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+*/
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPartitionTimelineUpdater {
+
+  private static Date day(String str) throws Exception {
+    return UpdatePeriod.DAILY.format().parse(str);
+  }
+
+  /**
+   * A storage table partitioned on dt, kept in memory.
+   */
+  private static class MemoryStorageTable extends PartitionTimelineUpdater {
+    Table table;
+    final List<Partition> partitions = new ArrayList<Partition>();
+    int numReads;
+    int numAlters;
+
+    MemoryStorageTable() {
+      table = new Table();
+      table.setTableName("t");
+      table.setPartitionKeys(Arrays.asList(new FieldSchema("dt", "string", "")));
+      table.setParameters(new HashMap<String, String>());
+      table.getParameters().put(MetastoreConstants.TIME_PART_COLUMNS, "dt");
+      table.getParameters().put(MetastoreConstants.PARTITION_TIMELINES_PRESENT, "true");
+    }
+
+    Table addPartition(String dt) throws Exception {
+      Partition part = new Partition();
+      part.setValues(Arrays.asList(dt));
+      part.setParameters(new HashMap<String, String>());
+      part.getParameters().put(MetastoreConstants.PARTITION_UPDATE_PERIOD,
+          UpdatePeriod.DAILY.name());
+      partitions.add(part);
+      return update(UpdatePeriod.DAILY, Collections.singletonMap("dt", day(dt)), true);
+    }
+
+    Table dropPartition(String dt) throws Exception {
+      for (int i = 0; i < partitions.size(); i++) {
+        if (partitions.get(i).getValues().get(0).equals(dt)) {
+          partitions.remove(i);
+          break;
+        }
+      }
+      return update(UpdatePeriod.DAILY, Collections.singletonMap("dt", day(dt)), false);
+    }
+
+    PartitionTimeline getTimeline() throws HiveException {
+      return getPartitionTimeline(table, UpdatePeriod.DAILY, "dt");
+    }
+
+    @Override
+    protected Table getTable() throws HiveException {
+      numReads++;
+      return table.deepCopy();
+    }
+
+    @Override
+    protected void alterTable(Table newTable) throws HiveException {
+      numAlters++;
+      table = newTable.deepCopy();
+    }
+
+    @Override
+    protected List<Partition> getPartitions(Table t, String filter) throws HiveException {
+      List<Partition> parts = new ArrayList<Partition>();
+      for (Partition part : partitions) {
+        if (filter == null || filter.equals("dt='" + part.getValues().get(0) + "'")) {
+          parts.add(part);
+        }
+      }
+      return parts;
+    }
+  }
+
+  @Test
+  public void testAddAndDrop() throws Exception {
+    MemoryStorageTable storageTable = new MemoryStorageTable();
+    Assert.assertNotNull(storageTable.addPartition("2014-01-01"));
+    Assert.assertNotNull(storageTable.addPartition("2014-01-03"));
+    Assert.assertEquals("2014-01-01,2014-01-03,2014-01-02",
+        storageTable.getTimeline().toString());
+
+    Assert.assertNotNull(storageTable.dropPartition("2014-01-03"));
+    Assert.assertEquals("2014-01-01,2014-01-01", storageTable.getTimeline().toString());
+
+    // updates already made leave the table as it is
+    int numAlters = storageTable.numAlters;
+    Assert.assertNull(storageTable.update(UpdatePeriod.DAILY,
+        Collections.singletonMap("dt", day("2014-01-01")), true));
+    Assert.assertNull(storageTable.update(UpdatePeriod.DAILY,
+        Collections.singletonMap("dt", day("2014-01-03")), false));
+    Assert.assertEquals(numAlters, storageTable.numAlters);
+  }
+
+  @Test
+  public void testBuildTimelines() throws Exception {
+    MemoryStorageTable storageTable = new MemoryStorageTable();
+    storageTable.table.getParameters().remove(MetastoreConstants.PARTITION_TIMELINES_PRESENT);
+    Assert.assertNull(storageTable.getTimeline());
+    storageTable.addPartition("2014-01-01");
+    storageTable.addPartition("2014-01-05");
+    Assert.assertEquals("2014-01-01,2014-01-05,2014-01-02~2014-01-04",
+        storageTable.getTimeline().toString());
+
+    // timelines which used to be too long to be stored are built again
+    storageTable.table.getParameters().put(
+        MetastoreUtil.getPartitionTimelineKey(UpdatePeriod.DAILY, "dt"),
+        MetastoreConstants.PARTITION_TIMELINE_UNKNOWN);
+    Assert.assertNull(storageTable.getTimeline());
+    storageTable.addPartition("2014-01-03");
+    Assert.assertEquals("2014-01-01,2014-01-05,2014-01-02,2014-01-04",
+        storageTable.getTimeline().toString());
+  }
+
+  @Test
+  public void testLongTimeline() throws Exception {
+    MemoryStorageTable storageTable = new MemoryStorageTable();
+    // every other day, so that the timeline has a hole per partition
+    PartitionTimeline expected = new PartitionTimeline(UpdatePeriod.DAILY);
+    Calendar cal = Calendar.getInstance();
+    cal.setTime(day("2014-01-01"));
+    for (int i = 0; i < 1000; i++) {
+      storageTable.addPartition(UpdatePeriod.DAILY.format().format(cal.getTime()));
+      expected.add(cal.getTime());
+      cal.add(Calendar.DAY_OF_MONTH, 2);
+    }
+    String key = MetastoreUtil.getPartitionTimelineKey(UpdatePeriod.DAILY, "dt");
+    Assert.assertTrue(
+        expected.toString().length() > 2 * PartitionTimelineUpdater.MAX_PARAM_LENGTH);
+    Assert.assertTrue(storageTable.table.getParameters().containsKey(
+        key + MetastoreConstants.PARTITION_TIMELINE_PART_SFX + 2));
+    for (Map.Entry<String, String> entry : storageTable.table.getParameters().entrySet()) {
+      Assert.assertTrue(
+          entry.getValue().length() <= PartitionTimelineUpdater.MAX_PARAM_LENGTH);
+    }
+    Assert.assertEquals(expected.toString(), storageTable.getTimeline().toString());
+
+    // dropping all but the first partition leaves no extra property
+    for (int i = storageTable.partitions.size() - 1; i > 0; i--) {
+      storageTable.dropPartition(storageTable.partitions.get(i).getValues().get(0));
+    }
+    Assert.assertFalse(storageTable.table.getParameters().containsKey(
+        key + MetastoreConstants.PARTITION_TIMELINE_PART_SFX + 1));
+    Assert.assertEquals("2014-01-01,2014-01-01", storageTable.getTimeline().toString());
+  }
+
+  @Test
+  public void testConcurrentUpdateBeforeWrite() throws Exception {
+    final MemoryStorageTable other = new MemoryStorageTable();
+    // another client adds a partition after this one read the table
+    MemoryStorageTable storageTable = new MemoryStorageTable() {
+      @Override
+      protected Table getTable() throws HiveException {
+        if (numReads == 1) {
+          other.table = table;
+          try {
+            other.addPartition("2014-01-01");
+          } catch (Exception e) {
+            throw new HiveException(e);
+          }
+          table = other.table;
+        }
+        return super.getTable();
+      }
+    };
+    storageTable.addPartition("2014-01-03");
+    Assert.assertEquals("2014-01-01,2014-01-03,2014-01-02",
+        storageTable.getTimeline().toString());
+    Assert.assertEquals(2, storageTable.numAlters + other.numAlters);
+  }
+
+  @Test
+  public void testConcurrentUpdateOverwrites() throws Exception {
+    // another client, which read the table before this one wrote it, writes it
+    // right after
+    MemoryStorageTable storageTable = new MemoryStorageTable() {
+      private boolean overwritten;
+
+      @Override
+      protected void alterTable(Table newTable) throws HiveException {
+        Table stale = table.deepCopy();
+        super.alterTable(newTable);
+        if (!overwritten) {
+          overwritten = true;
+          PartitionTimeline timeline = new PartitionTimeline(UpdatePeriod.DAILY);
+          try {
+            timeline.add(day("2014-01-05"));
+          } catch (Exception e) {
+            throw new HiveException(e);
+          }
+          setPartitionTimeline(stale.getParameters(),
+              MetastoreUtil.getPartitionTimelineKey(UpdatePeriod.DAILY, "dt"), timeline);
+          table = stale;
+        }
+      }
+    };
+    storageTable.addPartition("2014-01-03");
+    Assert.assertTrue(storageTable.getTimeline().exists(day("2014-01-03")));
+    Assert.assertTrue(storageTable.getTimeline().exists(day("2014-01-05")));
+    Assert.assertEquals(2, storageTable.numAlters);
+  }
+
+  @Test
+  public void testConcurrentUpdatesGiveUp() throws Exception {
+    // the timelines change every time the table is read
+    MemoryStorageTable storageTable = new MemoryStorageTable() {
+      @Override
+      protected Table getTable() throws HiveException {
+        table.getParameters().put(
+            MetastoreUtil.getPartitionTimelineKey(UpdatePeriod.HOURLY, "dt"),
+            Integer.toString(numReads));
+        return super.getTable();
+      }
+    };
+    storageTable.addPartition("2014-01-03");
+    Assert.assertEquals(1, storageTable.numAlters);
+    Assert.assertNull(storageTable.getTimeline());
+  }
+}
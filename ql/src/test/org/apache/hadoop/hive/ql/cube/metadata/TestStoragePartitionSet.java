@@ -0,0 +1,66 @@
+package org.apache.hadoop.hive.ql.cube.metadata;
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+*/
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestStoragePartitionSet {
+
+  @Test
+  public void testPartitionLookups() throws Exception {
+    StoragePartitionSet parts = new StoragePartitionSet(Arrays.asList(
+        "dt=2014-01-01-00/pt=2014-01-01-01",
+        "dt=2014-01-01-00/pt=2014-01-01-02",
+        "dt=2014-01-01-01/pt=2014-01-01-02",
+        "dt=2014-01/pt=2014-02-01"));
+    Assert.assertEquals(4, parts.size());
+
+    Map<String, String> spec = new HashMap<String, String>();
+    spec.put("dt", "2014-01-01-00");
+    Assert.assertTrue(parts.exists(spec));
+    List<LinkedHashMap<String, String>> matching = parts.getPartitions(spec);
+    Assert.assertEquals(2, matching.size());
+    // values are in the order of the partition columns
+    Assert.assertEquals("2014-01-01-00", matching.get(0).values().iterator().next());
+
+    spec.put("pt", "2014-01-01-02");
+    Assert.assertTrue(parts.exists(spec));
+    Assert.assertEquals(1, parts.getPartitions(spec).size());
+
+    spec.put("dt", "2014-01-01-02");
+    Assert.assertFalse(parts.exists(spec));
+    Assert.assertTrue(parts.getPartitions(spec).isEmpty());
+
+    spec.clear();
+    spec.put("dt", "2014-01");
+    Assert.assertTrue(parts.exists(spec));
+    spec.put("other", "x");
+    Assert.assertFalse(parts.exists(spec));
+  }
+}
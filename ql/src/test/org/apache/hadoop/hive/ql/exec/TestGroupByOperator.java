@@ -0,0 +1,303 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.vector.util.FakeCaptureOutputOperator;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.AggregationDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.GroupByDesc;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFCollectSet;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFCount;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorUtils;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * Tests the memory accounting of the map-side hash aggregation, and the flush
+ * and spill of the hash table it triggers.
+ */
+public class TestGroupByOperator extends TestCase {
+
+  private static final ObjectInspector ROW_OI =
+      ObjectInspectorFactory.getStandardStructObjectInspector(
+          Arrays.asList("key", "value"),
+          Arrays.<ObjectInspector>asList(
+              PrimitiveObjectInspectorFactory.javaStringObjectInspector,
+              PrimitiveObjectInspectorFactory.javaStringObjectInspector));
+
+  /**
+   * Concatenates the values in a buffer that does not estimate its own size, so
+   * that the size of its string is sampled by the operator.
+   */
+  static class ConcatEvaluator extends GenericUDAFEvaluator {
+    static class ConcatBuffer implements AggregationBuffer {
+      String value;
+    }
+
+    private transient PrimitiveObjectInspector inputOI;
+
+    @Override
+    public ObjectInspector init(Mode m, ObjectInspector[] parameters) throws HiveException {
+      super.init(m, parameters);
+      inputOI = (PrimitiveObjectInspector) parameters[0];
+      return PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+    }
+
+    @Override
+    public AggregationBuffer getNewAggregationBuffer() throws HiveException {
+      ConcatBuffer buffer = new ConcatBuffer();
+      reset(buffer);
+      return buffer;
+    }
+
+    @Override
+    public void reset(AggregationBuffer agg) throws HiveException {
+      ((ConcatBuffer) agg).value = "";
+    }
+
+    @Override
+    public void iterate(AggregationBuffer agg, Object[] parameters) throws HiveException {
+      merge(agg, parameters[0]);
+    }
+
+    @Override
+    public Object terminatePartial(AggregationBuffer agg) throws HiveException {
+      return terminate(agg);
+    }
+
+    @Override
+    public void merge(AggregationBuffer agg, Object partial) throws HiveException {
+      if (partial != null) {
+        ((ConcatBuffer) agg).value += PrimitiveObjectInspectorUtils.getString(partial, inputOI);
+      }
+    }
+
+    @Override
+    public Object terminate(AggregationBuffer agg) throws HiveException {
+      return ((ConcatBuffer) agg).value;
+    }
+  }
+
+  private final List<String> output = new ArrayList<String>();
+
+  @Override
+  protected void setUp() {
+    output.clear();
+  }
+
+  private static ExprNodeDesc column(String name) {
+    return new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, name, "", false);
+  }
+
+  private static AggregationDesc aggregation(String name, GenericUDAFEvaluator evaluator) {
+    ArrayList<ExprNodeDesc> params = new ArrayList<ExprNodeDesc>();
+    params.add(column("value"));
+    return new AggregationDesc(name, evaluator, params, false,
+        GenericUDAFEvaluator.Mode.PARTIAL1);
+  }
+
+  private static AggregationDesc count() throws Exception {
+    return aggregation("count", new GenericUDAFCount().getEvaluator(
+        new TypeInfo[] {TypeInfoFactory.stringTypeInfo}));
+  }
+
+  /**
+   * @return a map-side group by on key, with the given aggregations of value,
+   *         that captures its output rows as "key=agg,agg..."
+   */
+  private GroupByOperator createOperator(JobConf conf, float memoryUsage, float memoryThreshold,
+      AggregationDesc... aggregations) throws Exception {
+    ArrayList<ExprNodeDesc> keys = new ArrayList<ExprNodeDesc>();
+    keys.add(column("key"));
+    ArrayList<String> outputColumnNames = new ArrayList<String>();
+    for (int i = 0; i <= aggregations.length; i++) {
+      outputColumnNames.add("_col" + i);
+    }
+    GroupByDesc desc = new GroupByDesc(GroupByDesc.Mode.HASH, outputColumnNames, keys,
+        new ArrayList<AggregationDesc>(Arrays.asList(aggregations)), false, memoryUsage,
+        memoryThreshold, null, false, 0, false);
+
+    GroupByOperator op = new GroupByOperator();
+    op.setConf(desc);
+    FakeCaptureOutputOperator out = FakeCaptureOutputOperator.addCaptureOutputChild(op);
+    out.setOutputInspector(new FakeCaptureOutputOperator.OutputInspector() {
+      @Override
+      public void inspectRow(Object row, int tag) throws HiveException {
+        // the operator reuses the row it forwards
+        Object[] fields = (Object[]) row;
+        StringBuilder sb = new StringBuilder().append(fields[0]).append('=');
+        for (int i = 1; i < fields.length; i++) {
+          sb.append(i == 1 ? "" : ",").append(fields[i]);
+        }
+        output.add(sb.toString());
+      }
+    });
+    op.initialize(conf, new ObjectInspector[] {ROW_OI});
+    return op;
+  }
+
+  /**
+   * @return the fraction of the heap that leaves room for about the given
+   *         number of bytes in the hash table
+   */
+  private static float memoryUsageFor(long bytes) {
+    return (float) ((double) bytes / Runtime.getRuntime().maxMemory());
+  }
+
+  private static void process(GroupByOperator op, String key, String value) throws Exception {
+    op.processOp(Arrays.asList(key, value), 0);
+  }
+
+  public void testTrackedMemory() throws Exception {
+    GroupByOperator op = createOperator(new JobConf(TestGroupByOperator.class), 0.5f, 1.0f,
+        count(), aggregation("collect_set", new GenericUDAFCollectSet().getEvaluator(
+            new TypeInfo[] {TypeInfoFactory.stringTypeInfo})));
+    assertEquals(0, op.getHashTableMemory());
+
+    // every new entry is accounted for
+    long memory = 0;
+    for (int i = 0; i < 100; i++) {
+      process(op, "key" + i, "v");
+      assertTrue(op.getHashTableMemory() > memory);
+      memory = op.getHashTableMemory();
+    }
+
+    // and so is the growth of the buffers that estimate their own size
+    process(op, "key0", "another value");
+    assertTrue(op.getHashTableMemory() > memory);
+    memory = op.getHashTableMemory();
+    process(op, "key0", "another value");
+    assertEquals(memory, op.getHashTableMemory());
+
+    assertTrue(output.isEmpty());
+    op.close(false);
+    assertEquals(100, output.size());
+    assertTrue(output.contains("key0=3,[v, another value]")
+        || output.contains("key0=3,[another value, v]"));
+    assertTrue(output.contains("key99=1,[v]"));
+  }
+
+  public void testVariableAggregationSampled() throws Exception {
+    GroupByOperator op = createOperator(new JobConf(TestGroupByOperator.class), 0.5f, 1.0f,
+        aggregation("concat", new ConcatEvaluator()));
+    char[] chars = new char[100];
+    Arrays.fill(chars, 'x');
+    String value = new String(chars);
+
+    process(op, "key", value);
+    long memory = op.getHashTableMemory();
+    assertTrue(memory > value.length());
+
+    // the size of the concatenated value is only sampled again on the check interval
+    for (int i = 1; i < GroupByOperator.NUMROWSESTIMATESIZE - 1; i++) {
+      process(op, "key", value);
+    }
+    assertEquals(memory, op.getHashTableMemory());
+    process(op, "key", value);
+    assertTrue(op.getHashTableMemory() - memory
+        > GroupByOperator.NUMROWSESTIMATESIZE * value.length() / 4);
+
+    op.close(false);
+    assertEquals(1, output.size());
+  }
+
+  public void testFlushWhenHashTableFull() throws Exception {
+    GroupByOperator op = createOperator(new JobConf(TestGroupByOperator.class),
+        memoryUsageFor(100 * 1024), 1.0f, count());
+
+    int numKeys = 5000;
+    for (int i = 0; i < numKeys; i++) {
+      process(op, "key" + i, "v");
+      assertTrue(op.getHashTableMemory() < op.maxHashTblMemory);
+    }
+    // part of the hash table was flushed to make room
+    assertFalse(output.isEmpty());
+    assertTrue(output.size() < numKeys);
+
+    op.close(false);
+    assertEquals(numKeys, output.size());
+    for (int i = 0; i < numKeys; i++) {
+      assertTrue(output.contains("key" + i + "=1"));
+    }
+  }
+
+  public void testSpillWhenHashTableFull() throws Exception {
+    JobConf conf = new JobConf(TestGroupByOperator.class);
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVEMAPAGGRHASHSPILL, true);
+    GroupByOperator op = createOperator(conf, memoryUsageFor(100 * 1024), 1.0f, count());
+
+    int numKeys = 3000;
+    for (int pass = 0; pass < 2; pass++) {
+      for (int i = 0; i < numKeys; i++) {
+        process(op, "key" + i, "v");
+        assertTrue(op.getHashTableMemory() < op.maxHashTblMemory);
+      }
+    }
+    // the spilled entries are only merged on close
+    assertTrue(output.isEmpty());
+
+    op.close(false);
+    assertEquals(numKeys, output.size());
+    for (int i = 0; i < numKeys; i++) {
+      assertTrue(output.contains("key" + i + "=2"));
+    }
+  }
+
+  public void testFlushWhenHeapOverThreshold() throws Exception {
+    boolean collectionUsageReported = false;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      collectionUsageReported |= pool.getType() == MemoryType.HEAP
+          && pool.getCollectionUsage() != null;
+    }
+    System.gc();
+
+    // the hash table has plenty of room, but the heap is over a threshold of 0
+    GroupByOperator op = createOperator(new JobConf(TestGroupByOperator.class), 0.5f, 0.0f,
+        count());
+    for (int i = 0; i < GroupByOperator.NUMROWSESTIMATESIZE - 1; i++) {
+      process(op, "key" + i, "v");
+    }
+    assertTrue(output.isEmpty());
+    process(op, "last", "v");
+    assertEquals(collectionUsageReported, !output.isEmpty());
+
+    op.close(false);
+    assertEquals(GroupByOperator.NUMROWSESTIMATESIZE, output.size());
+    assertEquals(GroupByOperator.NUMROWSESTIMATESIZE, new HashSet<String>(output).size());
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.persistence;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TestBytesBytesMultiHashMap {
+  private static final float LOAD_FACTOR = 0.75f;
+  private static final int CAPACITY = 8;
+  private static final int SEGMENT_SIZE = 128;
+
+  @Test
+  public void testCapacityValidation() {
+    BytesBytesMultiHashMap map = new BytesBytesMultiHashMap(CAPACITY, LOAD_FACTOR, SEGMENT_SIZE);
+    Assert.assertEquals(0, map.size());
+    try {
+      new BytesBytesMultiHashMap(CAPACITY, 0f, SEGMENT_SIZE);
+      Assert.fail("Expected exception for invalid load factor");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPutGetOne() throws Exception {
+    BytesBytesMultiHashMap map = new BytesBytesMultiHashMap(CAPACITY, LOAD_FACTOR, SEGMENT_SIZE);
+    RandomByteArrayStream kv = new RandomByteArrayStream(0);
+    map.put(kv.get(), 0, kv.get().length, kv.get(), 0, kv.get().length);
+    verifyResults(map, kv.get(), kv.get());
+    kv.next();
+    map.put(kv.get(), 0, kv.get().length, kv.get(), 0, kv.get().length);
+    verifyResults(map, kv.get(), kv.get());
+    Assert.assertEquals(2, map.size());
+    Assert.assertEquals(2, map.getValueCount());
+  }
+
+  @Test
+  public void testPutGetMultiple() throws Exception {
+    BytesBytesMultiHashMap map = new BytesBytesMultiHashMap(CAPACITY, LOAD_FACTOR, SEGMENT_SIZE);
+    RandomByteArrayStream kv = new RandomByteArrayStream(0);
+    byte[] key = kv.get();
+    List<byte[]> values = new ArrayList<byte[]>();
+    for (int i = 0; i < 10; ++i) {
+      kv.next();
+      values.add(kv.get());
+      map.put(key, 0, key.length, kv.get(), 0, kv.get().length);
+    }
+    Assert.assertEquals(1, map.size());
+    verifyResults(map, key, values.toArray(new byte[values.size()][]));
+  }
+
+  @Test
+  public void testGetNonExistent() throws Exception {
+    BytesBytesMultiHashMap map = new BytesBytesMultiHashMap(CAPACITY, LOAD_FACTOR, SEGMENT_SIZE);
+    RandomByteArrayStream kv = new RandomByteArrayStream(0);
+    map.put(kv.get(), 0, kv.get().length, kv.get(), 0, kv.get().length);
+    kv.next();
+    byte[] key = kv.get();
+    BytesBytesMultiHashMap.Result result = new BytesBytesMultiHashMap.Result();
+    Assert.assertFalse(map.getValues(key, 0, key.length, result));
+    Assert.assertFalse(result.next());
+  }
+
+  @Test
+  public void testExpandAndLargeValues() throws Exception {
+    BytesBytesMultiHashMap map = new BytesBytesMultiHashMap(CAPACITY, LOAD_FACTOR, SEGMENT_SIZE);
+    RandomByteArrayStream kv = new RandomByteArrayStream(0);
+    List<byte[]> keys = new ArrayList<byte[]>();
+    for (int i = 0; i < 1000; ++i) {
+      keys.add(kv.get());
+      map.put(kv.get(), 0, kv.get().length, kv.get(), 0, kv.get().length);
+      kv.next();
+    }
+    // A value larger than the segment size must get its own segment.
+    byte[] largeValue = new byte[SEGMENT_SIZE * 3];
+    Arrays.fill(largeValue, (byte)7);
+    map.put(keys.get(0), 0, keys.get(0).length, largeValue, 0, largeValue.length);
+    Assert.assertEquals(1000, map.size());
+    for (int i = 1; i < keys.size(); ++i) {
+      verifyResults(map, keys.get(i), keys.get(i));
+    }
+    verifyResults(map, keys.get(0), keys.get(0), largeValue);
+    map.clear();
+    Assert.assertEquals(0, map.size());
+    BytesBytesMultiHashMap.Result result = new BytesBytesMultiHashMap.Result();
+    Assert.assertFalse(map.getValues(keys.get(1), 0, keys.get(1).length, result));
+  }
+
+  private void verifyResults(BytesBytesMultiHashMap map, byte[] key, byte[]... values) {
+    BytesBytesMultiHashMap.Result result = new BytesBytesMultiHashMap.Result();
+    Assert.assertTrue(map.getValues(key, 0, key.length, result));
+    List<String> expected = new ArrayList<String>();
+    for (byte[] value : values) {
+      expected.add(Arrays.toString(value));
+    }
+    List<String> actual = new ArrayList<String>();
+    while (result.next()) {
+      actual.add(Arrays.toString(Arrays.copyOfRange(result.getBytes(),
+          result.getOffset(), result.getOffset() + result.getLength())));
+    }
+    Collections.sort(expected);
+    Collections.sort(actual);
+    Assert.assertEquals(expected, actual);
+  }
+
+  /** Stream of distinct random byte arrays. */
+  private static class RandomByteArrayStream {
+    private final Random rdm;
+    private byte[] current;
+    private int index = 0;
+
+    RandomByteArrayStream(long seed) {
+      rdm = new Random(seed);
+      next();
+    }
+
+    byte[] get() {
+      return current;
+    }
+
+    void next() {
+      int length = 4 + rdm.nextInt(20);
+      current = new byte[length];
+      rdm.nextBytes(current);
+      // Make the arrays distinct.
+      current[0] = (byte)index;
+      current[1] = (byte)(index >>> 8);
+      ++index;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.persistence;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFEvaluator;
+import org.apache.hadoop.hive.ql.udf.generic.GenericUDAFSum;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class TestHashAggregationSpill {
+  private static final int NUM_KEYS = 100;
+  private static final int NUM_SPILLS = 3;
+
+  private HashAggregationSpill createSpill(int numPartitions) throws Exception {
+    GenericUDAFEvaluator sum = new GenericUDAFSum.GenericUDAFSumLong();
+    ObjectInspector partialOI = sum.init(GenericUDAFEvaluator.Mode.PARTIAL1,
+        new ObjectInspector[] {PrimitiveObjectInspectorFactory.writableLongObjectInspector});
+    StructObjectInspector rowOI = ObjectInspectorFactory.getStandardStructObjectInspector(
+        Arrays.asList("_col0", "_col1"), Arrays.asList(
+            (ObjectInspector) PrimitiveObjectInspectorFactory.writableStringObjectInspector,
+            partialOI));
+    return new HashAggregationSpill(numPartitions, 1, rowOI,
+        new GenericUDAFEvaluator[] {sum}, new Configuration());
+  }
+
+  @Test
+  public void testSpillAndMerge() throws Exception {
+    HashAggregationSpill spill = createSpill(4);
+    try {
+      Assert.assertFalse(spill.hasSpilled());
+      for (int round = 0; round < NUM_SPILLS; round++) {
+        for (int i = 0; i < NUM_KEYS; i++) {
+          Text key = new Text("key" + i);
+          int partition = spill.getPartition(key.hashCode());
+          spill.spill(partition, new Object[] {key, new LongWritable(i)});
+          Assert.assertTrue(spill.isSpilled(partition));
+        }
+      }
+      Assert.assertTrue(spill.hasSpilled());
+
+      final Map<String, Long> sums = new HashMap<String, Long>();
+      spill.mergeSpilled(NUM_KEYS, new HashAggregationSpill.RowOutput() {
+        @Override
+        public void forward(Object[] row) {
+          String key = ((Text) row[0]).toString();
+          Assert.assertFalse("Key merged twice: " + key, sums.containsKey(key));
+          sums.put(key, ((LongWritable) row[1]).get());
+        }
+      });
+      Assert.assertEquals(NUM_KEYS, sums.size());
+      for (int i = 0; i < NUM_KEYS; i++) {
+        Assert.assertEquals(Long.valueOf(NUM_SPILLS * i), sums.get("key" + i));
+      }
+      Assert.assertFalse(spill.hasSpilled());
+    } finally {
+      spill.close();
+    }
+  }
+
+  @Test
+  public void testMergeWithFewEntries() throws Exception {
+    HashAggregationSpill spill = createSpill(1);
+    try {
+      for (int round = 0; round < NUM_SPILLS; round++) {
+        for (int i = 0; i < NUM_KEYS; i++) {
+          spill.spill(0, new Object[] {new Text("key" + i), new LongWritable(1)});
+        }
+      }
+      // keys are forwarded more than once when they do not fit, but nothing is lost
+      final long[] total = new long[1];
+      spill.mergeSpilled(10, new HashAggregationSpill.RowOutput() {
+        @Override
+        public void forward(Object[] row) {
+          total[0] += ((LongWritable) row[1]).get();
+        }
+      });
+      Assert.assertEquals(NUM_SPILLS * NUM_KEYS, total[0]);
+    } finally {
+      spill.close();
+    }
+  }
+
+  @Test
+  public void testSelectColdPartitions() throws Exception {
+    HashAggregationSpill spill = createSpill(2);
+    try {
+      // partition 0 aggregates 10 rows per entry, partition 1 a single one
+      for (int i = 0; i < 10; i++) {
+        for (int j = 0; j < 10; j++) {
+          spill.addRow(0, j == 0);
+        }
+        spill.addRow(1, true);
+      }
+      boolean[] selected = spill.selectPartitionsToSpill();
+      Assert.assertFalse(selected[0]);
+      Assert.assertTrue(selected[1]);
+    } finally {
+      spill.close();
+    }
+  }
+}
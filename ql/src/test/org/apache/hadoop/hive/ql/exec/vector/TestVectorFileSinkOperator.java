@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.DefaultHivePartitioner;
+import org.apache.hadoop.hive.ql.io.FSRecordWriter;
+import org.apache.hadoop.hive.ql.io.HiveOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcInputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.FileSinkDesc;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordWriter;
+import org.apache.hadoop.util.Progressable;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the vectorized file sink operator.
+ */
+public class TestVectorFileSinkOperator {
+
+  private static final List<RecordingWriter> writers =
+      new ArrayList<RecordingWriter>();
+
+  /**
+   * Keeps count of the rows and batches handed to it.
+   */
+  static class RecordingWriter implements FSRecordWriter.VectorizedRecordWriter {
+    int numRows;
+    int numBatches;
+
+    @Override
+    public void write(Writable w) {
+      numRows += 1;
+    }
+
+    @Override
+    public void writeBatch(VectorizedRowBatch batch, ObjectInspector inspector) {
+      numBatches += 1;
+      numRows += batch.size;
+    }
+
+    @Override
+    public void close(boolean abort) {
+    }
+  }
+
+  public static class RecordingOutputFormat
+      implements HiveOutputFormat<Object, Writable> {
+    @Override
+    public FSRecordWriter getHiveRecordWriter(JobConf jc, Path finalOutPath,
+        Class<? extends Writable> valueClass, boolean isCompressed,
+        Properties tableProperties, Progressable progress) {
+      RecordingWriter writer = new RecordingWriter();
+      synchronized (writers) {
+        writers.add(writer);
+      }
+      return writer;
+    }
+
+    @Override
+    public RecordWriter<Object, Writable> getRecordWriter(FileSystem fs,
+        JobConf job, String name, Progressable progress) throws IOException {
+      throw new UnsupportedOperationException("no record writer");
+    }
+
+    @Override
+    public void checkOutputSpecs(FileSystem fs, JobConf job) {
+    }
+  }
+
+  private JobConf conf;
+  private Path outputDir;
+
+  @Before
+  public void setUp() {
+    writers.clear();
+    conf = new JobConf();
+    conf.set("mapred.task.id", "attempt_200707121733_0003_r_000000_0");
+    conf.setPartitionerClass(DefaultHivePartitioner.class);
+    outputDir = new Path(System.getProperty("test.tmp.dir",
+        "target" + File.separator + "test" + File.separator + "tmp"),
+        "TestVectorFileSinkOperator");
+  }
+
+  private VectorFileSinkOperator createOperator(boolean bucketed)
+      throws Exception {
+    Properties props = new Properties();
+    props.setProperty(serdeConstants.SERIALIZATION_LIB, OrcSerde.class.getName());
+    props.setProperty(serdeConstants.LIST_COLUMNS, "a,b");
+    props.setProperty(serdeConstants.LIST_COLUMN_TYPES, "bigint:bigint");
+    TableDesc table = new TableDesc(OrcInputFormat.class,
+        RecordingOutputFormat.class, props);
+    FileSinkDesc desc = new FileSinkDesc(outputDir, table, false);
+    if (bucketed) {
+      // two buckets on column a, both written by this task
+      ArrayList<ExprNodeDesc> partitionCols = new ArrayList<ExprNodeDesc>();
+      partitionCols.add(new ExprNodeColumnDesc(TypeInfoFactory.longTypeInfo,
+          "a", "", false));
+      desc.setPartitionCols(partitionCols);
+      desc.setMultiFileSpray(true);
+      desc.setNumFiles(2);
+      desc.setTotalFiles(2);
+    }
+    VectorFileSinkOperator op = new VectorFileSinkOperator(null, desc);
+    ObjectInspector rowInspector =
+        ObjectInspectorFactory.getStandardStructObjectInspector(
+            Arrays.asList("a", "b"), Arrays.<ObjectInspector>asList(
+                PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+                PrimitiveObjectInspectorFactory.writableLongObjectInspector));
+    op.initialize(conf, new ObjectInspector[] {rowInspector});
+    return op;
+  }
+
+  private static VectorizedRowBatch createBatch(long... values) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    LongColumnVector a = new LongColumnVector();
+    LongColumnVector b = new LongColumnVector();
+    for (int i = 0; i < values.length; i++) {
+      a.vector[i] = values[i];
+      b.vector[i] = 10 * values[i];
+    }
+    batch.cols[0] = a;
+    batch.cols[1] = b;
+    batch.size = values.length;
+    return batch;
+  }
+
+  @Test
+  public void testWholeBatches() throws Exception {
+    VectorFileSinkOperator op = createOperator(false);
+    op.processOp(createBatch(1, 3, 5, 7, 2), 0);
+    op.processOp(createBatch(4, 6), 0);
+    assertEquals(1, writers.size());
+    assertEquals(2, writers.get(0).numBatches);
+    assertEquals(7, writers.get(0).numRows);
+  }
+
+  @Test
+  public void testBucketedRows() throws Exception {
+    VectorFileSinkOperator op = createOperator(true);
+    op.processOp(createBatch(1, 3, 5, 7, 2), 0);
+    op.processOp(createBatch(4, 6), 0);
+    // the rows are written one by one to the bucket of their hash code,
+    // which for a bigint is the value itself
+    assertEquals(2, writers.size());
+    assertEquals(0, writers.get(0).numBatches);
+    assertEquals(0, writers.get(1).numBatches);
+    assertEquals(3, writers.get(0).numRows);
+    assertEquals(4, writers.get(1).numRows);
+  }
+}
@@ -922,6 +922,44 @@ public void testMinLongKeyGroupByCrossBatch() throws HiveException {
         buildHashMap(1L, 7L, 2L, 5L));
   }
 
+  @Test
+  public void testReduceSideCountMergePartial() throws HiveException {
+    // The partial counts of each key are summed up.
+    testReduceSideAggregate(
+        "count",
+        GroupByDesc.Mode.MERGEPARTIAL,
+        2,
+        Arrays.asList(new Long[]{1L, 1L, 1L, 2L, 3L, 3L, 4L}),
+        Arrays.asList(new Long[]{3L, 4L, 5L, 7L, 1L, 2L, 9L}),
+        Arrays.asList(new Long[]{1L, 2L, 3L, 4L}),
+        Arrays.asList(new Long[]{12L, 7L, 3L, 9L}));
+  }
+
+  @Test
+  public void testReduceSideMaxComplete() throws HiveException {
+    // The key runs span several batches; null keys sort first.
+    testReduceSideAggregate(
+        "max",
+        GroupByDesc.Mode.COMPLETE,
+        3,
+        Arrays.asList(new Long[]{null, null, 1L, 1L, 1L, 1L, 1L, 5L, 5L, 6L}),
+        Arrays.asList(new Long[]{13L, 5L, 7L, 19L, 2L, 4L, 20L, 8L, 1L, 3L}),
+        Arrays.asList(new Long[]{null, 1L, 5L, 6L}),
+        Arrays.asList(new Long[]{13L, 20L, 8L, 3L}));
+  }
+
+  @Test
+  public void testReduceSideSumSingleKey() throws HiveException {
+    testReduceSideAggregate(
+        "sum",
+        GroupByDesc.Mode.MERGEPARTIAL,
+        4,
+        Arrays.asList(new Long[]{7L, 7L, 7L, 7L, 7L, 7L}),
+        Arrays.asList(new Long[]{1L, 2L, 3L, 4L, 5L, 6L}),
+        Arrays.asList(new Long[]{7L}),
+        Arrays.asList(new Long[]{21L}));
+  }
+
   @Test
   public void testMinLongNullKeyGroupByCrossBatch() throws HiveException {
     testAggregateLongKeyAggregate(
@@ -1965,6 +2003,58 @@ public void testAggregateLongKeyAggregate (
     testAggregateLongKeyIterable (aggregateName, fdr, expected);
   }
 
+  /**
+   * Runs a reduce side group by over input grouped on the key, as the shuffle delivers it.
+   * The group by streams: each key is forwarded, in input order, as soon as the next key
+   * shows up, and only the last key is left for close.
+   */
+  private void testReduceSideAggregate (
+      String aggregateName,
+      GroupByDesc.Mode mode,
+      int batchSize,
+      List<Long> keys,
+      List<Long> values,
+      List<Long> expectedKeys,
+      List<Long> expectedValues) throws HiveException {
+    Map<String, Integer> mapColumnNames = new HashMap<String, Integer>();
+    mapColumnNames.put("Key", 0);
+    mapColumnNames.put("Value", 1);
+    VectorizationContext ctx = new VectorizationContext(mapColumnNames, 2);
+
+    GroupByDesc desc = buildKeyGroupByDesc (ctx, aggregateName, "Value",
+        TypeInfoFactory.longTypeInfo, "Key", TypeInfoFactory.longTypeInfo);
+    desc.setMode(mode);
+
+    VectorGroupByOperator vgo = new VectorGroupByOperator(ctx, desc);
+
+    FakeCaptureOutputOperator out = FakeCaptureOutputOperator.addCaptureOutputChild(vgo);
+    vgo.initialize(null, null);
+    final List<Long> outKeys = new ArrayList<Long>();
+    final List<Long> outValues = new ArrayList<Long>();
+    out.setOutputInspector(new FakeCaptureOutputOperator.OutputInspector() {
+      @Override
+      public void inspectRow(Object row, int tag) throws HiveException {
+        // The operator reuses the row, so copy the values out.
+        Object[] fields = (Object[]) row;
+        assertEquals(2, fields.length);
+        outKeys.add(fields[0] == null ? null : ((LongWritable) fields[0]).get());
+        outValues.add(((LongWritable) fields[1]).get());
+      }
+    });
+
+    @SuppressWarnings("unchecked")
+    FakeVectorRowBatchFromLongIterables data = new FakeVectorRowBatchFromLongIterables(
+        batchSize, keys, values);
+    for (VectorizedRowBatch unit: data) {
+      vgo.processOp(unit,  0);
+    }
+    assertEquals(expectedKeys.size() - 1, outKeys.size());
+    vgo.close(false);
+
+    assertEquals(expectedKeys, outKeys);
+    assertEquals(expectedValues, outValues);
+  }
+
   public void testAggregateDecimal (
       String typeName,
       String aggregateName,
@@ -0,0 +1,349 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.exec.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.conf.HiveConf;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.persistence.HashMapWrapper;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinEagerRowContainer;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinKeyBytes;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinRowContainer;
+import org.apache.hadoop.hive.ql.exec.persistence.MapJoinTableContainer;
+import org.apache.hadoop.hive.ql.exec.vector.util.FakeCaptureOutputOperator;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.plan.ExprNodeColumnDesc;
+import org.apache.hadoop.hive.ql.plan.ExprNodeDesc;
+import org.apache.hadoop.hive.ql.plan.JoinCondDesc;
+import org.apache.hadoop.hive.ql.plan.JoinDesc;
+import org.apache.hadoop.hive.ql.plan.MapJoinDesc;
+import org.apache.hadoop.hive.ql.plan.MapWork;
+import org.apache.hadoop.hive.serde2.ByteStream.Output;
+import org.apache.hadoop.hive.serde2.SerDeException;
+import org.apache.hadoop.hive.serde2.lazybinary.LazyBinarySerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for the vectorized map join operator. Each join is run both natively and through
+ * the row-mode map join, and the two are expected to produce the same rows.
+ */
+public class TestVectorMapJoinOperator {
+
+  private static final String FILE_KEY = "mapjoin";
+  private static final String BIG_TABLE_ALIAS = "b";
+
+  // Big table rows, keyed by these; the small table has one row for 1 and 4, three for 2.
+  private static final Long[] KEYS = {1L, 2L, 3L, null, 2L, 4L, 5L, 1L, 2L, null};
+
+  private final Path planDir = new Path(System.getProperty("test.tmp.dir",
+      "target" + File.separator + "test" + File.separator + "tmp"), "TestVectorMapJoinOperator");
+
+  /**
+   * Map join over a fixed small table, instead of one loaded from the hash table dump.
+   */
+  private static class FixedSmallTableMapJoinOperator extends VectorMapJoinOperator {
+    private static final long serialVersionUID = 1L;
+    private final MapJoinTableContainer smallTable;
+
+    FixedSmallTableMapJoinOperator(VectorizationContext vContext, MapJoinDesc desc,
+        MapJoinTableContainer smallTable) throws HiveException {
+      super(vContext, desc);
+      this.smallTable = smallTable;
+    }
+
+    @Override
+    protected void loadHashTableOnFirstRow() {
+      mapJoinTables[1] = smallTable;
+    }
+  }
+
+  @Before
+  public void setUp() {
+    Utilities.clearWorkMap();
+  }
+
+  private static void addSmallTableRows(MapJoinTableContainer table, boolean isStringKey,
+      boolean hasValues, long key, String... values) throws SerDeException {
+    ObjectInspector keyOI = isStringKey
+        ? PrimitiveObjectInspectorFactory.writableStringObjectInspector
+        : PrimitiveObjectInspectorFactory.writableLongObjectInspector;
+    Object keyObj = isStringKey ? new Text(Long.toString(key)) : new LongWritable(key);
+    Output output = new Output();
+    LazyBinarySerDe.serializeStruct(output, new Object[] {keyObj}, Arrays.asList(keyOI));
+    MapJoinRowContainer rows = new MapJoinEagerRowContainer();
+    for (String value : values) {
+      List<Object> row = new ArrayList<Object>();
+      if (hasValues) {
+        row.add(new Text(value));
+      }
+      rows.addRow(row);
+    }
+    table.put(MapJoinKeyBytes.fromBytes(null, false,
+        Arrays.copyOf(output.getData(), output.getCount())), rows);
+  }
+
+  private static MapJoinTableContainer createSmallTable(boolean isStringKey, boolean hasValues)
+      throws SerDeException {
+    MapJoinTableContainer table = new HashMapWrapper();
+    addSmallTableRows(table, isStringKey, hasValues, 1, "s1");
+    addSmallTableRows(table, isStringKey, hasValues, 2, "s2a", "s2b", "s2c");
+    addSmallTableRows(table, isStringKey, hasValues, 4, "s4");
+    return table;
+  }
+
+  /**
+   * Creates a big table batch of (key bigint, skey string, value string), where skey is the
+   * key as a string and every third value is null.
+   */
+  private static VectorizedRowBatch createBatch(Long[] keys) {
+    VectorizedRowBatch batch = new VectorizedRowBatch(3);
+    LongColumnVector keyColumn = new LongColumnVector();
+    BytesColumnVector stringKeyColumn = new BytesColumnVector();
+    BytesColumnVector valueColumn = new BytesColumnVector();
+    stringKeyColumn.initBuffer();
+    valueColumn.initBuffer();
+    for (int i = 0; i < keys.length; ++i) {
+      if (keys[i] == null) {
+        keyColumn.noNulls = false;
+        keyColumn.isNull[i] = true;
+        stringKeyColumn.noNulls = false;
+        stringKeyColumn.isNull[i] = true;
+      } else {
+        keyColumn.vector[i] = keys[i];
+        byte[] stringKey = keys[i].toString().getBytes();
+        stringKeyColumn.setVal(i, stringKey, 0, stringKey.length);
+      }
+      if (i % 3 == 2) {
+        valueColumn.noNulls = false;
+        valueColumn.isNull[i] = true;
+      } else {
+        byte[] value = ("v" + i).getBytes();
+        valueColumn.setVal(i, value, 0, value.length);
+      }
+    }
+    batch.cols[0] = keyColumn;
+    batch.cols[1] = stringKeyColumn;
+    batch.cols[2] = valueColumn;
+    batch.size = keys.length;
+    return batch;
+  }
+
+  private static VectorizedRowBatch createRepeatingBatch(Long key, int size) {
+    Long[] keys = new Long[size];
+    Arrays.fill(keys, key);
+    VectorizedRowBatch batch = createBatch(keys);
+    batch.cols[0].isRepeating = true;
+    batch.cols[1].isRepeating = true;
+    return batch;
+  }
+
+  private static String getValue(ColumnVector column, int row) {
+    int index = column.isRepeating ? 0 : row;
+    if (!column.noNulls && column.isNull[index]) {
+      return "null";
+    } else if (column instanceof LongColumnVector) {
+      return Long.toString(((LongColumnVector) column).vector[index]);
+    }
+    BytesColumnVector bytes = (BytesColumnVector) column;
+    return new String(bytes.vector[index], bytes.start[index], bytes.length[index]);
+  }
+
+  /**
+   * Joins the batches and returns the output rows as comma separated strings, sorted.
+   */
+  private List<String> join(int joinType, String keyColumn, boolean nativeJoin,
+      VectorizedRowBatch... batches) throws Exception {
+    boolean isStringKey = "skey".equals(keyColumn);
+    boolean isSemiJoin = (joinType == JoinDesc.LEFT_SEMI_JOIN);
+    TypeInfo keyType = isStringKey ? TypeInfoFactory.stringTypeInfo : TypeInfoFactory.longTypeInfo;
+
+    Map<Byte, List<ExprNodeDesc>> keys = new HashMap<Byte, List<ExprNodeDesc>>();
+    keys.put((byte) 0, Arrays.<ExprNodeDesc>asList(
+        new ExprNodeColumnDesc(keyType, keyColumn, BIG_TABLE_ALIAS, false)));
+    keys.put((byte) 1, Arrays.<ExprNodeDesc>asList(
+        new ExprNodeColumnDesc(keyType, "key", "s", false)));
+    Map<Byte, List<ExprNodeDesc>> values = new HashMap<Byte, List<ExprNodeDesc>>();
+    values.put((byte) 0, Arrays.<ExprNodeDesc>asList(
+        new ExprNodeColumnDesc(TypeInfoFactory.longTypeInfo, "key", BIG_TABLE_ALIAS, false),
+        new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "value", BIG_TABLE_ALIAS, false)));
+    values.put((byte) 1, isSemiJoin ? new ArrayList<ExprNodeDesc>() : Arrays.<ExprNodeDesc>asList(
+        new ExprNodeColumnDesc(TypeInfoFactory.stringTypeInfo, "value", "s", false)));
+    Map<Byte, List<ExprNodeDesc>> filters = new HashMap<Byte, List<ExprNodeDesc>>();
+    filters.put((byte) 0, new ArrayList<ExprNodeDesc>());
+    filters.put((byte) 1, new ArrayList<ExprNodeDesc>());
+
+    List<String> outputColumnNames = new ArrayList<String>();
+    Map<String, Integer> outputColumnMap = new HashMap<String, Integer>();
+    for (int i = 0; i < values.get((byte) 0).size() + values.get((byte) 1).size(); ++i) {
+      outputColumnNames.add("_col" + i);
+      outputColumnMap.put("_col" + i, i);
+    }
+
+    MapJoinDesc desc = new MapJoinDesc(keys, null, values, null, null, outputColumnNames, 0,
+        new JoinCondDesc[] {new JoinCondDesc(0, 1, joinType)}, filters,
+        joinType != JoinDesc.LEFT_OUTER_JOIN, null);
+    desc.setBigTableAlias(BIG_TABLE_ALIAS);
+    desc.setFilterMap(new int[2][]);
+
+    Map<String, Integer> columnMap = new HashMap<String, Integer>();
+    columnMap.put("key", 0);
+    columnMap.put("skey", 1);
+    columnMap.put("value", 2);
+    VectorizationContext vContext = new VectorizationContext(columnMap, 3);
+    vContext.setFileKey(FILE_KEY);
+
+    String outputFileKey = FILE_KEY + "/MAP_JOIN_" + BIG_TABLE_ALIAS;
+    MapWork mapWork = new MapWork();
+    mapWork.setScratchColumnMap(Collections.singletonMap(outputFileKey, outputColumnMap));
+    mapWork.setScratchColumnVectorTypes(Collections.singletonMap(outputFileKey,
+        Collections.<Integer, String>emptyMap()));
+    HiveConf conf = new HiveConf();
+    HiveConf.setVar(conf, HiveConf.ConfVars.PLAN, planDir.toString());
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_VECTORIZATION_MAPJOIN_NATIVE_ENABLED,
+        nativeJoin);
+    Utilities.setMapWork(conf, mapWork);
+
+    FixedSmallTableMapJoinOperator op = new FixedSmallTableMapJoinOperator(vContext, desc,
+        createSmallTable(isStringKey, !isSemiJoin));
+    FakeCaptureOutputOperator out = FakeCaptureOutputOperator.addCaptureOutputChild(op);
+    final List<String> rows = new ArrayList<String>();
+    out.setOutputInspector(new FakeCaptureOutputOperator.OutputInspector() {
+      @Override
+      public void inspectRow(Object row, int tag) throws HiveException {
+        // The output batch is reused, so take the rows out of it right away.
+        VectorizedRowBatch batch = (VectorizedRowBatch) row;
+        for (int i = 0; i < batch.size; ++i) {
+          int r = batch.selectedInUse ? batch.selected[i] : i;
+          StringBuilder sb = new StringBuilder();
+          for (int c = 0; c < batch.numCols; ++c) {
+            sb.append(c == 0 ? "" : ",").append(getValue(batch.cols[c], r));
+          }
+          rows.add(sb.toString());
+        }
+      }
+    });
+
+    ObjectInspector bigTableOI = ObjectInspectorFactory.getStandardStructObjectInspector(
+        Arrays.asList("key", "skey", "value"), Arrays.<ObjectInspector>asList(
+            PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+            PrimitiveObjectInspectorFactory.writableStringObjectInspector,
+            PrimitiveObjectInspectorFactory.writableStringObjectInspector));
+    ObjectInspector smallTableOI = ObjectInspectorFactory.getStandardStructObjectInspector(
+        Arrays.asList("key", "value"), Arrays.<ObjectInspector>asList(
+            isStringKey ? PrimitiveObjectInspectorFactory.writableStringObjectInspector
+                : PrimitiveObjectInspectorFactory.writableLongObjectInspector,
+            PrimitiveObjectInspectorFactory.writableStringObjectInspector));
+    op.initialize(conf, new ObjectInspector[] {bigTableOI, smallTableOI});
+    for (VectorizedRowBatch batch : batches) {
+      op.processOp(batch, 0);
+    }
+    assertEquals(nativeJoin, op.isNativeJoin());
+    op.close(false);
+
+    Collections.sort(rows);
+    return rows;
+  }
+
+  /**
+   * Checks that the native join produces the same rows as the row-mode join.
+   * @return The number of rows produced.
+   */
+  private int verifyJoin(int joinType, String keyColumn, VectorizedRowBatch... batches)
+      throws Exception {
+    List<String> expected = join(joinType, keyColumn, false, batches);
+    List<String> actual = join(joinType, keyColumn, true, batches);
+    assertEquals(expected, actual);
+    return actual.size();
+  }
+
+  @Test
+  public void testInnerJoin() throws Exception {
+    // 1 and 4 match once, 2 matches three times, 3, 5 and nulls not at all.
+    assertEquals(12, verifyJoin(JoinDesc.INNER_JOIN, "key", createBatch(KEYS)));
+  }
+
+  @Test
+  public void testLeftOuterJoin() throws Exception {
+    assertEquals(16, verifyJoin(JoinDesc.LEFT_OUTER_JOIN, "key", createBatch(KEYS)));
+  }
+
+  @Test
+  public void testLeftSemiJoin() throws Exception {
+    assertEquals(6, verifyJoin(JoinDesc.LEFT_SEMI_JOIN, "key", createBatch(KEYS)));
+  }
+
+  @Test
+  public void testStringKey() throws Exception {
+    assertEquals(12, verifyJoin(JoinDesc.INNER_JOIN, "skey", createBatch(KEYS)));
+    assertEquals(16, verifyJoin(JoinDesc.LEFT_OUTER_JOIN, "skey", createBatch(KEYS)));
+    assertEquals(6, verifyJoin(JoinDesc.LEFT_SEMI_JOIN, "skey", createBatch(KEYS)));
+  }
+
+  @Test
+  public void testRepeatingKey() throws Exception {
+    assertEquals(300, verifyJoin(JoinDesc.INNER_JOIN, "key", createRepeatingBatch(2L, 100)));
+    assertEquals(100, verifyJoin(JoinDesc.LEFT_SEMI_JOIN, "skey", createRepeatingBatch(2L, 100)));
+    assertEquals(0, verifyJoin(JoinDesc.INNER_JOIN, "key", createRepeatingBatch(3L, 100)));
+    assertEquals(0, verifyJoin(JoinDesc.INNER_JOIN, "key", createRepeatingBatch(null, 100)));
+    assertEquals(100,
+        verifyJoin(JoinDesc.LEFT_OUTER_JOIN, "key", createRepeatingBatch(null, 100)));
+  }
+
+  @Test
+  public void testSelectedBatch() throws Exception {
+    VectorizedRowBatch batch = createBatch(KEYS);
+    batch.selectedInUse = true;
+    batch.selected[0] = 1;
+    batch.selected[1] = 3;
+    batch.selected[2] = 5;
+    batch.selected[3] = 6;
+    batch.selected[4] = 8;
+    batch.size = 5;
+    // keys 2, null, 4, 5, 2
+    assertEquals(7, verifyJoin(JoinDesc.INNER_JOIN, "key", batch));
+    assertEquals(9, verifyJoin(JoinDesc.LEFT_OUTER_JOIN, "key", batch));
+    assertEquals(3, verifyJoin(JoinDesc.LEFT_SEMI_JOIN, "key", batch));
+  }
+
+  @Test
+  public void testMultipleOutputBatches() throws Exception {
+    // Each full input batch produces three output batches.
+    assertEquals(2 * 3 * VectorizedRowBatch.DEFAULT_SIZE, verifyJoin(JoinDesc.INNER_JOIN, "key",
+        createRepeatingBatch(2L, VectorizedRowBatch.DEFAULT_SIZE),
+        createRepeatingBatch(2L, VectorizedRowBatch.DEFAULT_SIZE)));
+  }
+}
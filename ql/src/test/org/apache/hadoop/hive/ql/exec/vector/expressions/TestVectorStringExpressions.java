@@ -24,7 +24,10 @@
 import junit.framework.Assert;
 
 import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.BytesDictionary;
 import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorHashKeyWrapper;
+import org.apache.hadoop.hive.ql.exec.vector.VectorHashKeyWrapperBatch;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.FilterStringColEqualStringScalar;
 import org.apache.hadoop.hive.ql.exec.vector.expressions.gen.FilterStringColGreaterEqualStringScalar;
@@ -1904,4 +1907,113 @@ public void testRegex() throws HiveException {
     Assert.assertEquals(2,b.selected[1]);
     Assert.assertEquals(3,b.selected[2]);
   }
- }
+
+  /**
+   * Make a batch whose column 0 takes the values red, green, blue and redgreen
+   * from a dictionary. Row 4 is null.
+   */
+  private VectorizedRowBatch makeDictionaryBatch() {
+    byte[] buffer = "redgreenblueredgreen".getBytes();
+    BytesDictionary dictionary = new BytesDictionary(buffer,
+        new int[] {0, 3, 8, 12, 20}, 4);
+    int[] ids = new int[] {0, 1, 2, 3, 1, 0, 2};
+    VectorizedRowBatch batch = new VectorizedRowBatch(1, ids.length);
+    BytesColumnVector v = new BytesColumnVector(ids.length);
+    v.setDictionary(dictionary);
+    for (int i = 0; i < ids.length; i++) {
+      v.setRef(i, buffer, dictionary.getStart(ids[i]),
+          dictionary.getLength(ids[i]));
+      v.dictionaryIds[i] = ids[i];
+    }
+    v.noNulls = false;
+    v.isNull[4] = true;
+    batch.cols[0] = v;
+    batch.size = ids.length;
+    return batch;
+  }
+
+  /**
+   * Filter a dictionary batch with and without the dictionary and check that
+   * both give the expected rows.
+   */
+  private void checkDictionaryFilter(VectorExpression expr, int... expected) {
+    VectorizedRowBatch batch = makeDictionaryBatch();
+    expr.evaluate(batch);
+    Assert.assertTrue(batch.selectedInUse);
+    Assert.assertTrue(Arrays.equals(expected,
+        Arrays.copyOf(batch.selected, batch.size)));
+
+    batch = makeDictionaryBatch();
+    ((BytesColumnVector) batch.cols[0]).dictionary = null;
+    expr.evaluate(batch);
+    Assert.assertTrue(Arrays.equals(expected,
+        Arrays.copyOf(batch.selected, batch.size)));
+  }
+
+  @Test
+  public void testStringFiltersWithDictionary() throws HiveException {
+    VectorExpression equal = new FilterStringColEqualStringScalar(0, red);
+    checkDictionaryFilter(equal, 0, 5);
+    checkDictionaryFilter(new FilterStringScalarGreaterStringColumn(green, 0),
+        2, 6);
+    checkDictionaryFilter(new FilterStringColLikeStringScalar(0,
+        "red%".getBytes()), 0, 3, 5);
+    FilterStringColumnInList in = new FilterStringColumnInList(0);
+    in.setInListValues(new byte[][] {green, blue});
+    checkDictionaryFilter(in, 1, 2, 6);
+
+    // only the selected rows are looked at
+    VectorizedRowBatch batch = makeDictionaryBatch();
+    batch.selectedInUse = true;
+    batch.selected[0] = 1;
+    batch.selected[1] = 3;
+    batch.selected[2] = 5;
+    batch.size = 3;
+    equal.evaluate(batch);
+    Assert.assertEquals(1, batch.size);
+    Assert.assertEquals(5, batch.selected[0]);
+
+    // a new dictionary with different ids must not reuse earlier results
+    byte[] buffer = "greenred".getBytes();
+    batch = new VectorizedRowBatch(1, 2);
+    BytesColumnVector v = new BytesColumnVector(2);
+    v.setDictionary(new BytesDictionary(buffer, new int[] {0, 5, 8}, 2));
+    v.setRef(0, buffer, 5, 3);
+    v.dictionaryIds[0] = 1;
+    v.setRef(1, buffer, 0, 5);
+    v.dictionaryIds[1] = 0;
+    batch.cols[0] = v;
+    batch.size = 2;
+    equal.evaluate(batch);
+    Assert.assertEquals(1, batch.size);
+    Assert.assertEquals(0, batch.selected[0]);
+  }
+
+  @Test
+  public void testHashKeysWithDictionary() throws HiveException {
+    VectorHashKeyWrapperBatch keys = VectorHashKeyWrapperBatch.compileKeyWrapperBatch(
+        new VectorExpression[] {new IdentityExpression(0, "string")});
+    VectorizedRowBatch batch = makeDictionaryBatch();
+    keys.evaluateBatch(batch);
+    VectorHashKeyWrapper[] dictionaryKeys = new VectorHashKeyWrapper[batch.size];
+    for (int i = 0; i < batch.size; i++) {
+      dictionaryKeys[i] = (VectorHashKeyWrapper) keys.getVectorHashKeyWrappers()[i].copyKey();
+    }
+
+    // the same values, each in its own array
+    BytesColumnVector v = (BytesColumnVector) batch.cols[0];
+    v.dictionary = null;
+    for (int i = 0; i < batch.size; i++) {
+      byte[] value = Arrays.copyOfRange(v.vector[i], v.start[i], v.start[i] + v.length[i]);
+      v.setRef(i, value, 0, value.length);
+    }
+    keys.evaluateBatch(batch);
+    for (int i = 0; i < batch.size; i++) {
+      VectorHashKeyWrapper key = keys.getVectorHashKeyWrappers()[i];
+      Assert.assertEquals(dictionaryKeys[i].hashCode(), key.hashCode());
+      Assert.assertEquals(dictionaryKeys[i], key);
+    }
+    Assert.assertEquals(dictionaryKeys[0], dictionaryKeys[5]);
+    Assert.assertFalse(dictionaryKeys[0].equals(dictionaryKeys[1]));
+  }
+}
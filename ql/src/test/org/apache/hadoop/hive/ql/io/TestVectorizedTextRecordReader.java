@@ -0,0 +1,378 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.mr.ExecMapper;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DecimalColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.TimestampUtils;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.plan.MapWork;
+import org.apache.hadoop.hive.ql.plan.PartitionDesc;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.hive.serde.serdeConstants;
+import org.apache.hadoop.hive.serde2.io.DateWritable;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.TextInputFormat;
+
+/**
+ * Checks the fast paths of the vectorized text reader against the parsers
+ * the lazy objects use, and reads text files with the reader.
+ */
+public class TestVectorizedTextRecordReader extends TestCase {
+
+  private final Path workDir = new Path(System.getProperty("test.tmp.dir",
+      "target" + File.separator + "test" + File.separator + "tmp"),
+      "TestVectorizedTextRecordReader");
+  private FileSystem localFs;
+
+  @Override
+  protected void setUp() throws Exception {
+    localFs = FileSystem.getLocal(new Configuration()).getRaw();
+    localFs.delete(workDir, true);
+    localFs.mkdirs(workDir);
+  }
+
+  private static double parseDouble(String s) {
+    byte[] bytes = s.getBytes();
+    return VectorizedTextRecordReader.parseDouble(bytes, 0, bytes.length);
+  }
+
+  private static int parseDate(String s) {
+    byte[] bytes = s.getBytes();
+    return VectorizedTextRecordReader.parseDate(bytes, 0, bytes.length);
+  }
+
+  private static Properties createTableProperties(String columns, String types) {
+    Properties tblProps = new Properties();
+    tblProps.put("name", "t");
+    tblProps.put(serdeConstants.SERIALIZATION_LIB, LazySimpleSerDe.class.getName());
+    tblProps.put(serdeConstants.LIST_COLUMNS, columns);
+    tblProps.put(serdeConstants.LIST_COLUMN_TYPES, types);
+    return tblProps;
+  }
+
+  private Path writeFile(Path dir, String... lines) throws Exception {
+    Path file = localFs.makeQualified(new Path(dir, "000000_0"));
+    FSDataOutputStream out = localFs.create(file);
+    for (String line : lines) {
+      out.write((line + "\n").getBytes("UTF-8"));
+    }
+    out.close();
+    return file;
+  }
+
+  /**
+   * Sets up the plan the reader looks the partition of the file up in, reading
+   * the given columns of the table, or all of them if readColumns is null.
+   */
+  private JobConf createJob(Path dir, Properties tblProps, String readColumns,
+      String partColumn, String partValue) throws Exception {
+    Utilities.clearWorkMap();
+    JobConf job = new JobConf();
+    job.set("hive.exec.plan", workDir.toString());
+    job.set("mapred.mapper.class", ExecMapper.class.getName());
+
+    if (readColumns == null) {
+      int numColumns = tblProps.getProperty(serdeConstants.LIST_COLUMNS).split(",").length;
+      StringBuilder ids = new StringBuilder();
+      for (int i = 0; i < numColumns; ++i) {
+        ids.append(i == 0 ? "" : ",").append(i);
+      }
+      readColumns = ids.toString();
+    }
+    job.set("hive.io.file.readcolumn.ids", readColumns);
+
+    LinkedHashMap<String, String> partSpec = new LinkedHashMap<String, String>();
+    if (partColumn != null) {
+      tblProps.put("partition_columns", partColumn);
+      tblProps.put("partition_columns.types", "int");
+      partSpec.put(partColumn, partValue);
+    }
+    TableDesc tbl = new TableDesc(TextInputFormat.class,
+        HiveIgnoreKeyTextOutputFormat.class, tblProps);
+    PartitionDesc part = new PartitionDesc(tbl, partSpec);
+    part.setProperties(tblProps);
+
+    MapWork mapWork = new MapWork();
+    mapWork.setVectorMode(true);
+    String key = localFs.makeQualified(dir).toString();
+    LinkedHashMap<String, ArrayList<String>> aliasMap =
+        new LinkedHashMap<String, ArrayList<String>>();
+    ArrayList<String> aliases = new ArrayList<String>();
+    aliases.add("t");
+    aliasMap.put(key, aliases);
+    mapWork.setPathToAliases(aliasMap);
+    LinkedHashMap<String, PartitionDesc> partMap = new LinkedHashMap<String, PartitionDesc>();
+    partMap.put(key, part);
+    mapWork.setPathToPartitionInfo(partMap);
+    mapWork.setScratchColumnMap(new HashMap<String, Map<String, Integer>>());
+    mapWork.setScratchColumnVectorTypes(new HashMap<String, Map<Integer, String>>());
+
+    FSDataOutputStream planStream = localFs.create(new Path(workDir, "map.xml"));
+    Utilities.serializePlan(mapWork, planStream, job);
+    planStream.close();
+    return job;
+  }
+
+  private static Object getValue(ColumnVector col, int row) {
+    if (col == null) {
+      return "<not read>";
+    }
+    int index = col.isRepeating ? 0 : row;
+    if (!col.noNulls && col.isNull[index]) {
+      return null;
+    } else if (col instanceof LongColumnVector) {
+      return ((LongColumnVector) col).vector[index];
+    } else if (col instanceof DoubleColumnVector) {
+      return ((DoubleColumnVector) col).vector[index];
+    } else if (col instanceof DecimalColumnVector) {
+      return HiveDecimal.create(new BigDecimal(
+          ((DecimalColumnVector) col).vector[index].toFormalString()));
+    }
+    BytesColumnVector bytes = (BytesColumnVector) col;
+    try {
+      return new String(bytes.vector[index], bytes.start[index], bytes.length[index], "UTF-8");
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Reads the file and returns its rows, with the values of all the columns
+   * of the batch. The rows of a batch are taken before the next one is read,
+   * since the strings reference the reader's buffer.
+   */
+  private static List<Object[]> read(Path file, JobConf job) throws Exception {
+    long length = file.getFileSystem(job).getFileStatus(file).getLen();
+    VectorizedTextRecordReader reader = new VectorizedTextRecordReader(job,
+        new FileSplit(file, 0, length, (String[]) null));
+    VectorizedRowBatch batch = reader.createValue();
+    List<Object[]> rows = new ArrayList<Object[]>();
+    while (reader.next(reader.createKey(), batch)) {
+      assertFalse(batch.selectedInUse);
+      for (int r = 0; r < batch.size; ++r) {
+        Object[] row = new Object[batch.numCols];
+        for (int c = 0; c < batch.numCols; ++c) {
+          row[c] = getValue(batch.cols[c], r);
+        }
+        rows.add(row);
+      }
+    }
+    reader.close();
+    return rows;
+  }
+
+  private List<Object[]> read(Properties tblProps, String... lines) throws Exception {
+    Path dir = new Path(workDir, "t");
+    Path file = writeFile(dir, lines);
+    return read(file, createJob(dir, tblProps, null, null, null));
+  }
+
+  private static void assertRow(Object[] row, Object... expected) {
+    assertEquals(expected.length, row.length);
+    for (int i = 0; i < expected.length; ++i) {
+      assertEquals("column " + i, expected[i], row[i]);
+    }
+  }
+
+  public void testParseDouble() {
+    String[] values = {"0", "-0", "1", "+2.5", "-123.456", "0.1", ".5", "5.",
+        "999999999999999", "0.00000000000001", "3.14159265358979"};
+    for (String value : values) {
+      assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)),
+          Double.doubleToLongBits(parseDouble(value)));
+    }
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      String digits = Long.toString(Math.abs(random.nextLong() % 1000000000000L));
+      int point = random.nextInt(digits.length() + 1);
+      String value = (random.nextBoolean() ? "-" : "") + digits.substring(0, point) + "."
+          + digits.substring(point);
+      assertEquals(value, Double.parseDouble(value), parseDouble(value));
+    }
+    // left to the full parser
+    String[] slow = {"", "-", ".", "1e10", "NaN", "Infinity", " 1", "1.2.3",
+        "1234567890123456", "3.141592653589793", "0x10", "1d"};
+    for (String value : slow) {
+      assertTrue(value, Double.isNaN(parseDouble(value)));
+    }
+  }
+
+  public void testParseDate() {
+    String[] values = {"1970-01-01", "1969-12-31", "2000-02-29", "1900-03-01",
+        "2014-12-31", "9999-12-31", "1600-01-01", "2013-02-30", "2013-04-31"};
+    for (String value : values) {
+      assertEquals(value, DateWritable.dateToDays(Date.valueOf(value)), parseDate(value));
+    }
+    // left to the full parser
+    String[] slow = {"", "2014-1-01", "2014/01/01", "1500-01-01", "2014-13-01",
+        "2014-00-10", "2014-01-32", "20a4-01-01", "2014-01-01 00:00:00"};
+    for (String value : slow) {
+      assertEquals(value, Integer.MIN_VALUE, parseDate(value));
+    }
+  }
+
+  public void testAllTypes() throws Exception {
+    Properties tblProps = createTableProperties("b,ti,si,i,bi,f,d,dec,s,dt,ts",
+        "boolean:tinyint:smallint:int:bigint:float:double:decimal(10,2):string:date:timestamp");
+    List<Object[]> rows = read(tblProps,
+        "true\u00011\u00012\u0001-3\u00015000000000\u00011.5\u0001-2.25\u000112.345"
+            + "\u0001abc\u00012014-03-04\u00012014-03-04 05:06:07.123456789",
+        "FALSE\u0001-128\u000132767\u00012147483647\u0001-9223372036854775808\u0001-0.5"
+            + "\u00011e10\u0001-99999999.99\u0001\u00011969-12-31\u00011970-01-01 00:00:00",
+        // values that don't parse are nulls, like for the lazy objects
+        "yes\u0001128\u0001x\u00011.5\u0001\u0001abc\u0001-\u0001123456789\u0001\u00ff"
+            + "\u00012014-13-01\u0001yesterday",
+        "\\N\u0001\\N\u0001\\N\u0001\\N\u0001\\N\u0001\\N\u0001\\N\u0001\\N\u0001\\N\u0001\\N"
+            + "\u0001\\N");
+    assertEquals(4, rows.size());
+    assertRow(rows.get(0), 1L, 1L, 2L, -3L, 5000000000L, 1.5d, -2.25d,
+        HiveDecimal.create("12.35"), "abc",
+        (long) DateWritable.dateToDays(Date.valueOf("2014-03-04")),
+        TimestampUtils.getTimeNanoSec(Timestamp.valueOf("2014-03-04 05:06:07.123456789")));
+    assertRow(rows.get(1), 0L, -128L, 32767L, 2147483647L, Long.MIN_VALUE, -0.5d, 1e10d,
+        HiveDecimal.create("-99999999.99"), "",
+        (long) DateWritable.dateToDays(Date.valueOf("1969-12-31")),
+        TimestampUtils.getTimeNanoSec(Timestamp.valueOf("1970-01-01 00:00:00")));
+    assertRow(rows.get(2), null, null, null, null, null, null, null, null, "\u00ff",
+        null, null);
+    assertRow(rows.get(3), null, null, null, null, null, null, null, null, null, null, null);
+  }
+
+  public void testFieldDelimiterAndNullFormat() throws Exception {
+    Properties tblProps = createTableProperties("i,s,d", "int:string:double");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    tblProps.put(serdeConstants.SERIALIZATION_NULL_FORMAT, "NULL");
+    List<Object[]> rows = read(tblProps, "1,a,0.5", "NULL,NULL,NULL", "\\N,\\N,", ",,2");
+    assertEquals(4, rows.size());
+    assertRow(rows.get(0), 1L, "a", 0.5d);
+    assertRow(rows.get(1), null, null, null);
+    // only the configured null format is null, empty strings are strings
+    assertRow(rows.get(2), null, "\\N", null);
+    assertRow(rows.get(3), null, "", 2d);
+  }
+
+  public void testEscapes() throws Exception {
+    Properties tblProps = createTableProperties("s,i,t", "string:int:string");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    tblProps.put(serdeConstants.ESCAPE_CHAR, "\\");
+    List<Object[]> rows = read(tblProps, "a\\,b,1,c", "\\\\,2,d\\", "x\\y,3,\\,\\,");
+    assertEquals(3, rows.size());
+    assertRow(rows.get(0), "a,b", 1L, "c");
+    assertRow(rows.get(1), "\\", 2L, "d\\");
+    assertRow(rows.get(2), "xy", 3L, ",,");
+  }
+
+  public void testHeaderLines() throws Exception {
+    Properties tblProps = createTableProperties("i,s", "int:string");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    tblProps.put(serdeConstants.HEADER_COUNT, "2");
+    List<Object[]> rows = read(tblProps, "i,s", "int,string", "1,a", "2,b");
+    assertEquals(2, rows.size());
+    assertRow(rows.get(0), 1L, "a");
+    assertRow(rows.get(1), 2L, "b");
+  }
+
+  public void testShortAndLongRows() throws Exception {
+    Properties tblProps = createTableProperties("i,s,l", "int:string:bigint");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    List<Object[]> rows = read(tblProps, "1", "2,b", "", "3,c,30,extra,fields", "4,d,40");
+    assertEquals(5, rows.size());
+    assertRow(rows.get(0), 1L, null, null);
+    assertRow(rows.get(1), 2L, "b", null);
+    assertRow(rows.get(2), null, null, null);
+    assertRow(rows.get(3), 3L, "c", 30L);
+    assertRow(rows.get(4), 4L, "d", 40L);
+
+    tblProps = createTableProperties("i,s", "int:string");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    tblProps.put(serdeConstants.SERIALIZATION_LAST_COLUMN_TAKES_REST, "true");
+    rows = read(tblProps, "1,a,b,c", "2");
+    assertEquals(2, rows.size());
+    assertRow(rows.get(0), 1L, "a,b,c");
+    assertRow(rows.get(1), 2L, null);
+  }
+
+  public void testProjection() throws Exception {
+    Properties tblProps = createTableProperties("i,s,l", "int:string:bigint");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    Path dir = new Path(workDir, "t");
+    Path file = writeFile(dir, "1,a,10", "2,b,20");
+    List<Object[]> rows = read(file, createJob(dir, tblProps, "0,2", null, null));
+    assertEquals(2, rows.size());
+    assertRow(rows.get(0), 1L, "<not read>", 10L);
+    assertRow(rows.get(1), 2L, "<not read>", 20L);
+  }
+
+  public void testPartitionColumn() throws Exception {
+    Properties tblProps = createTableProperties("i,s", "int:string");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    Path dir = new Path(workDir, "t" + Path.SEPARATOR + "p=7");
+    Path file = writeFile(dir, "1,a", "2");
+    List<Object[]> rows = read(file, createJob(dir, tblProps, "0,1", "p", "7"));
+    assertEquals(2, rows.size());
+    assertRow(rows.get(0), 1L, "a", 7L);
+    assertRow(rows.get(1), 2L, null, 7L);
+  }
+
+  public void testManyRows() throws Exception {
+    // enough rows for several batches, and long enough to outgrow the line buffer in a batch
+    Properties tblProps = createTableProperties("i,s", "int:string");
+    tblProps.put(serdeConstants.FIELD_DELIM, ",");
+    StringBuilder padding = new StringBuilder();
+    for (int i = 0; i < 200; ++i) {
+      padding.append('x');
+    }
+    String[] lines = new String[2 * VectorizedRowBatch.DEFAULT_SIZE + 100];
+    for (int i = 0; i < lines.length; ++i) {
+      lines[i] = i + "," + padding + i;
+    }
+    List<Object[]> rows = read(tblProps, lines);
+    assertEquals(lines.length, rows.size());
+    for (int i = 0; i < lines.length; ++i) {
+      assertRow(rows.get(i), (long) i, padding.toString() + i);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestBloomFilter {
+
+  @Test
+  public void testNoFalseNegatives() throws Exception {
+    BloomFilter bloomFilter = new BloomFilter(10000, 0.05);
+    for (int i = 0; i < 10000; ++i) {
+      bloomFilter.addLong(i * 7L);
+      bloomFilter.addDouble(i / 3.0);
+      bloomFilter.addString("value-" + i);
+    }
+    for (int i = 0; i < 10000; ++i) {
+      assertTrue(bloomFilter.testLong(i * 7L));
+      assertTrue(bloomFilter.testDouble(i / 3.0));
+      assertTrue(bloomFilter.testString("value-" + i));
+    }
+  }
+
+  @Test
+  public void testFalsePositiveRate() throws Exception {
+    BloomFilter bloomFilter = new BloomFilter(10000, 0.05);
+    for (long i = 0; i < 10000; ++i) {
+      bloomFilter.addLong(i);
+    }
+    int falsePositives = 0;
+    for (long i = 10000; i < 110000; ++i) {
+      if (bloomFilter.testLong(i)) {
+        falsePositives += 1;
+      }
+    }
+    // allow some slack over the expected 5%
+    assertTrue("false positives: " + falsePositives, falsePositives < 7000);
+  }
+
+  @Test
+  public void testNegativeZero() throws Exception {
+    BloomFilter bloomFilter = new BloomFilter(1000, 0.05);
+    bloomFilter.addDouble(-0.0);
+    assertTrue(bloomFilter.testDouble(0.0));
+  }
+
+  @Test
+  public void testSerialization() throws Exception {
+    BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+    bloomFilter.addString("hello");
+    bloomFilter.addLong(42);
+    OrcProto.BloomFilter proto = OrcProto.BloomFilter.parseFrom(
+        bloomFilter.serialize().build().toByteArray());
+    BloomFilter copy = new BloomFilter(proto);
+    assertEquals(bloomFilter.getBitSize(), copy.getBitSize());
+    assertEquals(bloomFilter.getNumHashFunctions(), copy.getNumHashFunctions());
+    assertEquals(bloomFilter.getPopCount(), copy.getPopCount());
+    assertTrue(copy.testString("hello"));
+    assertTrue(copy.testLong(42));
+
+    bloomFilter.reset();
+    assertEquals(0, bloomFilter.getPopCount());
+    assertFalse(bloomFilter.testString("hello"));
+  }
+}
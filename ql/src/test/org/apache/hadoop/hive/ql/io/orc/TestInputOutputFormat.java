@@ -431,6 +431,50 @@ public void testFileGenerator() throws Exception {
         ((OrcInputFormat.SplitGenerator) context.queue.get(2)).getPath());
   }
 
+  @Test
+  public void testFileGeneratorInParallel() throws Exception {
+    TestContext context = new TestContext(conf);
+    int numFiles = 2 * OrcInputFormat.FILES_PER_SPLIT_TASK + 1;
+    List<MockFile> files = new ArrayList<MockFile>();
+    for(int i=0; i < numFiles; ++i) {
+      files.add(new MockFile("mock:/a/b/part-" + i, 1000, new byte[0]));
+    }
+    files.add(new MockFile("mock:/a/b/c/part-00", 1000, new byte[0]));
+    files.add(new MockFile("mock:/a/b/c/d/part-00", 1000, new byte[0]));
+    MockFileSystem fs = new MockFileSystem(conf,
+        files.toArray(new MockFile[files.size()]));
+    OrcInputFormat.FileGenerator gen =
+      new OrcInputFormat.FileGenerator(context, fs,
+          new MockPath(fs, "mock:/a/b"));
+
+    // run the work queued by the generator, as the thread pool would
+    int numFileGenerators = 0;
+    int numBatches = 0;
+    int numSplitGenerators = 0;
+    context.queue.add(gen);
+    for(int i=0; i < context.queue.size(); ++i) {
+      Runnable work = context.queue.get(i);
+      if (work instanceof OrcInputFormat.FileGenerator) {
+        numFileGenerators += 1;
+        work.run();
+      } else if (work instanceof OrcInputFormat.SplitBatchGenerator) {
+        numBatches += 1;
+        work.run();
+      } else {
+        assertTrue(work instanceof OrcInputFormat.SplitGenerator);
+        numSplitGenerators += 1;
+      }
+    }
+    assertEquals(0, context.getErrors().size());
+    // a/b and its two subdirectories are listed by threads of their own
+    assertEquals(3, numFileGenerators);
+    // a/b generates the splits of its first batch and hands off the others
+    assertEquals(2, numBatches);
+    assertEquals(numFiles + 2, numSplitGenerators);
+    assertTrue(context.getProgress(),
+        context.getProgress().startsWith("3 directories listed"));
+  }
+
   public static class MockBlock {
     int offset;
     int length;
@@ -912,6 +956,49 @@ public void testSplitGenerator() throws Exception {
     }
   }
 
+  @Test
+  public void testSplitsWithoutFooters() throws Exception {
+    // the content isn't an ORC file, so reading the footer would fail
+    MockFileSystem fs = new MockFileSystem(conf,
+        new MockFile("mock:/a/file", 500, new byte[2200],
+          new MockBlock("host1-1", "host1-2", "host1-3"),
+          new MockBlock("host2-1", "host0", "host2-3"),
+          new MockBlock("host0", "host3-2", "host3-3"),
+          new MockBlock("host4-1", "host4-2", "host4-3"),
+          new MockBlock("host5-1", "host5-2", "host5-3")));
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_ORC_SPLITS_SKIP_FOOTERS,
+        true);
+    conf.setInt(OrcInputFormat.MAX_SPLIT_SIZE, 1000);
+    conf.setInt(OrcInputFormat.MIN_SPLIT_SIZE, 600);
+    OrcInputFormat.Context context = new OrcInputFormat.Context(conf);
+    OrcInputFormat.SplitGenerator splitter =
+        new OrcInputFormat.SplitGenerator(context, fs,
+            fs.getFileStatus(new Path("/a/file")), null, true,
+            new ArrayList<Long>(), true);
+    splitter.schedule();
+    assertEquals(0, context.getSchedulers());
+    OrcSplit result = context.getResult(0);
+    assertEquals(0, result.getStart());
+    assertEquals(1000, result.getLength());
+    result = context.getResult(1);
+    assertEquals(1000, result.getStart());
+    assertEquals(1000, result.getLength());
+    assertEquals("host0", result.getLocations()[0]);
+    result = context.getResult(2);
+    assertEquals(2000, result.getStart());
+    assertEquals(200, result.getLength());
+    assertEquals("host5-1", result.getLocations()[0]);
+
+    // a predicate needs the stripe statistics from the footer
+    conf.set(OrcInputFormat.SARG_PUSHDOWN, "sarg");
+    TestContext testContext = new TestContext(conf);
+    splitter = new OrcInputFormat.SplitGenerator(testContext, fs,
+        fs.getFileStatus(new Path("/a/file")), null, true,
+        new ArrayList<Long>(), true);
+    splitter.schedule();
+    assertEquals(1, testContext.queue.size());
+  }
+
   @Test
   @SuppressWarnings("unchecked,deprecation")
   public void testInOutFormat() throws Exception {
@@ -1801,4 +1801,230 @@ public void testPredicatePushdown() throws Exception {
     assertTrue(!rows.hasNext());
     assertEquals(3500, rows.getRowNumber());
   }
+
+  @Test
+  public void testBloomFilterPushdown() throws Exception {
+    ObjectInspector inspector;
+    synchronized (TestOrcFile.class) {
+      inspector = ObjectInspectorFactory.getReflectionObjectInspector
+          (InnerStruct.class,
+              ObjectInspectorFactory.ObjectInspectorOptions.JAVA);
+    }
+    Writer writer = OrcFile.createWriter(testFilePath,
+        OrcFile.writerOptions(conf).inspector(inspector).fileSystem(fs)
+            .stripeSize(400000L).compress(CompressionKind.NONE)
+            .bufferSize(500).rowIndexStride(1000)
+            .bloomFilterColumns("int1").bloomFilterFpp(0.001));
+    // row group g holds the values 8 * n + g, so the minimum and maximum of
+    // the row groups overlap and only the bloom filters tell them apart
+    for(int i=0; i < 4000; ++i) {
+      writer.addRow(new InnerStruct(8 * (i % 1000) + i / 1000,
+          Integer.toHexString(i)));
+    }
+    writer.close();
+    Reader reader = OrcFile.createReader(testFilePath,
+        OrcFile.readerOptions(conf).filesystem(fs));
+    assertEquals(4000, reader.getNumberOfRows());
+
+    SearchArgument sarg = SearchArgument.FACTORY.newBuilder()
+        .startAnd()
+          .equals("int1", 8 * 500 + 2)
+        .end()
+        .build();
+    RecordReader rows = reader.rowsOptions(new Reader.Options()
+        .range(0L, Long.MAX_VALUE)
+        .include(new boolean[]{true, true, true})
+        .searchArgument(sarg, new String[]{null, "int1", "string1"}));
+    assertEquals(2000L, rows.getRowNumber());
+    OrcStruct row = null;
+    for(int i=2000; i < 3000; ++i) {
+      assertTrue(rows.hasNext());
+      row = (OrcStruct) rows.next(row);
+      assertEquals(8 * (i % 1000) + 2, ((IntWritable) row.getFieldValue(0)).get());
+    }
+    assertTrue(!rows.hasNext());
+    assertEquals(4000, rows.getRowNumber());
+
+    // the first and the last row groups
+    sarg = SearchArgument.FACTORY.newBuilder()
+        .startAnd()
+          .in("int1", 8 * 10, 8 * 900 + 3)
+        .end()
+        .build();
+    rows = reader.rowsOptions(new Reader.Options()
+        .range(0L, Long.MAX_VALUE)
+        .include(new boolean[]{true, true, true})
+        .searchArgument(sarg, new String[]{null, "int1", "string1"}));
+    row = null;
+    for(int i=0; i < 1000; ++i) {
+      assertTrue(rows.hasNext());
+      assertEquals(i, rows.getRowNumber());
+      row = (OrcStruct) rows.next(row);
+      assertEquals(8 * i, ((IntWritable) row.getFieldValue(0)).get());
+    }
+    for(int i=3000; i < 4000; ++i) {
+      assertTrue(rows.hasNext());
+      assertEquals(i, rows.getRowNumber());
+      row = (OrcStruct) rows.next(row);
+      assertEquals(8 * (i % 1000) + 3, ((IntWritable) row.getFieldValue(0)).get());
+    }
+    assertTrue(!rows.hasNext());
+    assertEquals(4000, rows.getRowNumber());
+
+    // a value in the range of every row group, but in none of them
+    sarg = SearchArgument.FACTORY.newBuilder()
+        .startAnd()
+          .equals("int1", 8 * 500 + 5)
+        .end()
+        .build();
+    rows = reader.rowsOptions(new Reader.Options()
+        .range(0L, Long.MAX_VALUE)
+        .include(new boolean[]{true, true, true})
+        .searchArgument(sarg, new String[]{null, "int1", "string1"}));
+    assertEquals(4000L, rows.getRowNumber());
+    assertTrue(!rows.hasNext());
+  }
+
+  @Test
+  public void testMetadataCache() throws Exception {
+    ObjectInspector inspector;
+    synchronized (TestOrcFile.class) {
+      inspector = ObjectInspectorFactory.getReflectionObjectInspector
+          (InnerStruct.class,
+              ObjectInspectorFactory.ObjectInspectorOptions.JAVA);
+    }
+    Writer writer = OrcFile.createWriter(fs, testFilePath, conf, inspector,
+        10000L, CompressionKind.ZLIB, 500, 1000);
+    for(int i=0; i < 20000; ++i) {
+      writer.addRow(new InnerStruct(i, Integer.toHexString(i)));
+    }
+    writer.close();
+    HiveConf.setLongVar(conf,
+        HiveConf.ConfVars.HIVE_ORC_METADATA_CACHE_MAX_BYTES, 1024 * 1024);
+    OrcMetadataCache.invalidateAll();
+
+    // the second pass finds everything in the cache
+    long misses = 0;
+    for(int pass=0; pass < 2; ++pass) {
+      long hits = OrcMetadataCache.getHitCount();
+      Reader reader = OrcFile.createReader(testFilePath,
+          OrcFile.readerOptions(conf).filesystem(fs));
+      RecordReader rows = reader.rows();
+      OrcStruct row = null;
+      for(int i=0; i < 20000; ++i) {
+        assertTrue(rows.hasNext());
+        row = (OrcStruct) rows.next(row);
+        assertEquals(i, ((IntWritable) row.getFieldValue(0)).get());
+      }
+      assertTrue(!rows.hasNext());
+      rows.seekToRow(15000);
+      row = (OrcStruct) rows.next(row);
+      assertEquals(15000, ((IntWritable) row.getFieldValue(0)).get());
+      rows.close();
+      if (pass == 0) {
+        misses = OrcMetadataCache.getMissCount();
+        assertTrue(misses > 0);
+      } else {
+        assertEquals(misses, OrcMetadataCache.getMissCount());
+        assertTrue(OrcMetadataCache.getHitCount() > hits);
+      }
+    }
+
+    // rewriting the file doesn't use the old entries
+    writer = OrcFile.createWriter(fs, testFilePath, conf, inspector,
+        10000L, CompressionKind.ZLIB, 500, 1000);
+    for(int i=0; i < 100; ++i) {
+      writer.addRow(new InnerStruct(-i, "x"));
+    }
+    writer.close();
+    Reader reader = OrcFile.createReader(testFilePath,
+        OrcFile.readerOptions(conf).filesystem(fs));
+    assertEquals(100, reader.getNumberOfRows());
+    RecordReader rows = reader.rows();
+    OrcStruct row = null;
+    for(int i=0; i < 100; ++i) {
+      row = (OrcStruct) rows.next(row);
+      assertEquals(-i, ((IntWritable) row.getFieldValue(0)).get());
+    }
+    assertTrue(!rows.hasNext());
+    rows.close();
+    assertTrue(OrcMetadataCache.getMissCount() > misses);
+  }
+
+  @Test
+  public void testPrefetchStripes() throws Exception {
+    ObjectInspector inspector;
+    synchronized (TestOrcFile.class) {
+      inspector = ObjectInspectorFactory.getReflectionObjectInspector
+          (InnerStruct.class,
+              ObjectInspectorFactory.ObjectInspectorOptions.JAVA);
+    }
+    Writer writer = OrcFile.createWriter(fs, testFilePath, conf, inspector,
+        10000L, CompressionKind.NONE, 500, 1000);
+    for(int i=0; i < 50000; ++i) {
+      writer.addRow(new InnerStruct(i, Integer.toHexString(i)));
+    }
+    writer.close();
+    HiveConf.setBoolVar(conf, HiveConf.ConfVars.HIVE_ORC_PREFETCH_STRIPES, true);
+    Reader reader = OrcFile.createReader(testFilePath,
+        OrcFile.readerOptions(conf).filesystem(fs));
+    int stripeCount = 0;
+    long maxStripeLength = 0;
+    for(StripeInformation stripe: reader.getStripes()) {
+      stripeCount += 1;
+      maxStripeLength = Math.max(maxStripeLength, stripe.getLength());
+    }
+    assertTrue(stripeCount > 2);
+
+    // a budget that holds all of the stripes, one stripe and none of them
+    long[] budgets = new long[]{Long.MAX_VALUE, maxStripeLength, 1};
+    for(long budget: budgets) {
+      HiveConf.setLongVar(conf, HiveConf.ConfVars.HIVE_ORC_PREFETCH_MAX_BYTES,
+          budget);
+      reader = OrcFile.createReader(testFilePath,
+          OrcFile.readerOptions(conf).filesystem(fs));
+      RecordReader rows = reader.rows();
+      OrcStruct row = null;
+      for(int i=0; i < 50000; ++i) {
+        assertTrue(rows.hasNext());
+        row = (OrcStruct) rows.next(row);
+        assertEquals(i, ((IntWritable) row.getFieldValue(0)).get());
+        assertEquals(Integer.toHexString(i), row.getFieldValue(1).toString());
+      }
+      assertTrue(!rows.hasNext());
+
+      // seeking backwards and forwards drops the prefetched stripes
+      rows.seekToRow(5000);
+      row = (OrcStruct) rows.next(row);
+      assertEquals(5000, ((IntWritable) row.getFieldValue(0)).get());
+      rows.seekToRow(45000);
+      row = (OrcStruct) rows.next(row);
+      assertEquals(45000, ((IntWritable) row.getFieldValue(0)).get());
+      row = (OrcStruct) rows.next(row);
+      assertEquals(45001, ((IntWritable) row.getFieldValue(0)).get());
+      rows.close();
+
+      // the prefetched stripes only have the selected row groups
+      SearchArgument sarg = SearchArgument.FACTORY.newBuilder()
+          .startAnd()
+            .startNot()
+              .lessThan("int1", 12000)
+            .end()
+            .lessThan("int1", 38000)
+          .end()
+          .build();
+      rows = reader.rowsOptions(new Reader.Options()
+          .range(0L, Long.MAX_VALUE)
+          .include(new boolean[]{true, true, false})
+          .searchArgument(sarg, new String[]{null, "int1", "string1"}));
+      assertEquals(12000L, rows.getRowNumber());
+      for(int i=12000; i < 38000; ++i) {
+        assertTrue(rows.hasNext());
+        row = (OrcStruct) rows.next(row);
+        assertEquals(i, ((IntWritable) row.getFieldValue(0)).get());
+      }
+      assertTrue(!rows.hasNext());
+      rows.close();
+    }
+  }
 }
@@ -0,0 +1,229 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.IntObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.StringObjectInspector;
+import org.apache.hadoop.mapred.FileSplit;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestName;
+
+public class TestOrcFileStripeMerge {
+
+  public static class MyRow {
+    int x;
+    String y;
+
+    MyRow(int x, String y) {
+      this.x = x;
+      this.y = y;
+    }
+  }
+
+  Path workDir = new Path(System.getProperty("test.tmp.dir",
+      "target" + File.separator + "test" + File.separator + "tmp"));
+
+  Configuration conf;
+  FileSystem fs;
+  ObjectInspector inspector;
+
+  @Rule
+  public TestName testCaseName = new TestName();
+
+  @Before
+  public void openFileSystem() throws Exception {
+    conf = new Configuration();
+    fs = FileSystem.getLocal(conf);
+    synchronized (TestOrcFileStripeMerge.class) {
+      inspector = ObjectInspectorFactory.getReflectionObjectInspector
+          (MyRow.class, ObjectInspectorFactory.ObjectInspectorOptions.JAVA);
+    }
+  }
+
+  private Path getPath(String name) throws Exception {
+    Path path = new Path(workDir, "TestOrcFileStripeMerge." +
+        testCaseName.getMethodName() + "." + name + ".orc");
+    fs.delete(path, false);
+    return path;
+  }
+
+  private Path writeFile(String name, CompressionKind compress, int first,
+                         int rows) throws Exception {
+    Path path = getPath(name);
+    Writer writer = OrcFile.createWriter(path,
+        OrcFile.writerOptions(conf)
+            .inspector(inspector)
+            .stripeSize(10000)
+            .compress(compress)
+            .bufferSize(1000));
+    for (int i = first; i < first + rows; ++i) {
+      writer.addRow(new MyRow(i, "row " + i));
+    }
+    writer.addUserMetadata("source", ByteBuffer.wrap(name.getBytes()));
+    writer.close();
+    return path;
+  }
+
+  private static FileSplit getSplit(FileSystem fs, Path path) throws Exception {
+    return new FileSplit(path, 0, fs.getFileStatus(path).getLen(),
+        (String[]) null);
+  }
+
+  @Test
+  public void testMerge() throws Exception {
+    Path first = writeFile("first", CompressionKind.ZLIB, 0, 11000);
+    Path second = writeFile("second", CompressionKind.ZLIB, 11000, 7000);
+    int inputStripes = OrcFile.createReader(fs, first).getStripes().size() +
+        OrcFile.createReader(fs, second).getStripes().size();
+    assertTrue(inputStripes > 2);
+
+    Path merged = getPath("merged");
+    Writer writer = null;
+    OrcFileKeyWrapper firstKey = null;
+    for (Path input : new Path[] {first, second}) {
+      OrcFileStripeMergeRecordReader reader =
+          new OrcFileStripeMergeRecordReader(conf, getSplit(fs, input));
+      OrcFileKeyWrapper key = reader.createKey();
+      OrcFileValueWrapper value = reader.createValue();
+      while (reader.next(key, value)) {
+        if (writer == null) {
+          firstKey = key;
+          writer = OrcFile.createWriter(merged,
+              OrcFile.writerOptions(conf)
+                  .inspector(key.getObjectInspector())
+                  .compress(key.getCompression())
+                  .bufferSize(key.getCompressBufferSize())
+                  .rowIndexStride(key.getRowIndexStride()));
+        }
+        assertTrue(key.isCompatible(firstKey));
+        writer.appendStripe(value.getStripe(), 0, value.getLength(),
+            value.getStripeInformation(), value.getStripeStatistics());
+        if (value.getUserMetadata() != null) {
+          for (Map.Entry<String, ByteBuffer> entry :
+              value.getUserMetadata().entrySet()) {
+            writer.addUserMetadata(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+      assertEquals(1.0f, reader.getProgress(), 0.0001);
+      reader.close();
+    }
+    writer.close();
+
+    Reader reader = OrcFile.createReader(fs, merged);
+    assertEquals(18000, reader.getNumberOfRows());
+    assertEquals(inputStripes, reader.getStripes().size());
+    assertEquals(inputStripes, reader.getMetadata().getStripeStatistics().size());
+    assertEquals(CompressionKind.ZLIB, reader.getCompression());
+    ByteBuffer source = reader.getMetadataValue("source");
+    byte[] sourceBytes = new byte[source.remaining()];
+    source.get(sourceBytes);
+    assertEquals("second", new String(sourceBytes));
+    ColumnStatistics[] stats = reader.getStatistics();
+    assertEquals(18000, stats[0].getNumberOfValues());
+    assertEquals(0, ((IntegerColumnStatistics) stats[1]).getMinimum());
+    assertEquals(17999, ((IntegerColumnStatistics) stats[1]).getMaximum());
+    assertEquals(17999L * 18000 / 2, ((IntegerColumnStatistics) stats[1]).getSum());
+
+    StructObjectInspector readerInspector =
+        (StructObjectInspector) reader.getObjectInspector();
+    StructField x = readerInspector.getStructFieldRef("x");
+    StructField y = readerInspector.getStructFieldRef("y");
+    IntObjectInspector xInspector = (IntObjectInspector) x.getFieldObjectInspector();
+    StringObjectInspector yInspector = (StringObjectInspector) y.getFieldObjectInspector();
+    RecordReader rows = reader.rows();
+    Object row = null;
+    for (int i = 0; i < 18000; ++i) {
+      assertTrue(rows.hasNext());
+      row = rows.next(row);
+      assertEquals(i, xInspector.get(readerInspector.getStructFieldData(row, x)));
+      assertEquals("row " + i, yInspector.getPrimitiveJavaObject(
+          readerInspector.getStructFieldData(row, y)));
+    }
+    assertFalse(rows.hasNext());
+    rows.close();
+  }
+
+  @Test
+  public void testSplits() throws Exception {
+    Path path = writeFile("input", CompressionKind.NONE, 0, 11000);
+    Reader reader = OrcFile.createReader(fs, path);
+    assertTrue(reader.getStripes().size() > 1);
+    long secondStripe = reader.getStripes().get(1).getOffset();
+    long length = fs.getFileStatus(path).getLen();
+
+    // each stripe is returned by the split it starts in
+    int stripes = 0;
+    FileSplit[] splits = {new FileSplit(path, 0, secondStripe, (String[]) null),
+        new FileSplit(path, secondStripe, length - secondStripe, (String[]) null)};
+    for (FileSplit split : splits) {
+      OrcFileStripeMergeRecordReader recordReader =
+          new OrcFileStripeMergeRecordReader(conf, split);
+      OrcFileKeyWrapper key = recordReader.createKey();
+      OrcFileValueWrapper value = recordReader.createValue();
+      while (recordReader.next(key, value)) {
+        assertEquals(reader.getStripes().get(stripes).getOffset(),
+            value.getStripeInformation().getOffset());
+        if (stripes == reader.getStripes().size() - 1) {
+          assertEquals(1, value.getUserMetadata().size());
+        } else {
+          assertNull(value.getUserMetadata());
+        }
+        stripes += 1;
+      }
+      recordReader.close();
+    }
+    assertEquals(reader.getStripes().size(), stripes);
+  }
+
+  @Test
+  public void testIncompatibleFiles() throws Exception {
+    Path zlib = writeFile("zlib", CompressionKind.ZLIB, 0, 10);
+    Path none = writeFile("none", CompressionKind.NONE, 0, 10);
+    OrcFileKeyWrapper[] keys = new OrcFileKeyWrapper[2];
+    Path[] paths = {zlib, none};
+    for (int i = 0; i < paths.length; ++i) {
+      OrcFileStripeMergeRecordReader reader =
+          new OrcFileStripeMergeRecordReader(conf, getSplit(fs, paths[i]));
+      keys[i] = reader.createKey();
+      assertTrue(reader.next(keys[i], reader.createValue()));
+      reader.close();
+    }
+    assertTrue(keys[0].isCompatible(keys[0]));
+    assertFalse(keys[0].isCompatible(keys[1]));
+  }
+}
@@ -569,6 +569,74 @@ public void testIn() throws Exception {
         RecordReaderImpl.evaluatePredicate(createIntStats(12L, 18L), pred));
   }
 
+  private static BloomFilter createBloomFilter(long... values) {
+    BloomFilter bloomFilter = new BloomFilter(10000, 0.01);
+    for (long value : values) {
+      bloomFilter.addLong(value);
+    }
+    // read it back, as it is from the file
+    return new BloomFilter(bloomFilter.serialize().build());
+  }
+
+  @Test
+  public void testEqualsWithBloomFilter() throws Exception {
+    PredicateLeaf pred = TestSearchArgumentImpl.createPredicateLeaf
+        (PredicateLeaf.Operator.EQUALS, PredicateLeaf.Type.INTEGER,
+            "x", 15L, null);
+    assertEquals(TruthValue.YES_NO_NULL,
+        RecordReaderImpl.evaluatePredicate(createIntStats(10L, 30L),
+            createBloomFilter(10L, 15L, 30L), pred));
+    assertEquals(TruthValue.NO_NULL,
+        RecordReaderImpl.evaluatePredicate(createIntStats(10L, 30L),
+            createBloomFilter(10L, 20L, 30L), pred));
+    assertEquals(TruthValue.NO_NULL,
+        RecordReaderImpl.evaluatePredicate(createIntStats(20L, 30L),
+            createBloomFilter(20L, 30L), pred));
+
+    pred = TestSearchArgumentImpl.createPredicateLeaf
+        (PredicateLeaf.Operator.NULL_SAFE_EQUALS, PredicateLeaf.Type.INTEGER,
+            "x", 15L, null);
+    assertEquals(TruthValue.YES_NO,
+        RecordReaderImpl.evaluatePredicate(createIntStats(10L, 30L),
+            createBloomFilter(10L, 15L, 30L), pred));
+    assertEquals(TruthValue.NO,
+        RecordReaderImpl.evaluatePredicate(createIntStats(10L, 30L),
+            createBloomFilter(10L, 20L, 30L), pred));
+  }
+
+  @Test
+  public void testInWithBloomFilter() throws Exception {
+    List<Object> args = new ArrayList<Object>();
+    args.add(15L);
+    args.add(25L);
+    PredicateLeaf pred = TestSearchArgumentImpl.createPredicateLeaf
+        (PredicateLeaf.Operator.IN, PredicateLeaf.Type.INTEGER,
+            "x", null, args);
+    assertEquals(TruthValue.YES_NO_NULL,
+        RecordReaderImpl.evaluatePredicate(createIntStats(10L, 30L),
+            createBloomFilter(10L, 25L, 30L), pred));
+    assertEquals(TruthValue.NO_NULL,
+        RecordReaderImpl.evaluatePredicate(createIntStats(10L, 30L),
+            createBloomFilter(10L, 20L, 30L), pred));
+  }
+
+  @Test
+  public void testStringEqualsWithBloomFilter() throws Exception {
+    PredicateLeaf pred = TestSearchArgumentImpl.createPredicateLeaf
+        (PredicateLeaf.Operator.EQUALS, PredicateLeaf.Type.STRING,
+            "x", "banana", null);
+    BloomFilter bloomFilter = new BloomFilter(10000, 0.01);
+    bloomFilter.addString("apple");
+    bloomFilter.addString("cherry");
+    assertEquals(TruthValue.NO_NULL,
+        RecordReaderImpl.evaluatePredicate(createStringStats("apple", "cherry"),
+            bloomFilter, pred));
+    bloomFilter.addString("banana");
+    assertEquals(TruthValue.YES_NO_NULL,
+        RecordReaderImpl.evaluatePredicate(createStringStats("apple", "cherry"),
+            bloomFilter, pred));
+  }
+
   @Test
   public void testBetween() throws Exception {
     List<Object> args = new ArrayList<Object>();
@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hive.ql.io.orc;
+
+import junit.framework.Assert;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class that tests the vectorized ORC writer by copying a file through
+ * row batches and comparing the copy with the original.
+ */
+public class TestVectorizedORCWriter {
+
+  private Configuration conf;
+  private FileSystem fs;
+  private Path rowFilePath;
+  private Path batchFilePath;
+
+  @Before
+  public void openFileSystem() throws Exception {
+    conf = new Configuration();
+    fs = FileSystem.getLocal(conf);
+    Path workDir = new Path(System.getProperty("test.tmp.dir",
+        "target" + File.separator + "test" + File.separator + "tmp"));
+    fs.setWorkingDirectory(workDir);
+    rowFilePath = new Path("TestVectorizedORCWriter.rows.orc");
+    batchFilePath = new Path("TestVectorizedORCWriter.batches.orc");
+    fs.delete(rowFilePath, false);
+    fs.delete(batchFilePath, false);
+  }
+
+  @SuppressWarnings("unused")
+  static class MyRecord {
+    private final Boolean bo;
+    private final Byte by;
+    private final Integer i;
+    private final Long l;
+    private final Float f;
+    private final Double d;
+    private final String k;
+    private final Timestamp t;
+    private final Date dt;
+    private final HiveDecimal hd;
+
+    MyRecord(Boolean bo, Byte by, Integer i, Long l, Float f, Double d,
+             String k, Timestamp t, Date dt, HiveDecimal hd) {
+      this.bo = bo;
+      this.by = by;
+      this.i = i;
+      this.l = l;
+      this.f = f;
+      this.d = d;
+      this.k = k;
+      this.t = t;
+      this.dt = dt;
+      this.hd = hd;
+    }
+  }
+
+  @SuppressWarnings("unused")
+  static class ListRecord {
+    private final Integer i;
+    private final List<Integer> list;
+
+    ListRecord(Integer i, List<Integer> list) {
+      this.i = i;
+      this.list = list;
+    }
+  }
+
+  private void createRowFile() throws Exception {
+    ObjectInspector inspector;
+    synchronized (TestVectorizedORCWriter.class) {
+      inspector = ObjectInspectorFactory.getReflectionObjectInspector
+          (MyRecord.class, ObjectInspectorFactory.ObjectInspectorOptions.JAVA);
+    }
+    Writer writer = OrcFile.createWriter(rowFilePath,
+        OrcFile.writerOptions(conf).inspector(inspector).stripeSize(100000)
+            .bufferSize(10000).rowIndexStride(1000));
+    Random rand = new Random(42);
+    String[] words = new String[] {"It", "was", "the", "best", "of", "times,",
+        "it", "was", "the", "worst", "of", "times"};
+    String[] dates = new String[] {"1991-02-28", "1970-01-31", "1950-04-23"};
+    String[] decimals = new String[] {"234.443", "10001000", "-0.3333367",
+        "0"};
+    for (int i = 0; i < 21000; ++i) {
+      if ((i % 7) != 0) {
+        writer.addRow(new MyRecord((i % 3) == 0, (byte) (i % 5), i,
+            (long) 200, rand.nextFloat(), rand.nextDouble(),
+            words[rand.nextInt(words.length)],
+            new Timestamp(rand.nextInt() * 1000L + rand.nextInt(1000)),
+            Date.valueOf(dates[i % 3]),
+            HiveDecimal.create(decimals[i % decimals.length])));
+      } else {
+        writer.addRow(new MyRecord(null, null, i, (long) 200, null, null,
+            null, null, null, null));
+      }
+    }
+    writer.close();
+  }
+
+  /**
+   * Copy the row file batch by batch. If selectOdd is set, only the odd
+   * rows of the file are selected in each batch.
+   */
+  private void copyWithBatches(boolean selectOdd) throws Exception {
+    Reader reader = OrcFile.createReader(rowFilePath,
+        OrcFile.readerOptions(conf));
+    Writer writer = OrcFile.createWriter(batchFilePath,
+        OrcFile.writerOptions(conf).inspector(reader.getObjectInspector())
+            .stripeSize(100000).bufferSize(10000).rowIndexStride(1000));
+    RecordReaderImpl rows = (RecordReaderImpl) reader.rows();
+    VectorizedRowBatch batch = null;
+    long rowNumber = 0;
+    while (rows.hasNext()) {
+      batch = rows.nextBatch(batch);
+      if (selectOdd) {
+        int size = 0;
+        for (int i = 0; i < batch.size; ++i) {
+          if ((rowNumber + i) % 2 == 1) {
+            batch.selected[size++] = i;
+          }
+        }
+        rowNumber += batch.size;
+        batch.size = size;
+        batch.selectedInUse = true;
+      }
+      writer.addRowBatch(batch);
+    }
+    rows.close();
+    writer.close();
+  }
+
+  @Test
+  public void testCopy() throws Exception {
+    createRowFile();
+    copyWithBatches(false);
+    Reader expected = OrcFile.createReader(rowFilePath,
+        OrcFile.readerOptions(conf));
+    Reader actual = OrcFile.createReader(batchFilePath,
+        OrcFile.readerOptions(conf));
+    Assert.assertEquals(expected.getNumberOfRows(), actual.getNumberOfRows());
+
+    ColumnStatistics[] expectedStats = expected.getStatistics();
+    ColumnStatistics[] actualStats = actual.getStatistics();
+    Assert.assertEquals(expectedStats.length, actualStats.length);
+    for (int i = 0; i < expectedStats.length; ++i) {
+      Assert.assertEquals("column " + i, expectedStats[i].toString(),
+          actualStats[i].toString());
+    }
+
+    RecordReader expectedRows = expected.rows();
+    RecordReader actualRows = actual.rows();
+    Object expectedRow = null;
+    Object actualRow = null;
+    while (expectedRows.hasNext()) {
+      Assert.assertTrue(actualRows.hasNext());
+      expectedRow = expectedRows.next(expectedRow);
+      actualRow = actualRows.next(actualRow);
+      Assert.assertEquals(expectedRow, actualRow);
+    }
+    Assert.assertFalse(actualRows.hasNext());
+  }
+
+  @Test
+  public void testSelectedRows() throws Exception {
+    createRowFile();
+    copyWithBatches(true);
+    Reader expected = OrcFile.createReader(rowFilePath,
+        OrcFile.readerOptions(conf));
+    Reader actual = OrcFile.createReader(batchFilePath,
+        OrcFile.readerOptions(conf));
+    Assert.assertEquals(expected.getNumberOfRows() / 2,
+        actual.getNumberOfRows());
+
+    RecordReader expectedRows = expected.rows();
+    RecordReader actualRows = actual.rows();
+    Object expectedRow = null;
+    Object actualRow = null;
+    long rowNumber = 0;
+    while (expectedRows.hasNext()) {
+      expectedRow = expectedRows.next(expectedRow);
+      if (rowNumber++ % 2 == 1) {
+        Assert.assertTrue(actualRows.hasNext());
+        actualRow = actualRows.next(actualRow);
+        Assert.assertEquals(expectedRow, actualRow);
+      }
+    }
+    Assert.assertFalse(actualRows.hasNext());
+  }
+
+  @Test
+  public void testNonPrimitiveColumns() throws Exception {
+    ObjectInspector inspector;
+    synchronized (TestVectorizedORCWriter.class) {
+      inspector = ObjectInspectorFactory.getReflectionObjectInspector
+          (ListRecord.class, ObjectInspectorFactory.ObjectInspectorOptions.JAVA);
+    }
+    Writer writer = OrcFile.createWriter(batchFilePath,
+        OrcFile.writerOptions(conf).inspector(inspector));
+    VectorizedRowBatch batch = new VectorizedRowBatch(2);
+    batch.cols[0] = new LongColumnVector();
+    batch.cols[1] = new LongColumnVector();
+    batch.size = 1;
+    try {
+      writer.addRowBatch(batch);
+      Assert.fail("list columns can't be written from a column vector");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    writer.close();
+    // nothing was written for the rejected batch
+    Reader reader = OrcFile.createReader(batchFilePath,
+        OrcFile.readerOptions(conf));
+    Assert.assertEquals(0, reader.getNumberOfRows());
+  }
+}
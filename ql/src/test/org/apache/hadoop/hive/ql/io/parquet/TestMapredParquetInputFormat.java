@@ -13,8 +13,12 @@
  */
 package org.apache.hadoop.hive.ql.io.parquet;
 
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 
+import java.util.Arrays;
+
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedInputFormatInterface;
 import org.apache.hadoop.io.ArrayWritable;
 import org.junit.Test;
 
@@ -34,4 +38,10 @@ public void testConstructorWithParquetInputFormat() {
         );
   }
 
+  @Test
+  public void testVectorizable() {
+    // the vectorizer only looks at the interfaces declared by the input format class itself
+    assertTrue(Arrays.asList(MapredParquetInputFormat.class.getInterfaces())
+        .contains(VectorizedInputFormatInterface.class));
+  }
 }
@@ -0,0 +1,108 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.ql.io.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hive.ql.io.parquet.read.ParquetRowGroupFilter;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.junit.Test;
+
+import parquet.column.statistics.BinaryStatistics;
+import parquet.column.statistics.LongStatistics;
+import parquet.column.statistics.Statistics;
+import parquet.hadoop.metadata.BlockMetaData;
+import parquet.hadoop.metadata.ColumnChunkMetaData;
+import parquet.io.api.Binary;
+import parquet.schema.PrimitiveType.PrimitiveTypeName;
+
+public class TestParquetRowGroupFilter {
+
+  private static BlockMetaData block(final String column, final PrimitiveTypeName type,
+      final Statistics stats, final long rowCount) {
+    final ColumnChunkMetaData chunk = mock(ColumnChunkMetaData.class);
+    when(chunk.getPath()).thenReturn(new String[] {column});
+    when(chunk.getType()).thenReturn(type);
+    when(chunk.getStatistics()).thenReturn(stats);
+    final BlockMetaData block = new BlockMetaData();
+    block.addColumn(chunk);
+    block.setRowCount(rowCount);
+    return block;
+  }
+
+  private static BlockMetaData longBlock(final long min, final long max, final long nulls) {
+    final LongStatistics stats = new LongStatistics();
+    stats.setMinMax(min, max);
+    stats.setNumNulls(nulls);
+    return block("event_time", PrimitiveTypeName.INT64, stats, 100);
+  }
+
+  @Test
+  public void testRange() {
+    final SearchArgument sarg = SearchArgument.FACTORY.newBuilder()
+        .startAnd().lessThan("event_time", 100L).end().build();
+    assertTrue(ParquetRowGroupFilter.isNeeded(sarg, longBlock(0, 200, 0)));
+    assertTrue(ParquetRowGroupFilter.isNeeded(sarg, longBlock(0, 99, 0)));
+    assertFalse(ParquetRowGroupFilter.isNeeded(sarg, longBlock(100, 200, 0)));
+    assertFalse(ParquetRowGroupFilter.isNeeded(sarg, longBlock(150, 200, 10)));
+
+    final SearchArgument between = SearchArgument.FACTORY.newBuilder()
+        .startAnd().between("event_time", 300L, 400L).end().build();
+    final List<BlockMetaData> blocks = new ArrayList<BlockMetaData>();
+    blocks.add(longBlock(0, 199, 0));
+    blocks.add(longBlock(200, 399, 0));
+    blocks.add(longBlock(400, 599, 0));
+    blocks.add(longBlock(600, 799, 0));
+    final List<BlockMetaData> result = ParquetRowGroupFilter.filterBlocks(between, blocks);
+    assertEquals(2, result.size());
+    assertEquals(blocks.get(1), result.get(0));
+    assertEquals(blocks.get(2), result.get(1));
+    assertEquals(blocks, ParquetRowGroupFilter.filterBlocks(null, blocks));
+  }
+
+  @Test
+  public void testNulls() {
+    final SearchArgument isNull = SearchArgument.FACTORY.newBuilder()
+        .startAnd().isNull("event_time").end().build();
+    assertFalse(ParquetRowGroupFilter.isNeeded(isNull, longBlock(0, 200, 0)));
+    assertTrue(ParquetRowGroupFilter.isNeeded(isNull, longBlock(0, 200, 1)));
+
+    final LongStatistics allNulls = new LongStatistics();
+    allNulls.setNumNulls(100);
+    assertTrue(ParquetRowGroupFilter.isNeeded(isNull,
+        block("event_time", PrimitiveTypeName.INT64, allNulls, 100)));
+  }
+
+  @Test
+  public void testUnusableStatistics() {
+    final SearchArgument sarg = SearchArgument.FACTORY.newBuilder()
+        .startAnd().equals("name", "zzz").end().build();
+    // binary statistics are not trusted
+    final BinaryStatistics stats = new BinaryStatistics();
+    stats.setMinMax(Binary.fromString("aaa"), Binary.fromString("bbb"));
+    assertTrue(ParquetRowGroupFilter.isNeeded(sarg,
+        block("name", PrimitiveTypeName.BINARY, stats, 100)));
+    // missing statistics and columns
+    assertTrue(ParquetRowGroupFilter.isNeeded(sarg,
+        block("name", PrimitiveTypeName.BINARY, null, 100)));
+    assertTrue(ParquetRowGroupFilter.isNeeded(sarg, longBlock(0, 10, 0)));
+  }
+}
@@ -0,0 +1,268 @@
+/**
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.ql.io.parquet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.Utilities;
+import org.apache.hadoop.hive.ql.exec.mr.ExecMapper;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.IOConstants;
+import org.apache.hadoop.hive.ql.io.parquet.read.VectorizedParquetRecordReader;
+import org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe;
+import org.apache.hadoop.hive.ql.plan.MapWork;
+import org.apache.hadoop.hive.ql.plan.PartitionDesc;
+import org.apache.hadoop.hive.ql.plan.TableDesc;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Reporter;
+import org.junit.Before;
+import org.junit.Test;
+
+import parquet.hadoop.ParquetFileReader;
+import parquet.hadoop.ParquetWriter;
+import parquet.hadoop.api.WriteSupport;
+import parquet.hadoop.metadata.CompressionCodecName;
+import parquet.io.api.Binary;
+import parquet.io.api.RecordConsumer;
+import parquet.schema.MessageType;
+import parquet.schema.MessageTypeParser;
+
+public class TestVectorizedParquetRecordReader {
+
+  private static final MessageType FILE_SCHEMA = MessageTypeParser.parseMessageType(
+      "message hive_schema { optional int64 id; optional binary name (UTF8); }");
+
+  private final Path workDir = new Path(System.getProperty("test.tmp.dir",
+      "target" + File.separator + "test" + File.separator + "tmp"),
+      "TestVectorizedParquetRecordReader");
+  private FileSystem localFs;
+
+  /**
+   * Writes rows of (id, name), leaving name unset on every third row.
+   */
+  private static class RowWriteSupport extends WriteSupport<Long> {
+    private RecordConsumer consumer;
+
+    @Override
+    public WriteContext init(final Configuration configuration) {
+      return new WriteContext(FILE_SCHEMA, new HashMap<String, String>());
+    }
+
+    @Override
+    public void prepareForWrite(final RecordConsumer recordConsumer) {
+      consumer = recordConsumer;
+    }
+
+    @Override
+    public void write(final Long id) {
+      consumer.startMessage();
+      consumer.startField("id", 0);
+      consumer.addLong(id);
+      consumer.endField("id", 0);
+      if (id % 3 != 0) {
+        consumer.startField("name", 1);
+        consumer.addBinary(Binary.fromString("name_" + id));
+        consumer.endField("name", 1);
+      }
+      consumer.endMessage();
+    }
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    localFs = FileSystem.getLocal(new Configuration()).getRaw();
+    localFs.delete(workDir, true);
+    localFs.mkdirs(workDir);
+  }
+
+  private Path writeFile(final Path dir, final int rows, final int blockSize) throws Exception {
+    final Path file = localFs.makeQualified(new Path(dir, "000000_0"));
+    final ParquetWriter<Long> writer = new ParquetWriter<Long>(file, new RowWriteSupport(),
+        CompressionCodecName.UNCOMPRESSED, blockSize, 1024, false, false);
+    for (long i = 0; i < rows; ++i) {
+      writer.write(i);
+    }
+    writer.close();
+    return file;
+  }
+
+  /**
+   * Sets up the plan the reader looks the split's partition up in, and the
+   * projection of all the columns.
+   */
+  private JobConf createJob(final Path dir, final String columns, final String types,
+      final String partColumn, final String partValue) throws Exception {
+    Utilities.clearWorkMap();
+    final JobConf job = new JobConf();
+    job.set("hive.exec.plan", workDir.toString());
+    job.set("mapred.mapper.class", ExecMapper.class.getName());
+
+    final String allColumns = partColumn == null ? columns : columns + "," + partColumn;
+    final StringBuilder ids = new StringBuilder();
+    for (int i = 0; i < allColumns.split(",").length; ++i) {
+      if (i != 0) {
+        ids.append(',');
+      }
+      ids.append(i);
+    }
+    job.set(IOConstants.COLUMNS, allColumns);
+    job.set(IOConstants.COLUMNS_TYPES, types);
+    job.set("hive.io.file.readcolumn.ids", ids.toString());
+
+    final Properties tblProps = new Properties();
+    tblProps.put("name", "t");
+    tblProps.put("serialization.lib", ParquetHiveSerDe.class.getName());
+    tblProps.put(IOConstants.COLUMNS, columns);
+    tblProps.put(IOConstants.COLUMNS_TYPES, types);
+    final LinkedHashMap<String, String> partSpec = new LinkedHashMap<String, String>();
+    if (partColumn != null) {
+      tblProps.put("partition_columns", partColumn);
+      tblProps.put("partition_columns.types", "int");
+      partSpec.put(partColumn, partValue);
+    }
+    final TableDesc tbl = new TableDesc(MapredParquetInputFormat.class,
+        MapredParquetOutputFormat.class, tblProps);
+    final PartitionDesc part = new PartitionDesc(tbl, partSpec);
+    part.setProperties(tblProps);
+
+    final MapWork mapWork = new MapWork();
+    mapWork.setVectorMode(true);
+    final String key = localFs.makeQualified(dir).toString();
+    final LinkedHashMap<String, ArrayList<String>> aliasMap =
+        new LinkedHashMap<String, ArrayList<String>>();
+    final ArrayList<String> aliases = new ArrayList<String>();
+    aliases.add("t");
+    aliasMap.put(key, aliases);
+    mapWork.setPathToAliases(aliasMap);
+    final LinkedHashMap<String, PartitionDesc> partMap =
+        new LinkedHashMap<String, PartitionDesc>();
+    partMap.put(key, part);
+    mapWork.setPathToPartitionInfo(partMap);
+    mapWork.setScratchColumnMap(new HashMap<String, Map<String, Integer>>());
+    mapWork.setScratchColumnVectorTypes(new HashMap<String, Map<Integer, String>>());
+
+    final FSDataOutputStream planStream = localFs.create(new Path(workDir, "map.xml"));
+    Utilities.serializePlan(mapWork, planStream, job);
+    planStream.close();
+    return job;
+  }
+
+  private static VectorizedParquetRecordReader createReader(final Path file, final JobConf job)
+      throws Exception {
+    final long length = file.getFileSystem(job).getFileStatus(file).getLen();
+    return new VectorizedParquetRecordReader(null, new FileSplit(file, 0, length,
+        (String[]) null), job, Reporter.NULL);
+  }
+
+  private static String getString(final BytesColumnVector vector, final int row)
+      throws Exception {
+    return new String(vector.vector[row], vector.start[row], vector.length[row], "UTF-8");
+  }
+
+  private static boolean isNull(final ColumnVector vector, final int row) {
+    final int index = vector.isRepeating ? 0 : row;
+    return !vector.noNulls && vector.isNull[index];
+  }
+
+  /**
+   * Reads all the batches, checking (id, name) of every row against what
+   * {@link RowWriteSupport} wrote, and returns the number of rows read.
+   */
+  private static long readAndCheck(final VectorizedParquetRecordReader reader,
+      final int extraColumns, final Long partValue) throws Exception {
+    final VectorizedRowBatch batch = reader.createValue();
+    assertEquals(2 + extraColumns, batch.numCols);
+    long expected = 0;
+    while (reader.next(NullWritable.get(), batch)) {
+      assertFalse(batch.selectedInUse);
+      final LongColumnVector ids = (LongColumnVector) batch.cols[0];
+      final BytesColumnVector names = (BytesColumnVector) batch.cols[1];
+      for (int r = 0; r < batch.size; ++r, ++expected) {
+        assertFalse(isNull(ids, r));
+        assertEquals(expected, ids.vector[r]);
+        if (expected % 3 == 0) {
+          assertTrue("row " + expected, isNull(names, r));
+        } else {
+          assertFalse("row " + expected, isNull(names, r));
+          assertEquals("name_" + expected, getString(names, r));
+        }
+        if (extraColumns > 0) {
+          final ColumnVector last = batch.cols[batch.numCols - 1];
+          if (partValue == null) {
+            assertTrue(isNull(last, r));
+          } else {
+            assertFalse(isNull(last, r));
+            assertEquals(partValue.longValue(),
+                ((LongColumnVector) last).vector[last.isRepeating ? 0 : r]);
+          }
+        }
+      }
+    }
+    reader.close();
+    return expected;
+  }
+
+  @Test
+  public void testNulls() throws Exception {
+    final Path dir = new Path(workDir, "t");
+    final Path file = writeFile(dir, 100, 128 * 1024);
+    final JobConf job = createJob(dir, "id,name", "bigint:string", null, null);
+    assertEquals(100, readAndCheck(createReader(file, job), 0, null));
+  }
+
+  @Test
+  public void testMissingColumn() throws Exception {
+    final Path dir = new Path(workDir, "t");
+    final Path file = writeFile(dir, 100, 128 * 1024);
+    // extra was added to the table after the file was written
+    final JobConf job = createJob(dir, "id,name,extra", "bigint:string:int", null, null);
+    assertEquals(100, readAndCheck(createReader(file, job), 1, null));
+  }
+
+  @Test
+  public void testPartitionColumn() throws Exception {
+    final Path dir = new Path(workDir, "t" + Path.SEPARATOR + "p=5");
+    final Path file = writeFile(dir, 100, 128 * 1024);
+    final JobConf job = createJob(dir, "id,name", "bigint:string", "p", "5");
+    assertEquals(100, readAndCheck(createReader(file, job), 1, 5L));
+  }
+
+  @Test
+  public void testMultipleRowGroups() throws Exception {
+    final Path dir = new Path(workDir, "t");
+    final int rows = 5000;
+    final Path file = writeFile(dir, rows, 1024);
+    final JobConf job = createJob(dir, "id,name", "bigint:string", null, null);
+    assertTrue(ParquetFileReader.readFooter(job, file).getBlocks().size() > 1);
+    assertEquals(rows, readAndCheck(createReader(file, job), 0, null));
+  }
+}
@@ -114,6 +114,64 @@ public void testAggregateOnUDF() throws HiveException {
     Assert.assertEquals(FuncAbsLongToLong.class, udaf.getInputExpression().getClass());
   }
 
+  /**
+  * testValidateReduceGroupByOperator validates which reduce side group by operators can be
+  * vectorized, and that merging partial counts sums them.
+  */
+  @Test
+  public void testValidateReduceGroupByOperator() throws HiveException {
+    ExprNodeColumnDesc keyExpr = new ExprNodeColumnDesc(Long.class, "KEY.reducesinkkey0", "", false);
+    ExprNodeColumnDesc valueExpr = new ExprNodeColumnDesc(Long.class, "VALUE._col0", "", false);
+
+    AggregationDesc aggDesc = new AggregationDesc();
+    aggDesc.setGenericUDAFName("count");
+    ArrayList<ExprNodeDesc> params = new ArrayList<ExprNodeDesc>();
+    params.add(valueExpr);
+    aggDesc.setParameters(params);
+    ArrayList<AggregationDesc> aggDescList = new ArrayList<AggregationDesc>();
+    aggDescList.add(aggDesc);
+
+    ArrayList<String> outputColumnNames = new ArrayList<String>();
+    outputColumnNames.add("_col0");
+    outputColumnNames.add("_col1");
+
+    GroupByDesc desc = new GroupByDesc();
+    desc.setOutputColumnNames(outputColumnNames);
+    desc.setAggregators(aggDescList);
+    ArrayList<ExprNodeDesc> grpByKeys = new ArrayList<ExprNodeDesc>();
+    grpByKeys.add(keyExpr);
+    desc.setKeys(grpByKeys);
+    desc.setMode(GroupByDesc.Mode.MERGEPARTIAL);
+
+    GroupByOperator gbyOp = new GroupByOperator();
+    gbyOp.setConf(desc);
+
+    Vectorizer v = new Vectorizer();
+    Assert.assertTrue(v.validateReduceOperator(gbyOp));
+
+    Map<String, Integer> columnMap = new HashMap<String, Integer>();
+    columnMap.put("KEY.reducesinkkey0", 0);
+    columnMap.put("VALUE._col0", 1);
+    VectorizationContext reduceContext = new VectorizationContext(columnMap, 2);
+    VectorGroupByOperator vectorOp =
+        (VectorGroupByOperator) v.vectorizeOperator(gbyOp, reduceContext);
+    Assert.assertEquals(VectorUDAFSumLong.class, vectorOp.getAggregators()[0].getClass());
+
+    // Partial aggregations are not final on the reduce side.
+    desc.setMode(GroupByDesc.Mode.HASH);
+    Assert.assertFalse(v.validateReduceOperator(gbyOp));
+
+    // The partial result of avg can't be merged.
+    desc.setMode(GroupByDesc.Mode.MERGEPARTIAL);
+    aggDesc.setGenericUDAFName("avg");
+    Assert.assertFalse(v.validateReduceOperator(gbyOp));
+
+    // A count without keys must give 0 on empty input.
+    aggDesc.setGenericUDAFName("count");
+    desc.setKeys(new ArrayList<ExprNodeDesc>());
+    Assert.assertFalse(v.validateReduceOperator(gbyOp));
+  }
+
   @Test
   public void testValidateNestedExpressions() {
     ExprNodeColumnDesc col1Expr = new ExprNodeColumnDesc(Integer.class, "col1", "table", false);
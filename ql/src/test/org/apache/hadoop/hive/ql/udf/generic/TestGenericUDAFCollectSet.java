@@ -0,0 +1,57 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.ql.udf.generic;
+
+import junit.framework.TestCase;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+
+public class TestGenericUDAFCollectSet extends TestCase {
+
+  public void testEstimate() throws HiveException {
+    GenericUDAFEvaluator eval = new GenericUDAFCollectSet().getEvaluator(
+        new TypeInfo[] {TypeInfoFactory.stringTypeInfo});
+    eval.init(GenericUDAFEvaluator.Mode.PARTIAL1,
+        new ObjectInspector[] {PrimitiveObjectInspectorFactory.javaStringObjectInspector});
+
+    GenericUDAFEvaluator.AggregationBuffer buffer = eval.getNewAggregationBuffer();
+    assertTrue(GenericUDAFEvaluator.isEstimable(buffer));
+    int emptySize = estimate(buffer);
+
+    eval.iterate(buffer, new Object[] {"a short value"});
+    int oneValueSize = estimate(buffer);
+    assertTrue(oneValueSize > emptySize);
+
+    // duplicates are not collected again
+    eval.iterate(buffer, new Object[] {"a short value"});
+    assertEquals(oneValueSize, estimate(buffer));
+
+    eval.iterate(buffer, new Object[] {"a much longer value than the first one"});
+    assertTrue(estimate(buffer) - oneValueSize > oneValueSize - emptySize);
+
+    eval.reset(buffer);
+    assertEquals(emptySize, estimate(buffer));
+  }
+
+  private int estimate(GenericUDAFEvaluator.AggregationBuffer buffer) {
+    return ((GenericUDAFEvaluator.AbstractAggregationBuffer) buffer).estimate();
+  }
+}
@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.ql.udf.generic;
+
+import junit.framework.TestCase;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.serde2.io.DoubleWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+import org.apache.hadoop.io.IntWritable;
+
+public class TestGenericUDAFPercentileApprox extends TestCase {
+
+  public void testEstimate() throws HiveException {
+    GenericUDAFEvaluator eval =
+        new GenericUDAFPercentileApprox.GenericUDAFSinglePercentileApproxEvaluator();
+    eval.init(GenericUDAFEvaluator.Mode.PARTIAL1, new ObjectInspector[] {
+        PrimitiveObjectInspectorFactory.javaDoubleObjectInspector,
+        PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+            TypeInfoFactory.doubleTypeInfo, new DoubleWritable(0.5)),
+        PrimitiveObjectInspectorFactory.getPrimitiveWritableConstantObjectInspector(
+            TypeInfoFactory.intTypeInfo, new IntWritable(10))});
+
+    GenericUDAFEvaluator.AggregationBuffer buffer = eval.getNewAggregationBuffer();
+    assertTrue(GenericUDAFEvaluator.isEstimable(buffer));
+    int emptySize = estimate(buffer);
+
+    eval.iterate(buffer, new Object[] {1.0d, 0.5d});
+    int oneBinSize = estimate(buffer);
+    assertTrue(oneBinSize > emptySize);
+
+    // every distinct value takes a bin, up to the number of bins
+    for (int i = 2; i <= 10; i++) {
+      eval.iterate(buffer, new Object[] {(double) i, 0.5d});
+    }
+    int fullSize = estimate(buffer);
+    assertTrue(fullSize > oneBinSize);
+
+    // beyond that the bins are merged, and the size does not grow
+    for (int i = 11; i <= 1000; i++) {
+      eval.iterate(buffer, new Object[] {(double) i, 0.5d});
+    }
+    assertEquals(fullSize, estimate(buffer));
+
+    eval.reset(buffer);
+    assertEquals(emptySize, estimate(buffer));
+  }
+
+  private int estimate(GenericUDAFEvaluator.AggregationBuffer buffer) {
+    return ((GenericUDAFEvaluator.AbstractAggregationBuffer) buffer).estimate();
+  }
+}
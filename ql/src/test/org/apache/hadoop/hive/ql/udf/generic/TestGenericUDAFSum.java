@@ -0,0 +1,61 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hive.ql.udf.generic;
+
+import junit.framework.TestCase;
+import org.apache.hadoop.hive.common.type.HiveDecimal;
+import org.apache.hadoop.hive.ql.metadata.HiveException;
+import org.apache.hadoop.hive.ql.util.JavaDataModel;
+import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
+import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory;
+
+public class TestGenericUDAFSum extends TestCase {
+
+  public void testDecimalEstimate() throws HiveException {
+    GenericUDAFEvaluator eval = new GenericUDAFSum().getEvaluator(
+        new TypeInfo[] {TypeInfoFactory.decimalTypeInfo});
+    eval.init(GenericUDAFEvaluator.Mode.PARTIAL1,
+        new ObjectInspector[] {PrimitiveObjectInspectorFactory.writableHiveDecimalObjectInspector});
+
+    GenericUDAFEvaluator.AggregationBuffer buffer = eval.getNewAggregationBuffer();
+    assertTrue(GenericUDAFEvaluator.isEstimable(buffer));
+    int size = estimate(buffer);
+    assertTrue(size >= JavaDataModel.get().lengthOfDecimal());
+
+    // the precision of a decimal is bounded, so the estimate covers any sum
+    eval.iterate(buffer, new Object[] {
+        new HiveDecimalWritable(HiveDecimal.create("12345678901234567890.1234567890"))});
+    eval.iterate(buffer, new Object[] {
+        new HiveDecimalWritable(HiveDecimal.create("98765432109876543210.9876543210"))});
+    assertEquals(size, estimate(buffer));
+
+    // a decimal sum takes more than a long sum
+    GenericUDAFEvaluator longEval = new GenericUDAFSum().getEvaluator(
+        new TypeInfo[] {TypeInfoFactory.longTypeInfo});
+    longEval.init(GenericUDAFEvaluator.Mode.PARTIAL1,
+        new ObjectInspector[] {PrimitiveObjectInspectorFactory.javaLongObjectInspector});
+    assertTrue(size > estimate(longEval.getNewAggregationBuffer()));
+  }
+
+  private int estimate(GenericUDAFEvaluator.AggregationBuffer buffer) {
+    return ((GenericUDAFEvaluator.AbstractAggregationBuffer) buffer).estimate();
+  }
+}
@@ -31,6 +31,16 @@
 import com.google.common.primitives.Ints;
 import com.google.common.primitives.Longs;
 import com.google.common.primitives.Shorts;
+import org.apache.hadoop.hive.serde2.SerDeUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.BooleanObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.ByteObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.DoubleObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.FloatObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.IntObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.LongObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.ShortObjectInspector;
 import org.apache.hive.service.cli.thrift.TBinaryColumn;
 import org.apache.hive.service.cli.thrift.TBoolColumn;
 import org.apache.hive.service.cli.thrift.TByteColumn;
@@ -290,27 +300,66 @@ public int size() {
     return size;
   }
 
+  public boolean isNull(int index) {
+    return nulls.get(index);
+  }
+
+  /**
+   * @return the value of a boolean column, without boxing it
+   */
+  public boolean getBoolean(int index) {
+    return boolVars[index];
+  }
+
+  /**
+   * @return the value of an integral column widened to long, without boxing it
+   */
+  public long getLong(int index) {
+    switch (type) {
+      case TINYINT_TYPE:
+        return byteVars[index];
+      case SMALLINT_TYPE:
+        return shortVars[index];
+      case INT_TYPE:
+        return intVars[index];
+      case BIGINT_TYPE:
+        return longVars[index];
+    }
+    throw new IllegalStateException("Not an integral column: " + type);
+  }
+
+  /**
+   * @return the value of a numeric column widened to double, without boxing it
+   */
+  public double getDouble(int index) {
+    if (type == Type.DOUBLE_TYPE) {
+      return doubleVars[index];
+    }
+    return getLong(index);
+  }
+
+  // the thrift columns are views of the arrays, the values are not copied
   public TColumn toTColumn() {
     TColumn value = new TColumn();
     ByteBuffer nullMasks = ByteBuffer.wrap(toBinary(nulls));
     switch (type) {
       case BOOLEAN_TYPE:
-        value.setBoolVal(new TBoolColumn(Booleans.asList(Arrays.copyOfRange(boolVars, 0, size)), nullMasks));
+        value.setBoolVal(new TBoolColumn(Booleans.asList(boolVars).subList(0, size), nullMasks));
         break;
       case TINYINT_TYPE:
-        value.setByteVal(new TByteColumn(Bytes.asList(Arrays.copyOfRange(byteVars, 0, size)), nullMasks));
+        value.setByteVal(new TByteColumn(Bytes.asList(byteVars).subList(0, size), nullMasks));
         break;
       case SMALLINT_TYPE:
-        value.setI16Val(new TI16Column(Shorts.asList(Arrays.copyOfRange(shortVars, 0, size)), nullMasks));
+        value.setI16Val(new TI16Column(Shorts.asList(shortVars).subList(0, size), nullMasks));
         break;
       case INT_TYPE:
-        value.setI32Val(new TI32Column(Ints.asList(Arrays.copyOfRange(intVars, 0, size)), nullMasks));
+        value.setI32Val(new TI32Column(Ints.asList(intVars).subList(0, size), nullMasks));
         break;
       case BIGINT_TYPE:
-        value.setI64Val(new TI64Column(Longs.asList(Arrays.copyOfRange(longVars, 0, size)), nullMasks));
+        value.setI64Val(new TI64Column(Longs.asList(longVars).subList(0, size), nullMasks));
         break;
       case DOUBLE_TYPE:
-        value.setDoubleVal(new TDoubleColumn(Doubles.asList(Arrays.copyOfRange(doubleVars, 0, size)), nullMasks));
+        value.setDoubleVal(new TDoubleColumn(Doubles.asList(doubleVars).subList(0, size), nullMasks));
         break;
       case STRING_TYPE:
         value.setStringVal(new TStringColumn(stringVars, nullMasks));
@@ -367,6 +416,56 @@ public void addValue(Type type, Object field) {
     size++;
   }
 
+  /**
+   * Add a value read with its object inspector. Primitive values are written to
+   * the column arrays without creating intermediate objects, non-primitive values
+   * are added as JSON strings.
+   */
+  public void addValue(ObjectInspector oi, Object field) {
+    if (field == null) {
+      addValue(type, null);
+      return;
+    }
+    if (oi.getCategory() != ObjectInspector.Category.PRIMITIVE) {
+      addValue(type, SerDeUtils.getJSONString(field, oi));
+      return;
+    }
+    PrimitiveObjectInspector poi = (PrimitiveObjectInspector) oi;
+    switch (type) {
+      case BOOLEAN_TYPE:
+        nulls.clear(size);
+        boolVars()[size] = ((BooleanObjectInspector) poi).get(field);
+        break;
+      case TINYINT_TYPE:
+        nulls.clear(size);
+        byteVars()[size] = ((ByteObjectInspector) poi).get(field);
+        break;
+      case SMALLINT_TYPE:
+        nulls.clear(size);
+        shortVars()[size] = ((ShortObjectInspector) poi).get(field);
+        break;
+      case INT_TYPE:
+        nulls.clear(size);
+        intVars()[size] = ((IntObjectInspector) poi).get(field);
+        break;
+      case BIGINT_TYPE:
+        nulls.clear(size);
+        longVars()[size] = ((LongObjectInspector) poi).get(field);
+        break;
+      case DOUBLE_TYPE:
+        nulls.clear(size);
+        doubleVars()[size] =
+            poi.getPrimitiveCategory() == PrimitiveObjectInspector.PrimitiveCategory.FLOAT ?
+                ((FloatObjectInspector) poi).get(field) : ((DoubleObjectInspector) poi).get(field);
+        break;
+      default:
+        // binary and string columns take objects anyway
+        addValue(type, poi.getPrimitiveJavaObject(field));
+        return;
+    }
+    size++;
+  }
+
   private boolean[] boolVars() {
     if (boolVars.length == size) {
       boolean[] newVars = new boolean[size << 1];
@@ -22,6 +22,8 @@
 import java.util.Iterator;
 import java.util.List;
 
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hive.service.cli.thrift.TColumn;
 import org.apache.hive.service.cli.thrift.TRow;
 import org.apache.hive.service.cli.thrift.TRowSet;
@@ -36,6 +38,10 @@ public class ColumnBasedSet implements RowSet {
   private final Type[] types; // non-null only for writing (server-side)
   private final List<Column> columns;
 
+  // fields of the rows added with their object inspector
+  private StructObjectInspector rowOI;
+  private List<? extends StructField> fieldRefs;
+
   public ColumnBasedSet(TableSchema schema) {
     types = schema.toTypes();
     columns = new ArrayList<Column>();
@@ -67,6 +73,23 @@ public ColumnBasedSet addRow(Object[] fields) {
     return this;
   }
 
+  /**
+   * Add a row read with its object inspector, the fields are written to the
+   * columns without being converted to objects first.
+   */
+  public ColumnBasedSet addRow(Object row, StructObjectInspector rowOI) {
+    if (rowOI != this.rowOI) {
+      this.rowOI = rowOI;
+      fieldRefs = rowOI.getAllStructFieldRefs();
+    }
+    for (int i = 0; i < fieldRefs.size(); i++) {
+      StructField fieldRef = fieldRefs.get(i);
+      columns.get(i).addValue(fieldRef.getFieldObjectInspector(),
+          rowOI.getStructFieldData(row, fieldRef));
+    }
+    return this;
+  }
+
   public List<Column> getColumns() {
     return columns;
   }
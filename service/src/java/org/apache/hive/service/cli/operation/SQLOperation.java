@@ -24,6 +24,7 @@
 import java.io.UnsupportedEncodingException;
 import java.security.PrivilegedExceptionAction;
 import java.sql.SQLException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,7 @@
 import org.apache.hadoop.hive.ql.Driver;
 import org.apache.hadoop.hive.ql.TaskStatus;
 import org.apache.hadoop.hive.ql.exec.ExplainTask;
+import org.apache.hadoop.hive.ql.exec.FetchFormatter;
 import org.apache.hadoop.hive.ql.exec.Task;
 import org.apache.hadoop.hive.ql.metadata.Hive;
 import org.apache.hadoop.hive.ql.metadata.HiveException;
@@ -57,6 +59,7 @@
 import org.apache.hadoop.hive.shims.ShimLoader;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.security.UserGroupInformation;
+import org.apache.hive.service.cli.ColumnBasedSet;
 import org.apache.hive.service.cli.FetchOrientation;
 import org.apache.hive.service.cli.HiveSQLException;
 import org.apache.hive.service.cli.OperationState;
@@ -317,6 +320,11 @@ public RowSet getNextRowSet(FetchOrientation orientation, long maxRows) throws H
       }
       fetchStarted = true;
       driver.setMaxRows((int) maxRows);
+      if (driver.isFetchingTable() && rowSet instanceof ColumnBasedSet) {
+        // rows are written into the columns as they are fetched
+        driver.getResults(new ColumnBasedSetCollector((ColumnBasedSet) rowSet));
+        return rowSet;
+      }
       if (driver.getResults(convey)) {
         return decode(convey, rowSet);
       }
@@ -332,6 +340,35 @@ public RowSet getNextRowSet(FetchOrientation orientation, long maxRows) throws H
     }
   }
 
+  /**
+   * Collects the fetched rows directly into a {@link ColumnBasedSet}, skipping
+   * the conversion of the rows to thrift objects by the fetch formatter.
+   */
+  private static class ColumnBasedSetCollector extends AbstractList<Object>
+      implements FetchFormatter.RowCollector {
+
+    private final ColumnBasedSet rowSet;
+
+    ColumnBasedSetCollector(ColumnBasedSet rowSet) {
+      this.rowSet = rowSet;
+    }
+
+    @Override
+    public void collect(Object row, ObjectInspector rowOI) {
+      rowSet.addRow(row, (StructObjectInspector) rowOI);
+    }
+
+    @Override
+    public Object get(int index) {
+      throw new UnsupportedOperationException("get");
+    }
+
+    @Override
+    public int size() {
+      return rowSet.numRows();
+    }
+  }
+
   private RowSet decode(List<Object> rows, RowSet rowSet) throws Exception {
     if (driver.isFetchingTable()) {
       return prepareFromRow(rows, rowSet);
@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hive.service.cli;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.serde2.SerDeUtils;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory;
+import org.apache.hadoop.io.BooleanWritable;
+import org.apache.hadoop.io.FloatWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.Text;
+import org.apache.hive.service.cli.thrift.TProtocolVersion;
+import org.junit.Test;
+
+public class TestColumnBasedSet {
+
+  @Test
+  public void testAddTypedRows() throws Exception {
+    List<FieldSchema> fields = new ArrayList<FieldSchema>();
+    fields.add(new FieldSchema("b", "boolean", null));
+    fields.add(new FieldSchema("i", "int", null));
+    fields.add(new FieldSchema("l", "bigint", null));
+    fields.add(new FieldSchema("f", "float", null));
+    fields.add(new FieldSchema("s", "string", null));
+    fields.add(new FieldSchema("a", "array<int>", null));
+    TableSchema schema = new TableSchema(fields);
+
+    List<ObjectInspector> fieldOIs = new ArrayList<ObjectInspector>();
+    fieldOIs.add(PrimitiveObjectInspectorFactory.writableBooleanObjectInspector);
+    fieldOIs.add(PrimitiveObjectInspectorFactory.writableIntObjectInspector);
+    fieldOIs.add(PrimitiveObjectInspectorFactory.writableLongObjectInspector);
+    fieldOIs.add(PrimitiveObjectInspectorFactory.writableFloatObjectInspector);
+    fieldOIs.add(PrimitiveObjectInspectorFactory.writableStringObjectInspector);
+    fieldOIs.add(ObjectInspectorFactory.getStandardListObjectInspector(
+        PrimitiveObjectInspectorFactory.writableIntObjectInspector));
+    StructObjectInspector rowOI = ObjectInspectorFactory.getStandardStructObjectInspector(
+        Arrays.asList("b", "i", "l", "f", "s", "a"), fieldOIs);
+
+    List<List<Object>> rows = new ArrayList<List<Object>>();
+    for (int i = 0; i < 300; i++) {
+      List<Object> row = new ArrayList<Object>();
+      row.add(new BooleanWritable(i % 2 == 0));
+      row.add(i % 7 == 0 ? null : new IntWritable(i));
+      row.add(new LongWritable(i * 1000000000L));
+      row.add(new FloatWritable(i / 4.0f));
+      row.add(i % 5 == 0 ? null : new Text("str" + i));
+      row.add(Arrays.asList(new IntWritable(i), new IntWritable(-i)));
+      rows.add(row);
+    }
+
+    ColumnBasedSet typed = (ColumnBasedSet) RowSetFactory.create(schema,
+        TProtocolVersion.HIVE_CLI_SERVICE_PROTOCOL_V6);
+    ColumnBasedSet converted = (ColumnBasedSet) RowSetFactory.create(schema,
+        TProtocolVersion.HIVE_CLI_SERVICE_PROTOCOL_V6);
+    List<? extends StructField> fieldRefs = rowOI.getAllStructFieldRefs();
+    for (List<Object> row : rows) {
+      typed.addRow(row, rowOI);
+      Object[] payload = new Object[fieldRefs.size()];
+      for (int i = 0; i < payload.length; i++) {
+        Object field = rowOI.getStructFieldData(row, fieldRefs.get(i));
+        payload[i] = field == null ? null : SerDeUtils.toThriftPayload(field,
+            fieldRefs.get(i).getFieldObjectInspector(),
+            TProtocolVersion.HIVE_CLI_SERVICE_PROTOCOL_V6.getValue());
+      }
+      converted.addRow(payload);
+    }
+
+    assertEquals(rows.size(), typed.numRows());
+    assertEquals(converted.toTRowSet(), typed.toTRowSet());
+    Iterator<Object[]> expected = converted.iterator();
+    for (Object[] actual : typed) {
+      assertArrayEquals(expected.next(), actual);
+    }
+  }
+
+  @Test
+  public void testPrimitiveColumnRoundTrip() throws Exception {
+    TableSchema schema = new TableSchema()
+        .addPrimitiveColumn("b", Type.BOOLEAN_TYPE, null)
+        .addPrimitiveColumn("i", Type.INT_TYPE, null)
+        .addPrimitiveColumn("l", Type.BIGINT_TYPE, null)
+        .addPrimitiveColumn("d", Type.DOUBLE_TYPE, null);
+    ColumnBasedSet rowSet = new ColumnBasedSet(schema);
+    for (int i = 0; i < 1000; i++) {
+      rowSet.addRow(new Object[] {i % 2 == 0, i % 3 == 0 ? null : i, (long) i << 32, i / 2.0});
+    }
+
+    ColumnBasedSet received = new ColumnBasedSet(rowSet.toTRowSet());
+    assertEquals(1000, received.numRows());
+    List<Column> columns = received.getColumns();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i % 2 == 0, columns.get(0).getBoolean(i));
+      assertEquals(i % 3 == 0, columns.get(1).isNull(i));
+      if (i % 3 != 0) {
+        assertEquals(i, columns.get(1).getLong(i));
+        assertEquals(i, columns.get(1).getDouble(i), 0);
+      }
+      assertEquals((long) i << 32, columns.get(2).getLong(i));
+      assertEquals(i / 2.0, columns.get(3).getDouble(i), 0);
+    }
+  }
+}